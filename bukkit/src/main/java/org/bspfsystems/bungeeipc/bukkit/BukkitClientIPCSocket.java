@@ -20,25 +20,41 @@
 
 package org.bspfsystems.bungeeipc.bukkit;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.LinkedList;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
-import org.bspfsystems.bungeeipc.api.common.AbstractIPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCProtocolException;
+import org.bspfsystems.bungeeipc.api.common.IPCSendQueue;
 import org.bspfsystems.bungeeipc.api.client.ClientIPCSocket;
-import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.bspfsystems.bungeeipc.api.common.VirtualThreads;
+import org.bspfsystems.bungeeipc.api.common.transport.IPCConnection;
+import org.bspfsystems.bungeeipc.api.common.transport.SharedMemoryRings;
+import org.bspfsystems.bungeeipc.api.common.transport.SocketConnection;
+import org.bspfsystems.bungeeipc.api.common.transport.TransportType;
+import org.bspfsystems.bungeeipc.api.common.transport.UnixDomainSockets;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.scheduler.BukkitScheduler;
 import org.jetbrains.annotations.NotNull;
@@ -52,28 +68,40 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
     private final BukkitIPCPlugin ipcPlugin;
     private final Logger logger;
     
+    private final TransportType transport;
     private final InetAddress address;
     private final int port;
+    private final Path socketPath;
     
     private final SSLSocketFactory sslSocketFactory;
     private final List<String> tlsVersionWhitelist;
     private final List<String> tlsCipherSuiteWhitelist;
     
     private DataOutputStream toBungee;
-    private Socket socket;
+    private IPCConnection connection;
     
     private final BukkitScheduler scheduler;
+    private final boolean useVirtualThreads;
     private final AtomicBoolean running;
     private final AtomicBoolean connected;
     private final AtomicInteger taskId;
+    private final AtomicReference<String> serverName;
+    
+    private final IPCSendQueue sendQueue;
     
     /**
      * Constructs a new {@link BukkitClientIPCSocket}.
      * 
      * @param ipcPlugin The {@link BukkitIPCPlugin} controlling the
      *                  {@link BukkitClientIPCSocket}.
-     * @param config The {@link YamlConfiguration} used to configure the IP
-     *               address and port to connect to.
+     * @param config The {@link YamlConfiguration} used to configure the
+     *               transport, and the IP address and port or socket path to
+     *               connect to.
+     * @param stripe The index of the connection this
+     *               {@link BukkitClientIPCSocket} handles, when there are
+     *               several parallel connections. It is added to the configured
+     *               port, and appended to the configured socket path, if not
+     *               {@code 0}.
      * @param sslSocketFactory The {@link SSLSocketFactory} used for SSL/TLS
      *                         encryption on the connection.
      * @param tlsVersionWhitelist A {@link List} of SSL/TLS versions that the
@@ -85,40 +113,79 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
      *                                  setting up the
      *                                  {@link BukkitClientIPCSocket}.
      */
-    BukkitClientIPCSocket(@NotNull final BukkitIPCPlugin ipcPlugin, @NotNull final YamlConfiguration config, @Nullable final SSLSocketFactory sslSocketFactory, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist) throws IllegalArgumentException {
+    BukkitClientIPCSocket(@NotNull final BukkitIPCPlugin ipcPlugin, @NotNull final YamlConfiguration config, final int stripe, @Nullable final SSLSocketFactory sslSocketFactory, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist) throws IllegalArgumentException {
         
         this.ipcPlugin = ipcPlugin;
         this.logger = this.ipcPlugin.getLogger();
         
-        final String addressValue = config.getString("bungeecord_ip", "localhost");
-        final int portValue = config.getInt("port", -1);
-        
-        if (addressValue.trim().isEmpty()) {
-            throw new IllegalArgumentException("IP address cannot be blank.");
-        }
-        if (portValue == -1) {
-            throw new IllegalArgumentException("Port must be specified in the config.");
-        }
-        if (portValue < 1024 || portValue > 65535) {
-            throw new IllegalArgumentException("Port must be between 1024 and 65535, inclusive.");
-        }
+        this.transport = TransportType.fromName(config.getString("transport", TransportType.TCP.getName()));
         
-        try {
-            this.address = InetAddress.getByName(addressValue);
-        } catch (final UnknownHostException e) {
-            throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
+        if (this.transport == TransportType.TCP) {
+            
+            final String addressValue = config.getString("bungeecord_ip", "localhost");
+            final int portValue = config.getInt("port", -1);
+            
+            if (addressValue.trim().isEmpty()) {
+                throw new IllegalArgumentException("IP address cannot be blank.");
+            }
+            if (portValue == -1) {
+                throw new IllegalArgumentException("Port must be specified in the config.");
+            }
+            if (portValue < 1024 || portValue > 65535) {
+                throw new IllegalArgumentException("Port must be between 1024 and 65535, inclusive.");
+            }
+            
+            try {
+                this.address = InetAddress.getByName(addressValue);
+            } catch (final UnknownHostException e) {
+                throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
+            }
+            if (portValue + stripe > 65535) {
+                throw new IllegalArgumentException("Not enough ports from " + portValue + " for " + (stripe + 1) + " connections.");
+            }
+            this.port = portValue + stripe;
+            this.socketPath = null;
+        } else {
+            
+            if (!this.transport.isSupported()) {
+                throw new IllegalArgumentException("The " + this.transport.getName() + " transport requires Java 16 or newer.");
+            }
+            if (sslSocketFactory != null) {
+                this.logger.log(Level.CONFIG, "SSL/TLS settings are not used by the " + this.transport.getName() + " transport.");
+            }
+            
+            final String socketPathValue = config.getString("socket_path", "");
+            if (socketPathValue.trim().isEmpty()) {
+                throw new IllegalArgumentException("Socket path must be specified in the config when using the " + this.transport.getName() + " transport.");
+            }
+            
+            this.address = null;
+            this.port = -1;
+            try {
+                this.socketPath = Paths.get(stripe == 0 ? socketPathValue : socketPathValue + "." + stripe);
+            } catch (final InvalidPathException e) {
+                throw new IllegalArgumentException("Unable to decipher socket path from config value.", e);
+            }
         }
-        this.port = portValue;
         
         this.sslSocketFactory = sslSocketFactory;
         this.tlsVersionWhitelist = tlsVersionWhitelist;
         this.tlsCipherSuiteWhitelist = tlsCipherSuiteWhitelist;
         
         this.scheduler = this.ipcPlugin.getServer().getScheduler();
+        final boolean useVirtualThreadsValue = config.getBoolean("use_virtual_threads", false);
+        if (useVirtualThreadsValue && !VirtualThreads.isSupported()) {
+            this.logger.log(Level.WARNING, "Virtual threads require Java 21 or newer.");
+            this.logger.log(Level.WARNING, "The IPC client will use the Bukkit scheduler instead.");
+        }
+        this.useVirtualThreads = useVirtualThreadsValue && VirtualThreads.isSupported();
         this.running = new AtomicBoolean(false);
         this.connected = new AtomicBoolean(false);
         this.taskId = new AtomicInteger(-1);
+        this.serverName = new AtomicReference<String>(null);
         this.toBungee = null;
+        
+        this.sendQueue = new IPCSendQueue("IPC client", "the BungeeCord proxy", this.logger, this.ipcPlugin.getExpiryCounters(), this::isConnected, task -> this.scheduler.runTask(this.ipcPlugin, task), config.getInt("send_queue_capacity", 4096), 0L);
     }
     
     /**
@@ -137,6 +204,15 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
         return this.running.get() && this.connected.get();
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public String getServerName() {
+        return this.serverName.get();
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -144,7 +220,7 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
     public void start() {
         this.logger.log(Level.INFO, "Starting the IPC client socket.");
         this.running.set(true);
-        this.taskId.set(this.scheduler.runTaskAsynchronously(this.ipcPlugin, this).getTaskId());
+        this.scheduleConnect(0L);
     }
     
     /**
@@ -156,13 +232,18 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
         try {
             this.logger.log(Level.INFO, "Attempting to connect to the IPC server...");
             
-            if (this.sslSocketFactory != null) {
-                this.socket = this.sslSocketFactory.createSocket(this.address, this.port);
-                ((SSLSocket) this.socket).setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
-                ((SSLSocket) this.socket).setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
-                ((SSLSocket) this.socket).startHandshake();
+            if (this.transport == TransportType.UNIX) {
+                this.connection = UnixDomainSockets.connect(this.socketPath);
+            } else if (this.transport == TransportType.SHARED_MEMORY) {
+                this.connection = SharedMemoryRings.connect(this.socketPath);
+            } else if (this.sslSocketFactory != null) {
+                final SSLSocket socket = (SSLSocket) this.sslSocketFactory.createSocket(this.address, this.port);
+                this.connection = new SocketConnection(socket);
+                socket.setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
+                socket.setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
+                socket.startHandshake();
             } else {
-                this.socket = new Socket(this.address, this.port);
+                this.connection = new SocketConnection(new Socket(this.address, this.port));
             }
             
             this.connected.set(true);
@@ -170,29 +251,63 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
         } catch (final IOException e) {
             
             this.logger.log(Level.INFO, "Unable to connect to IPC server.");
-            this.logger.log(Level.CONFIG, "IP Address  - " + this.address.getHostAddress());
-            this.logger.log(Level.CONFIG, "Port Number - " + this.port);
+            this.logConnectionDetails();
             this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
             
-            this.taskId.set(this.scheduler.runTaskLaterAsynchronously(this.ipcPlugin, this, 40).getTaskId());
+            this.scheduleConnect(40L);
             return;
         }
         
         try {
             
-            this.toBungee = new DataOutputStream(this.socket.getOutputStream());
-            final DataInputStream fromBungee = new DataInputStream(this.socket.getInputStream());
+            this.toBungee = new DataOutputStream(new BufferedOutputStream(this.connection.getOutputStream()));
+            final DataInputStream fromBungee = new DataInputStream(new BufferedInputStream(this.connection.getInputStream()));
+            
+            final DataOutputStream toBungee = this.toBungee;
+            final IPCConnection connection = this.connection;
+            final Runnable writer = () -> this.sendQueue.write(toBungee, connection, "");
+            if (this.useVirtualThreads) {
+                VirtualThreads.start("BungeeIPC Client Writer", writer);
+            } else {
+                this.scheduler.runTaskAsynchronously(this.ipcPlugin, writer);
+            }
+            
+            final String serverName = IPCFrameCodec.readHandshake(fromBungee);
+            this.serverName.set(serverName);
+            this.logger.log(Level.INFO, "IPC server identified this Minecraft server as " + serverName + ".");
+            this.ipcPlugin.sendSubscriptions();
+            this.ipcPlugin.syncReplicatedMaps();
             
             while(this.connected.get()) {
-                final IPCMessage message = SimpleClientIPCMessage.read(fromBungee.readUTF());
-                this.scheduler.runTask(this.ipcPlugin, () -> this.ipcPlugin.receiveMessage(message));
+                
+                final byte frameType = fromBungee.readByte();
+                if (frameType == IPCFrameCodec.MESSAGE) {
+                    final IPCMessage message = IPCFrameCodec.read(fromBungee.readUTF(), null);
+                    this.ipcPlugin.dispatchMessage(message);
+                } else if (frameType == IPCFrameCodec.BATCH) {
+                    final List<IPCMessage> messages = IPCFrameCodec.readBatch(fromBungee, null);
+                    this.scheduler.runTask(this.ipcPlugin, () -> this.ipcPlugin.receiveBatch(messages));
+                } else if (frameType == IPCFrameCodec.PING) {
+                    this.sendQueue.pong(fromBungee.readLong());
+                } else if (frameType == IPCFrameCodec.PONG) {
+                    // Do nothing, the IPC client does not send ping frames.
+                    fromBungee.readLong();
+                } else {
+                    throw new IOException("Unknown IPC frame type: " + frameType);
+                }
             }
         } catch (final IOException e) {
             
-            this.logger.log(Level.INFO, "IPC connection broken.");
-            this.logger.log(Level.CONFIG, "IP Address  - " + this.address.getHostAddress());
-            this.logger.log(Level.CONFIG, "Port Number - " + this.port);
-            this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+            if (e instanceof IPCProtocolException) {
+                this.logger.log(Level.WARNING, "IPC connection rejected. " + e.getMessage());
+                this.logger.log(Level.WARNING, "The BungeeCord proxy and all Bukkit servers must run the same version of BungeeIPC.");
+                this.logger.log(Level.WARNING, "The IPC client will try to connect again in 60 seconds.");
+                this.logConnectionDetails();
+            } else {
+                this.logger.log(Level.INFO, "IPC connection broken.");
+                this.logConnectionDetails();
+                this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+            }
             
             try {
                 if (this.toBungee != null) {
@@ -205,100 +320,49 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
             }
             
             try {
-                if (this.socket != null) {
-                    this.socket.close();
+                if (this.connection != null) {
+                    this.connection.close();
                 }
             } catch (final IOException e1) {
                 this.logger.log(Level.WARNING, "Failure for IPC client.");
-                this.logger.log(Level.WARNING, "Unable to close the Socket after the IPC connection was broken.");
+                this.logger.log(Level.WARNING, "Unable to close the IPCConnection after the IPC connection was broken.");
                 this.logger.log(Level.WARNING, e1.getClass().getSimpleName() + " thrown.", e1);
             }
             
             this.connected.set(false);
             this.toBungee = null;
+            this.sendQueue.clear();
             
             if (this.running.get()) {
-                this.taskId.set(this.scheduler.runTaskLaterAsynchronously(this.ipcPlugin, this, 5).getTaskId());
+                this.scheduleConnect(e instanceof IPCProtocolException ? 1200L : 5L);
             }
         }
     }
     
     /**
-     * Represents a simple extension of an {@link AbstractIPCMessage}, used when
-     * reading in a serialized {@link IPCMessage}.
+     * Schedules an attempt to connect to the IPC server after the given delay.
+     * The connection itself is run on a new virtual thread if this
+     * {@link BukkitClientIPCSocket} uses them, or on the Bukkit scheduler's
+     * asynchronous thread otherwise.
+     * 
+     * @param delay The delay before the attempt, in server ticks.
      */
-    private static class SimpleClientIPCMessage extends AbstractIPCMessage {
-        
-        /**
-         * Constructs a new {@link IPCMessage}.
-         * 
-         * @param origin The origin {@link IPCSocket}.
-         * @param destination The destination {@link IPCSocket}.
-         * @param channel The channel the {@link IPCMessage} will be read by.
-         * @param data The initial data as a {@link Queue}. Order will be
-         *             maintained.
-         * @throws IllegalArgumentException If {@code origin},
-         *                                  {@code destination}, and/or
-         *                                  {@code channel} are blank, or if any
-         *                                  element in {@code data} is
-         *                                  {@code null}.
-         * @throws IllegalStateException If the given parameters contain too much
-         *                               data to send in a single
-         *                               {@link IPCMessage}.
-         * @see AbstractIPCMessage#AbstractIPCMessage(String, String, String, Queue)
-         */
-        private SimpleClientIPCMessage(@NotNull final String origin, @NotNull final String destination, @NotNull final String channel, @NotNull final Queue<String> data) {
-            super(origin, destination, channel, data);
-        }
-        
-        /**
-         * Reads in the given raw {@link IPCMessage} (as a {@link String}), and
-         * deserializes it into an {@link IPCMessage}.
-         * 
-         * @param message The serialized {@link IPCMessage} as a {@link String}.
-         * @return The deserialized {@link IPCMessage}.
-         * @throws IllegalArgumentException If the given message is blank.
-         * @throws IllegalStateException If the given parameters contain too much
-         *                               data to send in a single
-         *                               {@link IPCMessage}.
-         */
-        @NotNull
-        private static IPCMessage read(@NotNull String message) throws IllegalArgumentException, IllegalStateException {
-            
-            if (message.trim().isEmpty()) {
-                throw new IllegalArgumentException("IPCMessage data cannot be blank, cannot recreate IPCMessage: " + message);
-            }
-            
-            final Queue<String> split = new LinkedList<String>();
-            
-            int index = message.indexOf(AbstractIPCMessage.SEPARATOR);
-            while (index != -1) {
-                split.add(message.substring(0, index));
-                message = message.substring(index + AbstractIPCMessage.SEPARATOR.length());
-                index = message.indexOf(AbstractIPCMessage.SEPARATOR);
-            }
-            split.add(message);
-            
-            if (split.size() < 3) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing some combination of origin, destination, and/or channel (data not required): " + message);
-            }
-            
-            final String origin = split.poll();
-            if (origin == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing origin: " + message);
-            }
-            
-            final String destination = split.poll();
-            if (destination == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing destination: " + message);
-            }
-            
-            final String channel = split.poll();
-            if (channel == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing channel: " + message);
-            }
-            
-            return new SimpleClientIPCMessage(origin, destination, channel, split);
+    private void scheduleConnect(final long delay) {
+        final Runnable task = this.useVirtualThreads ? () -> VirtualThreads.start("BungeeIPC Client", this) : this;
+        this.taskId.set(this.scheduler.runTaskLaterAsynchronously(this.ipcPlugin, task, delay).getTaskId());
+    }
+    
+    /**
+     * Logs the details of where this {@link BukkitClientIPCSocket} connects
+     * to, for troubleshooting a failed or broken connection.
+     */
+    private void logConnectionDetails() {
+        this.logger.log(Level.CONFIG, "Transport   - " + this.transport.getName());
+        if (this.transport == TransportType.TCP) {
+            this.logger.log(Level.CONFIG, "IP Address  - " + this.address.getHostAddress());
+            this.logger.log(Level.CONFIG, "Port Number - " + this.port);
+        } else {
+            this.logger.log(Level.CONFIG, "Socket Path - " + this.socketPath);
         }
     }
     
@@ -322,53 +386,154 @@ final class BukkitClientIPCSocket implements ClientIPCSocket {
         }
         
         try {
-            if (this.socket != null) {
-                this.socket.close();
+            if (this.connection != null) {
+                this.connection.close();
             }
         } catch (final IOException e) {
             this.logger.log(Level.WARNING, "Failure for IPC client.");
-            this.logger.log(Level.WARNING, "Unable to close the Socket during shutdown.");
+            this.logger.log(Level.WARNING, "Unable to close the IPCConnection during shutdown.");
             this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
         }
         
         this.running.set(false);
         this.connected.set(false);
         this.toBungee = null;
+        this.sendQueue.clear();
         this.logger.log(Level.INFO, "IPC client closed.");
     }
     
     /**
      * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage} on the send queue and wakes the
+     * writer, and never blocks on the connection itself. It is therefore safe
+     * to call from the main server thread.
      */
     @Override
-    public synchronized void sendMessage(@NotNull final IPCMessage message) {
-        this.scheduler.runTaskAsynchronously(this.ipcPlugin, () -> this.send(message));
+    public void sendMessage(@NotNull final IPCMessage message) {
+        this.sendAsync(message).exceptionally(e -> {
+            this.logger.log(Level.WARNING, "Unable to send IPC message.");
+            this.logger.log(Level.WARNING, e.getMessage());
+            return null;
+        });
     }
     
     /**
-     * Performs the sending of the given {@link IPCMessage} to the proxy.
-     * 
-     * @param message The {@link IPCMessage} to send to the proxy.
+     * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage} on the send queue and wakes the
+     * writer, and never blocks on the connection itself. It is therefore safe
+     * to call from the main server thread. The returned
+     * {@link CompletableFuture} is completed on the main server thread, so it
+     * must never be waited on there.
+     * <p>
+     * If the channel of the {@link IPCMessage} is conflated, and an unsent
+     * {@link IPCMessage} with the same destination, channel and ordering key
+     * is already on the send queue, that {@link IPCMessage} is replaced in place instead,
+     * and the returned {@link CompletableFuture} completes when the
+     * replacement has been sent.
      */
-    private synchronized void send(@NotNull final IPCMessage message) {
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
         
-        if (!this.connected.get()) {
-            this.logger.log(Level.WARNING, "Unable to send IPC message.");
-            this.logger.log(Level.WARNING, "IPC Client not connected.");
-            return;
+        final String serverName = this.serverName.get();
+        if (serverName != null && message.getDestination().equals(serverName)) {
+            return this.deliverLocally(Collections.singletonList(message), serverName);
         }
-        if (this.toBungee == null) {
-            this.logger.log(Level.SEVERE, "Unable to send IPC message.");
-            this.logger.log(Level.SEVERE, "IPC Client output to Bungee proxy is null.");
-            this.logger.log(Level.SEVERE, "Client check determined that the connection is valid.");
-            return;
+        if (!this.ipcPlugin.isConflated(message.getChannel())) {
+            return this.sendQueue.send(message, null);
+        }
+        return this.sendQueue.send(message, Arrays.asList(message.getDestination(), message.getChannel(), message.getOrderingKey()));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage IPCMessages} on the send queue
+     * and wakes the writer, and never blocks on the connection itself.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
         }
         
-        try {
-            this.toBungee.writeUTF(message.write());
-        } catch (final IOException e) {
-            this.logger.log(Level.WARNING, "Cannot send IPC message to Bungee proxy.");
-            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+        final String serverName = this.serverName.get();
+        if (serverName == null) {
+            return this.sendQueue.sendBatch(new ArrayList<IPCMessage>(messages));
+        }
+        
+        final List<IPCMessage> local = new ArrayList<IPCMessage>();
+        final List<IPCMessage> remote = new ArrayList<IPCMessage>(messages.size());
+        for (final IPCMessage message : messages) {
+            if (message.getDestination().equals(serverName)) {
+                local.add(message);
+            } else {
+                remote.add(message);
+            }
         }
+        
+        if (local.isEmpty()) {
+            return this.sendQueue.sendBatch(remote);
+        }
+        final CompletableFuture<Void> localFuture = this.deliverLocally(local, serverName);
+        if (remote.isEmpty()) {
+            return localFuture;
+        }
+        return CompletableFuture.allOf(localFuture, this.sendQueue.sendBatch(remote));
+    }
+    
+    /**
+     * Delivers the given {@link IPCMessage IPCMessages}, all of which are
+     * addressed to this Minecraft server, to the {@link BukkitIPCPlugin}
+     * without sending them to the BungeeCord proxy.
+     * <p>
+     * The {@link IPCMessage IPCMessages} are copied with this Minecraft
+     * server's name as their origin, exactly as the BungeeCord proxy would
+     * have done, and are read on the main server thread.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to deliver.
+     * @param serverName The name of this Minecraft server.
+     * @return A {@link CompletableFuture} that has already completed.
+     */
+    @NotNull
+    private CompletableFuture<Void> deliverLocally(@NotNull final List<IPCMessage> messages, @NotNull final String serverName) {
+        
+        final List<IPCMessage> copies = new ArrayList<IPCMessage>(messages.size());
+        for (final IPCMessage message : messages) {
+            // The serialized form always starts with the origin.
+            copies.add(IPCFrameCodec.read(serverName + message.write().substring(message.getOrigin().length()), null));
+        }
+        
+        this.scheduler.runTask(this.ipcPlugin, () -> this.ipcPlugin.receiveBatch(copies));
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWritable() {
+        return this.sendQueue.isWritable();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getQueueDepth() {
+        return this.sendQueue.getQueueDepth();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} will be run on the main server thread.
+     */
+    @Override
+    public void onWritable(@NotNull final Runnable callback) {
+        this.sendQueue.onWritable(callback);
     }
 }
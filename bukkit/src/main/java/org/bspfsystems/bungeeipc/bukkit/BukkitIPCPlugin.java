@@ -27,17 +27,35 @@ import java.io.InputStream;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocketFactory;
+import org.bspfsystems.bungeeipc.api.client.ClientIPCMessage;
 import org.bspfsystems.bungeeipc.api.client.ClientIPCSocket;
+import org.bspfsystems.bungeeipc.api.common.ExpiryCounters;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.bspfsystems.bungeeipc.api.common.IPCSendException;
+import org.bspfsystems.bungeeipc.api.common.TimingWheel;
+import org.bspfsystems.bungeeipc.api.common.crdt.CRDT;
 import org.bspfsystems.bungeeipc.api.client.ClientIPCPlugin;
+import org.bspfsystems.bungeeipc.api.client.ReplicatedMap;
+import org.bspfsystems.bungeeipc.api.common.transport.TransportType;
 import org.bspfsystems.bungeeipc.bukkit.command.IPCTabExecutor;
+import org.bspfsystems.bungeeipc.netty.NettyTransport;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
@@ -46,7 +64,9 @@ import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the implementation of a Bukkit {@link JavaPlugin} that provides
@@ -60,6 +80,23 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
     
     private ClientIPCSocket socket;
     private ConcurrentHashMap<String, IPCReader> readers;
+    private ConcurrentHashMap<String, BukkitReplicatedMap> replicatedMaps;
+    private ConcurrentHashMap<String, CRDT> crdts;
+    private ConcurrentHashMap<String, List<String>> unsentCRDTDeltas;
+    private ConcurrentHashMap<String, Integer> crdtSyncRounds;
+    private Set<String> crdtStatesMerged;
+    private long crdtIncarnation;
+    private BukkitTask crdtGossipTask;
+    private int crdtGossipRound;
+    private volatile Set<String> conflatedChannels;
+    private ConcurrentHashMap<List<String>, IPCMessage> conflated;
+    private ExpiryCounters expiryCounters;
+    private TimingWheel timingWheel;
+    
+    private SSLContext sslContext;
+    private String sslContextProtocol;
+    
+    private NettyTransport nettyTransport;
     
     /**
      * Explicitly define the constructor.
@@ -97,11 +134,25 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
         this.logger.log(Level.INFO, "///////////////////////////////////////////////////////////////////////////");
         
         this.scheduler = this.getServer().getScheduler();
+        this.timingWheel = new TimingWheel("BungeeIPC Timing Wheel", this.logger, 10L, TimeUnit.MILLISECONDS, 512, task -> this.scheduler.runTaskAsynchronously(this, task));
         
         // IPCReader setup
         
         this.readers = new ConcurrentHashMap<String, IPCReader>();
-        this.addReader("SERVER_COMMAND", new BungeeBukkitIPCReader(this));
+        this.replicatedMaps = new ConcurrentHashMap<String, BukkitReplicatedMap>();
+        this.crdts = new ConcurrentHashMap<String, CRDT>();
+        this.unsentCRDTDeltas = new ConcurrentHashMap<String, List<String>>();
+        this.crdtSyncRounds = new ConcurrentHashMap<String, Integer>();
+        this.crdtStatesMerged = ConcurrentHashMap.newKeySet();
+        this.crdtIncarnation = System.currentTimeMillis();
+        this.conflatedChannels = Collections.emptySet();
+        this.conflated = new ConcurrentHashMap<List<String>, IPCMessage>();
+        this.expiryCounters = new ExpiryCounters();
+        final BungeeBukkitIPCReader bukkitReader = new BungeeBukkitIPCReader(this);
+        this.addReader("SERVER_COMMAND", bukkitReader);
+        this.addReader("REPLICATED_MAP", bukkitReader);
+        this.addReader("CRDT_GOSSIP", bukkitReader);
+        this.addReader("CRDT_SYNC", bukkitReader);
         
         // Command setup
         
@@ -167,10 +218,22 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
     @Override
     public void onDisable() {
         this.removeReader("SERVER_COMMAND");
+        this.removeReader("REPLICATED_MAP");
+        this.removeReader("CRDT_GOSSIP");
+        this.removeReader("CRDT_SYNC");
+        if (this.crdtGossipTask != null) {
+            this.crdtGossipTask.cancel();
+            this.crdtGossipTask = null;
+        }
+        this.timingWheel.stop();
         
         if (this.socket != null) {
             this.socket.stop();
         }
+        if (this.nettyTransport != null) {
+            this.nettyTransport.shutdown();
+            this.nettyTransport = null;
+        }
     }
     
     /////////////////////////////////////
@@ -186,7 +249,11 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
         if (this.readers.containsKey(channel)) {
             return false;
         }
-        return this.readers.put(channel, reader) == null;
+        if (this.readers.put(channel, reader) != null) {
+            return false;
+        }
+        this.sendSubscriptions();
+        return true;
     }
     
     /**
@@ -195,7 +262,11 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
     @Override
     public boolean removeReader(@NotNull final String channel) {
         BukkitIPCPlugin.validateNotBlank(channel, "Channel cannot be blank!");
-        return this.readers.remove(channel) != null;
+        if (this.readers.remove(channel) == null) {
+            return false;
+        }
+        this.sendSubscriptions();
+        return true;
     }
     
     /**
@@ -215,8 +286,46 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
      * {@inheritDoc}
      */
     @Override
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
+        if (this.socket == null) {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, "IPC Client not configured."));
+            return future;
+        }
+        return this.socket.sendAsync(message);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All {@link IPCMessage IPCMessages} are sent to the BungeeCord proxy in a
+     * single frame, where they are routed onwards to their destinations.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        if (this.socket == null) {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, "IPC Client not configured."));
+            return future;
+        }
+        return this.socket.sendBatch(messages);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Expired {@link IPCMessage IPCMessages} are discarded instead.
+     */
+    @Override
     public void receiveMessage(@NotNull final IPCMessage message) {
         
+        if (message.isExpired()) {
+            this.expiryCounters.add(ExpiryCounters.Stage.DISPATCH, 1);
+            return;
+        }
+        
         final String channel = message.getChannel();
         final IPCReader reader = this.readers.get(channel);
         if (reader == null) {
@@ -228,6 +337,114 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
         reader.readMessage(message);
     }
     
+    /**
+     * Advertises the channels of all registered {@link IPCReader IPCReaders}
+     * to the BungeeCord proxy, so that it only forwards broadcast
+     * {@link IPCMessage IPCMessages} on those channels to this server.
+     * <p>
+     * This is sent whenever an {@link IPCReader} is added or removed, and
+     * each time the proxy identifies this server after (re)connecting. If
+     * the {@link ClientIPCSocket} is not connected, nothing is sent. If there
+     * are too many channels to fit in a single {@link IPCMessage}, the proxy
+     * is instead asked to forward all broadcast {@link IPCMessage IPCMessages}
+     * to this server.
+     */
+    void sendSubscriptions() {
+        
+        final ClientIPCSocket socket = this.socket;
+        if (socket == null || !socket.isConnected()) {
+            return;
+        }
+        
+        final List<String> data = new ArrayList<String>();
+        data.add("SET");
+        data.addAll(this.readers.keySet());
+        
+        IPCMessage message;
+        try {
+            message = new ClientIPCMessage(IPCMessage.PROXY_SERVER, "PROXY_SUBSCRIPTIONS", data);
+        } catch (final IllegalStateException e) {
+            this.logger.log(Level.WARNING, "Unable to advertise the IPCReader channels to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "All broadcast IPC messages will be sent to this server.");
+            this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+            message = new ClientIPCMessage(IPCMessage.PROXY_SERVER, "PROXY_SUBSCRIPTIONS");
+            message.add("ALL");
+        }
+        socket.sendMessage(message);
+    }
+    
+    /**
+     * Schedules the given {@link IPCMessage}, received in a single message
+     * frame, to be processed on the main server thread.
+     * <p>
+     * If the channel of the {@link IPCMessage} is conflated, and an
+     * {@link IPCMessage} with the same origin, channel and ordering key is
+     * already waiting to be processed, that {@link IPCMessage} is replaced in place
+     * instead, so that only the latest one is processed.
+     * 
+     * @param message The received {@link IPCMessage}.
+     */
+    void dispatchMessage(@NotNull final IPCMessage message) {
+        
+        if (!this.isConflated(message.getChannel())) {
+            this.scheduler.runTask(this, () -> this.receiveMessage(message));
+            return;
+        }
+        
+        final List<String> key = Arrays.asList(message.getOrigin(), message.getChannel(), message.getOrderingKey());
+        if (this.conflated.put(key, message) == null) {
+            this.scheduler.runTask(this, () -> this.receiveMessage(this.conflated.remove(key)));
+        }
+    }
+    
+    /**
+     * Gets the {@link ExpiryCounters} of the expired
+     * {@link IPCMessage IPCMessages} discarded by this server, rather than
+     * sent or read.
+     * 
+     * @return The {@link ExpiryCounters}.
+     */
+    @NotNull
+    public ExpiryCounters getExpiryCounters() {
+        return this.expiryCounters;
+    }
+    
+    /**
+     * Gets the {@link TimingWheel} that drives the internal timeouts of this
+     * {@link BukkitIPCPlugin}, such as those of replicated map writes.
+     * 
+     * @return The {@link TimingWheel}.
+     */
+    @NotNull
+    TimingWheel getTimingWheel() {
+        return this.timingWheel;
+    }
+    
+    /**
+     * Gets whether only the latest {@link IPCMessage} for each ordering key on
+     * the given channel needs to be delivered, so that unsent or unprocessed
+     * {@link IPCMessage IPCMessages} on it may be replaced by newer ones.
+     * 
+     * @param channel The channel.
+     * @return {@code true} if the channel is conflated, {@code false}
+     *         otherwise.
+     */
+    boolean isConflated(@NotNull final String channel) {
+        return this.conflatedChannels.contains(channel);
+    }
+    
+    /**
+     * Receives the {@link IPCMessage IPCMessages} of a single batch frame and
+     * processes them in order.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to be processed.
+     */
+    void receiveBatch(@NotNull final List<IPCMessage> messages) {
+        for (final IPCMessage message : messages) {
+            this.receiveMessage(message);
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -244,6 +461,35 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
         return this.socket != null && this.socket.isConnected();
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public String getServerName() {
+        return this.socket == null ? null : this.socket.getServerName();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isClientWritable() {
+        return this.socket != null && this.socket.isWritable();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onClientWritable(@NotNull final Runnable callback) {
+        if (this.socket == null) {
+            this.logger.log(Level.WARNING, "Cannot register writable callback, IPCSocket is null.");
+            return;
+        }
+        this.socket.onWritable(callback);
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -260,6 +506,322 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
         this.scheduler.runTaskLaterAsynchronously(this, this::startClient, 40);
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public ReplicatedMap getReplicatedMap(@NotNull final String name) throws IllegalArgumentException {
+        BukkitIPCPlugin.validateNotBlank(name, "Replicated map name cannot be blank!");
+        
+        final BukkitReplicatedMap replicatedMap = new BukkitReplicatedMap(this, name);
+        final BukkitReplicatedMap existing = this.replicatedMaps.putIfAbsent(name, replicatedMap);
+        if (existing != null) {
+            return existing;
+        }
+        
+        final ClientIPCSocket socket = this.socket;
+        if (socket != null && socket.isConnected()) {
+            replicatedMap.sync();
+        }
+        return replicatedMap;
+    }
+    
+    /**
+     * Gets the {@link BukkitReplicatedMap} with the given name, if it has
+     * been used on this server.
+     * 
+     * @param name The name of the {@link BukkitReplicatedMap}.
+     * @return The {@link BukkitReplicatedMap}, or {@code null} if it has not
+     *         been used.
+     */
+    @Nullable
+    BukkitReplicatedMap findReplicatedMap(@NotNull final String name) {
+        return this.replicatedMaps.get(name);
+    }
+    
+    /**
+     * Asks the BungeeCord proxy for a snapshot of every
+     * {@link BukkitReplicatedMap} used on this server. This is sent each time
+     * the proxy identifies this server after (re)connecting, as the proxy
+     * stops replicating changes to this server when its connection is broken.
+     */
+    void syncReplicatedMaps() {
+        for (final BukkitReplicatedMap replicatedMap : this.replicatedMaps.values()) {
+            replicatedMap.sync();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addCRDT(@NotNull final String name, @NotNull final CRDT crdt) throws IllegalArgumentException {
+        BukkitIPCPlugin.validateNotBlank(name, "CRDT name cannot be blank!");
+        return this.crdts.putIfAbsent(name, crdt) == null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeCRDT(@NotNull final String name) throws IllegalArgumentException {
+        BukkitIPCPlugin.validateNotBlank(name, "CRDT name cannot be blank!");
+        if (this.crdts.remove(name) == null) {
+            return false;
+        }
+        this.unsentCRDTDeltas.remove(name);
+        this.crdtSyncRounds.remove(name);
+        this.crdtStatesMerged.remove(name);
+        return true;
+    }
+    
+    /**
+     * Gets the {@link CRDT} registered under the given name.
+     * 
+     * @param name The name the {@link CRDT} is registered under.
+     * @return The {@link CRDT}, or {@code null} if none is registered under
+     *         the given name.
+     */
+    @Nullable
+    CRDT findCRDT(@NotNull final String name) {
+        return this.crdts.get(name);
+    }
+    
+    /**
+     * Marks the unseeded {@link CRDT} registered under the given name as
+     * having merged the full state of another server, so that it is seeded
+     * in the next round of gossip.
+     * 
+     * @param name The name the {@link CRDT} is registered under.
+     */
+    void mergedCRDTState(@NotNull final String name) {
+        final CRDT crdt = this.crdts.get(name);
+        if (crdt != null && crdt.getReplicaId() == null) {
+            this.crdtStatesMerged.add(name);
+        }
+    }
+    
+    /**
+     * Sends the full state of the {@link CRDT} registered under the given
+     * name, if any, to the given server, which has asked for it to seed its
+     * own replica.
+     * 
+     * @param destination The name of the server to send the state to.
+     * @param name The name the {@link CRDT} is registered under.
+     */
+    void sendCRDTState(@NotNull final String destination, @NotNull final String name) {
+        
+        final ClientIPCSocket socket = this.socket;
+        final CRDT crdt = this.crdts.get(name);
+        if (socket == null || !socket.isConnected() || crdt == null) {
+            return;
+        }
+        
+        final List<IPCMessage> messages = this.createCRDTGossip(destination, name, "STATE", crdt.getState());
+        if (messages != null) {
+            socket.sendBatch(messages);
+        }
+    }
+    
+    /**
+     * Gossips the changes made to each registered {@link CRDT} since the last
+     * round to every other server, as a single batch. Every 30th round, the
+     * full state of each {@link CRDT} is gossiped instead. Nothing is taken
+     * from the {@link CRDT CRDTs} while the {@link ClientIPCSocket} is not
+     * connected, and the changes taken are gossiped again in the next round
+     * if the batch could not be sent.
+     * <p>
+     * An unseeded {@link CRDT} first asks the other servers for their full
+     * state. It is seeded with the name of this server in the round after it
+     * has merged the full state of another server, carrying on from where the
+     * previous replica of this server left off. If no other server has
+     * answered 5 rounds after asking, the counts and dots of the previous
+     * replica are not known, so reusing its replica ID would lose updates. It
+     * is seeded with the name of this server and the time this plugin was
+     * enabled instead, as a new replica.
+     */
+    private void gossipCRDTs() {
+        
+        final ClientIPCSocket socket = this.socket;
+        if (socket == null || !socket.isConnected() || this.crdts.isEmpty()) {
+            return;
+        }
+        final String serverName = socket.getServerName();
+        if (serverName == null) {
+            return;
+        }
+        
+        final int round = this.crdtGossipRound;
+        final boolean fullState = round % 30 == 0;
+        this.crdtGossipRound++;
+        
+        final List<IPCMessage> messages = new ArrayList<IPCMessage>();
+        final Map<String, List<String>> deltas = new HashMap<String, List<String>>();
+        for (final Map.Entry<String, CRDT> entry : this.crdts.entrySet()) {
+            
+            final String name = entry.getKey();
+            final CRDT crdt = entry.getValue();
+            if (crdt.getReplicaId() == null) {
+                final Integer syncRound = this.crdtSyncRounds.putIfAbsent(name, round);
+                if (syncRound == null) {
+                    final IPCMessage message = new ClientIPCMessage(IPCMessage.BROADCAST_SERVER, "CRDT_SYNC");
+                    message.add(name);
+                    messages.add(message);
+                } else if (this.crdtStatesMerged.contains(name)) {
+                    crdt.seed(serverName);
+                    this.crdtSyncRounds.remove(name);
+                    this.crdtStatesMerged.remove(name);
+                } else if (round - syncRound >= 5) {
+                    crdt.seed(serverName + "@" + this.crdtIncarnation);
+                    this.crdtSyncRounds.remove(name);
+                }
+            }
+            
+            final List<String> delta = this.takeCRDTDelta(name, crdt);
+            final List<String> changes = fullState ? crdt.getState() : delta;
+            if (changes == null || changes.isEmpty()) {
+                continue;
+            }
+            
+            final List<IPCMessage> gossip = this.createCRDTGossip(IPCMessage.BROADCAST_SERVER, name, fullState ? "STATE" : "DELTA", changes);
+            if (gossip != null) {
+                messages.addAll(gossip);
+                if (delta != null) {
+                    deltas.put(name, delta);
+                }
+            }
+        }
+        
+        if (messages.isEmpty()) {
+            return;
+        }
+        socket.sendBatch(messages).exceptionally(e -> {
+            this.logger.log(Level.WARNING, "Unable to gossip the changes to the CRDTs, they will be gossiped again in the next round.");
+            this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+            for (final Map.Entry<String, List<String>> entry : deltas.entrySet()) {
+                if (this.crdts.containsKey(entry.getKey())) {
+                    this.unsentCRDTDeltas.merge(entry.getKey(), entry.getValue(), BukkitIPCPlugin::joinCRDTDeltas);
+                }
+            }
+            return null;
+        });
+    }
+    
+    /**
+     * Takes the delta of the given {@link CRDT}, joined after any of its
+     * earlier deltas that could not be sent.
+     * 
+     * @param name The name the {@link CRDT} is registered under.
+     * @param crdt The {@link CRDT}.
+     * @return The delta, or {@code null} if there are no changes to gossip.
+     */
+    @Nullable
+    private List<String> takeCRDTDelta(@NotNull final String name, @NotNull final CRDT crdt) {
+        final List<String> unsent = this.unsentCRDTDeltas.remove(name);
+        final List<String> delta = crdt.takeDelta();
+        if (unsent == null || delta == null) {
+            return unsent == null ? delta : unsent;
+        }
+        return BukkitIPCPlugin.joinCRDTDeltas(unsent, delta);
+    }
+    
+    /**
+     * Joins the given {@link CRDT} deltas, one after the other.
+     * 
+     * @param delta1 The first delta.
+     * @param delta2 The second delta.
+     * @return The joined delta.
+     */
+    @NotNull
+    private static List<String> joinCRDTDeltas(@NotNull final List<String> delta1, @NotNull final List<String> delta2) {
+        final List<String> delta = new ArrayList<String>(delta1.size() + delta2.size());
+        delta.addAll(delta1);
+        delta.addAll(delta2);
+        return delta;
+    }
+    
+    /**
+     * Creates the {@link IPCMessage IPCMessages} gossiping the given data of
+     * the {@link CRDT} registered under the given name, split over as many
+     * {@link IPCMessage IPCMessages} as are needed. Each one holds the name,
+     * the type of the data ({@code "DELTA"} or {@code "STATE"}), its part
+     * number and the number of parts, followed by its part of the data.
+     * 
+     * @param destination The destination of the {@link IPCMessage IPCMessages}.
+     * @param name The name the {@link CRDT} is registered under.
+     * @param type The type of the data.
+     * @param data The data.
+     * @return The {@link IPCMessage IPCMessages}, or {@code null} if a single
+     *         value of the data is too large for an {@link IPCMessage}.
+     */
+    @Nullable
+    private List<IPCMessage> createCRDTGossip(@NotNull final String destination, @NotNull final String name, @NotNull final String type, @NotNull final List<String> data) {
+        
+        final List<List<String>> parts = new ArrayList<List<String>>();
+        List<String> part = new ArrayList<String>();
+        IPCMessage sizing = BukkitIPCPlugin.createCRDTGossip(destination, name, type, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        for (final String value : data) {
+            if (!BukkitIPCPlugin.fits(sizing, value)) {
+                parts.add(part);
+                part = new ArrayList<String>();
+                sizing = BukkitIPCPlugin.createCRDTGossip(destination, name, type, Integer.MAX_VALUE, Integer.MAX_VALUE);
+                if (!BukkitIPCPlugin.fits(sizing, value)) {
+                    this.logger.log(Level.WARNING, "Unable to gossip the changes to CRDT " + name + ", one of its values is too large for a single IPC message.");
+                    return null;
+                }
+            }
+            part.add(value);
+        }
+        parts.add(part);
+        
+        final List<IPCMessage> messages = new ArrayList<IPCMessage>(parts.size());
+        for (int index = 0; index < parts.size(); index++) {
+            final IPCMessage message = BukkitIPCPlugin.createCRDTGossip(destination, name, type, index + 1, parts.size());
+            message.add(parts.get(index));
+            messages.add(message);
+        }
+        return messages;
+    }
+    
+    /**
+     * Creates a {@link IPCMessage} gossiping a part of the data of a
+     * {@link CRDT}, holding only its header so far.
+     * 
+     * @param destination The destination of the {@link IPCMessage}.
+     * @param name The name the {@link CRDT} is registered under.
+     * @param type The type of the data.
+     * @param part The part number.
+     * @param parts The number of parts.
+     * @return The {@link IPCMessage}.
+     */
+    @NotNull
+    private static IPCMessage createCRDTGossip(@NotNull final String destination, @NotNull final String name, @NotNull final String type, final int part, final int parts) {
+        final IPCMessage message = new ClientIPCMessage(destination, "CRDT_GOSSIP");
+        message.add(name);
+        message.add(type);
+        message.add(String.valueOf(part));
+        message.add(String.valueOf(parts));
+        return message;
+    }
+    
+    /**
+     * Adds the given value to the given {@link IPCMessage}, if it still fits.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @param value The value to add.
+     * @return {@code true} if the value was added, {@code false} if the
+     *         {@link IPCMessage} would have been too large.
+     */
+    private static boolean fits(@NotNull final IPCMessage message, @NotNull final String value) {
+        try {
+            message.add(value);
+            return true;
+        } catch (final IllegalStateException e) {
+            return false;
+        }
+    }
+    
     /**
      * Performs the starting of the {@link ClientIPCSocket}.
      */
@@ -451,11 +1013,37 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
                     tlsCipherSuiteWhitelist.add("TLS_DHE_RSA_WITH_AES_256_GCM_SHA384");
                 }
                 
+                int sslSessionCacheSize = config.getInt("ssl_session_cache_size", 16);
+                if (sslSessionCacheSize < 0) {
+                    sslSessionCacheSize = 16;
+                }
+                int sslSessionTimeout = config.getInt("ssl_session_timeout", 86400);
+                if (sslSessionTimeout < 0) {
+                    sslSessionTimeout = 86400;
+                }
+                
                 try {
-                    final SSLContext sslContext = SSLContext.getInstance(sslContextProtocol);
-                    sslContext.init(null, null, null);
                     
-                    sslSocketFactory = sslContext.getSocketFactory();
+                    // Only rebuild the SSLContext if the protocol has changed.
+                    // Keeping the same SSLContext keeps the client-side session
+                    // cache, allowing reconnects to resume the previous session
+                    // instead of performing a full handshake.
+                    if (this.sslContext != null && sslContextProtocol.equals(this.sslContextProtocol)) {
+                        this.logger.log(Level.CONFIG, "SSL/TLS settings unchanged, reusing the existing SSLContext.");
+                    } else {
+                        final SSLContext sslContext = SSLContext.getInstance(sslContextProtocol);
+                        sslContext.init(null, null, null);
+                        
+                        this.sslContext = sslContext;
+                        this.sslContextProtocol = sslContextProtocol;
+                        this.logger.log(Level.CONFIG, "Created a new SSLContext.");
+                    }
+                    
+                    final SSLSessionContext sessionContext = this.sslContext.getClientSessionContext();
+                    sessionContext.setSessionCacheSize(sslSessionCacheSize);
+                    sessionContext.setSessionTimeout(sslSessionTimeout);
+                    
+                    sslSocketFactory = this.sslContext.getSocketFactory();
                 } catch (final NoSuchAlgorithmException | KeyManagementException e) {
                     this.logger.log(Level.WARNING, "Unable to create SSLSocketFactory.");
                     this.logger.log(Level.WARNING, "IPC Client will not be started.");
@@ -467,10 +1055,46 @@ public final class BukkitIPCPlugin extends JavaPlugin implements ClientIPCPlugin
                 }
             }
             
+            long crdtGossipInterval = config.getLong("crdt_gossip_interval", 1000L);
+            if (crdtGossipInterval < 50L) {
+                crdtGossipInterval = 1000L;
+            }
+            final long crdtGossipTicks = crdtGossipInterval / 50L;
+            
+            final List<String> conflatedChannels = config.getStringList("conflated_channels");
+            this.conflatedChannels = conflatedChannels == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(new HashSet<String>(conflatedChannels));
+            if (!this.conflatedChannels.isEmpty()) {
+                this.logger.log(Level.CONFIG, "Conflating IPC messages on " + this.conflatedChannels.size() + " channel(s).");
+            }
+            
             this.scheduler.runTask(this, () -> {
                 
+                if (this.crdtGossipTask != null) {
+                    this.crdtGossipTask.cancel();
+                }
+                this.crdtGossipTask = this.scheduler.runTaskTimerAsynchronously(this, this::gossipCRDTs, crdtGossipTicks, crdtGossipTicks);
+                
                 try {
-                    this.socket = new BukkitClientIPCSocket(this, config, sslSocketFactory, tlsVersionWhitelist, tlsCipherSuiteWhitelist);
+                    final int connectionCount = config.getInt("connections", 1);
+                    if (connectionCount < 1) {
+                        throw new IllegalArgumentException("Number of connections must be at least 1.");
+                    }
+                    
+                    final boolean netty = config.getBoolean("use_netty", false) && TransportType.fromName(config.getString("transport", TransportType.TCP.getName())) == TransportType.TCP;
+                    if (netty && this.nettyTransport == null) {
+                        this.nettyTransport = new NettyTransport("BungeeIPC Netty", 1);
+                        this.logger.log(Level.CONFIG, "Netty IPC transport using " + (this.nettyTransport.isEpoll() ? "epoll" : "NIO") + ".");
+                    }
+                    
+                    final List<ClientIPCSocket> stripes = new ArrayList<ClientIPCSocket>(connectionCount);
+                    for (int stripe = 0; stripe < connectionCount; stripe++) {
+                        if (netty) {
+                            stripes.add(new BukkitNettyClientIPCSocket(this, this.nettyTransport, config, stripe, sslSocketFactory == null ? null : this.sslContext, tlsVersionWhitelist, tlsCipherSuiteWhitelist));
+                        } else {
+                            stripes.add(new BukkitClientIPCSocket(this, config, stripe, sslSocketFactory, tlsVersionWhitelist, tlsCipherSuiteWhitelist));
+                        }
+                    }
+                    this.socket = stripes.size() == 1 ? stripes.get(0) : new BukkitStripedClientIPCSocket(stripes);
                 } catch (final IllegalArgumentException e) {
                     this.logger.log(Level.WARNING, "Unable to create IPC Client.");
                     this.logger.log(Level.WARNING, "IPC Client will not be started.");
@@ -0,0 +1,395 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bukkit;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import org.bspfsystems.bungeeipc.api.client.ClientIPCSocket;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCProtocolException;
+import org.bspfsystems.bungeeipc.netty.IPCFrame;
+import org.bspfsystems.bungeeipc.netty.NettyIPCSocket;
+import org.bspfsystems.bungeeipc.netty.NettyTransport;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the Bukkit implementation of an {@link ClientIPCSocket} that uses
+ * Netty for the TCP transport, instead of a dedicated thread blocking on the
+ * connection.
+ */
+final class BukkitNettyClientIPCSocket extends NettyIPCSocket implements ClientIPCSocket {
+    
+    private static final long CONNECT_RETRY_MILLIS = 2000L;
+    private static final long RECONNECT_MILLIS = 250L;
+    private static final long REJECTED_RECONNECT_MILLIS = 60000L;
+    
+    private final BukkitIPCPlugin ipcPlugin;
+    private final NettyTransport nettyTransport;
+    
+    private final InetAddress address;
+    private final int port;
+    
+    private final SSLContext sslContext;
+    private final List<String> tlsVersionWhitelist;
+    private final List<String> tlsCipherSuiteWhitelist;
+    
+    private final BukkitScheduler scheduler;
+    private final AtomicReference<String> serverName;
+    private final AtomicReference<ScheduledFuture<?>> reconnect;
+    
+    // Only accessed on the event loop of the connected Channel.
+    private boolean rejected;
+    
+    /**
+     * Constructs a new {@link BukkitNettyClientIPCSocket}.
+     * 
+     * @param ipcPlugin The {@link BukkitIPCPlugin} controlling the
+     *                  {@link BukkitNettyClientIPCSocket}.
+     * @param nettyTransport The {@link NettyTransport} whose event loop the
+     *                       {@link BukkitNettyClientIPCSocket} will run on.
+     * @param config The {@link YamlConfiguration} used to configure the IP
+     *               address and port to connect to.
+     * @param stripe The index of the connection this
+     *               {@link BukkitNettyClientIPCSocket} handles, when there are
+     *               several parallel connections. It is added to the configured
+     *               port, and appended to the configured socket path, if not
+     *               {@code 0}.
+     * @param sslContext The {@link SSLContext} used for SSL/TLS encryption on
+     *                   the connection, or {@code null} if it is not
+     *                   encrypted.
+     * @param tlsVersionWhitelist A {@link List} of SSL/TLS versions that the
+     *                            {@link BukkitNettyClientIPCSocket} may use.
+     * @param tlsCipherSuiteWhitelist A {@link List} of SSL/TLS cipher suites
+     *                                that the
+     *                                {@link BukkitNettyClientIPCSocket} may
+     *                                use.
+     * @throws IllegalArgumentException If there is a configuration error when
+     *                                  setting up the
+     *                                  {@link BukkitNettyClientIPCSocket}.
+     */
+    BukkitNettyClientIPCSocket(@NotNull final BukkitIPCPlugin ipcPlugin, @NotNull final NettyTransport nettyTransport, @NotNull final YamlConfiguration config, final int stripe, @Nullable final SSLContext sslContext, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist) throws IllegalArgumentException {
+        
+        super(ipcPlugin.getLogger(), "IPC Client", ipcPlugin.getExpiryCounters(), config.getInt("send_queue_capacity", 4096), 0L);
+        
+        this.ipcPlugin = ipcPlugin;
+        this.nettyTransport = nettyTransport;
+        
+        final String addressValue = config.getString("bungeecord_ip", "localhost");
+        final int portValue = config.getInt("port", -1);
+        
+        if (addressValue.trim().isEmpty()) {
+            throw new IllegalArgumentException("IP address cannot be blank.");
+        }
+        if (portValue == -1) {
+            throw new IllegalArgumentException("Port must be specified in the config.");
+        }
+        if (portValue < 1024 || portValue > 65535) {
+            throw new IllegalArgumentException("Port must be between 1024 and 65535, inclusive.");
+        }
+        
+        try {
+            this.address = InetAddress.getByName(addressValue);
+        } catch (final UnknownHostException e) {
+            throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
+        }
+        if (portValue + stripe > 65535) {
+            throw new IllegalArgumentException("Not enough ports from " + portValue + " for " + (stripe + 1) + " connections.");
+        }
+        this.port = portValue + stripe;
+        
+        this.sslContext = sslContext;
+        this.tlsVersionWhitelist = tlsVersionWhitelist;
+        this.tlsCipherSuiteWhitelist = tlsCipherSuiteWhitelist;
+        
+        this.scheduler = this.ipcPlugin.getServer().getScheduler();
+        this.serverName = new AtomicReference<String>(null);
+        this.reconnect = new AtomicReference<ScheduledFuture<?>>(null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public String getServerName() {
+        return this.serverName.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void open() {
+        this.getLogger().log(Level.INFO, "Starting the IPC client socket.");
+        this.connect();
+    }
+    
+    /**
+     * Attempts to connect to the IPC server, scheduling another attempt if it
+     * fails.
+     */
+    private void connect() {
+        
+        if (!this.isRunning()) {
+            return;
+        }
+        this.getLogger().log(Level.INFO, "Attempting to connect to the IPC server...");
+        
+        final ChannelFuture connectFuture = this.nettyTransport.newBootstrap().handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(@NotNull final Channel channel) {
+                BukkitNettyClientIPCSocket.this.initChannel(channel, BukkitNettyClientIPCSocket.this.createSSLEngine());
+            }
+        }).connect(this.address, this.port);
+        
+        connectFuture.addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                return;
+            }
+            this.getLogger().log(Level.INFO, "Unable to connect to IPC server.");
+            this.logConnectionDetails();
+            this.getLogger().log(Level.CONFIG, future.cause().getClass().getSimpleName() + " thrown.", future.cause());
+            this.scheduleConnect(BukkitNettyClientIPCSocket.CONNECT_RETRY_MILLIS);
+        });
+    }
+    
+    /**
+     * Schedules an attempt to connect to the IPC server on the Netty event
+     * loop after the given delay.
+     * 
+     * @param delay The delay before the attempt, in milliseconds.
+     */
+    private void scheduleConnect(final long delay) {
+        if (this.isRunning()) {
+            this.reconnect.set(this.nettyTransport.schedule(this::connect, delay, TimeUnit.MILLISECONDS));
+        }
+    }
+    
+    /**
+     * Creates a new {@link SSLEngine} for the connection to the IPC server,
+     * restricted to the whitelisted SSL/TLS versions and cipher suites.
+     * 
+     * @return The new {@link SSLEngine}, or {@code null} if the connection is
+     *         not encrypted.
+     */
+    @Nullable
+    private SSLEngine createSSLEngine() {
+        if (this.sslContext == null) {
+            return null;
+        }
+        // The peer host and port allow the SSL/TLS session to be resumed.
+        final SSLEngine sslEngine = this.sslContext.createSSLEngine(this.address.getHostAddress(), this.port);
+        sslEngine.setUseClientMode(true);
+        sslEngine.setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
+        sslEngine.setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
+        return sslEngine;
+    }
+    
+    /**
+     * Logs the details of where this {@link BukkitNettyClientIPCSocket}
+     * connects to, for troubleshooting a failed or broken connection.
+     */
+    private void logConnectionDetails() {
+        this.getLogger().log(Level.CONFIG, "Transport   - netty (" + (this.nettyTransport.isEpoll() ? "epoll" : "nio") + ")");
+        this.getLogger().log(Level.CONFIG, "IP Address  - " + this.address.getHostAddress());
+        this.getLogger().log(Level.CONFIG, "Port Number - " + this.port);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void close() {
+        this.getLogger().log(Level.INFO, "Closing IPC client connection...");
+        final ScheduledFuture<?> reconnect = this.reconnect.getAndSet(null);
+        if (reconnect != null) {
+            reconnect.cancel(false);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean connected(@NotNull final Channel channel) {
+        this.getLogger().log(Level.INFO, "Connected to the IPC server.");
+        this.rejected = false;
+        channel.writeAndFlush(IPCFrame.handshake(""));
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void disconnected() {
+        if (this.rejected) {
+            this.getLogger().log(Level.WARNING, "The IPC client will try to connect again in 60 seconds.");
+            this.logConnectionDetails();
+            this.scheduleConnect(BukkitNettyClientIPCSocket.REJECTED_RECONNECT_MILLIS);
+            return;
+        }
+        this.getLogger().log(Level.INFO, "IPC connection broken.");
+        this.logConnectionDetails();
+        this.scheduleConnect(BukkitNettyClientIPCSocket.RECONNECT_MILLIS);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void handshakeFailed(@NotNull final IPCProtocolException e) {
+        this.rejected = true;
+        this.getLogger().log(Level.WARNING, "IPC connection rejected. " + e.getMessage());
+        this.getLogger().log(Level.WARNING, "The BungeeCord proxy and all Bukkit servers must run the same version of BungeeIPC.");
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void received(@NotNull final IPCFrame frame) throws Exception {
+        if (frame.getType() == IPCFrame.MESSAGE) {
+            final IPCMessage message = IPCFrameCodec.read(frame.getPayload().get(0), null);
+            this.ipcPlugin.dispatchMessage(message);
+        } else if (frame.getType() == IPCFrame.BATCH) {
+            final List<IPCMessage> messages = new ArrayList<IPCMessage>(frame.getPayload().size());
+            for (final String message : frame.getPayload()) {
+                messages.add(IPCFrameCodec.read(message, null));
+            }
+            this.scheduler.runTask(this.ipcPlugin, () -> this.ipcPlugin.receiveBatch(messages));
+        } else {
+            final String serverName = frame.getPayload().get(0);
+            this.serverName.set(serverName);
+            this.getLogger().log(Level.INFO, "IPC server identified this Minecraft server as " + serverName + ".");
+            this.ipcPlugin.sendSubscriptions();
+            this.ipcPlugin.syncReplicatedMaps();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} will be run on the main server thread.
+     */
+    @Override
+    protected void runCallback(@NotNull final Runnable callback) {
+        this.scheduler.runTask(this.ipcPlugin, callback);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This never blocks on the connection itself, and is therefore safe to
+     * call from the main server thread. The returned
+     * {@link CompletableFuture} is completed on the main server thread, so it
+     * must never be waited on there.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
+        
+        final String serverName = this.serverName.get();
+        if (serverName != null && message.getDestination().equals(serverName)) {
+            return this.deliverLocally(Collections.singletonList(message), serverName);
+        }
+        return this.send(Collections.singletonList(message), false);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This never blocks on the connection itself, and is therefore safe to
+     * call from the main server thread.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        final String serverName = this.serverName.get();
+        if (serverName == null) {
+            return this.send(new ArrayList<IPCMessage>(messages), true);
+        }
+        
+        final List<IPCMessage> local = new ArrayList<IPCMessage>();
+        final List<IPCMessage> remote = new ArrayList<IPCMessage>(messages.size());
+        for (final IPCMessage message : messages) {
+            if (message.getDestination().equals(serverName)) {
+                local.add(message);
+            } else {
+                remote.add(message);
+            }
+        }
+        
+        if (local.isEmpty()) {
+            return this.send(remote, true);
+        }
+        final CompletableFuture<Void> localFuture = this.deliverLocally(local, serverName);
+        if (remote.isEmpty()) {
+            return localFuture;
+        }
+        return CompletableFuture.allOf(localFuture, this.send(remote, true));
+    }
+    
+    /**
+     * Delivers the given {@link IPCMessage IPCMessages}, all of which are
+     * addressed to this Minecraft server, to the {@link BukkitIPCPlugin}
+     * without sending them to the BungeeCord proxy.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to deliver.
+     * @param serverName The name of this Minecraft server.
+     * @return A {@link CompletableFuture} that has already completed.
+     * @see BukkitClientIPCSocket
+     */
+    @NotNull
+    private CompletableFuture<Void> deliverLocally(@NotNull final List<IPCMessage> messages, @NotNull final String serverName) {
+        
+        final List<IPCMessage> copies = new ArrayList<IPCMessage>(messages.size());
+        for (final IPCMessage message : messages) {
+            // The serialized form always starts with the origin.
+            copies.add(IPCFrameCodec.read(serverName + message.write().substring(message.getOrigin().length()), null));
+        }
+        
+        this.scheduler.runTask(this.ipcPlugin, () -> this.ipcPlugin.receiveBatch(copies));
+        return CompletableFuture.completedFuture(null);
+    }
+}
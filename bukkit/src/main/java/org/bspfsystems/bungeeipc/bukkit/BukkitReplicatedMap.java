@@ -0,0 +1,368 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bukkit;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.client.ClientIPCMessage;
+import org.bspfsystems.bungeeipc.api.client.ReplicatedMap;
+import org.bspfsystems.bungeeipc.api.client.ReplicatedMapListener;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.TimingWheel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the {@link BukkitIPCPlugin}'s implementation of a
+ * {@link ReplicatedMap}.
+ */
+final class BukkitReplicatedMap implements ReplicatedMap {
+    
+    private final BukkitIPCPlugin ipcPlugin;
+    private final Logger logger;
+    private final String name;
+    
+    private final Map<String, String> entries;
+    private long sequence;
+    private Map<String, String> snapshot;
+    private long snapshotSequence;
+    private boolean resyncing;
+    
+    private final AtomicLong nextRequestId;
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> pending;
+    private final List<ReplicatedMapListener> listeners;
+    
+    /**
+     * Constructs a new, unsynchronized {@link BukkitReplicatedMap}.
+     * 
+     * @param ipcPlugin The {@link BukkitIPCPlugin}.
+     * @param name The name of the {@link ReplicatedMap}.
+     */
+    BukkitReplicatedMap(@NotNull final BukkitIPCPlugin ipcPlugin, @NotNull final String name) {
+        this.ipcPlugin = ipcPlugin;
+        this.logger = ipcPlugin.getLogger();
+        this.name = name;
+        
+        this.entries = new HashMap<String, String>();
+        this.sequence = -1L;
+        this.snapshot = null;
+        this.snapshotSequence = -1L;
+        this.resyncing = false;
+        
+        this.nextRequestId = new AtomicLong(0L);
+        this.pending = new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+        this.listeners = new CopyOnWriteArrayList<ReplicatedMapListener>();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean isSynchronized() {
+        return this.sequence != -1L;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized String get(@NotNull final String key) {
+        return this.entries.get(key);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized boolean containsKey(@NotNull final String key) {
+        return this.entries.containsKey(key);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public synchronized Map<String, String> getAll() {
+        return Collections.unmodifiableMap(new HashMap<String, String>(this.entries));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> put(@NotNull final String key, @NotNull final String value) {
+        final String requestId = String.valueOf(this.nextRequestId.incrementAndGet());
+        final ClientIPCMessage message = this.newRequest("PUT", requestId);
+        message.add(key);
+        message.add(value);
+        return this.send(requestId, message).thenApply(applied -> null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> remove(@NotNull final String key) {
+        final String requestId = String.valueOf(this.nextRequestId.incrementAndGet());
+        final ClientIPCMessage message = this.newRequest("REMOVE", requestId);
+        message.add(key);
+        return this.send(requestId, message).thenApply(applied -> null);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Boolean> compareAndSet(@NotNull final String key, @Nullable final String expected, @Nullable final String value) {
+        final String requestId = String.valueOf(this.nextRequestId.incrementAndGet());
+        final ClientIPCMessage message = this.newRequest("CAS", requestId);
+        message.add(key);
+        this.addOptional(message, expected);
+        this.addOptional(message, value);
+        return this.send(requestId, message);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addListener(@NotNull final ReplicatedMapListener listener) {
+        this.listeners.add(listener);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean removeListener(@NotNull final ReplicatedMapListener listener) {
+        return this.listeners.remove(listener);
+    }
+    
+    /**
+     * Asks the BungeeCord proxy for a snapshot of this {@link ReplicatedMap},
+     * and to replicate every later change to this server.
+     */
+    void sync() {
+        final ClientIPCMessage message = new ClientIPCMessage(IPCMessage.PROXY_SERVER, "PROXY_STORE");
+        message.add("SYNC");
+        message.add(this.name);
+        this.ipcPlugin.sendMessage(message);
+    }
+    
+    /**
+     * Reads a snapshot, change, or write result sent by the BungeeCord proxy,
+     * after the operation and map name have been read.
+     * 
+     * @param operation The operation.
+     * @param message The {@link IPCMessage}.
+     */
+    void readMessage(@NotNull final String operation, @NotNull final IPCMessage message) {
+        
+        if (operation.equals("RESULT")) {
+            if (!message.hasNext()) {
+                return;
+            }
+            final CompletableFuture<Boolean> future = this.pending.remove(message.next());
+            if (future != null && message.hasNext()) {
+                future.complete(Boolean.valueOf(message.next()));
+            }
+            return;
+        }
+        
+        if (!message.hasNext()) {
+            return;
+        }
+        final long sequence;
+        try {
+            sequence = Long.parseLong(message.next());
+        } catch (final NumberFormatException e) {
+            this.logger.log(Level.WARNING, "Invalid sequence number for replicated map " + this.name + ".");
+            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            return;
+        }
+        
+        if (operation.equals("SNAPSHOT")) {
+            synchronized (this) {
+                if (this.snapshot == null || this.snapshotSequence != sequence) {
+                    this.snapshot = new HashMap<String, String>();
+                    this.snapshotSequence = sequence;
+                }
+                while (message.hasNext()) {
+                    final String key = message.next();
+                    if (message.hasNext()) {
+                        this.snapshot.put(key, message.next());
+                    }
+                }
+            }
+        } else if (operation.equals("SNAPSHOT_END")) {
+            
+            final Map<String, String> oldEntries;
+            final Map<String, String> newEntries;
+            synchronized (this) {
+                if (this.snapshot == null || this.snapshotSequence != sequence) {
+                    return;
+                }
+                oldEntries = new HashMap<String, String>(this.entries);
+                newEntries = this.snapshot;
+                this.entries.clear();
+                this.entries.putAll(newEntries);
+                this.sequence = sequence;
+                this.snapshot = null;
+                this.resyncing = false;
+            }
+            
+            final Set<String> keys = new HashSet<String>(oldEntries.keySet());
+            keys.addAll(newEntries.keySet());
+            for (final String key : keys) {
+                if (!Objects.equals(oldEntries.get(key), newEntries.get(key))) {
+                    this.notifyListeners(key, oldEntries.get(key), newEntries.get(key));
+                }
+            }
+        } else if (operation.equals("CHANGE")) {
+            
+            if (!message.hasNext()) {
+                return;
+            }
+            final String key = message.next();
+            final String value = message.hasNext() && message.next().equals("1") && message.hasNext() ? message.next() : null;
+            
+            final String oldValue;
+            synchronized (this) {
+                if (this.sequence == -1L || sequence <= this.sequence) {
+                    return;
+                }
+                if (sequence != this.sequence + 1L) {
+                    if (!this.resyncing) {
+                        this.resyncing = true;
+                        this.logger.log(Level.INFO, "Missed changes to replicated map " + this.name + ", synchronizing again.");
+                        this.sync();
+                    }
+                    return;
+                }
+                this.sequence = sequence;
+                oldValue = value == null ? this.entries.remove(key) : this.entries.put(key, value);
+            }
+            this.notifyListeners(key, oldValue, value);
+        }
+    }
+    
+    /**
+     * Creates a new write request {@link ClientIPCMessage}.
+     * 
+     * @param operation The write operation.
+     * @param requestId The ID of the write request.
+     * @return The new write request.
+     */
+    @NotNull
+    private ClientIPCMessage newRequest(@NotNull final String operation, @NotNull final String requestId) {
+        final ClientIPCMessage message = new ClientIPCMessage(IPCMessage.PROXY_SERVER, "PROXY_STORE");
+        message.add(operation);
+        message.add(this.name);
+        message.add(requestId);
+        return message;
+    }
+    
+    /**
+     * Sends the given write request, and waits for its result.
+     * 
+     * @param requestId The ID of the write request.
+     * @param message The write request.
+     * @return A {@link CompletableFuture} that completes with the result.
+     */
+    @NotNull
+    private CompletableFuture<Boolean> send(@NotNull final String requestId, @NotNull final ClientIPCMessage message) {
+        
+        final CompletableFuture<Boolean> future = new CompletableFuture<Boolean>();
+        this.pending.put(requestId, future);
+        this.ipcPlugin.sendAsync(message).whenComplete((result, e) -> {
+            if (e != null && this.pending.remove(requestId, future)) {
+                future.completeExceptionally(e);
+            }
+        });
+        final TimingWheel.Timeout timeout = this.ipcPlugin.getTimingWheel().schedule(() -> {
+            if (this.pending.remove(requestId, future)) {
+                future.completeExceptionally(new TimeoutException("No result for write " + requestId + " to replicated map " + this.name + "."));
+            }
+        }, 10L, TimeUnit.SECONDS);
+        future.whenComplete((result, e) -> timeout.cancel());
+        return future;
+    }
+    
+    /**
+     * Adds an optional value, as {@code "1"} followed by the value, or
+     * {@code "0"} for no value.
+     * 
+     * @param message The {@link IPCMessage} to add to.
+     * @param value The value, or {@code null} if there is none.
+     */
+    private void addOptional(@NotNull final IPCMessage message, @Nullable final String value) {
+        if (value == null) {
+            message.add("0");
+        } else {
+            message.add("1");
+            message.add(value);
+        }
+    }
+    
+    /**
+     * Notifies every {@link ReplicatedMapListener} of a change.
+     * 
+     * @param key The key that changed.
+     * @param oldValue The previous value, or {@code null} if there was none.
+     * @param newValue The new value, or {@code null} if it was removed.
+     */
+    private void notifyListeners(@NotNull final String key, @Nullable final String oldValue, @Nullable final String newValue) {
+        for (final ReplicatedMapListener listener : this.listeners) {
+            try {
+                listener.onChange(this, key, oldValue, newValue);
+            } catch (final RuntimeException e) {
+                this.logger.log(Level.WARNING, "Error while notifying a listener of a change to replicated map " + this.name + ".");
+                this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            }
+        }
+    }
+}
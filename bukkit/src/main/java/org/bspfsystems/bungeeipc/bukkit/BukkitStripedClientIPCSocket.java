@@ -0,0 +1,62 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bukkit;
+
+import java.util.List;
+import org.bspfsystems.bungeeipc.api.client.ClientIPCSocket;
+import org.bspfsystems.bungeeipc.api.common.StripedIPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the Bukkit implementation of an {@link ClientIPCSocket} that uses
+ * several parallel connections to the BungeeCord proxy.
+ */
+final class BukkitStripedClientIPCSocket extends StripedIPCSocket<ClientIPCSocket> implements ClientIPCSocket {
+    
+    /**
+     * Constructs a new {@link BukkitStripedClientIPCSocket}.
+     * 
+     * @param stripes The {@link ClientIPCSocket ClientIPCSockets} for each
+     *                connection, in order.
+     * @throws IllegalArgumentException If no stripes are given.
+     */
+    BukkitStripedClientIPCSocket(@NotNull final List<ClientIPCSocket> stripes) throws IllegalArgumentException {
+        super(stripes);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Every connection is told the same name, so this is taken from the
+     * first connection that has been told it.
+     */
+    @Override
+    @Nullable
+    public String getServerName() {
+        for (final ClientIPCSocket stripe : this.getStripes()) {
+            final String serverName = stripe.getServerName();
+            if (serverName != null) {
+                return serverName;
+            }
+        }
+        return null;
+    }
+}
@@ -20,13 +20,20 @@
 
 package org.bspfsystems.bungeeipc.bukkit;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.bspfsystems.bungeeipc.api.common.crdt.CRDT;
 import org.bukkit.command.CommandSender;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the {@link BukkitIPCPlugin}'s implementation of an
@@ -34,8 +41,29 @@ import org.jetbrains.annotations.NotNull;
  */
 final class BungeeBukkitIPCReader implements IPCReader {
     
+    /**
+     * Represents the parts of a {@link CRDT} delta or state gossiped by
+     * another server that have been read so far.
+     */
+    private static final class PartialGossip {
+        
+        private final List<String> data;
+        private int nextPart;
+        
+        /**
+         * Constructs a new {@link PartialGossip}.
+         * 
+         * @param data The data of the first part.
+         */
+        private PartialGossip(@NotNull final List<String> data) {
+            this.data = data;
+            this.nextPart = 2;
+        }
+    }
+    
     private final BukkitIPCPlugin ipcPlugin;
     private final Logger logger;
+    private final Map<List<String>, PartialGossip> partialGossip;
     
     /**
      * Constructs a new {@link BungeeBukkitIPCReader}.
@@ -45,6 +73,7 @@ final class BungeeBukkitIPCReader implements IPCReader {
     BungeeBukkitIPCReader(@NotNull final BukkitIPCPlugin ipcPlugin) {
         this.ipcPlugin = ipcPlugin;
         this.logger = this.ipcPlugin.getLogger();
+        this.partialGossip = new HashMap<List<String>, PartialGossip>();
     }
     
     /**
@@ -102,10 +131,136 @@ final class BungeeBukkitIPCReader implements IPCReader {
             }
             
             this.ipcPlugin.getServer().dispatchCommand(sender, builder.toString());
+        } else if (channel.equals("REPLICATED_MAP")) {
+            
+            if (!message.hasNext()) {
+                this.logger.log(Level.WARNING, "Incomplete IPC replicated map update sent to this Minecraft server.");
+                this.logger.log(Level.WARNING, "Missing operation and map name.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final String operation = message.next();
+            if (!message.hasNext()) {
+                this.logger.log(Level.WARNING, "Incomplete IPC replicated map update sent to this Minecraft server.");
+                this.logger.log(Level.WARNING, "Missing map name.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final BukkitReplicatedMap replicatedMap = this.ipcPlugin.findReplicatedMap(message.next());
+            if (replicatedMap != null) {
+                replicatedMap.readMessage(operation, message);
+            }
+        } else if (channel.equals("CRDT_GOSSIP")) {
+            
+            if (message.getOrigin().equals(this.ipcPlugin.getServerName())) {
+                return;
+            }
+            final List<String> header = new ArrayList<String>(4);
+            while (header.size() < 4 && message.hasNext()) {
+                header.add(message.next());
+            }
+            if (header.size() < 4) {
+                this.logger.log(Level.WARNING, "Incomplete IPC CRDT gossip sent to this Minecraft server.");
+                this.logger.log(Level.WARNING, "Missing CRDT name, gossip type, part number or number of parts.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final String name = header.get(0);
+            final String type = header.get(1);
+            final int part;
+            final int parts;
+            try {
+                part = Integer.parseInt(header.get(2));
+                parts = Integer.parseInt(header.get(3));
+            } catch (final NumberFormatException e) {
+                this.logger.log(Level.WARNING, "Invalid IPC CRDT gossip sent to this Minecraft server.");
+                this.logger.log(Level.WARNING, "Unable to decipher the part number or number of parts.");
+                this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                return;
+            }
+            if ((!type.equals("DELTA") && !type.equals("STATE")) || part < 1 || part > parts) {
+                this.logger.log(Level.WARNING, "Invalid IPC CRDT gossip sent to this Minecraft server.");
+                this.logger.log(Level.WARNING, "Gossip type: " + type + ", part " + part + " of " + parts + ".");
+                return;
+            }
+            
+            final CRDT crdt = this.ipcPlugin.findCRDT(name);
+            if (crdt == null) {
+                return;
+            }
+            
+            final List<String> partData = new ArrayList<String>();
+            while (message.hasNext()) {
+                partData.add(message.next());
+            }
+            final List<String> data = this.reassemble(Arrays.asList(message.getOrigin(), name, type), part, parts, partData);
+            if (data == null) {
+                return;
+            }
+            try {
+                crdt.merge(data);
+            } catch (final IllegalArgumentException e) {
+                this.logger.log(Level.WARNING, "Unable to merge IPC CRDT gossip from " + message.getOrigin() + " into CRDT " + name + ".");
+                this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                return;
+            }
+            if (type.equals("STATE")) {
+                this.ipcPlugin.mergedCRDTState(name);
+            }
+        } else if (channel.equals("CRDT_SYNC")) {
+            
+            if (message.getOrigin().equals(this.ipcPlugin.getServerName())) {
+                return;
+            }
+            while (message.hasNext()) {
+                this.ipcPlugin.sendCRDTState(message.getOrigin(), message.next());
+            }
         } else {
             this.logger.log(Level.WARNING, "IPCMessage sent to this Minecraft server (name: " + message.getDestination() + ").");
             this.logger.log(Level.WARNING, "The channel " + channel + " is not registered to this server.");
             this.logger.log(Level.WARNING, "IPC message data: " + message.toString());
         }
     }
+    
+    /**
+     * Reassembles a {@link CRDT} delta or state that another server has
+     * gossiped in several parts, which are read in order. A part that does
+     * not follow the previous part read discards what has been read so far.
+     * 
+     * @param key The origin, {@link CRDT} name and gossip type of the part.
+     * @param part The part number, starting at {@code 1}.
+     * @param parts The number of parts.
+     * @param data The data of the part.
+     * @return The data of every part, once the last part has been read, or
+     *         {@code null} otherwise.
+     */
+    @Nullable
+    private List<String> reassemble(@NotNull final List<String> key, final int part, final int parts, @NotNull final List<String> data) {
+        
+        if (part == 1) {
+            this.partialGossip.remove(key);
+            if (parts == 1) {
+                return data;
+            }
+            this.partialGossip.put(key, new PartialGossip(data));
+            return null;
+        }
+        
+        final PartialGossip partialGossip = this.partialGossip.get(key);
+        if (partialGossip == null || partialGossip.nextPart != part) {
+            this.partialGossip.remove(key);
+            this.logger.log(Level.CONFIG, "Discarding IPC CRDT gossip from " + key.get(0) + " for CRDT " + key.get(1) + ", part " + part + " was read out of order.");
+            return null;
+        }
+        partialGossip.data.addAll(data);
+        partialGossip.nextPart++;
+        if (part < parts) {
+            return null;
+        }
+        this.partialGossip.remove(key);
+        return partialGossip.data;
+    }
 }
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.bspfsystems.bungeeipc.api.client.ClientIPCMessage;
+import org.bspfsystems.bungeeipc.api.common.ExpiryCounters;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.bukkit.BukkitIPCPlugin;
 import org.bukkit.command.Command;
@@ -215,6 +216,10 @@ public final class IPCTabExecutor implements TabExecutor {
                     sender.sendMessage("§r§cNot Connected§r");
                 }
                 
+                final ExpiryCounters counters = this.ipcPlugin.getExpiryCounters();
+                sender.sendMessage("§r§8--------------------------------§r");
+                sender.sendMessage("§r§fExpired messages discarded:§r §b" + counters.getTotal() + "§r §f(" + ExpiryCounters.Stage.SEND.getName() + ":§r §b" + counters.get(ExpiryCounters.Stage.SEND) + "§r§f, " + ExpiryCounters.Stage.DISPATCH.getName() + ":§r §b" + counters.get(ExpiryCounters.Stage.DISPATCH) + "§r§f)§r");
+                
                 sender.sendMessage("§r§8================================§r");
                 return true;
                 
@@ -20,6 +20,7 @@
 
 package org.bspfsystems.bungeeipc.bungeecord;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -29,28 +30,37 @@ import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.CommandSender;
@@ -64,13 +74,21 @@ import net.md_5.bungee.api.scheduler.TaskScheduler;
 import net.md_5.bungee.config.Configuration;
 import net.md_5.bungee.config.ConfigurationProvider;
 import net.md_5.bungee.config.YamlConfiguration;
+import org.bspfsystems.bungeeipc.api.common.ExpiryCounters;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.bspfsystems.bungeeipc.api.common.IPCSendException;
+import org.bspfsystems.bungeeipc.api.common.TimingWheel;
+import org.bspfsystems.bungeeipc.api.common.VirtualThreads;
+import org.bspfsystems.bungeeipc.api.common.transport.TransportType;
+import org.bspfsystems.bungeeipc.api.server.ScatterGatherResult;
 import org.bspfsystems.bungeeipc.api.server.ServerIPCPlugin;
 import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
 import org.bspfsystems.bungeeipc.bungeecord.command.IPCBCommand;
 import org.bspfsystems.bungeeipc.bungeecord.command.ServerCommand;
+import org.bspfsystems.bungeeipc.netty.NettyTransport;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the implementation of a BungeeCord {@link Plugin} that provides
@@ -87,6 +105,25 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
     private ServerStatusUpdater serverStatusUpdater;
     
     private ConcurrentHashMap<String, ServerIPCSocket> serverSockets;
+    private RoundTripTimes roundTripTimes;
+    private SubscriptionTable subscriptions;
+    private PlayerRouter playerRouter;
+    private volatile Map<String, ServerPool> pools;
+    private volatile Set<String> conflatedChannels;
+    private volatile Map<String, Integer> dispatchWeights;
+    private ScatterGather scatterGather;
+    private ResponseCache responseCache;
+    private ReplicatedStore replicatedStore;
+    private StreamAggregator aggregator;
+    private RateLimiter rateLimiter;
+    private ExpiryCounters expiryCounters;
+    private TimingWheel timingWheel;
+    
+    private SSLContext sslContext;
+    private byte[] sslContextFingerprint;
+    
+    private NettyTransport nettyTransport;
+    private volatile OrderedDispatcher dispatcher;
     
     /**
      * Explicitly define the constructor.
@@ -136,10 +173,34 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         pluginManager.registerCommand(this, new IPCBCommand(this));
         pluginManager.registerCommand(this, new ServerCommand(this));
         
+        // Player routing setup
+        
+        this.playerRouter = new PlayerRouter(this, 5000L);
+        pluginManager.registerListener(this, this.playerRouter);
+        this.pools = Collections.emptyMap();
+        this.conflatedChannels = Collections.emptySet();
+        this.dispatchWeights = Collections.emptyMap();
+        
+        this.timingWheel = new TimingWheel("BungeeIPC Timing Wheel", this.logger, 10L, TimeUnit.MILLISECONDS, 512, task -> this.getProxy().getScheduler().runAsync(this, task));
+        
         // IPReader setup
         
+        this.subscriptions = new SubscriptionTable();
+        this.roundTripTimes = new RoundTripTimes();
+        this.scatterGather = new ScatterGather(this);
+        this.responseCache = new ResponseCache(this);
+        this.replicatedStore = new ReplicatedStore(this);
+        this.aggregator = new StreamAggregator(this);
+        this.rateLimiter = new RateLimiter(this);
+        this.expiryCounters = new ExpiryCounters();
+        
         this.readers = new ConcurrentHashMap<String, IPCReader>();
-        this.addReader("PROXY_COMMAND", new BungeeProxyIPCReader(this));
+        final BungeeProxyIPCReader proxyReader = new BungeeProxyIPCReader(this);
+        this.addReader("PROXY_COMMAND", proxyReader);
+        this.addReader("PROXY_SUBSCRIPTIONS", proxyReader);
+        this.addReader("PROXY_INVALIDATE", proxyReader);
+        this.addReader("PROXY_STORE", proxyReader);
+        this.addReader(IPCMessage.REPLY_CHANNEL, proxyReader);
         
         // Server status setup
         
@@ -189,10 +250,26 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
     @Override
     public void onDisable() {
         this.removeReader("PROXY_COMMAND");
+        this.removeReader("PROXY_SUBSCRIPTIONS");
+        this.removeReader("PROXY_INVALIDATE");
+        this.removeReader("PROXY_STORE");
+        this.removeReader(IPCMessage.REPLY_CHANNEL);
+        this.aggregator.shutdown();
+        this.timingWheel.stop();
         this.serverStatusUpdater.stop();
         for (final ServerIPCSocket serverSocket : this.serverSockets.values()) {
             serverSocket.stop();
         }
+        if (this.dispatcher != null) {
+            this.dispatcher.shutdown();
+            this.dispatcher = null;
+        }
+        synchronized (this) {
+            if (this.nettyTransport != null) {
+                this.nettyTransport.shutdown();
+                this.nettyTransport = null;
+            }
+        }
     }
     
     /////////////////////////////////////
@@ -226,10 +303,13 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
     @Override
     public void sendMessage(@NotNull final IPCMessage message) {
         
+        this.responseCache.capture(message);
         if (message.getDestination().equals(IPCMessage.BROADCAST_SERVER)) {
             this.broadcastMessage(message);
         } else if (message.getDestination().equals(IPCMessage.PROXY_SERVER)) {
             this.receiveMessage(message);
+        } else if (this.isRoutedDestination(message.getDestination())) {
+            this.forward(message.getDestination(), Collections.singletonList(message));
         } else if (!this.serverSockets.containsKey(message.getDestination())) {
             this.logger.log(Level.WARNING, "Destination name " + message.getDestination() + " is not registered to this IPC Plugin.");
         } else {
@@ -239,17 +319,121 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
     
     /**
      * {@inheritDoc}
+     * <p>
+     * An {@link IPCMessage} addressed to the proxy is read before this
+     * returns. An {@link IPCMessage} addressed to
+     * {@link IPCMessage#BROADCAST_SERVER} is sent to every connected
+     * {@link ServerIPCSocket} whose server is subscribed to its channel, and
+     * the returned {@link CompletableFuture} completes once all of them have
+     * sent it.
      */
     @Override
-    public void receiveMessage(@NotNull final IPCMessage message) {
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
         
+        this.responseCache.capture(message);
+        if (message.getDestination().equals(IPCMessage.BROADCAST_SERVER)) {
+            final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+            for (final Map.Entry<String, ServerIPCSocket> entry : this.serverSockets.entrySet()) {
+                if (entry.getValue().isConnected() && this.subscriptions.isSubscribed(entry.getKey(), message.getChannel())) {
+                    futures.add(entry.getValue().sendAsync(message));
+                }
+            }
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+        }
         if (message.getDestination().equals(IPCMessage.PROXY_SERVER)) {
+            this.receiveMessage(message);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (this.isRoutedDestination(message.getDestination())) {
+            return this.route(message.getDestination(), Collections.singletonList(message));
+        }
+        
+        final ServerIPCSocket serverSocket = this.serverSockets.get(message.getDestination());
+        if (serverSocket == null) {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.UNKNOWN_DESTINATION, "Destination name " + message.getDestination() + " is not registered to this IPC Plugin."));
+            return future;
+        }
+        return serverSocket.sendAsync(message);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link IPCMessage IPCMessages} are grouped by destination, and each
+     * {@link ServerIPCSocket} is looked up once per group. An
+     * {@link IPCMessage} addressed to {@link IPCMessage#BROADCAST_SERVER} is
+     * sent to every connected {@link ServerIPCSocket} whose server is
+     * subscribed to its channel.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        
+        for (final IPCMessage message : messages) {
+            this.responseCache.capture(message);
+        }
+        
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        for (final Map.Entry<String, List<IPCMessage>> entry : this.groupByDestination(messages).entrySet()) {
+            
+            final String destination = entry.getKey();
+            final List<IPCMessage> group = entry.getValue();
+            
+            if (destination.equals(IPCMessage.BROADCAST_SERVER)) {
+                for (final Map.Entry<String, ServerIPCSocket> serverEntry : this.serverSockets.entrySet()) {
+                    if (!serverEntry.getValue().isConnected()) {
+                        continue;
+                    }
+                    final List<IPCMessage> subscribed = this.filterSubscribed(serverEntry.getKey(), group);
+                    if (!subscribed.isEmpty()) {
+                        futures.add(serverEntry.getValue().sendBatch(subscribed));
+                    }
+                }
+            } else if (destination.equals(IPCMessage.PROXY_SERVER)) {
+                for (final IPCMessage message : group) {
+                    this.receiveMessage(message);
+                }
+            } else if (this.isRoutedDestination(destination)) {
+                futures.add(this.route(destination, group));
+            } else {
+                final ServerIPCSocket serverSocket = this.serverSockets.get(destination);
+                if (serverSocket == null) {
+                    final CompletableFuture<Void> future = new CompletableFuture<Void>();
+                    future.completeExceptionally(new IPCSendException(IPCSendException.Reason.UNKNOWN_DESTINATION, "Destination name " + destination + " is not registered to this IPC Plugin."));
+                    futures.add(future);
+                } else {
+                    futures.add(serverSocket.sendBatch(group));
+                }
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Expired {@link IPCMessage IPCMessages} are discarded instead.
+     */
+    @Override
+    public void receiveMessage(@NotNull final IPCMessage message) {
+        
+        if (message.isExpired()) {
+            this.expiryCounters.add(ExpiryCounters.Stage.FORWARD, 1);
+        } else if (message.getDestination().equals(IPCMessage.PROXY_SERVER)) {
             if (!this.readers.containsKey(message.getChannel())) {
                 this.logger.log(Level.WARNING, "IPC message destined for the BungeeCord proxy, but the channel is not specified.");
                 this.logger.log(Level.WARNING, "IPC message channel: " + message.getChannel());
             } else {
-                this.readers.get(message.getChannel()).readMessage(message);
+                this.responseCache.read(message, this.readers.get(message.getChannel()));
             }
+        } else if (message.getDestination().equals(IPCMessage.BROADCAST_SERVER)) {
+            if (!this.aggregator.offer(message)) {
+                this.broadcastMessage(message);
+            }
+        } else if (this.isRoutedDestination(message.getDestination())) {
+            this.forward(message.getDestination(), Collections.singletonList(message));
         } else if (this.serverSockets.containsKey(message.getDestination())) {
             this.logger.log(Level.INFO, "Forwarding message on to destination " + message.getDestination());
             this.serverSockets.get(message.getDestination()).sendMessage(message);
@@ -260,6 +444,64 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         }
     }
     
+    /**
+     * Dispatches a received {@link IPCMessage} to be processed by
+     * {@link BungeeIPCPlugin#receiveMessage(IPCMessage)}, after any earlier
+     * {@link IPCMessage IPCMessages} with the same ordering key.
+     * 
+     * @param message The received {@link IPCMessage}.
+     * @see IPCMessage#getOrderingKey()
+     */
+    void dispatchMessage(@NotNull final IPCMessage message) {
+        this.dispatcher.dispatch(message);
+    }
+    
+    /**
+     * Dispatches the {@link IPCMessage IPCMessages} of a received batch frame
+     * to be processed by {@link BungeeIPCPlugin#receiveBatch(List)}, each
+     * after any earlier {@link IPCMessage IPCMessages} with the same ordering
+     * key.
+     * 
+     * @param messages The received {@link IPCMessage IPCMessages}.
+     * @see IPCMessage#getOrderingKey()
+     */
+    void dispatchBatch(@NotNull final List<IPCMessage> messages) {
+        this.dispatcher.dispatchBatch(messages);
+    }
+    
+    /**
+     * Receives the {@link IPCMessage IPCMessages} of a single batch frame and
+     * processes them. {@link IPCMessage IPCMessages} that need to be forwarded
+     * on to another {@link ServerIPCSocket} are forwarded together, looking up
+     * each destination only once.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to be processed.
+     */
+    void receiveBatch(@NotNull final List<IPCMessage> messages) {
+        
+        final List<IPCMessage> live = this.expiryCounters.discardExpired(messages, ExpiryCounters.Stage.FORWARD);
+        for (final Map.Entry<String, List<IPCMessage>> entry : this.groupByDestination(live).entrySet()) {
+            
+            final String destination = entry.getKey();
+            final List<IPCMessage> group = entry.getValue();
+            
+            if (this.isRoutedDestination(destination)) {
+                this.forward(destination, group);
+                continue;
+            }
+            
+            final ServerIPCSocket serverSocket = destination.equals(IPCMessage.PROXY_SERVER) ? null : this.serverSockets.get(destination);
+            if (serverSocket == null) {
+                for (final IPCMessage message : group) {
+                    this.receiveMessage(message);
+                }
+            } else {
+                this.logger.log(Level.INFO, "Forwarding " + group.size() + " message(s) on to destination " + destination);
+                serverSocket.sendBatch(group);
+            }
+        }
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -289,6 +531,28 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         return this.serverSockets.get(name).isConnected();
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isServerWritable(@NotNull final String name) {
+        this.validateNotBlank(name, "Server name cannot be blank.");
+        this.validateServer(name);
+        return this.serverSockets.get(name).isWritable();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} will be run asynchronously.
+     */
+    @Override
+    public void onServerWritable(@NotNull final String name, @NotNull final Runnable callback) {
+        this.validateNotBlank(name, "Server name cannot be blank.");
+        this.validateServer(name);
+        this.serverSockets.get(name).onWritable(callback);
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -312,9 +576,299 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
             return;
         }
         
-        for (final ServerIPCSocket serverSocket : this.serverSockets.values()) {
-            serverSocket.sendMessage(message);
+        for (final Map.Entry<String, ServerIPCSocket> entry : this.serverSockets.entrySet()) {
+            if (this.subscriptions.isSubscribed(entry.getKey(), message.getChannel())) {
+                entry.getValue().sendMessage(message);
+            }
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<ScatterGatherResult> scatterGather(@NotNull final Collection<String> servers, @NotNull final String channel, @NotNull final List<String> data, final long timeout, @NotNull final TimeUnit unit, @Nullable final BiConsumer<String, IPCMessage> onReply) throws IllegalArgumentException, IllegalStateException {
+        
+        final Map<String, ServerIPCSocket> targets = new LinkedHashMap<String, ServerIPCSocket>();
+        for (final String server : servers) {
+            if (server.equals(IPCMessage.BROADCAST_SERVER)) {
+                for (final Map.Entry<String, ServerIPCSocket> entry : this.serverSockets.entrySet()) {
+                    if (entry.getValue().isConnected() && this.subscriptions.isSubscribed(entry.getKey(), channel)) {
+                        targets.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            } else {
+                targets.put(server, this.serverSockets.get(server));
+            }
+        }
+        return this.scatterGather.send(targets, channel, data, timeout, unit, onReply);
+    }
+    
+    /**
+     * Gathers the given reply to a scatter-gather request.
+     * 
+     * @param reply The reply {@link IPCMessage}.
+     * @see ScatterGather#receiveReply(IPCMessage)
+     */
+    void receiveReply(@NotNull final IPCMessage reply) {
+        this.scatterGather.receiveReply(reply);
+    }
+    
+    /**
+     * Gets the {@link ServerIPCSocket} for the given server.
+     * 
+     * @param name The name of the server.
+     * @return The {@link ServerIPCSocket}, or {@code null} if the server is
+     *         not registered to this {@link BungeeIPCPlugin}.
+     */
+    @Nullable
+    ServerIPCSocket getServerSocket(@NotNull final String name) {
+        return this.serverSockets.get(name);
+    }
+    
+    /**
+     * Gets the round trip time of the IPC connection to the given server,
+     * averaged over the recent ping frames sent on it.
+     * 
+     * @param name The name of the server.
+     * @return The round trip time in nanoseconds, or {@link Long#MAX_VALUE}
+     *         if it is not known.
+     * @see RoundTripTimes#get(String)
+     */
+    long getRoundTripTime(@NotNull final String name) {
+        return this.roundTripTimes.get(name);
+    }
+    
+    /**
+     * Called when a pong frame has been received on the IPC connection to the
+     * given server, with the time since the matching ping frame was sent.
+     * 
+     * @param name The name of the server.
+     * @param roundTripTime The measured round trip time, in nanoseconds.
+     */
+    void roundTripMeasured(@NotNull final String name, final long roundTripTime) {
+        this.roundTripTimes.record(name, roundTripTime);
+    }
+    
+    /**
+     * Checks if the given destination is resolved to a server while routing,
+     * rather than naming a server directly.
+     * 
+     * @param destination The destination.
+     * @return {@code true} if the destination addresses a player or a
+     *         {@link ServerPool}, {@code false} otherwise.
+     * @see IPCMessage#PLAYER_PREFIX
+     * @see IPCMessage#QUEUED_PLAYER_PREFIX
+     * @see IPCMessage#ANYCAST_PREFIX
+     */
+    private boolean isRoutedDestination(@NotNull final String destination) {
+        return PlayerRouter.isPlayerDestination(destination) || destination.startsWith(IPCMessage.ANYCAST_PREFIX);
+    }
+    
+    /**
+     * Routes the given {@link IPCMessage IPCMessages}, all addressed to the
+     * given player or {@link ServerPool} destination, on to the server(s) the
+     * destination resolves to.
+     * 
+     * @param destination The player or {@link ServerPool} destination.
+     * @param messages The {@link IPCMessage IPCMessages} to route.
+     * @return A {@link CompletableFuture} that completes once the
+     *         {@link IPCMessage IPCMessages} have been sent, or completes
+     *         exceptionally with an {@link IPCSendException} if they could
+     *         not be.
+     * @see PlayerRouter#route(String, List)
+     * @see ServerPool#route(List)
+     */
+    @NotNull
+    private CompletableFuture<Void> route(@NotNull final String destination, @NotNull final List<IPCMessage> messages) {
+        
+        if (PlayerRouter.isPlayerDestination(destination)) {
+            return this.playerRouter.route(destination, messages);
         }
+        
+        final String poolName = destination.substring(IPCMessage.ANYCAST_PREFIX.length());
+        final ServerPool pool = this.pools.get(poolName);
+        if (pool == null) {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.UNKNOWN_DESTINATION, "Server pool " + poolName + " is not registered to this IPC Plugin."));
+            return future;
+        }
+        return pool.route(messages);
+    }
+    
+    /**
+     * Forwards the given {@link IPCMessage IPCMessages}, all addressed to the
+     * given player or {@link ServerPool} destination, on to the server(s) the
+     * destination resolves to, logging if they could not be.
+     * 
+     * @param destination The player or {@link ServerPool} destination.
+     * @param messages The {@link IPCMessage IPCMessages} to forward.
+     * @see BungeeIPCPlugin#route(String, List)
+     */
+    private void forward(@NotNull final String destination, @NotNull final List<IPCMessage> messages) {
+        this.route(destination, messages).whenComplete((value, throwable) -> {
+            if (throwable != null) {
+                final Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                this.logger.log(Level.WARNING, "Unable to forward " + messages.size() + " IPC message(s) on to destination " + destination);
+                this.logger.log(Level.WARNING, cause.getMessage());
+                this.logger.log(Level.CONFIG, cause.getClass().getSimpleName() + " thrown.", cause);
+            }
+        });
+    }
+    
+    /**
+     * Gets the {@link SubscriptionTable} that tracks which servers are
+     * subscribed to which channels.
+     * 
+     * @return The {@link SubscriptionTable}.
+     */
+    @NotNull
+    SubscriptionTable getSubscriptions() {
+        return this.subscriptions;
+    }
+    
+    /**
+     * Gets the {@link ExpiryCounters} of the expired
+     * {@link IPCMessage IPCMessages} discarded by the BungeeCord proxy, rather
+     * than sent, forwarded, or read.
+     * 
+     * @return The {@link ExpiryCounters}.
+     */
+    @NotNull
+    public ExpiryCounters getExpiryCounters() {
+        return this.expiryCounters;
+    }
+    
+    /**
+     * Gets the number of {@link IPCMessage IPCMessages} from the given server
+     * that may be handled each turn when the dispatcher shares its workers
+     * between servers.
+     * 
+     * @param serverName The name of the server.
+     * @return The weight of the server, which is {@code 1} unless configured
+     *         otherwise.
+     */
+    int getDispatchWeight(@NotNull final String serverName) {
+        return this.dispatchWeights.getOrDefault(serverName, 1);
+    }
+    
+    /**
+     * Gets whether only the latest {@link IPCMessage} for each ordering key on
+     * the given channel needs to be delivered, so that unsent or unprocessed
+     * {@link IPCMessage IPCMessages} on it may be replaced by newer ones.
+     * 
+     * @param channel The channel.
+     * @return {@code true} if the channel is conflated, {@code false}
+     *         otherwise.
+     */
+    boolean isConflated(@NotNull final String channel) {
+        return this.conflatedChannels.contains(channel);
+    }
+    
+    /**
+     * Gets the {@link RateLimiter} that limits the rate of the
+     * {@link IPCMessage IPCMessages} read from the Bukkit servers.
+     * 
+     * @return The {@link RateLimiter}.
+     */
+    @NotNull
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+    
+    /**
+     * Gets the {@link TimingWheel} that drives the internal timeouts of this
+     * {@link BungeeIPCPlugin}, such as those of scatter-gather requests and
+     * queued player messages.
+     * 
+     * @return The {@link TimingWheel}.
+     */
+    @NotNull
+    TimingWheel getTimingWheel() {
+        return this.timingWheel;
+    }
+    
+    /**
+     * Gets the {@link ResponseCache} that caches the responses to queries on
+     * the configured channels.
+     * 
+     * @return The {@link ResponseCache}.
+     */
+    @NotNull
+    ResponseCache getResponseCache() {
+        return this.responseCache;
+    }
+    
+    /**
+     * Gets the {@link ReplicatedStore} that holds the authoritative copy of
+     * each replicated map.
+     * 
+     * @return The {@link ReplicatedStore}.
+     */
+    @NotNull
+    ReplicatedStore getReplicatedStore() {
+        return this.replicatedStore;
+    }
+    
+    /**
+     * Called when the connection of a {@link ServerIPCSocket} to its server
+     * is broken, so that nothing more is replicated to it until it has
+     * reconnected and synchronized again.
+     * 
+     * @param name The name of the server.
+     */
+    void serverDisconnected(@NotNull final String name) {
+        this.replicatedStore.removeServer(name);
+        this.roundTripTimes.remove(name);
+    }
+    
+    /**
+     * Gets the hit and miss counts of each channel whose responses are
+     * cached by this {@link BungeeIPCPlugin}.
+     * 
+     * @return The {@link ResponseCacheStats} of each cached channel, sorted
+     *         by channel.
+     */
+    @NotNull
+    public List<ResponseCacheStats> getResponseCacheStats() {
+        return this.responseCache.getStats();
+    }
+    
+    /**
+     * Filters the given {@link IPCMessage IPCMessages} down to those whose
+     * channel the given server is subscribed to, maintaining their order.
+     * 
+     * @param serverName The name of the server.
+     * @param messages The {@link IPCMessage IPCMessages} to filter.
+     * @return The {@link IPCMessage IPCMessages} the server is subscribed to.
+     */
+    @NotNull
+    private List<IPCMessage> filterSubscribed(@NotNull final String serverName, @NotNull final List<IPCMessage> messages) {
+        final List<IPCMessage> subscribed = new ArrayList<IPCMessage>(messages.size());
+        for (final IPCMessage message : messages) {
+            if (this.subscriptions.isSubscribed(serverName, message.getChannel())) {
+                subscribed.add(message);
+            }
+        }
+        return subscribed;
+    }
+    
+    /**
+     * Groups the given {@link IPCMessage IPCMessages} by their destination,
+     * maintaining the order of both the destinations and the
+     * {@link IPCMessage IPCMessages} within each destination.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to group.
+     * @return The grouped {@link IPCMessage IPCMessages}.
+     */
+    @NotNull
+    private Map<String, List<IPCMessage>> groupByDestination(@NotNull final Collection<IPCMessage> messages) {
+        final Map<String, List<IPCMessage>> groups = new LinkedHashMap<String, List<IPCMessage>>();
+        for (final IPCMessage message : messages) {
+            groups.computeIfAbsent(message.getDestination(), destination -> new ArrayList<IPCMessage>()).add(message);
+        }
+        return groups;
     }
     
     /**
@@ -331,6 +885,44 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         }
     }
     
+    /**
+     * Gets the {@link NettyTransport} shared by all Netty-based IPC servers,
+     * creating it the first time it is needed.
+     * 
+     * @return The shared {@link NettyTransport}.
+     */
+    @NotNull
+    private synchronized NettyTransport getNettyTransport() {
+        if (this.nettyTransport == null) {
+            this.nettyTransport = new NettyTransport("BungeeIPC Netty", 0);
+            this.logger.log(Level.CONFIG, "Netty IPC transport using " + (this.nettyTransport.isEpoll() ? "epoll" : "NIO") + ".");
+        }
+        return this.nettyTransport;
+    }
+    
+    /**
+     * Computes a fingerprint of the given KeyStore data and the settings used
+     * to create an {@link SSLContext} from it. If the fingerprint has not
+     * changed between reloads, the existing {@link SSLContext} may be reused.
+     * 
+     * @param keyStoreData The raw contents of the KeyStore file.
+     * @param settings The KeyStore password and any other settings used when
+     *                 creating the {@link SSLContext}.
+     * @return The fingerprint.
+     * @throws NoSuchAlgorithmException If the SHA-256 algorithm is not
+     *                                  available.
+     */
+    @NotNull
+    private byte[] getSSLContextFingerprint(@NotNull final byte[] keyStoreData, @NotNull final String... settings) throws NoSuchAlgorithmException {
+        final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(keyStoreData);
+        for (final String setting : settings) {
+            digest.update((byte) 0);
+            digest.update(setting.getBytes(StandardCharsets.UTF_8));
+        }
+        return digest.digest();
+    }
+    
     /**
      * Validates that the given server name is a registered
      * {@link ServerIPCSocket}.
@@ -393,6 +985,31 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         this.reloadConfig(sender, true);
     }
     
+    /**
+     * Creates the {@link RateLimiter.Limit} described by the given section of
+     * the configuration. If no burst size is given, it is the number of
+     * {@link IPCMessage IPCMessages} allowed per second.
+     * 
+     * @param limitConfig The section of the configuration.
+     * @return The {@link RateLimiter.Limit}.
+     * @throws IllegalArgumentException If the section is missing, or the rate
+     *                                  or burst size is invalid.
+     */
+    @NotNull
+    private RateLimiter.Limit createRateLimit(@Nullable final Configuration limitConfig) throws IllegalArgumentException {
+        
+        if (limitConfig == null) {
+            throw new IllegalArgumentException("Rate limit must be a section with a rate.");
+        }
+        
+        final double rate = limitConfig.getDouble("rate", 0.0D);
+        int burst = limitConfig.getInt("burst", 0);
+        if (burst == 0) {
+            burst = (int) Math.min(Integer.MAX_VALUE, Math.max(1.0D, Math.ceil(rate)));
+        }
+        return new RateLimiter.Limit(rate, burst);
+    }
+    
     /**
      * Reloads the configuration file, displaying any error messages to the
      * given {@link CommandSender} if this was triggered via {@link Command}.
@@ -412,7 +1029,7 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
         this.serverSockets.clear();
         
         this.scheduler.runAsync(this, () -> {
-        
+            
             final ConfigurationProvider provider = ConfigurationProvider.getProvider(YamlConfiguration.class);
             
             File configFile = new File(this.getDataFolder(), "bungeeipc.yml");
@@ -597,20 +1214,50 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
                     tlsCipherSuiteWhitelist.add("TLS_DHE_RSA_WITH_AES_256_GCM_SHA384");
                 }
                 
+                int sslSessionCacheSize = config.getInt("ssl_session_cache_size", 1024);
+                if (sslSessionCacheSize < 0) {
+                    sslSessionCacheSize = 1024;
+                }
+                int sslSessionTimeout = config.getInt("ssl_session_timeout", 86400);
+                if (sslSessionTimeout < 0) {
+                    sslSessionTimeout = 86400;
+                }
+                
                 try {
-                    final KeyStore keyStore = KeyStore.getInstance(keyStoreInstance);
-                    keyStore.load(Files.newInputStream(Paths.get(keyStoreFile)), keyStorePassword.toCharArray());
+                    final byte[] keyStoreData = Files.readAllBytes(Paths.get(keyStoreFile));
+                    final byte[] sslContextFingerprint = this.getSSLContextFingerprint(keyStoreData, keyStorePassword, keyStoreInstance, keyManagerFactoryAlgorithm, trustManagerFactoryAlgorithm, sslContextProtocol);
                     
-                    final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(keyManagerFactoryAlgorithm);
-                    keyManagerFactory.init(keyStore, keyStorePassword.toCharArray());
-                    
-                    final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(trustManagerFactoryAlgorithm);
-                    trustManagerFactory.init(keyStore);
+                    // Only rebuild the SSLContext if the KeyStore or the SSL/TLS
+                    // settings have changed. Keeping the same SSLContext keeps
+                    // the server-side session cache, allowing the Bukkit servers
+                    // to resume their sessions instead of performing a full
+                    // handshake after a reload or reconnect.
+                    if (this.sslContext != null && MessageDigest.isEqual(sslContextFingerprint, this.sslContextFingerprint)) {
+                        this.logger.log(Level.CONFIG, "KeyStore and SSL/TLS settings unchanged, reusing the existing SSLContext.");
+                    } else {
+                        
+                        final KeyStore keyStore = KeyStore.getInstance(keyStoreInstance);
+                        keyStore.load(new ByteArrayInputStream(keyStoreData), keyStorePassword.toCharArray());
+                        
+                        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(keyManagerFactoryAlgorithm);
+                        keyManagerFactory.init(keyStore, keyStorePassword.toCharArray());
+                        
+                        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(trustManagerFactoryAlgorithm);
+                        trustManagerFactory.init(keyStore);
+                        
+                        final SSLContext sslContext = SSLContext.getInstance(sslContextProtocol);
+                        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+                        
+                        this.sslContext = sslContext;
+                        this.sslContextFingerprint = sslContextFingerprint;
+                        this.logger.log(Level.CONFIG, "Created a new SSLContext.");
+                    }
                     
-                    final SSLContext sslContext = SSLContext.getInstance(sslContextProtocol);
-                    sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+                    final SSLSessionContext sessionContext = this.sslContext.getServerSessionContext();
+                    sessionContext.setSessionCacheSize(sslSessionCacheSize);
+                    sessionContext.setSessionTimeout(sslSessionTimeout);
                     
-                    sslServerSocketFactory = sslContext.getServerSocketFactory();
+                    sslServerSocketFactory = this.sslContext.getServerSocketFactory();
                 } catch (final KeyStoreException | SecurityException | IOException | NoSuchAlgorithmException | CertificateException | UnrecoverableKeyException | KeyManagementException e) {
                     this.logger.log(Level.WARNING, "Unable to create SSLServerSocketFactory.");
                     this.logger.log(Level.WARNING, "None of the IPC Servers will be started.");
@@ -622,6 +1269,197 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
                 }
             }
             
+            boolean useVirtualThreads = config.getBoolean("use_virtual_threads", false);
+            if (useVirtualThreads && !VirtualThreads.isSupported()) {
+                this.logger.log(Level.WARNING, "Virtual threads require Java 21 or newer.");
+                this.logger.log(Level.WARNING, "The IPC Servers will use the BungeeCord scheduler instead.");
+                useVirtualThreads = false;
+            }
+            
+            final boolean useNetty = config.getBoolean("use_netty", false);
+            
+            int dispatcherThreads = config.getInt("dispatcher_threads", 0);
+            if (dispatcherThreads < 1) {
+                dispatcherThreads = Runtime.getRuntime().availableProcessors();
+            }
+            
+            final Map<String, Integer> dispatchWeights = new HashMap<String, Integer>();
+            final Configuration weightsConfig = config.getSection("dispatcher_weights");
+            if (weightsConfig != null) {
+                for (final String weightedServer : weightsConfig.getKeys()) {
+                    final int weight = weightsConfig.getInt(weightedServer, 1);
+                    if (weight < 1) {
+                        this.logger.log(Level.WARNING, "Invalid dispatcher weight for server " + weightedServer + ", using 1 instead.");
+                        continue;
+                    }
+                    dispatchWeights.put(weightedServer, weight);
+                }
+            }
+            this.dispatchWeights = dispatchWeights;
+            
+            final OrderedDispatcher oldDispatcher = this.dispatcher;
+            if (oldDispatcher == null || !oldDispatcher.hasSettings(dispatcherThreads, useVirtualThreads)) {
+                this.dispatcher = new OrderedDispatcher(this, dispatcherThreads, useVirtualThreads);
+                if (oldDispatcher != null) {
+                    oldDispatcher.shutdown();
+                }
+                this.logger.log(Level.CONFIG, "Dispatching received IPC messages on " + dispatcherThreads + " thread(s).");
+            }
+            
+            long playerQueueTimeout = config.getLong("player_queue_timeout", 5000L);
+            if (playerQueueTimeout < 1L) {
+                playerQueueTimeout = 5000L;
+            }
+            this.playerRouter.setQueueTimeout(playerQueueTimeout);
+            
+            final List<String> conflatedChannels = config.getStringList("conflated_channels");
+            this.conflatedChannels = conflatedChannels == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(new HashSet<String>(conflatedChannels));
+            if (!this.conflatedChannels.isEmpty()) {
+                this.logger.log(Level.CONFIG, "Conflating IPC messages on " + this.conflatedChannels.size() + " channel(s).");
+            }
+            
+            final Map<String, ServerPool> pools = new HashMap<String, ServerPool>();
+            final Configuration poolsConfig = config.getSection("pools");
+            if (poolsConfig != null) {
+                for (final String poolName : poolsConfig.getKeys()) {
+                    final Configuration poolConfig = poolsConfig.getSection(poolName);
+                    
+                    ServerPool.Strategy strategy;
+                    try {
+                        strategy = ServerPool.Strategy.fromName(poolConfig.getString("strategy", ServerPool.Strategy.ROUND_ROBIN.getName()));
+                    } catch (final IllegalArgumentException e) {
+                        this.logger.log(Level.WARNING, "Invalid strategy for server pool " + poolName + ", using " + ServerPool.Strategy.ROUND_ROBIN.getName() + " instead.");
+                        this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+                        strategy = ServerPool.Strategy.ROUND_ROBIN;
+                    }
+                    
+                    final ServerPool pool;
+                    try {
+                        final List<String> poolServers = poolConfig.getStringList("servers");
+                        pool = new ServerPool(this, poolName, poolServers == null ? Collections.<String>emptyList() : poolServers, strategy);
+                    } catch (final IllegalArgumentException e) {
+                        this.logger.log(Level.WARNING, "Failure while attempting to create server pool " + poolName + ".");
+                        this.logger.log(Level.WARNING, "Server pool " + poolName + " will not be available.");
+                        this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                        continue;
+                    }
+                    pools.put(poolName, pool);
+                    this.logger.log(Level.CONFIG, "Server pool " + poolName + " has " + pool.getServers().size() + " server(s), picked by " + pool.getStrategy().getName() + ".");
+                }
+            }
+            this.pools = pools;
+            
+            int responseCacheSize = 1024;
+            final Map<String, Long> responseCacheTimes = new HashMap<String, Long>();
+            final Map<String, String> responseChannels = new HashMap<String, String>();
+            final Configuration responseCacheConfig = config.getSection("response_cache");
+            if (responseCacheConfig != null) {
+                responseCacheSize = responseCacheConfig.getInt("max_entries", 1024);
+                if (responseCacheSize < 1) {
+                    responseCacheSize = 1024;
+                }
+                final Configuration channelsConfig = responseCacheConfig.getSection("channels");
+                if (channelsConfig != null) {
+                    for (final String cachedChannel : channelsConfig.getKeys()) {
+                        final long timeToLive = channelsConfig.getLong(cachedChannel, 0L);
+                        if (timeToLive < 1L) {
+                            this.logger.log(Level.WARNING, "Invalid response cache time-to-live for channel " + cachedChannel + ", responses will not be cached.");
+                            continue;
+                        }
+                        responseCacheTimes.put(cachedChannel, timeToLive);
+                    }
+                }
+                final Configuration responseChannelsConfig = responseCacheConfig.getSection("response_channels");
+                if (responseChannelsConfig != null) {
+                    for (final String cachedChannel : responseChannelsConfig.getKeys()) {
+                        final String responseChannel = responseChannelsConfig.getString(cachedChannel, "");
+                        if (responseChannel.trim().isEmpty()) {
+                            this.logger.log(Level.WARNING, "Invalid response channel for cached channel " + cachedChannel + ", responses will be expected on channel " + cachedChannel + " itself.");
+                            continue;
+                        }
+                        responseChannels.put(cachedChannel, responseChannel);
+                    }
+                }
+            }
+            this.responseCache.configure(responseCacheSize, responseCacheTimes, responseChannels);
+            if (!responseCacheTimes.isEmpty()) {
+                this.logger.log(Level.CONFIG, "Caching responses on " + responseCacheTimes.size() + " channel(s), up to " + responseCacheSize + " response(s).");
+            }
+            
+            final Map<String, StreamAggregator.Aggregation> aggregations = new HashMap<String, StreamAggregator.Aggregation>();
+            final Configuration aggregationsConfig = config.getSection("aggregations");
+            if (aggregationsConfig != null) {
+                for (final String aggregatedChannel : aggregationsConfig.getKeys()) {
+                    final Configuration aggregationConfig = aggregationsConfig.getSection(aggregatedChannel);
+                    
+                    StreamAggregator.Operator operator;
+                    try {
+                        operator = StreamAggregator.Operator.fromName(aggregationConfig.getString("operator", StreamAggregator.Operator.SUM.getName()));
+                    } catch (final IllegalArgumentException e) {
+                        this.logger.log(Level.WARNING, "Invalid operator for aggregated channel " + aggregatedChannel + ", using " + StreamAggregator.Operator.SUM.getName() + " instead.");
+                        this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+                        operator = StreamAggregator.Operator.SUM;
+                    }
+                    
+                    final StreamAggregator.Aggregation aggregation;
+                    try {
+                        aggregation = new StreamAggregator.Aggregation(operator, aggregationConfig.getLong("window", 1000L), aggregationConfig.getInt("key_field", -1), aggregationConfig.getInt("value_field", 0));
+                    } catch (final IllegalArgumentException e) {
+                        this.logger.log(Level.WARNING, "Failure while attempting to configure aggregation of channel " + aggregatedChannel + ".");
+                        this.logger.log(Level.WARNING, "Messages on channel " + aggregatedChannel + " will not be aggregated.");
+                        this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                        continue;
+                    }
+                    aggregations.put(aggregatedChannel, aggregation);
+                    this.logger.log(Level.CONFIG, "Aggregating channel " + aggregatedChannel + " by " + aggregation.getOperator().getName() + " every " + aggregation.getWindow() + "ms.");
+                }
+            }
+            this.aggregator.configure(aggregations);
+            
+            RateLimiter.Action rateLimitAction = RateLimiter.Action.DELAY;
+            RateLimiter.Limit serverRateLimit = null;
+            final Map<String, RateLimiter.Limit> channelRateLimits = new HashMap<String, RateLimiter.Limit>();
+            final Configuration rateLimitsConfig = config.getSection("rate_limits");
+            if (rateLimitsConfig != null) {
+                try {
+                    rateLimitAction = RateLimiter.Action.fromName(rateLimitsConfig.getString("action", RateLimiter.Action.DELAY.getName()));
+                } catch (final IllegalArgumentException e) {
+                    this.logger.log(Level.WARNING, "Invalid rate limit action, using " + RateLimiter.Action.DELAY.getName() + " instead.");
+                    this.logger.log(Level.CONFIG, e.getClass().getSimpleName() + " thrown.", e);
+                }
+                
+                final Configuration serverConfig = rateLimitsConfig.getSection("per_server");
+                if (serverConfig != null && serverConfig.getDouble("rate", 0.0D) > 0.0D) {
+                    try {
+                        serverRateLimit = this.createRateLimit(serverConfig);
+                    } catch (final IllegalArgumentException e) {
+                        this.logger.log(Level.WARNING, "Failure while attempting to configure the per-server rate limit.");
+                        this.logger.log(Level.WARNING, "IPC messages will not be rate limited per server.");
+                        this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                    }
+                }
+                
+                final Configuration channelsConfig = rateLimitsConfig.getSection("channels");
+                if (channelsConfig != null) {
+                    for (final String limitedChannel : channelsConfig.getKeys()) {
+                        try {
+                            channelRateLimits.put(limitedChannel, this.createRateLimit(channelsConfig.getSection(limitedChannel)));
+                        } catch (final IllegalArgumentException e) {
+                            this.logger.log(Level.WARNING, "Failure while attempting to configure the rate limit of channel " + limitedChannel + ".");
+                            this.logger.log(Level.WARNING, "Messages on channel " + limitedChannel + " will not be rate limited.");
+                            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                        }
+                    }
+                }
+            }
+            this.rateLimiter.configure(rateLimitAction, serverRateLimit, channelRateLimits);
+            if (serverRateLimit != null) {
+                this.logger.log(Level.CONFIG, "Rate limiting each server to " + serverRateLimit.getRate() + " message(s) per second, in bursts of up to " + serverRateLimit.getBurst() + ".");
+            }
+            if (!channelRateLimits.isEmpty()) {
+                this.logger.log(Level.CONFIG, "Rate limiting " + channelRateLimits.size() + " channel(s).");
+            }
+            
             final Configuration serversConfig = config.getSection("servers");
             if (serversConfig == null || serversConfig.getKeys().isEmpty()) {
                 this.logger.log(Level.INFO, "BungeeIPC configuration file has been reloaded.");
@@ -673,9 +1511,28 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
             for (final String serverName : serversConfig.getKeys()) {
                 
                 final Configuration serverConfig = serversConfig.getSection(serverName);
-                final BungeeServerIPCSocket serverSocket;
+                final ServerIPCSocket serverSocket;
+                final List<String> stripeConnections = new ArrayList<String>();
                 try {
-                    serverSocket = new BungeeServerIPCSocket(this, serverName, serverConfig, localAddresses, sslServerSocketFactory, tlsVersionWhitelist, tlsCipherSuiteWhitelist);
+                    final int connectionCount = serverConfig.getInt("connections", 1);
+                    if (connectionCount < 1) {
+                        throw new IllegalArgumentException("Number of connections must be at least 1.");
+                    }
+                    
+                    final boolean netty = useNetty && TransportType.fromName(serverConfig.getString("transport", TransportType.TCP.getName())) == TransportType.TCP;
+                    final List<ServerIPCSocket> stripes = new ArrayList<ServerIPCSocket>(connectionCount);
+                    for (int stripe = 0; stripe < connectionCount; stripe++) {
+                        if (netty) {
+                            final BungeeNettyServerIPCSocket nettyServerSocket = new BungeeNettyServerIPCSocket(this, this.getNettyTransport(), serverName, serverConfig, stripe, localAddresses, sslServerSocketFactory == null ? null : this.sslContext, tlsVersionWhitelist, tlsCipherSuiteWhitelist, useVirtualThreads);
+                            stripeConnections.add(nettyServerSocket.getConnectionDescription());
+                            stripes.add(nettyServerSocket);
+                        } else {
+                            final BungeeServerIPCSocket blockingServerSocket = new BungeeServerIPCSocket(this, serverName, serverConfig, stripe, localAddresses, sslServerSocketFactory, tlsVersionWhitelist, tlsCipherSuiteWhitelist, useVirtualThreads);
+                            stripeConnections.add(blockingServerSocket.getConnectionDescription());
+                            stripes.add(blockingServerSocket);
+                        }
+                    }
+                    serverSocket = stripes.size() == 1 ? stripes.get(0) : new BungeeStripedServerIPCSocket(serverName, stripes);
                 } catch (final IllegalArgumentException e) {
                     this.logger.log(Level.WARNING, "Failure while attempting to create ServerIPCSocket " + serverName + ".");
                     this.logger.log(Level.WARNING, "IPC Server " + serverName + " will not be started.");
@@ -695,19 +1552,24 @@ public final class BungeeIPCPlugin extends Plugin implements ServerIPCPlugin {
                     continue;
                 }
                 
-                final String connection = serverSocket.getAddress().getHostAddress() + ":" + serverSocket.getPort();
-                if (!connections.add(connection)) {
+                String connection = null;
+                for (final String stripeConnection : stripeConnections) {
+                    if (!connections.add(stripeConnection)) {
+                        connection = stripeConnection;
+                        break;
+                    }
+                }
+                if (connection != null) {
                     this.logger.log(Level.WARNING, "Non-unique IPC connection.");
                     this.logger.log(Level.WARNING, "ServerIPCSocket name: " + serverName);
-                    this.logger.log(Level.WARNING, "Hostname/IP Address: " + serverSocket.getAddress().getHostAddress());
-                    this.logger.log(Level.WARNING, "Port: " + serverSocket.getPort());
+                    this.logger.log(Level.WARNING, "Connection: " + connection);
                     this.logger.log(Level.WARNING, "IPC Server " + serverName + " will not be started.");
                     if (command) {
                         final ComponentBuilder builder1 = new ComponentBuilder("An error has occurred while (re)loading one of the IPC Servers. Please check the BungeeIPC configuration section for the IPC Server ").color(ChatColor.RED);
                         builder1.append(serverName).color(ChatColor.AQUA);
                         builder1.append(".").color(ChatColor.RED);
                         final ComponentBuilder builder2 = new ComponentBuilder("This appears to be an issue with ").color(ChatColor.RED);
-                        builder2.append("non-unique connection information (hostname/IP address and port combination are used somewhere else)").color(ChatColor.AQUA);
+                        builder2.append("non-unique connection information (hostname/IP address and port combination, or socket path, is used somewhere else)").color(ChatColor.AQUA);
                         builder2.append(". Please update the BungeeIPC configuration to remove this conflict.").color(ChatColor.RED);
                         final ComponentBuilder builder3 = new ComponentBuilder("After updating the configuration section as needed, please run ").color(ChatColor.GOLD);
                         builder3.append("/ipcb reload").color(ChatColor.AQUA);
@@ -0,0 +1,346 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import net.md_5.bungee.api.config.ServerInfo;
+import net.md_5.bungee.api.scheduler.TaskScheduler;
+import net.md_5.bungee.config.Configuration;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCProtocolException;
+import org.bspfsystems.bungeeipc.api.common.VirtualThreads;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.bspfsystems.bungeeipc.netty.IPCFrame;
+import org.bspfsystems.bungeeipc.netty.NettyIPCSocket;
+import org.bspfsystems.bungeeipc.netty.NettyTransport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the BungeeCord implementation of an {@link ServerIPCSocket} that
+ * uses Netty for the TCP transport, instead of a dedicated thread blocking on
+ * the connection.
+ */
+final class BungeeNettyServerIPCSocket extends NettyIPCSocket implements ServerIPCSocket {
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final NettyTransport nettyTransport;
+    
+    private final String name;
+    private final InetAddress address;
+    private final int port;
+    
+    private final InetAddress serverAddress;
+    
+    private final SSLContext sslContext;
+    private final List<String> tlsVersionWhitelist;
+    private final List<String> tlsCipherSuiteWhitelist;
+    
+    private final TaskScheduler scheduler;
+    private final boolean useVirtualThreads;
+    
+    private volatile Channel serverChannel;
+    
+    /**
+     * Constructs a new {@link BungeeNettyServerIPCSocket}.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin} controlling the
+     *                  {@link BungeeNettyServerIPCSocket}.
+     * @param nettyTransport The {@link NettyTransport} whose event loops the
+     *                       {@link BungeeNettyServerIPCSocket} will run on.
+     * @param name The name to assign to the
+     *             {@link BungeeNettyServerIPCSocket}.
+     * @param config The {@link Configuration} used to configure the IP address
+     *               and port to bind the server socket to.
+     * @param stripe The index of the connection this
+     *               {@link BungeeNettyServerIPCSocket} handles, when there are
+     *               several parallel connections. It is added to the configured
+     *               port, and appended to the configured socket path, if not
+     *               {@code 0}.
+     * @param localAddresses A {@link Collection} of IP addresses that are
+     *                       available on the machine.
+     * @param sslContext The {@link SSLContext} used for SSL/TLS encryption on
+     *                   the connection, or {@code null} if it is not
+     *                   encrypted.
+     * @param tlsVersionWhitelist A {@link List} of SSL/TLS versions that the
+     *                            {@link BungeeNettyServerIPCSocket} may use.
+     * @param tlsCipherSuiteWhitelist A {@link List} of SSL/TLS cipher suites
+     *                                that the
+     *                                {@link BungeeNettyServerIPCSocket} may
+     *                                use.
+     * @param useVirtualThreads {@code true} if the writable callbacks should be
+     *                          run on virtual threads, {@code false} to use
+     *                          the BungeeCord scheduler. Must only be
+     *                          {@code true} if
+     *                          {@link VirtualThreads#isSupported()}.
+     * @throws IllegalArgumentException If there is a configuration error when
+     *                                  setting up the
+     *                                  {@link BungeeNettyServerIPCSocket}.
+     */
+    BungeeNettyServerIPCSocket(@NotNull final BungeeIPCPlugin ipcPlugin, @NotNull final NettyTransport nettyTransport, @NotNull final String name, @NotNull final Configuration config, final int stripe, @NotNull final Collection<InetAddress> localAddresses, @Nullable final SSLContext sslContext, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist, final boolean useVirtualThreads) throws IllegalArgumentException {
+        
+        super(ipcPlugin.getLogger(), "IPC server " + name, ipcPlugin.getExpiryCounters(), config.getInt("send_queue_capacity", 4096), RoundTripTimes.PING_INTERVAL);
+        
+        this.ipcPlugin = ipcPlugin;
+        this.nettyTransport = nettyTransport;
+        
+        if (name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Server name cannot be blank.");
+        }
+        if (name.equalsIgnoreCase(IPCMessage.PROXY_SERVER)) {
+            throw new IllegalArgumentException("Server name cannot be the proxy name (" + IPCMessage.PROXY_SERVER + ").");
+        }
+        if (name.equalsIgnoreCase(IPCMessage.BROADCAST_SERVER)) {
+            throw new IllegalArgumentException("Server name cannot be the broadcast name (" + IPCMessage.BROADCAST_SERVER + ").");
+        }
+        if (name.equalsIgnoreCase(IPCMessage.PLACEHOLDER_SERVER)) {
+            throw new IllegalArgumentException("Server name cannot be the placeholder server name (" + IPCMessage.PLACEHOLDER_SERVER + ").");
+        }
+        final ServerInfo serverInfo = this.ipcPlugin.getProxy().getServerInfo(name);
+        if (serverInfo == null) {
+            throw new IllegalArgumentException("Server name is not a Minecraft server registered with the BungeeCord proxy.");
+        }
+        this.name = name;
+        
+        final String addressValue = config.getString("bind_address", "localhost");
+        if (addressValue.trim().isEmpty()) {
+            throw new IllegalArgumentException("IP address cannot be blank.");
+        }
+        
+        try {
+            this.address = InetAddress.getByName(addressValue);
+        } catch (final UnknownHostException e) {
+            throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
+        }
+        if (!localAddresses.contains(this.address)) {
+            throw new IllegalArgumentException("Cannot use network address that is not on the local system.");
+        }
+        
+        final int portValue = config.getInt("bind_port", -1);
+        if (portValue == -1) {
+            throw new IllegalArgumentException("Port must be specified in the config.");
+        }
+        if (portValue < 1024 || portValue > 65535) {
+            throw new IllegalArgumentException("Port must be between 1024 and 65535 (inclusive).");
+        }
+        if (portValue + stripe > 65535) {
+            throw new IllegalArgumentException("Not enough ports from " + portValue + " for " + (stripe + 1) + " connections.");
+        }
+        this.port = portValue + stripe;
+        
+        this.serverAddress = ((InetSocketAddress) serverInfo.getSocketAddress()).getAddress();
+        
+        this.sslContext = sslContext;
+        this.tlsVersionWhitelist = tlsVersionWhitelist;
+        this.tlsCipherSuiteWhitelist = tlsCipherSuiteWhitelist;
+        
+        this.scheduler = this.ipcPlugin.getProxy().getScheduler();
+        this.useVirtualThreads = useVirtualThreads;
+        this.serverChannel = null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void open() {
+        
+        this.getLogger().log(Level.INFO, "Starting the IPC server for " + this.name + "...");
+        final ChannelFuture bindFuture = this.nettyTransport.newServerBootstrap().childHandler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(@NotNull final Channel channel) {
+                BungeeNettyServerIPCSocket.this.initChannel(channel, BungeeNettyServerIPCSocket.this.createSSLEngine());
+            }
+        }).bind(this.address, this.port);
+        
+        this.serverChannel = bindFuture.channel();
+        bindFuture.addListener((ChannelFutureListener) future -> {
+            if (future.isSuccess()) {
+                this.getLogger().log(Level.INFO, "IPC server " + this.name + " waiting for client connection...");
+            } else {
+                this.getLogger().log(Level.SEVERE, future.cause().getClass().getSimpleName() + " thrown while setting up the IPC server.", future.cause());
+            }
+        });
+    }
+    
+    /**
+     * Creates a new {@link SSLEngine} for an accepted connection, restricted
+     * to the whitelisted SSL/TLS versions and cipher suites.
+     * 
+     * @return The new {@link SSLEngine}, or {@code null} if the connection is
+     *         not encrypted.
+     */
+    @Nullable
+    private SSLEngine createSSLEngine() {
+        if (this.sslContext == null) {
+            return null;
+        }
+        final SSLEngine sslEngine = this.sslContext.createSSLEngine();
+        sslEngine.setUseClientMode(false);
+        sslEngine.setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
+        sslEngine.setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
+        return sslEngine;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void close() {
+        this.getLogger().log(Level.INFO, "Closing IPC server connection...");
+        final Channel serverChannel = this.serverChannel;
+        this.serverChannel = null;
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean connected(@NotNull final Channel channel) {
+        
+        final SocketAddress remoteSocketAddress = channel.remoteAddress();
+        if (remoteSocketAddress instanceof InetSocketAddress) {
+            final InetAddress remoteAddress = ((InetSocketAddress) remoteSocketAddress).getAddress();
+            if (!remoteAddress.equals(this.serverAddress)) {
+                this.getLogger().log(Level.WARNING, "IPC server " + this.name + " unable to connect: configured address mismatch.");
+                this.getLogger().log(Level.WARNING, "Registered Minecraft server address: " + this.serverAddress.getHostAddress());
+                this.getLogger().log(Level.WARNING, "IPC server connected address: " + remoteAddress.getHostAddress());
+                return false;
+            }
+        }
+        
+        this.getLogger().log(Level.INFO, "IPC server " + this.name + " connected to client.");
+        
+        // Let the Minecraft server know which name it is registered under
+        // before anything else is sent.
+        channel.writeAndFlush(IPCFrame.handshake(this.name));
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void disconnected() {
+        this.getLogger().log(Level.INFO, "IPC server " + this.name + " connection broken.");
+        this.getLogger().log(Level.FINE, "Server Name - " + this.name);
+        this.getLogger().log(Level.FINE, "Transport   - netty (" + (this.nettyTransport.isEpoll() ? "epoll" : "nio") + ")");
+        this.getLogger().log(Level.FINE, "Connection  - " + this.getConnectionDescription());
+        this.ipcPlugin.serverDisconnected(this.name);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void handshakeFailed(@NotNull final IPCProtocolException e) {
+        this.getLogger().log(Level.WARNING, "IPC server " + this.name + " rejected the connection. " + e.getMessage());
+        this.getLogger().log(Level.WARNING, "The BungeeCord proxy and all Bukkit servers must run the same version of BungeeIPC.");
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void roundTripMeasured(final long roundTripTime) {
+        this.ipcPlugin.roundTripMeasured(this.name, roundTripTime);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void received(@NotNull final IPCFrame frame) throws Exception {
+        if (frame.getType() == IPCFrame.MESSAGE) {
+            final IPCMessage message = IPCFrameCodec.read(frame.getPayload().get(0), this.name);
+            if (!this.ipcPlugin.getRateLimiter().admit(Collections.singletonList(message), this::pauseReading).isEmpty()) {
+                this.ipcPlugin.dispatchMessage(message);
+            }
+        } else if (frame.getType() == IPCFrame.BATCH) {
+            final List<IPCMessage> messages = new ArrayList<IPCMessage>(frame.getPayload().size());
+            for (final String message : frame.getPayload()) {
+                messages.add(IPCFrameCodec.read(message, this.name));
+            }
+            final List<IPCMessage> admitted = this.ipcPlugin.getRateLimiter().admit(messages, this::pauseReading);
+            if (!admitted.isEmpty()) {
+                this.ipcPlugin.dispatchBatch(admitted);
+            }
+        } else if (frame.getType() != IPCFrame.HANDSHAKE) {
+            // The handshake of a Minecraft server has already been checked,
+            // and carries nothing else to handle.
+            throw new IllegalStateException("Unexpected IPC frame type from a Minecraft server: " + frame.getType());
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} is run on a new virtual thread if this
+     * {@link BungeeNettyServerIPCSocket} uses them, or through the BungeeCord
+     * scheduler otherwise, so that nothing is run on the Netty event loops.
+     */
+    @Override
+    protected void runCallback(@NotNull final Runnable callback) {
+        if (this.useVirtualThreads) {
+            VirtualThreads.start("BungeeIPC Server " + this.name + " Task", callback);
+        } else {
+            this.scheduler.runAsync(this.ipcPlugin, callback);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * Gets a description of where this {@link BungeeNettyServerIPCSocket}
+     * will bind to, as the IP address and port.
+     * 
+     * @return A description of where this {@link BungeeNettyServerIPCSocket}
+     *         will bind to.
+     */
+    @NotNull
+    String getConnectionDescription() {
+        return this.address.getHostAddress() + ":" + this.port;
+    }
+}
@@ -20,6 +20,8 @@
 
 package org.bspfsystems.bungeeipc.bungeecord;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -141,6 +143,62 @@ final class BungeeProxyIPCReader implements IPCReader {
             }
             
             this.ipcPlugin.getProxy().getPluginManager().dispatchCommand(serverSender, builder.toString());
+        } else if (channel.equals("PROXY_SUBSCRIPTIONS")) {
+            
+            if (!message.hasNext()) {
+                this.logger.log(Level.WARNING, "Incomplete IPC subscription update sent to the BungeeCord proxy.");
+                this.logger.log(Level.WARNING, "Missing subscription mode.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final String mode = message.next();
+            if (mode.equals("ALL")) {
+                this.ipcPlugin.getSubscriptions().subscribeAll(message.getOrigin());
+            } else if (mode.equals("SET")) {
+                final List<String> channels = new ArrayList<String>();
+                while (message.hasNext()) {
+                    channels.add(message.next());
+                }
+                this.ipcPlugin.getSubscriptions().subscribe(message.getOrigin(), channels);
+            } else {
+                this.logger.log(Level.WARNING, "Unknown IPC subscription mode sent to the BungeeCord proxy.");
+                this.logger.log(Level.WARNING, "Incoming value: " + mode);
+            }
+        } else if (channel.equals("PROXY_INVALIDATE")) {
+            
+            if (!message.hasNext()) {
+                this.logger.log(Level.WARNING, "Incomplete IPC cache invalidation sent to the BungeeCord proxy.");
+                this.logger.log(Level.WARNING, "Missing invalidation mode and channel.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final String mode = message.next();
+            if (!message.hasNext()) {
+                this.logger.log(Level.WARNING, "Incomplete IPC cache invalidation sent to the BungeeCord proxy.");
+                this.logger.log(Level.WARNING, "Missing channel.");
+                this.logger.log(Level.WARNING, message.toString());
+                return;
+            }
+            
+            final String cachedChannel = message.next();
+            if (mode.equals("ALL")) {
+                this.ipcPlugin.getResponseCache().invalidate(cachedChannel, null);
+            } else if (mode.equals("KEY")) {
+                final List<String> data = new ArrayList<String>();
+                while (message.hasNext()) {
+                    data.add(message.next());
+                }
+                this.ipcPlugin.getResponseCache().invalidate(cachedChannel, data);
+            } else {
+                this.logger.log(Level.WARNING, "Unknown IPC cache invalidation mode sent to the BungeeCord proxy.");
+                this.logger.log(Level.WARNING, "Incoming value: " + mode);
+            }
+        } else if (channel.equals("PROXY_STORE")) {
+            this.ipcPlugin.getReplicatedStore().read(message);
+        } else if (channel.equals(IPCMessage.REPLY_CHANNEL)) {
+            this.ipcPlugin.receiveReply(message);
         } else {
             this.logger.log(Level.WARNING, "IPC message sent to the BungeeCord proxy.");
             this.logger.log(Level.WARNING, "The channel " + channel + " is not registered to this BungeeCord proxy.");
@@ -20,20 +20,28 @@
 
 package org.bspfsystems.bungeeipc.bungeecord;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.UnknownHostException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLServerSocket;
@@ -41,9 +49,17 @@ import javax.net.ssl.SSLServerSocketFactory;
 import net.md_5.bungee.api.config.ServerInfo;
 import net.md_5.bungee.api.scheduler.TaskScheduler;
 import net.md_5.bungee.config.Configuration;
-import org.bspfsystems.bungeeipc.api.common.AbstractIPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
-import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.bspfsystems.bungeeipc.api.common.IPCProtocolException;
+import org.bspfsystems.bungeeipc.api.common.IPCSendQueue;
+import org.bspfsystems.bungeeipc.api.common.VirtualThreads;
+import org.bspfsystems.bungeeipc.api.common.transport.IPCConnection;
+import org.bspfsystems.bungeeipc.api.common.transport.IPCConnectionListener;
+import org.bspfsystems.bungeeipc.api.common.transport.SharedMemoryRings;
+import org.bspfsystems.bungeeipc.api.common.transport.SocketConnectionListener;
+import org.bspfsystems.bungeeipc.api.common.transport.TransportType;
+import org.bspfsystems.bungeeipc.api.common.transport.UnixDomainSockets;
 import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -57,8 +73,10 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
     private final Logger logger;
     
     private final String name;
+    private final TransportType transport;
     private final InetAddress address;
     private final int port;
+    private final Path socketPath;
     
     private final InetAddress serverAddress;
     
@@ -67,14 +85,17 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
     private final List<String> tlsCipherSuiteWhitelist;
     
     private DataOutputStream toBukkit;
-    private ServerSocket serverSocket;
-    private Socket socket;
+    private IPCConnectionListener listener;
+    private IPCConnection connection;
     
     private final TaskScheduler scheduler;
+    private final boolean useVirtualThreads;
     private final AtomicBoolean running;
     private final AtomicBoolean connected;
     private final AtomicInteger taskId;
     
+    private final IPCSendQueue sendQueue;
+    
     /**
      * Constructs a new {@link BungeeServerIPCSocket}.
      * 
@@ -83,6 +104,11 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
      * @param name The name to assign to the {@link BungeeServerIPCSocket}.
      * @param config The {@link Configuration} used to configure the IP address
      *               and port to bind the server socket to.
+     * @param stripe The index of the connection this
+     *               {@link BungeeServerIPCSocket} handles, when there are
+     *               several parallel connections. It is added to the configured
+     *               port, and appended to the configured socket path, if not
+     *               {@code 0}.
      * @param localAddresses A {@link Collection} of IP addresses that are
      *                       available on the machine.
      * @param sslServerSocketFactory The {@link SSLServerSocketFactory} used for
@@ -92,11 +118,16 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
      * @param tlsCipherSuiteWhitelist A {@link List} of SSL/TLS cipher suites
      *                                that the {@link BungeeServerIPCSocket} may
      *                                use.
+     * @param useVirtualThreads {@code true} if the connection and the writable
+     *                          callbacks should be handled on virtual threads,
+     *                          {@code false} to use the BungeeCord scheduler.
+     *                          Must only be {@code true} if
+     *                          {@link VirtualThreads#isSupported()}.
      * @throws IllegalArgumentException If there is a configuration error when
      *                                  setting up the
      *                                  {@link BungeeServerIPCSocket}.
      */
-    BungeeServerIPCSocket(@NotNull final BungeeIPCPlugin ipcPlugin, @NotNull final String name, @NotNull final Configuration config, @NotNull final Collection<InetAddress> localAddresses, @Nullable final SSLServerSocketFactory sslServerSocketFactory, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist) throws IllegalArgumentException {
+    BungeeServerIPCSocket(@NotNull final BungeeIPCPlugin ipcPlugin, @NotNull final String name, @NotNull final Configuration config, final int stripe, @NotNull final Collection<InetAddress> localAddresses, @Nullable final SSLServerSocketFactory sslServerSocketFactory, @NotNull final List<String> tlsVersionWhitelist, @NotNull final List<String> tlsCipherSuiteWhitelist, final boolean useVirtualThreads) throws IllegalArgumentException {
         
         this.ipcPlugin = ipcPlugin;
         this.logger = this.ipcPlugin.getLogger();
@@ -119,28 +150,58 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
         }
         this.name = name;
         
-        final String addressValue = config.getString("bind_address", "localhost");
-        if (addressValue.trim().isEmpty()) {
-            throw new IllegalArgumentException("IP address cannot be blank.");
-        }
+        this.transport = TransportType.fromName(config.getString("transport", TransportType.TCP.getName()));
         
-        try {
-            this.address = InetAddress.getByName(addressValue);
-        } catch (final UnknownHostException e) {
-            throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
-        }
-        if (!localAddresses.contains(this.address)) {
-            throw new IllegalArgumentException("Cannot use network address that is not on the local system.");
-        }
-        
-        final int portValue = config.getInt("bind_port", -1);
-        if (portValue == -1) {
-            throw new IllegalArgumentException("Port must be specified in the config.");
-        }
-        if (portValue < 1024 || portValue > 65535) {
-            throw new IllegalArgumentException("Port must be between 1024 and 65535 (inclusive).");
+        if (this.transport == TransportType.TCP) {
+            
+            final String addressValue = config.getString("bind_address", "localhost");
+            if (addressValue.trim().isEmpty()) {
+                throw new IllegalArgumentException("IP address cannot be blank.");
+            }
+            
+            try {
+                this.address = InetAddress.getByName(addressValue);
+            } catch (final UnknownHostException e) {
+                throw new IllegalArgumentException("Unable to decipher IP address from config value.", e);
+            }
+            if (!localAddresses.contains(this.address)) {
+                throw new IllegalArgumentException("Cannot use network address that is not on the local system.");
+            }
+            
+            final int portValue = config.getInt("bind_port", -1);
+            if (portValue == -1) {
+                throw new IllegalArgumentException("Port must be specified in the config.");
+            }
+            if (portValue < 1024 || portValue > 65535) {
+                throw new IllegalArgumentException("Port must be between 1024 and 65535 (inclusive).");
+            }
+            if (portValue + stripe > 65535) {
+                throw new IllegalArgumentException("Not enough ports from " + portValue + " for " + (stripe + 1) + " connections.");
+            }
+            this.port = portValue + stripe;
+            this.socketPath = null;
+        } else {
+            
+            if (!this.transport.isSupported()) {
+                throw new IllegalArgumentException("The " + this.transport.getName() + " transport requires Java 16 or newer.");
+            }
+            if (sslServerSocketFactory != null) {
+                this.logger.log(Level.CONFIG, "SSL/TLS settings are not used by the " + this.transport.getName() + " transport.");
+            }
+            
+            final String socketPathValue = config.getString("socket_path", "");
+            if (socketPathValue.trim().isEmpty()) {
+                throw new IllegalArgumentException("Socket path must be specified in the config when using the " + this.transport.getName() + " transport.");
+            }
+            
+            this.address = null;
+            this.port = -1;
+            try {
+                this.socketPath = Paths.get(stripe == 0 ? socketPathValue : socketPathValue + "." + stripe);
+            } catch (final InvalidPathException e) {
+                throw new IllegalArgumentException("Unable to decipher socket path from config value.", e);
+            }
         }
-        this.port = portValue;
         
         this.serverAddress = ((InetSocketAddress) serverInfo.getSocketAddress()).getAddress();
         
@@ -149,10 +210,13 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
         this.tlsCipherSuiteWhitelist = tlsCipherSuiteWhitelist;
         
         this.scheduler = this.ipcPlugin.getProxy().getScheduler();
+        this.useVirtualThreads = useVirtualThreads;
         this.running = new AtomicBoolean(false);
         this.connected = new AtomicBoolean(false);
         this.taskId = new AtomicInteger(-1);
         this.toBukkit = null;
+        
+        this.sendQueue = new IPCSendQueue("IPC server " + this.name, "Bukkit server " + this.name, this.logger, this.ipcPlugin.getExpiryCounters(), this::isConnected, this::runAsync, config.getInt("send_queue_capacity", 4096), RoundTripTimes.PING_INTERVAL);
     }
     
     /**
@@ -178,7 +242,11 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
     public void start() {
         this.logger.log(Level.INFO, "Starting the IPC server for " + this.name + "...");
         this.running.set(true);
-        this.taskId.set(this.scheduler.runAsync(this.ipcPlugin, this).getId());
+        if (this.useVirtualThreads) {
+            VirtualThreads.start("BungeeIPC Server " + this.name, this);
+        } else {
+            this.taskId.set(this.scheduler.runAsync(this.ipcPlugin, this).getId());
+        }
     }
     
     /**
@@ -188,12 +256,17 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
     public void run() {
         
         try {
-            if (this.sslServerSocketFactory != null) {
-                this.serverSocket = this.sslServerSocketFactory.createServerSocket(this.port, 2, this.address);
-                ((SSLServerSocket) this.serverSocket).setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
-                ((SSLServerSocket) this.serverSocket).setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
+            if (this.transport == TransportType.UNIX) {
+                this.listener = UnixDomainSockets.bind(this.socketPath);
+            } else if (this.transport == TransportType.SHARED_MEMORY) {
+                this.listener = SharedMemoryRings.bind(this.socketPath);
+            } else if (this.sslServerSocketFactory != null) {
+                final SSLServerSocket serverSocket = (SSLServerSocket) this.sslServerSocketFactory.createServerSocket(this.port, 2, this.address);
+                serverSocket.setEnabledProtocols(this.tlsVersionWhitelist.toArray(new String[] {}));
+                serverSocket.setEnabledCipherSuites(this.tlsCipherSuiteWhitelist.toArray(new String[] {}));
+                this.listener = new SocketConnectionListener(serverSocket);
             } else {
-                this.serverSocket = new ServerSocket(this.port, 2, this.address);
+                this.listener = new SocketConnectionListener(new ServerSocket(this.port, 2, this.address));
             }
         } catch (final IOException e) {
             this.logger.log(Level.SEVERE, "IOException thrown while setting up the IPC server.", e);
@@ -204,32 +277,68 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
             try {
                 
                 this.logger.log(Level.INFO, "IPC server " + this.name + " waiting for client connection...");
-                this.socket = this.serverSocket.accept();
-                final InetAddress remoteAddress = ((InetSocketAddress) this.socket.getRemoteSocketAddress()).getAddress();
-                if (!remoteAddress.equals(this.serverAddress)) {
-                    this.logger.log(Level.WARNING, "IPC server " + this.name + " unable to connect: configured address mismatch.");
-                    this.logger.log(Level.WARNING, "Registered Minecraft server address: " + this.serverAddress.getHostAddress());
-                    this.logger.log(Level.WARNING, "IPC server connected address: " + remoteAddress.getHostAddress());
-                    this.stop();
-                    return;
+                this.connection = this.listener.accept();
+                
+                // Only network transports have an address to check. Access to
+                // local transports is controlled by file permissions instead.
+                final SocketAddress remoteSocketAddress = this.connection.getRemoteAddress();
+                if (remoteSocketAddress instanceof InetSocketAddress) {
+                    final InetAddress remoteAddress = ((InetSocketAddress) remoteSocketAddress).getAddress();
+                    if (!remoteAddress.equals(this.serverAddress)) {
+                        this.logger.log(Level.WARNING, "IPC server " + this.name + " unable to connect: configured address mismatch.");
+                        this.logger.log(Level.WARNING, "Registered Minecraft server address: " + this.serverAddress.getHostAddress());
+                        this.logger.log(Level.WARNING, "IPC server connected address: " + remoteAddress.getHostAddress());
+                        this.stop();
+                        return;
+                    }
                 }
                 this.connected.set(true);
                 this.logger.log(Level.INFO, "IPC server " + this.name + " connected to client.");
                 
-                final DataInputStream fromBukkit = new DataInputStream(this.socket.getInputStream());
-                this.toBukkit = new DataOutputStream(this.socket.getOutputStream());
+                final DataInputStream fromBukkit = new DataInputStream(new BufferedInputStream(this.connection.getInputStream()));
+                this.toBukkit = new DataOutputStream(new BufferedOutputStream(this.connection.getOutputStream()));
+                
+                final DataOutputStream toBukkit = this.toBukkit;
+                final IPCConnection connection = this.connection;
+                // Let the Minecraft server know which name it is registered
+                // under before anything else is written.
+                this.runAsync(() -> this.sendQueue.write(toBukkit, connection, this.name));
+                IPCFrameCodec.readHandshake(fromBukkit);
                 
                 while (this.connected.get()) {
                     
-                    final IPCMessage message = SimpleServerIPCMessage.read(fromBukkit.readUTF(), this.name);
-                    this.scheduler.runAsync(this.ipcPlugin, () -> this.ipcPlugin.receiveMessage(message));
+                    final byte frameType = fromBukkit.readByte();
+                    // Delaying a rate-limited message blocks this thread, so
+                    // the backpressure reaches the Bukkit server.
+                    if (frameType == IPCFrameCodec.MESSAGE) {
+                        final IPCMessage message = IPCFrameCodec.read(fromBukkit.readUTF(), this.name);
+                        if (!this.ipcPlugin.getRateLimiter().admit(Collections.singletonList(message), LockSupport::parkNanos).isEmpty()) {
+                            this.ipcPlugin.dispatchMessage(message);
+                        }
+                    } else if (frameType == IPCFrameCodec.BATCH) {
+                        final List<IPCMessage> messages = this.ipcPlugin.getRateLimiter().admit(IPCFrameCodec.readBatch(fromBukkit, this.name), LockSupport::parkNanos);
+                        if (!messages.isEmpty()) {
+                            this.ipcPlugin.dispatchBatch(messages);
+                        }
+                    } else if (frameType == IPCFrameCodec.PONG) {
+                        this.ipcPlugin.roundTripMeasured(this.name, System.nanoTime() - fromBukkit.readLong());
+                    } else if (frameType == IPCFrameCodec.PING) {
+                        this.sendQueue.pong(fromBukkit.readLong());
+                    } else {
+                        throw new IOException("Unknown IPC frame type: " + frameType);
+                    }
                 }
             } catch (final IOException e) {
                 
-                this.logger.log(Level.INFO, "IPC server " + this.name + " connection broken.");
+                if (e instanceof IPCProtocolException) {
+                    this.logger.log(Level.WARNING, "IPC server " + this.name + " rejected the connection. " + e.getMessage());
+                    this.logger.log(Level.WARNING, "The BungeeCord proxy and all Bukkit servers must run the same version of BungeeIPC.");
+                } else {
+                    this.logger.log(Level.INFO, "IPC server " + this.name + " connection broken.");
+                }
                 this.logger.log(Level.FINE, "Server Name - " + this.name);
-                this.logger.log(Level.FINE, "IP Address  - " + this.address.getHostAddress());
-                this.logger.log(Level.FINE, "Port Number - " + this.port);
+                this.logger.log(Level.FINE, "Transport   - " + this.transport.getName());
+                this.logger.log(Level.FINE, "Connection  - " + this.getConnectionDescription());
                 this.logger.log(Level.FINE, e.getClass().getSimpleName() + " thrown.", e);
                 
                 try {
@@ -243,105 +352,23 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
                 }
                 
                 try {
-                    if (this.socket != null) {
-                        this.socket.close();
+                    if (this.connection != null) {
+                        this.connection.close();
                     }
                 } catch (final IOException e1) {
                     this.logger.log(Level.WARNING, "Failure for IPC server " + this.name + ".");
-                    this.logger.log(Level.WARNING, "Unable to close the Socket after the connection was broken.");
+                    this.logger.log(Level.WARNING, "Unable to close the IPCConnection after the connection was broken.");
                     this.logger.log(Level.WARNING, e1.getClass().getSimpleName() + " thrown.", e1);
                 }
                 
                 this.connected.set(false);
                 this.toBukkit = null;
+                this.sendQueue.clear();
+                this.ipcPlugin.serverDisconnected(this.name);
             }
         }
     }
     
-    /**
-     * Represents a simple extension of an {@link AbstractIPCMessage}, used when
-     * reading in a serialized {@link IPCMessage}.
-     */
-    private static class SimpleServerIPCMessage extends AbstractIPCMessage {
-        
-        /**
-         * Constructs a new {@link IPCMessage}.
-         * 
-         * @param origin The origin {@link IPCSocket}.
-         * @param destination The destination {@link IPCSocket}.
-         * @param channel The channel the {@link IPCMessage} will be read by.
-         * @param data The initial data as a {@link Queue}. Order will be
-         *             maintained.
-         * @throws IllegalArgumentException If {@code origin},
-         *                                  {@code destination}, and/or
-         *                                  {@code channel} are blank, or if any
-         *                                  element in {@code data} is
-         *                                  {@code null}.
-         * @throws IllegalStateException If the given parameters contain too much
-         *                               data to send in a single
-         *                               {@link IPCMessage}.
-         * @see AbstractIPCMessage#AbstractIPCMessage(String, String, String, Queue)
-         */
-        private SimpleServerIPCMessage(@NotNull final String origin, @NotNull final String destination, @NotNull final String channel, @NotNull final Queue<String> data) {
-            super(origin, destination, channel, data);
-        }
-        
-        /**
-         * Reads in the given raw {@link IPCMessage} (as a {@link String}), and
-         * deserializes it into an {@link IPCMessage}.
-         * 
-         * @param message The serialized {@link IPCMessage} as a {@link String}.
-         * @param serverName The name of the {@link IPCSocket} the message was
-         *                   read in by.
-         * @return The deserialized {@link IPCMessage}.
-         * @throws IllegalArgumentException If the given message is blank.
-         * @throws IllegalStateException If the given parameters contain too much
-         *                               data to send in a single
-         *                               {@link IPCMessage}.
-         */
-        @NotNull
-        private static IPCMessage read(@NotNull String message, @NotNull final String serverName) throws IllegalArgumentException, IllegalStateException {
-            
-            if (message.trim().isEmpty()) {
-                throw new IllegalArgumentException("IPCMessage data cannot be blank, cannot recreate IPCMessage: " + message);
-            }
-            
-            final Queue<String> split = new LinkedList<String>();
-            
-            int index = message.indexOf(AbstractIPCMessage.SEPARATOR);
-            while (index != -1) {
-                split.add(message.substring(0, index));
-                message = message.substring(index + AbstractIPCMessage.SEPARATOR.length());
-                index = message.indexOf(AbstractIPCMessage.SEPARATOR);
-            }
-            split.add(message);
-            
-            if (split.size() < 3) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing some combination of origin, destination, and/or channel (data not required): " + message);
-            }
-            
-            final String origin = split.poll();
-            if (origin == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing origin: " + message);
-            }
-            if (!origin.equals(IPCMessage.PLACEHOLDER_SERVER)) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, invalid origin: " + message);
-            }
-            
-            final String destination = split.poll();
-            if (destination == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing destination: " + message);
-            }
-            
-            final String channel = split.poll();
-            if (channel == null) {
-                throw new IllegalArgumentException("Cannot recreate IPCMessage, missing channel: " + message);
-            }
-            
-            return new SimpleServerIPCMessage(serverName, destination, channel, split);
-        }
-    }
-    
     /**
      * {@inheritDoc}
      */
@@ -349,7 +376,9 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
     public void stop() {
         
         this.logger.log(Level.INFO, "Closing IPC server connection...");
-        this.scheduler.cancel(this.taskId.get());
+        if (this.taskId.get() != -1) {
+            this.scheduler.cancel(this.taskId.get());
+        }
         
         try {
             if (this.toBukkit != null) {
@@ -362,95 +391,145 @@ final class BungeeServerIPCSocket implements ServerIPCSocket {
         }
         
         try {
-            if (this.socket != null) {
-                this.socket.close();
+            if (this.connection != null) {
+                this.connection.close();
             }
         } catch (final IOException e) {
             this.logger.log(Level.WARNING, "Failure for IPC server " + this.name + ".");
-            this.logger.log(Level.WARNING, "Unable to close the Socket during shutdown.");
+            this.logger.log(Level.WARNING, "Unable to close the IPCConnection during shutdown.");
             this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
         }
         
         try {
-            if (this.serverSocket != null) {
-                this.serverSocket.close();
+            if (this.listener != null) {
+                this.listener.close();
             }
         } catch (final IOException e) {
             this.logger.log(Level.WARNING, "Failure for IPC server " + this.name + ".");
-            this.logger.log(Level.WARNING, "Unable to close the ServerSocket during shutdown.");
+            this.logger.log(Level.WARNING, "Unable to close the IPCConnectionListener during shutdown.");
             this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
         }
         
         this.running.set(false);
         this.connected.set(false);
         this.toBukkit = null;
+        this.sendQueue.clear();
         this.logger.log(Level.INFO, "IPC server closed.");
     }
     
     /**
      * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage} on the send queue and wakes the
+     * writer, and never blocks on the connection itself.
      */
     @Override
-    public synchronized void sendMessage(@NotNull final IPCMessage message) {
-        this.scheduler.runAsync(this.ipcPlugin, () -> this.send(message));
+    public void sendMessage(@NotNull final IPCMessage message) {
+        this.sendAsync(message).exceptionally(e -> {
+            this.logger.log(Level.WARNING, "Unable to send IPC message.");
+            this.logger.log(Level.WARNING, e.getMessage());
+            return null;
+        });
     }
     
     /**
-     * Performs the sending of the given {@link IPCMessage} to the proxy.
-     * 
-     * @param message The {@link IPCMessage} to send to the proxy.
+     * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage} on the send queue and wakes the
+     * writer, and never blocks on the connection itself.
+     * <p>
+     * If the channel of the {@link IPCMessage} is conflated, and an unsent
+     * {@link IPCMessage} with the same origin, channel and ordering key is
+     * already on the send queue, that {@link IPCMessage} is replaced in place instead,
+     * and the returned {@link CompletableFuture} completes when the
+     * replacement has been sent.
      */
-    private synchronized void send(@NotNull final IPCMessage message) {
-        
-        if (!this.isConnected()) {
-            this.logger.log(Level.WARNING, "Unable to send IPC message.");
-            this.logger.log(Level.WARNING, "IPC server is not connected.");
-            return;
-        }
-        if (this.toBukkit == null) {
-            this.logger.log(Level.SEVERE, "Unable to send IPC message.");
-            this.logger.log(Level.SEVERE, "IPC server output to Bukkit is null.");
-            this.logger.log(Level.SEVERE, "Server check determined that the connection is valid.");
-            return;
-        }
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
         
-        try {
-            this.toBukkit.writeUTF(message.write());
-        } catch (final IOException e) {
-            this.logger.log(Level.WARNING, "Cannot send IPC message to Bukkit server " + this.name);
-            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+        if (!this.ipcPlugin.isConflated(message.getChannel())) {
+            return this.sendQueue.send(message, null);
         }
+        return this.sendQueue.send(message, Arrays.asList(message.getOrigin(), message.getChannel(), message.getOrderingKey()));
     }
     
     /**
      * {@inheritDoc}
+     * <p>
+     * This only places the {@link IPCMessage IPCMessages} on the send queue
+     * and wakes the writer, and never blocks on the connection itself.
      */
     @Override
     @NotNull
-    public String getName() {
-        return this.name;
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        return this.sendQueue.sendBatch(new ArrayList<IPCMessage>(messages));
     }
     
     /**
-     * Gets the {@link InetAddress} that this {@link BungeeServerIPCSocket} will
-     * bind to.
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWritable() {
+        return this.sendQueue.isWritable();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getQueueDepth() {
+        return this.sendQueue.getQueueDepth();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} will be run asynchronously.
+     */
+    @Override
+    public void onWritable(@NotNull final Runnable callback) {
+        this.sendQueue.onWritable(callback);
+    }
+    
+    /**
+     * Runs the given task asynchronously, on a new virtual thread if this
+     * {@link BungeeServerIPCSocket} uses them, or through the BungeeCord
+     * scheduler otherwise.
      * 
-     * @return The {@link InetAddress} that this {@link BungeeServerIPCSocket}
-     *         will bind to.
+     * @param task The task to run.
+     */
+    private void runAsync(@NotNull final Runnable task) {
+        if (this.useVirtualThreads) {
+            VirtualThreads.start("BungeeIPC Server " + this.name + " Task", task);
+        } else {
+            this.scheduler.runAsync(this.ipcPlugin, task);
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
      */
+    @Override
     @NotNull
-    InetAddress getAddress() {
-        return this.address;
+    public String getName() {
+        return this.name;
     }
     
     /**
-     * Gets the port number that this {@link BungeeServerIPCSocket} will bind
-     * to.
+     * Gets a description of where this {@link BungeeServerIPCSocket} will
+     * bind to. This is the IP address and port for the TCP transport, or the
+     * socket path for a local transport, and is unique for each distinct
+     * binding.
      * 
-     * @return The port number that this {@link BungeeServerIPCSocket} will bind
-     *         to.
+     * @return A description of where this {@link BungeeServerIPCSocket} will
+     *         bind to.
      */
-    int getPort() {
-        return this.port;
+    @NotNull
+    String getConnectionDescription() {
+        if (this.transport == TransportType.TCP) {
+            return this.address.getHostAddress() + ":" + this.port;
+        }
+        return this.socketPath.toAbsolutePath().toString();
     }
 }
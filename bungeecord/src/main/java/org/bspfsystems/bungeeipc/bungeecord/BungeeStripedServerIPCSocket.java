@@ -0,0 +1,56 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.List;
+import org.bspfsystems.bungeeipc.api.common.StripedIPCSocket;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the BungeeCord implementation of an {@link ServerIPCSocket} that
+ * uses several parallel connections to the same Minecraft server.
+ */
+final class BungeeStripedServerIPCSocket extends StripedIPCSocket<ServerIPCSocket> implements ServerIPCSocket {
+    
+    private final String name;
+    
+    /**
+     * Constructs a new {@link BungeeStripedServerIPCSocket}.
+     * 
+     * @param name The name of the Minecraft server.
+     * @param stripes The {@link ServerIPCSocket ServerIPCSockets} for each
+     *                connection, in order.
+     * @throws IllegalArgumentException If no stripes are given.
+     */
+    BungeeStripedServerIPCSocket(@NotNull final String name, @NotNull final List<ServerIPCSocket> stripes) throws IllegalArgumentException {
+        super(stripes);
+        this.name = name;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+}
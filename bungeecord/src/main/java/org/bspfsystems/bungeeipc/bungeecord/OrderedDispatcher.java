@@ -0,0 +1,406 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.VirtualThreads;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Dispatches received {@link IPCMessage IPCMessages} to the
+ * {@link BungeeIPCPlugin} on a fixed pool of worker threads.
+ * <p>
+ * Each {@link IPCMessage} is handled by the worker chosen from its ordering
+ * key, and each worker handles its {@link IPCMessage IPCMessages} one at a
+ * time. {@link IPCMessage IPCMessages} from the same server with the same
+ * ordering key are therefore always handled in the order they were received,
+ * while those with different ordering keys are handled in parallel.
+ * <p>
+ * Within each worker, the {@link IPCMessage IPCMessages} waiting to be
+ * handled are queued by the server they came from, and the queues are
+ * served with deficit round robin. Each turn, a server may have as many
+ * {@link IPCMessage IPCMessages} handled as its configured weight, so a
+ * server sending in bulk cannot hold up the {@link IPCMessage IPCMessages}
+ * of the other servers behind its own. The order of the
+ * {@link IPCMessage IPCMessages} from any one server is kept.
+ * <p>
+ * On conflated channels, an {@link IPCMessage} that is still waiting to be
+ * handled is replaced in place by a newer one from the same server, with
+ * the same channel and ordering key, so that a busy worker only handles the
+ * latest one.
+ * 
+ * @see IPCMessage#getOrderingKey()
+ */
+final class OrderedDispatcher {
+    
+    /**
+     * Represents a task waiting to be run by a worker.
+     */
+    private static final class Task {
+        
+        private final Runnable runnable;
+        private final int cost;
+        
+        /**
+         * Constructs a new {@link Task}.
+         * 
+         * @param runnable The {@link Runnable} to run.
+         * @param cost The number of {@link IPCMessage IPCMessages} handled by
+         *             the {@link Task}.
+         */
+        private Task(@NotNull final Runnable runnable, final int cost) {
+            this.runnable = runnable;
+            this.cost = cost;
+        }
+    }
+    
+    /**
+     * Represents the {@link Task Tasks} waiting to be run by a worker for the
+     * {@link IPCMessage IPCMessages} from a single server.
+     */
+    private static final class Flow {
+        
+        private final String origin;
+        private final int quantum;
+        private final ArrayDeque<Task> tasks;
+        
+        private long deficit;
+        private boolean served;
+        
+        /**
+         * Constructs a new, empty {@link Flow}.
+         * 
+         * @param origin The name of the server.
+         * @param quantum The number of {@link IPCMessage IPCMessages} the
+         *                server may have handled each turn.
+         */
+        private Flow(@NotNull final String origin, final int quantum) {
+            this.origin = origin;
+            this.quantum = quantum;
+            this.tasks = new ArrayDeque<Task>();
+            this.deficit = 0L;
+            this.served = false;
+        }
+    }
+    
+    /**
+     * Represents the queue of a single worker, made up of one {@link Flow}
+     * per server with {@link Task Tasks} waiting.
+     */
+    private final class FairQueue {
+        
+        private final Map<String, Flow> flows;
+        private final ArrayDeque<Flow> active;
+        private boolean shutdown;
+        
+        /**
+         * Constructs a new, empty {@link FairQueue}.
+         */
+        private FairQueue() {
+            this.flows = new HashMap<String, Flow>();
+            this.active = new ArrayDeque<Flow>();
+            this.shutdown = false;
+        }
+        
+        /**
+         * Adds a {@link Task} to the end of the {@link Flow} of the given
+         * server.
+         * 
+         * @param origin The name of the server.
+         * @param task The {@link Task}.
+         */
+        private synchronized void offer(@NotNull final String origin, @NotNull final Task task) {
+            
+            Flow flow = this.flows.get(origin);
+            if (flow == null) {
+                flow = new Flow(origin, OrderedDispatcher.this.ipcPlugin.getDispatchWeight(origin));
+                this.flows.put(origin, flow);
+                this.active.addLast(flow);
+            }
+            flow.tasks.addLast(task);
+            this.notify();
+        }
+        
+        /**
+         * Takes the next {@link Task} to run, waiting until there is one.
+         * 
+         * @return The next {@link Task}, or {@code null} if this
+         *         {@link FairQueue} has been shut down and is empty.
+         * @throws InterruptedException If the worker was interrupted while
+         *                              waiting.
+         */
+        @Nullable
+        private synchronized Task take() throws InterruptedException {
+            
+            while (this.active.isEmpty()) {
+                if (this.shutdown) {
+                    return null;
+                }
+                this.wait();
+            }
+            
+            while (true) {
+                final Flow flow = this.active.peekFirst();
+                if (!flow.served) {
+                    flow.deficit += flow.quantum;
+                    flow.served = true;
+                }
+                
+                final Task task = flow.tasks.peekFirst();
+                if (task.cost > flow.deficit) {
+                    this.active.pollFirst();
+                    this.active.addLast(flow);
+                    flow.served = false;
+                    continue;
+                }
+                
+                flow.tasks.pollFirst();
+                flow.deficit -= task.cost;
+                if (flow.tasks.isEmpty()) {
+                    // An idle server does not keep its unused share.
+                    this.active.pollFirst();
+                    this.flows.remove(flow.origin);
+                }
+                return task;
+            }
+        }
+        
+        /**
+         * Shuts down this {@link FairQueue}, once the {@link Task Tasks}
+         * already in it have been taken.
+         */
+        private synchronized void shutdown() {
+            this.shutdown = true;
+            this.notifyAll();
+        }
+    }
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final Logger logger;
+    private final boolean useVirtualThreads;
+    
+    private final List<FairQueue> queues;
+    private final Map<List<String>, IPCMessage> conflated;
+    
+    /**
+     * Constructs a new {@link OrderedDispatcher}, and starts its workers.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin} to dispatch to.
+     * @param workers The number of workers.
+     * @param useVirtualThreads {@code true} if the workers should be virtual
+     *                          threads, {@code false} for platform threads.
+     *                          Must only be {@code true} if
+     *                          {@link VirtualThreads#isSupported()}.
+     * @throws IllegalArgumentException If there are less than {@code 1}
+     *                                  workers.
+     */
+    OrderedDispatcher(@NotNull final BungeeIPCPlugin ipcPlugin, final int workers, final boolean useVirtualThreads) throws IllegalArgumentException {
+        
+        if (workers < 1) {
+            throw new IllegalArgumentException("There must be at least 1 dispatcher thread.");
+        }
+        
+        this.ipcPlugin = ipcPlugin;
+        this.logger = this.ipcPlugin.getLogger();
+        this.useVirtualThreads = useVirtualThreads;
+        
+        this.conflated = new ConcurrentHashMap<List<String>, IPCMessage>();
+        this.queues = new ArrayList<FairQueue>(workers);
+        for (int index = 0; index < workers; index++) {
+            final FairQueue queue = new FairQueue();
+            this.queues.add(queue);
+            
+            final String name = "BungeeIPC Dispatcher #" + (index + 1);
+            if (this.useVirtualThreads) {
+                VirtualThreads.start(name, () -> this.work(queue));
+            } else {
+                final Thread thread = new Thread(() -> this.work(queue), name);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+    
+    /**
+     * Gets whether this {@link OrderedDispatcher} was created with the given
+     * settings, and can therefore be kept when the configuration is reloaded.
+     * 
+     * @param workers The number of workers.
+     * @param useVirtualThreads Whether the workers should be virtual threads.
+     * @return {@code true} if the settings match, {@code false} otherwise.
+     */
+    boolean hasSettings(final int workers, final boolean useVirtualThreads) {
+        return this.queues.size() == workers && this.useVirtualThreads == useVirtualThreads;
+    }
+    
+    /**
+     * Dispatches the given received {@link IPCMessage} to the
+     * {@link BungeeIPCPlugin}.
+     * 
+     * @param message The received {@link IPCMessage}.
+     */
+    void dispatch(@NotNull final IPCMessage message) {
+        
+        if (!this.ipcPlugin.isConflated(message.getChannel())) {
+            this.getQueue(message).offer(message.getOrigin(), new Task(() -> this.ipcPlugin.receiveMessage(message), 1));
+            return;
+        }
+        
+        final List<String> key = Arrays.asList(message.getOrigin(), message.getChannel(), message.getOrderingKey());
+        if (this.conflated.put(key, message) == null) {
+            this.getQueue(message).offer(message.getOrigin(), new Task(() -> this.ipcPlugin.receiveMessage(this.conflated.remove(key)), 1));
+        }
+    }
+    
+    /**
+     * Dispatches the {@link IPCMessage IPCMessages} of a received batch frame
+     * to the {@link BungeeIPCPlugin}.
+     * <p>
+     * The batch is split up by worker, so that each {@link IPCMessage} is
+     * still handled in order with the other {@link IPCMessage IPCMessages}
+     * with the same ordering key, whether they were sent in a batch or not.
+     * Each part is handled as a single batch, so the
+     * {@link IPCMessage IPCMessages} that are forwarded on to another server
+     * may arrive there as several batches. {@link IPCMessage IPCMessages} on
+     * conflated channels are taken out of the batch and dispatched one by one
+     * with {@link OrderedDispatcher#dispatch(IPCMessage)}, so that they may be
+     * replaced by newer ones. The order of the
+     * {@link IPCMessage IPCMessages} handled by each worker is kept.
+     * 
+     * @param messages The received {@link IPCMessage IPCMessages}, all from
+     *                 the same server.
+     */
+    void dispatchBatch(@NotNull final List<IPCMessage> messages) {
+        
+        if (messages.isEmpty()) {
+            return;
+        }
+        final String origin = messages.get(0).getOrigin();
+        
+        final List<List<IPCMessage>> parts = new ArrayList<List<IPCMessage>>(this.queues.size());
+        for (int index = 0; index < this.queues.size(); index++) {
+            parts.add(null);
+        }
+        for (final IPCMessage message : messages) {
+            final int index = this.getIndex(message);
+            if (!this.ipcPlugin.isConflated(message.getChannel())) {
+                if (parts.get(index) == null) {
+                    parts.set(index, new ArrayList<IPCMessage>());
+                }
+                parts.get(index).add(message);
+                continue;
+            }
+            
+            // Anything before it on the same worker must be queued first.
+            this.offerPart(index, origin, parts.set(index, null));
+            this.dispatch(message);
+        }
+        
+        for (int index = 0; index < this.queues.size(); index++) {
+            this.offerPart(index, origin, parts.get(index));
+        }
+    }
+    
+    /**
+     * Queues the given part of a received batch frame on the given worker, to
+     * be handled as a single batch.
+     * 
+     * @param index The index of the worker.
+     * @param origin The name of the server the batch frame came from.
+     * @param part The {@link IPCMessage IPCMessages} handled by the worker,
+     *             or {@code null} if there are none.
+     */
+    private void offerPart(final int index, @NotNull final String origin, @Nullable final List<IPCMessage> part) {
+        if (part != null) {
+            this.queues.get(index).offer(origin, new Task(() -> this.ipcPlugin.receiveBatch(part), part.size()));
+        }
+    }
+    
+    /**
+     * Stops the workers of this {@link OrderedDispatcher} once they have
+     * handled everything already dispatched to them.
+     */
+    void shutdown() {
+        for (final FairQueue queue : this.queues) {
+            queue.shutdown();
+        }
+    }
+    
+    /**
+     * Gets the index of the worker that handles the given
+     * {@link IPCMessage}.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @return The index of the worker.
+     */
+    private int getIndex(@NotNull final IPCMessage message) {
+        return Math.floorMod(message.getOrderingKey().hashCode(), this.queues.size());
+    }
+    
+    /**
+     * Gets the queue of the worker that handles the given {@link IPCMessage}.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @return The queue of the worker.
+     */
+    @NotNull
+    private FairQueue getQueue(@NotNull final IPCMessage message) {
+        return this.queues.get(this.getIndex(message));
+    }
+    
+    /**
+     * Runs the tasks on the given queue, in order, until this
+     * {@link OrderedDispatcher} is shut down.
+     * 
+     * @param queue The queue of the worker.
+     */
+    private void work(@NotNull final FairQueue queue) {
+        
+        while (true) {
+            final Task task;
+            try {
+                task = queue.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (task == null) {
+                return;
+            }
+            
+            try {
+                task.runnable.run();
+            } catch (final RuntimeException e) {
+                this.logger.log(Level.WARNING, "Failure while handling a received IPC message.");
+                this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            }
+        }
+    }
+}
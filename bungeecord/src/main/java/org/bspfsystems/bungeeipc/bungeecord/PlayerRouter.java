@@ -0,0 +1,385 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
+import net.md_5.bungee.api.connection.Server;
+import net.md_5.bungee.api.event.PlayerDisconnectEvent;
+import net.md_5.bungee.api.event.ServerConnectEvent;
+import net.md_5.bungee.api.event.ServerSwitchEvent;
+import net.md_5.bungee.api.plugin.Listener;
+import net.md_5.bungee.event.EventHandler;
+import net.md_5.bungee.event.EventPriority;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCSendException;
+import org.bspfsystems.bungeeipc.api.common.TimingWheel;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Routes {@link IPCMessage IPCMessages} addressed to a player to the
+ * {@link ServerIPCSocket} of the Bukkit server the player is currently
+ * connected to.
+ * <p>
+ * {@link IPCMessage IPCMessages} addressed with
+ * {@link IPCMessage#QUEUED_PLAYER_PREFIX} are held while the player is not
+ * online yet or is switching servers, and are sent once the player has
+ * connected to a Bukkit server, or once the queue timeout passes.
+ * 
+ * @see IPCMessage#PLAYER_PREFIX
+ * @see IPCMessage#QUEUED_PLAYER_PREFIX
+ */
+final class PlayerRouter implements Listener {
+    
+    /**
+     * Represents {@link IPCMessage IPCMessages} held until their player has
+     * connected to a Bukkit server.
+     */
+    private static final class PendingMessages {
+        
+        private final String player;
+        private final List<IPCMessage> messages;
+        private final CompletableFuture<Void> future;
+        private TimingWheel.Timeout timeoutTask;
+        
+        /**
+         * Constructs a new {@link PendingMessages}.
+         * 
+         * @param player The UUID or name of the player.
+         * @param messages The held {@link IPCMessage IPCMessages}.
+         */
+        private PendingMessages(@NotNull final String player, @NotNull final List<IPCMessage> messages) {
+            this.player = player;
+            this.messages = messages;
+            this.future = new CompletableFuture<Void>();
+        }
+    }
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    
+    private final ConcurrentHashMap<UUID, Long> switching;
+    private final Map<String, List<PendingMessages>> pending;
+    
+    private volatile long queueTimeout;
+    
+    /**
+     * Constructs a new {@link PlayerRouter}.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     * @param queueTimeout The number of milliseconds to hold
+     *                     {@link IPCMessage IPCMessages} for a player that
+     *                     is not connected to a Bukkit server.
+     */
+    PlayerRouter(@NotNull final BungeeIPCPlugin ipcPlugin, final long queueTimeout) {
+        this.ipcPlugin = ipcPlugin;
+        this.switching = new ConcurrentHashMap<UUID, Long>();
+        this.pending = new HashMap<String, List<PendingMessages>>();
+        this.queueTimeout = queueTimeout;
+    }
+    
+    /**
+     * Sets the number of milliseconds to hold {@link IPCMessage IPCMessages}
+     * for a player that is not connected to a Bukkit server. This only
+     * applies to {@link IPCMessage IPCMessages} routed after it is set.
+     * 
+     * @param queueTimeout The number of milliseconds.
+     */
+    void setQueueTimeout(final long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
+    
+    /**
+     * Checks if the given destination addresses a player.
+     * 
+     * @param destination The destination.
+     * @return {@code true} if the destination addresses a player,
+     *         {@code false} otherwise.
+     */
+    static boolean isPlayerDestination(@NotNull final String destination) {
+        return destination.startsWith(IPCMessage.PLAYER_PREFIX) || destination.startsWith(IPCMessage.QUEUED_PLAYER_PREFIX);
+    }
+    
+    /**
+     * Routes the given {@link IPCMessage IPCMessages}, all addressed to the
+     * given player destination, to the {@link ServerIPCSocket} of the Bukkit
+     * server the player is connected to.
+     * 
+     * @param destination The player destination.
+     * @param messages The {@link IPCMessage IPCMessages} to route.
+     * @return A {@link CompletableFuture} that completes once the
+     *         {@link IPCMessage IPCMessages} have been sent, or completes
+     *         exceptionally with an {@link IPCSendException} if they could
+     *         not be.
+     */
+    @NotNull
+    CompletableFuture<Void> route(@NotNull final String destination, @NotNull final List<IPCMessage> messages) {
+        
+        if (destination.startsWith(IPCMessage.PLAYER_PREFIX)) {
+            final String player = destination.substring(IPCMessage.PLAYER_PREFIX.length());
+            final ServerIPCSocket serverSocket = this.getServerSocket(this.getPlayer(player));
+            if (serverSocket == null) {
+                return PlayerRouter.notConnected(player);
+            }
+            return PlayerRouter.send(serverSocket, messages);
+        }
+        
+        final String player = destination.substring(IPCMessage.QUEUED_PLAYER_PREFIX.length());
+        final PendingMessages pendingMessages;
+        synchronized (this) {
+            final ProxiedPlayer proxiedPlayer = this.getPlayer(player);
+            if (proxiedPlayer != null && !this.isSwitching(proxiedPlayer)) {
+                final ServerIPCSocket serverSocket = this.getServerSocket(proxiedPlayer);
+                if (serverSocket != null) {
+                    return PlayerRouter.send(serverSocket, messages);
+                }
+            }
+            
+            pendingMessages = new PendingMessages(player, messages);
+            this.pending.computeIfAbsent(PlayerRouter.getKey(player), key -> new ArrayList<PendingMessages>()).add(pendingMessages);
+            pendingMessages.timeoutTask = this.ipcPlugin.getTimingWheel().schedule(() -> this.expire(pendingMessages), this.queueTimeout, TimeUnit.MILLISECONDS);
+        }
+        return pendingMessages.future;
+    }
+    
+    /**
+     * Marks a player as switching servers, so that
+     * {@link IPCMessage IPCMessages} queued for them are held until the
+     * switch has completed.
+     * 
+     * @param event The {@link ServerConnectEvent}.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onServerConnect(@NotNull final ServerConnectEvent event) {
+        if (!event.isCancelled()) {
+            this.switching.put(event.getPlayer().getUniqueId(), System.nanoTime());
+        }
+    }
+    
+    /**
+     * Sends all {@link IPCMessage IPCMessages} held for a player once they
+     * have connected to a Bukkit server.
+     * 
+     * @param event The {@link ServerSwitchEvent}.
+     */
+    @EventHandler
+    public void onServerSwitch(@NotNull final ServerSwitchEvent event) {
+        
+        final ProxiedPlayer proxiedPlayer = event.getPlayer();
+        final List<PendingMessages> flushed = new ArrayList<PendingMessages>();
+        synchronized (this) {
+            this.switching.remove(proxiedPlayer.getUniqueId());
+            final List<PendingMessages> byId = this.pending.remove(PlayerRouter.getKey(proxiedPlayer.getUniqueId().toString()));
+            if (byId != null) {
+                flushed.addAll(byId);
+            }
+            final List<PendingMessages> byName = this.pending.remove(PlayerRouter.getKey(proxiedPlayer.getName()));
+            if (byName != null) {
+                flushed.addAll(byName);
+            }
+            
+            final ServerIPCSocket serverSocket = this.getServerSocket(proxiedPlayer);
+            for (final PendingMessages pendingMessages : flushed) {
+                pendingMessages.timeoutTask.cancel();
+                if (serverSocket == null) {
+                    PlayerRouter.complete(pendingMessages, PlayerRouter.notConnected(pendingMessages.player));
+                } else {
+                    PlayerRouter.complete(pendingMessages, PlayerRouter.send(serverSocket, pendingMessages.messages));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Forgets that a player was switching servers once they disconnect.
+     * 
+     * @param event The {@link PlayerDisconnectEvent}.
+     */
+    @EventHandler
+    public void onPlayerDisconnect(@NotNull final PlayerDisconnectEvent event) {
+        this.switching.remove(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * Stops holding the given {@link PendingMessages} once the queue timeout
+     * has passed, sending them to wherever their player is connected now,
+     * if anywhere.
+     * 
+     * @param pendingMessages The {@link PendingMessages}.
+     */
+    private void expire(@NotNull final PendingMessages pendingMessages) {
+        synchronized (this) {
+            final String key = PlayerRouter.getKey(pendingMessages.player);
+            final List<PendingMessages> queue = this.pending.get(key);
+            if (queue == null || !queue.remove(pendingMessages)) {
+                return;
+            }
+            if (queue.isEmpty()) {
+                this.pending.remove(key);
+            }
+            
+            final ServerIPCSocket serverSocket = this.getServerSocket(this.getPlayer(pendingMessages.player));
+            if (serverSocket == null) {
+                PlayerRouter.complete(pendingMessages, PlayerRouter.notConnected(pendingMessages.player));
+            } else {
+                PlayerRouter.complete(pendingMessages, PlayerRouter.send(serverSocket, pendingMessages.messages));
+            }
+        }
+    }
+    
+    /**
+     * Checks if the given player is in the middle of switching servers. A
+     * switch that has not completed within the queue timeout is assumed to
+     * have failed.
+     * 
+     * @param proxiedPlayer The player.
+     * @return {@code true} if the player is switching servers, {@code false}
+     *         otherwise.
+     */
+    private boolean isSwitching(@NotNull final ProxiedPlayer proxiedPlayer) {
+        final Long started = this.switching.get(proxiedPlayer.getUniqueId());
+        return started != null && System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(this.queueTimeout);
+    }
+    
+    /**
+     * Gets the online player with the given UUID or name.
+     * 
+     * @param player The UUID or name of the player.
+     * @return The player, or {@code null} if they are not online.
+     */
+    @Nullable
+    private ProxiedPlayer getPlayer(@NotNull final String player) {
+        final UUID uniqueId = PlayerRouter.parseUniqueId(player);
+        if (uniqueId != null) {
+            return this.ipcPlugin.getProxy().getPlayer(uniqueId);
+        }
+        return this.ipcPlugin.getProxy().getPlayer(player);
+    }
+    
+    /**
+     * Gets the {@link ServerIPCSocket} of the Bukkit server the given player
+     * is connected to.
+     * 
+     * @param proxiedPlayer The player.
+     * @return The {@link ServerIPCSocket}, or {@code null} if the player is
+     *         not online, is not connected to a Bukkit server, or the Bukkit
+     *         server has no {@link ServerIPCSocket}.
+     */
+    @Nullable
+    private ServerIPCSocket getServerSocket(@Nullable final ProxiedPlayer proxiedPlayer) {
+        if (proxiedPlayer == null) {
+            return null;
+        }
+        final Server server = proxiedPlayer.getServer();
+        if (server == null) {
+            return null;
+        }
+        return this.ipcPlugin.getServerSocket(server.getInfo().getName());
+    }
+    
+    /**
+     * Sends the given {@link IPCMessage IPCMessages} via the given
+     * {@link ServerIPCSocket}.
+     * 
+     * @param serverSocket The {@link ServerIPCSocket}.
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @return The {@link CompletableFuture} of the send.
+     */
+    @NotNull
+    private static CompletableFuture<Void> send(@NotNull final ServerIPCSocket serverSocket, @NotNull final List<IPCMessage> messages) {
+        if (messages.size() == 1) {
+            return serverSocket.sendAsync(messages.get(0));
+        }
+        return serverSocket.sendBatch(messages);
+    }
+    
+    /**
+     * Completes the {@link CompletableFuture} of the given
+     * {@link PendingMessages} once the given {@link CompletableFuture}
+     * completes.
+     * 
+     * @param pendingMessages The {@link PendingMessages}.
+     * @param result The {@link CompletableFuture} to complete with.
+     */
+    private static void complete(@NotNull final PendingMessages pendingMessages, @NotNull final CompletableFuture<Void> result) {
+        result.whenComplete((value, throwable) -> {
+            if (throwable == null) {
+                pendingMessages.future.complete(value);
+            } else {
+                pendingMessages.future.completeExceptionally(throwable);
+            }
+        });
+    }
+    
+    /**
+     * Creates a {@link CompletableFuture} that has failed because the given
+     * player is not connected to a Bukkit server.
+     * 
+     * @param player The UUID or name of the player.
+     * @return The failed {@link CompletableFuture}.
+     */
+    @NotNull
+    private static CompletableFuture<Void> notConnected(@NotNull final String player) {
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        future.completeExceptionally(new IPCSendException(IPCSendException.Reason.UNKNOWN_DESTINATION, "Player " + player + " is not connected to a server registered to this IPC Plugin."));
+        return future;
+    }
+    
+    /**
+     * Gets the key {@link IPCMessage IPCMessages} are held under for the given
+     * player, so that a player's UUID and name are each matched regardless of
+     * case.
+     * 
+     * @param player The UUID or name of the player.
+     * @return The key.
+     */
+    @NotNull
+    private static String getKey(@NotNull final String player) {
+        final UUID uniqueId = PlayerRouter.parseUniqueId(player);
+        return uniqueId == null ? player.toLowerCase(Locale.ROOT) : uniqueId.toString();
+    }
+    
+    /**
+     * Parses the given player as a {@link UUID}.
+     * 
+     * @param player The UUID or name of the player.
+     * @return The {@link UUID}, or {@code null} if it is a player name.
+     */
+    @Nullable
+    private static UUID parseUniqueId(@NotNull final String player) {
+        if (player.length() != 36) {
+            return null;
+        }
+        try {
+            return UUID.fromString(player);
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Limits the rate of the {@link IPCMessage IPCMessages} read from the Bukkit
+ * servers, so that a single misbehaving server cannot flood the BungeeCord
+ * proxy and, through it, every other server.
+ * <p>
+ * Each origin server may be given a token bucket, and each configured
+ * channel a token bucket shared by all servers. An {@link IPCMessage} that
+ * finds either bucket empty has exceeded its limit, and is handled according
+ * to the configured {@link Action}.
+ */
+public final class RateLimiter {
+    
+    /**
+     * Represents what is done with an {@link IPCMessage} that exceeds a rate
+     * limit.
+     */
+    public enum Action {
+        
+        /**
+         * Stop reading from the connection until the {@link IPCMessage} is
+         * within the limit again.
+         */
+        DELAY("delay"),
+        
+        /**
+         * Discard the {@link IPCMessage}.
+         */
+        DROP("drop"),
+        
+        /**
+         * Close the connection to the server that sent the
+         * {@link IPCMessage}.
+         */
+        DISCONNECT("disconnect");
+        
+        private final String name;
+        
+        /**
+         * Constructs a new {@link Action}.
+         * 
+         * @param name The name of the {@link Action} in the configuration.
+         */
+        Action(@NotNull final String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Gets the name of this {@link Action} in the configuration.
+         * 
+         * @return The name of this {@link Action}.
+         */
+        @NotNull
+        public String getName() {
+            return this.name;
+        }
+        
+        /**
+         * Gets the {@link Action} with the given name in the configuration.
+         * 
+         * @param name The name of the {@link Action}.
+         * @return The {@link Action} with the given name.
+         * @throws IllegalArgumentException If there is no {@link Action} with
+         *                                  the given name.
+         */
+        @NotNull
+        static Action fromName(@NotNull final String name) throws IllegalArgumentException {
+            final String lowerName = name.toLowerCase(Locale.ROOT);
+            for (final Action action : Action.values()) {
+                if (action.name.equals(lowerName)) {
+                    return action;
+                }
+            }
+            throw new IllegalArgumentException("Unknown rate limit action: " + name);
+        }
+    }
+    
+    /**
+     * Represents the rate and burst size of a single token bucket.
+     */
+    static final class Limit {
+        
+        private final double rate;
+        private final int burst;
+        
+        /**
+         * Constructs a new {@link Limit}.
+         * 
+         * @param rate The number of {@link IPCMessage IPCMessages} allowed
+         *             per second.
+         * @param burst The number of {@link IPCMessage IPCMessages} allowed
+         *              at once after a quiet period.
+         * @throws IllegalArgumentException If the rate or the burst size is
+         *                                  not positive.
+         */
+        Limit(final double rate, final int burst) throws IllegalArgumentException {
+            if (!(rate > 0.0D) || Double.isInfinite(rate)) {
+                throw new IllegalArgumentException("Rate limit must be positive: " + rate);
+            }
+            if (burst < 1) {
+                throw new IllegalArgumentException("Rate limit burst must be positive: " + burst);
+            }
+            this.rate = rate;
+            this.burst = burst;
+        }
+        
+        /**
+         * Gets the number of {@link IPCMessage IPCMessages} allowed per
+         * second.
+         * 
+         * @return The rate.
+         */
+        double getRate() {
+            return this.rate;
+        }
+        
+        /**
+         * Gets the number of {@link IPCMessage IPCMessages} allowed at once
+         * after a quiet period.
+         * 
+         * @return The burst size.
+         */
+        int getBurst() {
+            return this.burst;
+        }
+    }
+    
+    /**
+     * Represents a single token bucket, refilled continuously at the rate of
+     * its {@link Limit}.
+     */
+    private static final class TokenBucket {
+        
+        private final double tokensPerNano;
+        private final double capacity;
+        
+        private double tokens;
+        private long lastRefill;
+        
+        /**
+         * Constructs a new, full {@link TokenBucket}.
+         * 
+         * @param limit The {@link Limit} of the {@link TokenBucket}.
+         */
+        private TokenBucket(@NotNull final Limit limit) {
+            this.tokensPerNano = limit.rate / 1000000000.0D;
+            this.capacity = limit.burst;
+            this.tokens = this.capacity;
+            this.lastRefill = System.nanoTime();
+        }
+        
+        /**
+         * Takes a token from this {@link TokenBucket}.
+         * 
+         * @param borrow {@code true} if the token should be taken even if
+         *               there is none yet, leaving this {@link TokenBucket} in
+         *               debt, {@code false} if it should only be taken if
+         *               there is one.
+         * @return {@code 0} if a token was available, or the number of
+         *         nanoseconds until one will be otherwise.
+         */
+        private synchronized long take(final boolean borrow) {
+            
+            final long now = System.nanoTime();
+            this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+            this.lastRefill = now;
+            
+            if (this.tokens >= 1.0D) {
+                this.tokens -= 1.0D;
+                return 0L;
+            }
+            
+            final long wait = Math.max(1L, (long) Math.ceil((1.0D - this.tokens) / this.tokensPerNano));
+            if (borrow) {
+                this.tokens -= 1.0D;
+            }
+            return wait;
+        }
+        
+        /**
+         * Returns a token taken from this {@link TokenBucket} that ended up
+         * not being used.
+         */
+        private synchronized void refund() {
+            this.tokens = Math.min(this.capacity, this.tokens + 1.0D);
+        }
+    }
+    
+    private final Logger logger;
+    private final AtomicLongArray counts;
+    
+    private volatile Action action;
+    private volatile Limit originLimit;
+    private volatile Map<String, TokenBucket> originBuckets;
+    private volatile Map<String, TokenBucket> channelBuckets;
+    
+    /**
+     * Constructs a new {@link RateLimiter} that limits nothing.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     */
+    RateLimiter(@NotNull final BungeeIPCPlugin ipcPlugin) {
+        this.logger = ipcPlugin.getLogger();
+        this.counts = new AtomicLongArray(Action.values().length);
+        this.configure(Action.DELAY, null, Collections.<String, Limit>emptyMap());
+    }
+    
+    /**
+     * Replaces the configured limits. All token buckets start out full again.
+     * 
+     * @param action The {@link Action} for {@link IPCMessage IPCMessages}
+     *               that exceed a limit.
+     * @param originLimit The {@link Limit} applied to each origin server, or
+     *                    {@code null} if origin servers are not limited.
+     * @param channelLimits The {@link Limit} of each limited channel.
+     */
+    void configure(@NotNull final Action action, @Nullable final Limit originLimit, @NotNull final Map<String, Limit> channelLimits) {
+        
+        final Map<String, TokenBucket> channelBuckets = new ConcurrentHashMap<String, TokenBucket>();
+        for (final Map.Entry<String, Limit> entry : channelLimits.entrySet()) {
+            channelBuckets.put(entry.getKey(), new TokenBucket(entry.getValue()));
+        }
+        
+        this.action = action;
+        this.originLimit = originLimit;
+        this.originBuckets = new ConcurrentHashMap<String, TokenBucket>();
+        this.channelBuckets = channelBuckets;
+    }
+    
+    /**
+     * Admits the given {@link IPCMessage IPCMessages}, read from a single
+     * server, according to the configured limits and {@link Action}.
+     * <p>
+     * With {@link Action#DELAY}, every {@link IPCMessage} is admitted, and the
+     * given callback is called with the number of nanoseconds to stop
+     * reading from the connection for, if any limit was exceeded. With
+     * {@link Action#DROP}, the {@link IPCMessage IPCMessages} that exceed a
+     * limit are left out.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} read.
+     * @param pause The callback that stops reading from the connection.
+     * @return The admitted {@link IPCMessage IPCMessages}, in order. This is
+     *         the given {@link List} itself if they all are.
+     * @throws IOException If a limit was exceeded, and the configured
+     *                     {@link Action} is {@link Action#DISCONNECT}.
+     */
+    @NotNull
+    List<IPCMessage> admit(@NotNull final List<IPCMessage> messages, @NotNull final LongConsumer pause) throws IOException {
+        
+        final Action action = this.action;
+        final Limit originLimit = this.originLimit;
+        final Map<String, TokenBucket> channelBuckets = this.channelBuckets;
+        if (originLimit == null && channelBuckets.isEmpty()) {
+            return messages;
+        }
+        
+        List<IPCMessage> admitted = messages;
+        long delay = 0L;
+        int delayed = 0;
+        for (int index = 0; index < messages.size(); index++) {
+            
+            final IPCMessage message = messages.get(index);
+            final TokenBucket originBucket = originLimit == null ? null : this.originBuckets.computeIfAbsent(message.getOrigin(), origin -> new TokenBucket(originLimit));
+            final TokenBucket channelBucket = channelBuckets.get(message.getChannel());
+            
+            if (action == Action.DELAY) {
+                final long wait = Math.max(originBucket == null ? 0L : originBucket.take(true), channelBucket == null ? 0L : channelBucket.take(true));
+                if (wait > 0L) {
+                    delay = Math.max(delay, wait);
+                    delayed++;
+                }
+                continue;
+            }
+            
+            boolean limited = false;
+            if (originBucket != null && originBucket.take(false) > 0L) {
+                limited = true;
+            } else if (channelBucket != null && channelBucket.take(false) > 0L) {
+                // Only count the message against its origin if it is let in.
+                if (originBucket != null) {
+                    originBucket.refund();
+                }
+                limited = true;
+            }
+            
+            if (!limited) {
+                if (admitted != messages) {
+                    admitted.add(message);
+                }
+                continue;
+            }
+            
+            if (action == Action.DISCONNECT) {
+                this.counts.incrementAndGet(Action.DISCONNECT.ordinal());
+                this.logger.log(Level.WARNING, "Server " + message.getOrigin() + " exceeded the IPC rate limit on channel " + message.getChannel() + ", disconnecting.");
+                throw new IOException("IPC rate limit exceeded by server " + message.getOrigin() + ".");
+            }
+            if (admitted == messages) {
+                admitted = new ArrayList<IPCMessage>(messages.subList(0, index));
+            }
+        }
+        
+        if (delayed > 0) {
+            this.counts.addAndGet(Action.DELAY.ordinal(), delayed);
+            pause.accept(delay);
+        }
+        if (admitted != messages) {
+            this.counts.addAndGet(Action.DROP.ordinal(), messages.size() - admitted.size());
+        }
+        return admitted;
+    }
+    
+    /**
+     * Gets the {@link Action} taken when a limit is exceeded.
+     * 
+     * @return The {@link Action}.
+     */
+    @NotNull
+    public Action getAction() {
+        return this.action;
+    }
+    
+    /**
+     * Gets the number of times the given {@link Action} was taken. For
+     * {@link Action#DELAY} and {@link Action#DROP}, this is the number of
+     * {@link IPCMessage IPCMessages} delayed or dropped, and for
+     * {@link Action#DISCONNECT}, the number of connections closed.
+     * 
+     * @param action The {@link Action}.
+     * @return The number of times the {@link Action} was taken.
+     */
+    public long get(@NotNull final Action action) {
+        return this.counts.get(action.ordinal());
+    }
+}
@@ -0,0 +1,295 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCMessage;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds the authoritative copy of each replicated map, and replicates it to
+ * the servers that use it.
+ * <p>
+ * A server is sent a snapshot of a map when it asks to synchronize it,
+ * which it does when it first uses the map and each time it (re)connects.
+ * From then on, every change is sent to it with a sequence number, in the
+ * order the changes were applied, until its connection is broken.
+ */
+final class ReplicatedStore {
+    
+    /**
+     * The channel that snapshots, changes, and write results are sent to the
+     * servers on.
+     */
+    static final String CHANNEL = "REPLICATED_MAP";
+    
+    /**
+     * Represents the authoritative copy of a single replicated map.
+     */
+    private static final class StoreMap {
+        
+        private final Map<String, String> entries;
+        private final Set<String> servers;
+        private long sequence;
+        
+        /**
+         * Constructs a new, empty {@link StoreMap}.
+         */
+        private StoreMap() {
+            this.entries = new HashMap<String, String>();
+            this.servers = new HashSet<String>();
+            this.sequence = 0L;
+        }
+    }
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final Logger logger;
+    
+    private final Map<String, StoreMap> maps;
+    
+    /**
+     * Constructs a new, empty {@link ReplicatedStore}.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     */
+    ReplicatedStore(@NotNull final BungeeIPCPlugin ipcPlugin) {
+        this.ipcPlugin = ipcPlugin;
+        this.logger = ipcPlugin.getLogger();
+        this.maps = new HashMap<String, StoreMap>();
+    }
+    
+    /**
+     * Reads a synchronization or write request sent to the proxy by a
+     * server.
+     * 
+     * @param message The request {@link IPCMessage}.
+     */
+    void read(@NotNull final IPCMessage message) {
+        
+        if (!message.hasNext()) {
+            this.logger.log(Level.WARNING, "Incomplete IPC replicated map request sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Missing operation and map name.");
+            this.logger.log(Level.WARNING, message.toString());
+            return;
+        }
+        final String operation = message.next();
+        if (!message.hasNext()) {
+            this.logger.log(Level.WARNING, "Incomplete IPC replicated map request sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Missing map name.");
+            this.logger.log(Level.WARNING, message.toString());
+            return;
+        }
+        final String name = message.next();
+        
+        if (operation.equals("SYNC")) {
+            this.sync(message.getOrigin(), name);
+            return;
+        }
+        
+        if (!message.hasNext()) {
+            this.logger.log(Level.WARNING, "Incomplete IPC replicated map request sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Missing request ID and key.");
+            this.logger.log(Level.WARNING, message.toString());
+            return;
+        }
+        final String requestId = message.next();
+        if (!message.hasNext()) {
+            this.logger.log(Level.WARNING, "Incomplete IPC replicated map request sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Missing key.");
+            this.logger.log(Level.WARNING, message.toString());
+            return;
+        }
+        final String key = message.next();
+        
+        if (operation.equals("PUT") && message.hasNext()) {
+            this.write(message.getOrigin(), name, requestId, key, false, null, message.next());
+        } else if (operation.equals("REMOVE")) {
+            this.write(message.getOrigin(), name, requestId, key, false, null, null);
+        } else if (operation.equals("CAS")) {
+            final String expected = this.readOptional(message);
+            final String value = this.readOptional(message);
+            this.write(message.getOrigin(), name, requestId, key, true, expected, value);
+        } else {
+            this.logger.log(Level.WARNING, "Unknown IPC replicated map operation sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Incoming value: " + operation);
+        }
+    }
+    
+    /**
+     * Stops replicating changes to the given server, until it asks to
+     * synchronize again. This is called when its connection is broken.
+     * 
+     * @param serverName The name of the server.
+     */
+    synchronized void removeServer(@NotNull final String serverName) {
+        for (final StoreMap map : this.maps.values()) {
+            map.servers.remove(serverName);
+        }
+    }
+    
+    /**
+     * Sends a snapshot of the given map to the given server, and replicates
+     * every later change to it.
+     * 
+     * @param serverName The name of the server.
+     * @param name The name of the map.
+     */
+    private synchronized void sync(@NotNull final String serverName, @NotNull final String name) {
+        
+        final StoreMap map = this.maps.computeIfAbsent(name, mapName -> new StoreMap());
+        map.servers.add(serverName);
+        
+        ServerIPCMessage chunk = this.newSnapshotChunk(serverName, name, map);
+        for (final Map.Entry<String, String> entry : map.entries.entrySet()) {
+            try {
+                chunk.add(Arrays.asList(entry.getKey(), entry.getValue()));
+            } catch (final IllegalStateException e) {
+                this.send(serverName, chunk);
+                chunk = this.newSnapshotChunk(serverName, name, map);
+                chunk.add(Arrays.asList(entry.getKey(), entry.getValue()));
+            }
+        }
+        this.send(serverName, chunk);
+        
+        final ServerIPCMessage end = new ServerIPCMessage(serverName, ReplicatedStore.CHANNEL);
+        end.add("SNAPSHOT_END");
+        end.add(name);
+        end.add(String.valueOf(map.sequence));
+        this.send(serverName, end);
+    }
+    
+    /**
+     * Applies a write to the given map, replicates the change to every
+     * server using the map, and then sends the result to the server that
+     * made the write.
+     * 
+     * @param serverName The name of the server that made the write.
+     * @param name The name of the map.
+     * @param requestId The ID of the write request.
+     * @param key The key.
+     * @param compare {@code true} if the write should only be applied if the
+     *                current value is {@code expected}.
+     * @param expected The expected current value, or {@code null} for none.
+     * @param value The new value, or {@code null} to remove it.
+     */
+    private synchronized void write(@NotNull final String serverName, @NotNull final String name, @NotNull final String requestId, @NotNull final String key, final boolean compare, @Nullable final String expected, @Nullable final String value) {
+        
+        final StoreMap map = this.maps.computeIfAbsent(name, mapName -> new StoreMap());
+        final String current = map.entries.get(key);
+        final boolean applied = !compare || Objects.equals(current, expected);
+        
+        if (applied && !Objects.equals(current, value)) {
+            if (value == null) {
+                map.entries.remove(key);
+            } else {
+                map.entries.put(key, value);
+            }
+            map.sequence++;
+            for (final String server : map.servers) {
+                final ServerIPCMessage change = new ServerIPCMessage(server, ReplicatedStore.CHANNEL);
+                change.add("CHANGE");
+                change.add(name);
+                change.add(String.valueOf(map.sequence));
+                change.add(key);
+                this.addOptional(change, value);
+                this.send(server, change);
+            }
+        }
+        
+        final ServerIPCMessage result = new ServerIPCMessage(serverName, ReplicatedStore.CHANNEL);
+        result.add("RESULT");
+        result.add(name);
+        result.add(requestId);
+        result.add(String.valueOf(applied));
+        this.send(serverName, result);
+    }
+    
+    /**
+     * Creates a new, empty snapshot chunk {@link ServerIPCMessage}.
+     * 
+     * @param serverName The name of the server to send it to.
+     * @param name The name of the map.
+     * @param map The {@link StoreMap}.
+     * @return The new snapshot chunk.
+     */
+    @NotNull
+    private ServerIPCMessage newSnapshotChunk(@NotNull final String serverName, @NotNull final String name, @NotNull final StoreMap map) {
+        final ServerIPCMessage chunk = new ServerIPCMessage(serverName, ReplicatedStore.CHANNEL);
+        chunk.add("SNAPSHOT");
+        chunk.add(name);
+        chunk.add(String.valueOf(map.sequence));
+        return chunk;
+    }
+    
+    /**
+     * Reads an optional value, written as {@code "1"} followed by the value,
+     * or {@code "0"} for no value.
+     * 
+     * @param message The {@link IPCMessage} to read from.
+     * @return The value, or {@code null} if there is none.
+     */
+    @Nullable
+    private String readOptional(@NotNull final IPCMessage message) {
+        if (!message.hasNext() || !message.next().equals("1") || !message.hasNext()) {
+            return null;
+        }
+        return message.next();
+    }
+    
+    /**
+     * Adds an optional value, as {@code "1"} followed by the value, or
+     * {@code "0"} for no value.
+     * 
+     * @param message The {@link IPCMessage} to add to.
+     * @param value The value, or {@code null} if there is none.
+     */
+    private void addOptional(@NotNull final IPCMessage message, @Nullable final String value) {
+        if (value == null) {
+            message.add("0");
+        } else {
+            message.add("1");
+            message.add(value);
+        }
+    }
+    
+    /**
+     * Sends the given {@link IPCMessage} to the given server, if it is
+     * connected.
+     * 
+     * @param serverName The name of the server.
+     * @param message The {@link IPCMessage} to send.
+     */
+    private void send(@NotNull final String serverName, @NotNull final IPCMessage message) {
+        final ServerIPCSocket serverSocket = this.ipcPlugin.getServerSocket(serverName);
+        if (serverSocket != null && serverSocket.isConnected()) {
+            serverSocket.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCMessage;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the responses of the proxy's {@link IPCReader IPCReaders} to
+ * queries on configured channels, so that repeated queries can be answered
+ * without invoking the {@link IPCReader} again.
+ * <p>
+ * A query is an {@link IPCMessage} sent to the proxy, and its response is
+ * every {@link IPCMessage} the {@link IPCReader} sends back to the server
+ * that sent the query on the response channel while reading it. The
+ * response channel is the channel of the query, unless another one has been
+ * configured. Anything else the {@link IPCReader} sends to that server in
+ * the meantime, such as a notification, is not part of the response, and is
+ * not sent again when the response is. Queries are cached by their channel
+ * and data, for the time-to-live configured for the channel, and the least
+ * recently used responses are evicted once the cache is full. Responses
+ * sent asynchronously, after the {@link IPCReader} has returned, are not
+ * cached.
+ * <p>
+ * Each channel has a generation, which changes whenever its responses are
+ * invalidated. A response is only cached if the generation of its channel
+ * did not change while the {@link IPCReader} was reading the query, so that
+ * an invalidation arriving in the meantime is not undone by a stale
+ * response.
+ */
+final class ResponseCache {
+    
+    /**
+     * Represents a single cached {@link IPCMessage} of a response.
+     */
+    private static final class CachedReply {
+        
+        private final String channel;
+        private final String orderingKey;
+        private final List<String> data;
+        
+        /**
+         * Constructs a new {@link CachedReply} from the given
+         * {@link IPCMessage}, without reading its data.
+         * 
+         * @param message The {@link IPCMessage}.
+         */
+        private CachedReply(@NotNull final IPCMessage message) {
+            this.channel = message.getChannel();
+            this.orderingKey = message.getOrderingKey().equals(this.channel) ? null : message.getOrderingKey();
+            this.data = message.peekData();
+        }
+        
+        /**
+         * Creates a new {@link IPCMessage} from this {@link CachedReply}.
+         * 
+         * @param destination The server to send the {@link IPCMessage} to.
+         * @return The new {@link IPCMessage}.
+         */
+        @NotNull
+        private IPCMessage toMessage(@NotNull final String destination) {
+            final IPCMessage message = new ServerIPCMessage(destination, this.channel, this.data);
+            message.setOrderingKey(this.orderingKey);
+            return message;
+        }
+    }
+    
+    /**
+     * Represents a cached response to a query.
+     */
+    private static final class CachedResponse {
+        
+        private final List<CachedReply> replies;
+        private final long expiresAt;
+        
+        /**
+         * Constructs a new {@link CachedResponse}.
+         * 
+         * @param replies The {@link CachedReply CachedReplies}.
+         * @param expiresAt The {@link System#nanoTime()} this
+         *                  {@link CachedResponse} expires at.
+         */
+        private CachedResponse(@NotNull final List<CachedReply> replies, final long expiresAt) {
+            this.replies = replies;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    /**
+     * Represents the {@link IPCMessage IPCMessages} captured while an
+     * {@link IPCReader} reads a query.
+     */
+    private static final class Capture {
+        
+        private final String server;
+        private final String responseChannel;
+        private final List<CachedReply> replies;
+        
+        /**
+         * Constructs a new {@link Capture}.
+         * 
+         * @param server The server that sent the query.
+         * @param responseChannel The channel the response is sent on.
+         */
+        private Capture(@NotNull final String server, @NotNull final String responseChannel) {
+            this.server = server;
+            this.responseChannel = responseChannel;
+            this.replies = new ArrayList<CachedReply>();
+        }
+    }
+    
+    private static final ThreadLocal<Capture> CAPTURE = new ThreadLocal<Capture>();
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    
+    private final LinkedHashMap<List<String>, CachedResponse> responses;
+    private int maxEntries;
+    
+    private final Map<String, Long> channelGenerations;
+    private long generation;
+    private long configureGeneration;
+    
+    private volatile Map<String, Long> timesToLive;
+    private volatile Map<String, String> responseChannels;
+    private volatile Map<String, AtomicLong[]> stats;
+    
+    /**
+     * Constructs a new, empty {@link ResponseCache} that caches no channels.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     */
+    ResponseCache(@NotNull final BungeeIPCPlugin ipcPlugin) {
+        this.ipcPlugin = ipcPlugin;
+        this.responses = new LinkedHashMap<List<String>, CachedResponse>(16, 0.75F, true);
+        this.maxEntries = 0;
+        this.channelGenerations = new HashMap<String, Long>();
+        this.generation = 0L;
+        this.configureGeneration = 0L;
+        this.timesToLive = Collections.emptyMap();
+        this.responseChannels = Collections.emptyMap();
+        this.stats = Collections.emptyMap();
+    }
+    
+    /**
+     * Sets which channels are cached and for how long, and the maximum number
+     * of cached responses. This clears the cache and its statistics.
+     * 
+     * @param maxEntries The maximum number of cached responses.
+     * @param timesToLive The time-to-live of the cached responses of each
+     *                    channel, in milliseconds.
+     * @param responseChannels The channel the responses to the queries on
+     *                         each channel are sent on, for the channels
+     *                         whose responses are not sent on the channel of
+     *                         the query itself.
+     */
+    synchronized void configure(final int maxEntries, @NotNull final Map<String, Long> timesToLive, @NotNull final Map<String, String> responseChannels) {
+        
+        this.responses.clear();
+        this.maxEntries = maxEntries;
+        this.channelGenerations.clear();
+        this.configureGeneration = ++this.generation;
+        
+        final Map<String, AtomicLong[]> stats = new HashMap<String, AtomicLong[]>();
+        for (final String channel : timesToLive.keySet()) {
+            stats.put(channel, new AtomicLong[] {new AtomicLong(0L), new AtomicLong(0L)});
+        }
+        this.timesToLive = Collections.unmodifiableMap(new HashMap<String, Long>(timesToLive));
+        this.responseChannels = Collections.unmodifiableMap(new HashMap<String, String>(responseChannels));
+        this.stats = stats;
+    }
+    
+    /**
+     * Has the given {@link IPCReader} read the given query, unless its
+     * response is already cached, in which case the cached response is sent
+     * back instead.
+     * 
+     * @param query The query {@link IPCMessage}.
+     * @param reader The {@link IPCReader} registered for the channel of the
+     *               query.
+     */
+    void read(@NotNull final IPCMessage query, @NotNull final IPCReader reader) {
+        
+        final String channel = query.getChannel();
+        final Long timeToLive = this.timesToLive.get(channel);
+        final AtomicLong[] channelStats = this.stats.get(channel);
+        if (timeToLive == null || channelStats == null) {
+            reader.readMessage(query);
+            return;
+        }
+        
+        final List<String> key = new ArrayList<String>();
+        key.add(channel);
+        key.addAll(query.peekData());
+        
+        CachedResponse response;
+        final long generation;
+        synchronized (this) {
+            generation = this.getGeneration(channel);
+            response = this.responses.get(key);
+            if (response != null && response.expiresAt - System.nanoTime() <= 0L) {
+                this.responses.remove(key);
+                response = null;
+            }
+        }
+        
+        if (response != null) {
+            channelStats[0].incrementAndGet();
+            for (final CachedReply reply : response.replies) {
+                this.ipcPlugin.sendMessage(reply.toMessage(query.getOrigin()));
+            }
+            return;
+        }
+        
+        channelStats[1].incrementAndGet();
+        final Capture capture = new Capture(query.getOrigin(), this.responseChannels.getOrDefault(channel, channel));
+        final Capture previous = ResponseCache.CAPTURE.get();
+        ResponseCache.CAPTURE.set(capture);
+        try {
+            reader.readMessage(query);
+        } finally {
+            if (previous == null) {
+                ResponseCache.CAPTURE.remove();
+            } else {
+                ResponseCache.CAPTURE.set(previous);
+            }
+        }
+        
+        if (capture.replies.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (this.getGeneration(channel) != generation) {
+                return;
+            }
+            this.responses.put(key, new CachedResponse(capture.replies, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToLive)));
+            while (this.responses.size() > this.maxEntries) {
+                this.responses.remove(this.responses.keySet().iterator().next());
+            }
+        }
+    }
+    
+    /**
+     * Records the given {@link IPCMessage} as part of the response to the
+     * query being read on this thread, if it is being sent back to the server
+     * that sent the query on the response channel. This does not read the
+     * data of the {@link IPCMessage}.
+     * 
+     * @param message The {@link IPCMessage} being sent.
+     */
+    void capture(@NotNull final IPCMessage message) {
+        final Capture capture = ResponseCache.CAPTURE.get();
+        if (capture != null && message.getDestination().equals(capture.server) && message.getChannel().equals(capture.responseChannel)) {
+            capture.replies.add(new CachedReply(message));
+        }
+    }
+    
+    /**
+     * Removes cached responses on the given channel.
+     * 
+     * @param channel The channel.
+     * @param data The data of the query to remove the response to, or
+     *             {@code null} to remove all responses on the channel.
+     */
+    synchronized void invalidate(@NotNull final String channel, @Nullable final List<String> data) {
+        this.channelGenerations.put(channel, ++this.generation);
+        if (data == null) {
+            this.responses.keySet().removeIf(key -> key.get(0).equals(channel));
+            return;
+        }
+        final List<String> key = new ArrayList<String>(data.size() + 1);
+        key.add(channel);
+        key.addAll(data);
+        this.responses.remove(key);
+    }
+    
+    /**
+     * Gets the generation of the given channel. This must be called while
+     * holding the lock on this {@link ResponseCache}.
+     * 
+     * @param channel The channel.
+     * @return The generation of the channel.
+     */
+    private long getGeneration(@NotNull final String channel) {
+        return Math.max(this.configureGeneration, this.channelGenerations.getOrDefault(channel, 0L));
+    }
+    
+    /**
+     * Gets the statistics of each cached channel.
+     * 
+     * @return The {@link ResponseCacheStats} of each cached channel, sorted
+     *         by channel.
+     */
+    @NotNull
+    List<ResponseCacheStats> getStats() {
+        
+        final Map<String, Integer> entries = new HashMap<String, Integer>();
+        synchronized (this) {
+            for (final List<String> key : this.responses.keySet()) {
+                entries.merge(key.get(0), 1, Integer::sum);
+            }
+        }
+        
+        final List<ResponseCacheStats> stats = new ArrayList<ResponseCacheStats>();
+        for (final Map.Entry<String, AtomicLong[]> entry : this.stats.entrySet()) {
+            stats.add(new ResponseCacheStats(entry.getKey(), entry.getValue()[0].get(), entry.getValue()[1].get(), entries.getOrDefault(entry.getKey(), 0)));
+        }
+        stats.sort((first, second) -> first.getChannel().compareTo(second.getChannel()));
+        return stats;
+    }
+}
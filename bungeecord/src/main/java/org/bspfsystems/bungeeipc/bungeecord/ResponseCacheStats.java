@@ -0,0 +1,101 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a snapshot of the response cache statistics for a single
+ * cached channel.
+ */
+public final class ResponseCacheStats {
+    
+    private final String channel;
+    private final long hits;
+    private final long misses;
+    private final int entries;
+    
+    /**
+     * Constructs a new {@link ResponseCacheStats}.
+     * 
+     * @param channel The cached channel.
+     * @param hits The number of queries answered from the cache.
+     * @param misses The number of queries passed on to the reader.
+     * @param entries The number of responses currently cached.
+     */
+    ResponseCacheStats(@NotNull final String channel, final long hits, final long misses, final int entries) {
+        this.channel = channel;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = entries;
+    }
+    
+    /**
+     * Gets the cached channel.
+     * 
+     * @return The cached channel.
+     */
+    @NotNull
+    public String getChannel() {
+        return this.channel;
+    }
+    
+    /**
+     * Gets the number of queries on the channel that were answered from the
+     * cache.
+     * 
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+    
+    /**
+     * Gets the number of queries on the channel that were passed on to the
+     * reader.
+     * 
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+    
+    /**
+     * Gets the number of responses on the channel that are currently
+     * cached.
+     * 
+     * @return The number of cached responses.
+     */
+    public int getEntries() {
+        return this.entries;
+    }
+    
+    /**
+     * Gets the fraction of queries on the channel that were answered from
+     * the cache.
+     * 
+     * @return The hit rate, between {@code 0.0} and {@code 1.0}, or
+     *         {@code 0.0} if there have been no queries.
+     */
+    public double getHitRate() {
+        final long total = this.hits + this.misses;
+        return total == 0L ? 0.0D : (double) this.hits / total;
+    }
+}
@@ -0,0 +1,89 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tracks the round trip time of the IPC connection to each server, as
+ * measured by the ping frames that the {@link BungeeServerIPCSocket
+ * BungeeServerIPCSockets} and {@link BungeeNettyServerIPCSocket
+ * BungeeNettyServerIPCSockets} send on it.
+ * <p>
+ * Each new sample is folded into an exponentially weighted moving average,
+ * with a weight of 1/8 as for the smoothed round trip time of TCP, so that a
+ * single slow sample does not immediately steer traffic away from a server.
+ * All connections to the same server feed the same average.
+ */
+final class RoundTripTimes {
+    
+    /**
+     * The interval between the ping frames sent on each connection, in
+     * nanoseconds.
+     */
+    static final long PING_INTERVAL = TimeUnit.SECONDS.toNanos(2L);
+    
+    private static final int SMOOTHING_SHIFT = 3;
+    
+    private final ConcurrentHashMap<String, Long> smoothed;
+    
+    /**
+     * Constructs a new, empty {@link RoundTripTimes}.
+     */
+    RoundTripTimes() {
+        this.smoothed = new ConcurrentHashMap<String, Long>();
+    }
+    
+    /**
+     * Folds a newly measured round trip time into the average of the given
+     * server. The first sample is taken as the average as it is.
+     * 
+     * @param serverName The name of the server.
+     * @param sample The measured round trip time, in nanoseconds.
+     */
+    void record(@NotNull final String serverName, final long sample) {
+        this.smoothed.merge(serverName, Math.max(0L, sample), (average, next) -> average + ((next - average) >> RoundTripTimes.SMOOTHING_SHIFT));
+    }
+    
+    /**
+     * Gets the average round trip time of the given server.
+     * 
+     * @param serverName The name of the server.
+     * @return The average round trip time in nanoseconds, or
+     *         {@link Long#MAX_VALUE} if it has not been measured since the
+     *         server last connected.
+     */
+    long get(@NotNull final String serverName) {
+        final Long average = this.smoothed.get(serverName);
+        return average == null ? Long.MAX_VALUE : average;
+    }
+    
+    /**
+     * Forgets the average round trip time of the given server, once its
+     * connection has been broken.
+     * 
+     * @param serverName The name of the server.
+     */
+    void remove(@NotNull final String serverName) {
+        this.smoothed.remove(serverName);
+    }
+}
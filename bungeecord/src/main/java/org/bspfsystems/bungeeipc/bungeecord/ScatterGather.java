@@ -0,0 +1,243 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.TimingWheel;
+import org.bspfsystems.bungeeipc.api.server.ScatterGatherResult;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCMessage;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sends scatter-gather requests to sets of servers, and gathers the replies
+ * to them by request ID.
+ * 
+ * @see BungeeIPCPlugin#scatterGather(java.util.Collection, String, List, long, TimeUnit, BiConsumer)
+ */
+final class ScatterGather {
+    
+    /**
+     * Represents a scatter-gather request that is still waiting for replies.
+     */
+    private static final class PendingRequest {
+        
+        private final String requestId;
+        private final Set<String> waiting;
+        private final Set<String> missing;
+        private final Map<String, IPCMessage> replies;
+        private final BiConsumer<String, IPCMessage> onReply;
+        private final CompletableFuture<ScatterGatherResult> future;
+        private TimingWheel.Timeout timeoutTask;
+        
+        /**
+         * Constructs a new {@link PendingRequest}.
+         * 
+         * @param requestId The ID of the request.
+         * @param servers The names of the servers the request is sent to.
+         * @param onReply The callback to run for each reply, if any.
+         */
+        private PendingRequest(@NotNull final String requestId, @NotNull final Set<String> servers, @Nullable final BiConsumer<String, IPCMessage> onReply) {
+            this.requestId = requestId;
+            this.waiting = new LinkedHashSet<String>(servers);
+            this.missing = new LinkedHashSet<String>();
+            this.replies = new LinkedHashMap<String, IPCMessage>();
+            this.onReply = onReply;
+            this.future = new CompletableFuture<ScatterGatherResult>();
+        }
+    }
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final Logger logger;
+    
+    private final AtomicLong nextRequestId;
+    private final ConcurrentHashMap<String, PendingRequest> pending;
+    
+    /**
+     * Constructs a new {@link ScatterGather}.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     */
+    ScatterGather(@NotNull final BungeeIPCPlugin ipcPlugin) {
+        this.ipcPlugin = ipcPlugin;
+        this.logger = this.ipcPlugin.getLogger();
+        this.nextRequestId = new AtomicLong(0L);
+        this.pending = new ConcurrentHashMap<String, PendingRequest>();
+    }
+    
+    /**
+     * Sends a scatter-gather request to the given servers.
+     * 
+     * @param servers The names of the servers to send the request to, each
+     *                with its {@link ServerIPCSocket}, or {@code null} if it
+     *                has none.
+     * @param channel The channel the request will be read by.
+     * @param data The data of the request, after the request ID.
+     * @param timeout The maximum time to wait for replies.
+     * @param unit The {@link TimeUnit} of the timeout.
+     * @param onReply The callback to run for each reply, if any.
+     * @return A {@link CompletableFuture} that completes with the gathered
+     *         replies.
+     * @throws IllegalArgumentException If the request cannot be created with
+     *                                  the given channel and data.
+     * @throws IllegalStateException If the given data is too much to send in
+     *                               a single {@link IPCMessage}.
+     */
+    @NotNull
+    CompletableFuture<ScatterGatherResult> send(@NotNull final Map<String, ServerIPCSocket> servers, @NotNull final String channel, @NotNull final List<String> data, final long timeout, @NotNull final TimeUnit unit, @Nullable final BiConsumer<String, IPCMessage> onReply) throws IllegalArgumentException, IllegalStateException {
+        
+        final String requestId = Long.toString(this.nextRequestId.incrementAndGet());
+        final List<String> requestData = new ArrayList<String>(data.size() + 1);
+        requestData.add(requestId);
+        requestData.addAll(data);
+        
+        // Create every request before sending any, so that invalid data fails
+        // the whole request rather than only some of the servers.
+        final Map<String, IPCMessage> requests = new LinkedHashMap<String, IPCMessage>();
+        for (final String server : servers.keySet()) {
+            requests.put(server, new ServerIPCMessage(server, channel, requestData));
+        }
+        
+        final PendingRequest request = new PendingRequest(requestId, servers.keySet(), onReply);
+        if (request.waiting.isEmpty()) {
+            request.future.complete(new ScatterGatherResult(request.replies, request.missing));
+            return request.future;
+        }
+        
+        synchronized (request) {
+            this.pending.put(requestId, request);
+            request.timeoutTask = this.ipcPlugin.getTimingWheel().schedule(() -> this.finish(request), timeout, unit);
+        }
+        
+        for (final Map.Entry<String, IPCMessage> entry : requests.entrySet()) {
+            final String server = entry.getKey();
+            final ServerIPCSocket serverSocket = servers.get(server);
+            if (serverSocket == null) {
+                this.fail(request, server);
+                continue;
+            }
+            serverSocket.sendAsync(entry.getValue()).whenComplete((value, throwable) -> {
+                if (throwable != null) {
+                    this.fail(request, server);
+                }
+            });
+        }
+        return request.future;
+    }
+    
+    /**
+     * Gathers the given reply to a scatter-gather request. The request ID
+     * will be read from the reply.
+     * 
+     * @param reply The reply {@link IPCMessage}.
+     */
+    void receiveReply(@NotNull final IPCMessage reply) {
+        
+        if (!reply.hasNext()) {
+            this.logger.log(Level.WARNING, "Incomplete IPC scatter-gather reply sent to the BungeeCord proxy.");
+            this.logger.log(Level.WARNING, "Missing request ID.");
+            this.logger.log(Level.WARNING, reply.toString());
+            return;
+        }
+        
+        final String requestId = reply.next();
+        final PendingRequest request = this.pending.get(requestId);
+        if (request == null) {
+            this.logger.log(Level.FINE, "IPC scatter-gather reply from " + reply.getOrigin() + " to request " + requestId + " arrived after the request finished.");
+            return;
+        }
+        
+        final boolean complete;
+        synchronized (request) {
+            if (!request.waiting.remove(reply.getOrigin())) {
+                return;
+            }
+            request.replies.put(reply.getOrigin(), reply);
+            complete = request.waiting.isEmpty();
+        }
+        
+        if (request.onReply != null) {
+            try {
+                request.onReply.accept(reply.getOrigin(), reply);
+            } catch (final RuntimeException e) {
+                this.logger.log(Level.WARNING, "Error while handling IPC scatter-gather reply from " + reply.getOrigin() + " to request " + requestId + ".");
+                this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            }
+        }
+        if (complete) {
+            this.finish(request);
+        }
+    }
+    
+    /**
+     * Records that the given server will not reply to the given request,
+     * because the request could not be sent to it.
+     * 
+     * @param request The {@link PendingRequest}.
+     * @param server The name of the server.
+     */
+    private void fail(@NotNull final PendingRequest request, @NotNull final String server) {
+        final boolean complete;
+        synchronized (request) {
+            if (!request.waiting.remove(server)) {
+                return;
+            }
+            request.missing.add(server);
+            complete = request.waiting.isEmpty();
+        }
+        if (complete) {
+            this.finish(request);
+        }
+    }
+    
+    /**
+     * Finishes the given request, completing it with the replies gathered so
+     * far. Any servers that have not replied yet are listed as missing.
+     * 
+     * @param request The {@link PendingRequest}.
+     */
+    private void finish(@NotNull final PendingRequest request) {
+        final ScatterGatherResult result;
+        synchronized (request) {
+            if (this.pending.remove(request.requestId) == null) {
+                return;
+            }
+            request.timeoutTask.cancel();
+            request.missing.addAll(request.waiting);
+            request.waiting.clear();
+            result = new ScatterGatherResult(request.replies, request.missing);
+        }
+        request.future.complete(result);
+    }
+}
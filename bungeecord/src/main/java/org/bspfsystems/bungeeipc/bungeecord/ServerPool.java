@@ -0,0 +1,304 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCSendException;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a named pool of Bukkit servers that
+ * {@link IPCMessage IPCMessages} can be addressed to, with each
+ * {@link IPCMessage} being forwarded to one connected server picked from the
+ * pool by the pool's {@link Strategy}.
+ * 
+ * @see IPCMessage#ANYCAST_PREFIX
+ */
+final class ServerPool {
+    
+    /**
+     * Represents the ways a server can be picked from a {@link ServerPool}.
+     */
+    enum Strategy {
+        
+        /**
+         * Each server is picked in turn.
+         */
+        ROUND_ROBIN("round_robin"),
+        
+        /**
+         * The server with the fewest {@link IPCMessage IPCMessages} waiting
+         * to be sent to it is picked.
+         */
+        LEAST_QUEUED("least_queued"),
+        
+        /**
+         * The server with the lowest round trip time on its IPC connection,
+         * as averaged by the {@link RoundTripTimes}, is picked.
+         */
+        LOWEST_RTT("lowest_rtt"),
+        
+        /**
+         * The server is picked by consistent hashing on the ordering key of
+         * the {@link IPCMessage}, so that {@link IPCMessage IPCMessages} with
+         * the same ordering key go to the same server for as long as it is
+         * connected.
+         */
+        CONSISTENT_HASH("consistent_hash");
+        
+        private final String name;
+        
+        /**
+         * Constructs a new {@link Strategy}.
+         * 
+         * @param name The configuration name of the {@link Strategy}.
+         */
+        Strategy(@NotNull final String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Gets the configuration name of this {@link Strategy}.
+         * 
+         * @return The configuration name of this {@link Strategy}.
+         */
+        @NotNull
+        String getName() {
+            return this.name;
+        }
+        
+        /**
+         * Gets the {@link Strategy} with the given configuration name.
+         * 
+         * @param name The configuration name.
+         * @return The {@link Strategy} with the given name.
+         * @throws IllegalArgumentException If there is no {@link Strategy}
+         *                                  with the given name.
+         */
+        @NotNull
+        static Strategy fromName(@NotNull final String name) throws IllegalArgumentException {
+            final String lowerName = name.toLowerCase(Locale.ROOT);
+            for (final Strategy strategy : Strategy.values()) {
+                if (strategy.name.equals(lowerName)) {
+                    return strategy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown server pool strategy: " + name);
+        }
+    }
+    
+    private static final int VIRTUAL_NODES = 128;
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final String name;
+    private final List<String> servers;
+    private final Strategy strategy;
+    
+    private final AtomicInteger next;
+    private final NavigableMap<Integer, String> ring;
+    
+    /**
+     * Constructs a new {@link ServerPool}.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     * @param name The name of the {@link ServerPool}.
+     * @param servers The names of the servers in the {@link ServerPool}.
+     * @param strategy The {@link Strategy} used to pick a server.
+     * @throws IllegalArgumentException If there are no servers.
+     */
+    ServerPool(@NotNull final BungeeIPCPlugin ipcPlugin, @NotNull final String name, @NotNull final List<String> servers, @NotNull final Strategy strategy) throws IllegalArgumentException {
+        
+        if (servers.isEmpty()) {
+            throw new IllegalArgumentException("Server pool " + name + " must contain at least 1 server.");
+        }
+        
+        this.ipcPlugin = ipcPlugin;
+        this.name = name;
+        this.servers = Collections.unmodifiableList(new ArrayList<String>(servers));
+        this.strategy = strategy;
+        
+        this.next = new AtomicInteger(0);
+        this.ring = new TreeMap<Integer, String>();
+        if (this.strategy == Strategy.CONSISTENT_HASH) {
+            for (final String server : this.servers) {
+                for (int node = 0; node < ServerPool.VIRTUAL_NODES; node++) {
+                    this.ring.put(ServerPool.hash(server + "#" + node), server);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Gets the {@link Strategy} used to pick a server from this
+     * {@link ServerPool}.
+     * 
+     * @return The {@link Strategy}.
+     */
+    @NotNull
+    Strategy getStrategy() {
+        return this.strategy;
+    }
+    
+    /**
+     * Gets the names of the servers in this {@link ServerPool}.
+     * 
+     * @return The names of the servers.
+     */
+    @NotNull
+    List<String> getServers() {
+        return this.servers;
+    }
+    
+    /**
+     * Forwards each of the given {@link IPCMessage IPCMessages} to a connected
+     * server picked from this {@link ServerPool}. The
+     * {@link IPCMessage IPCMessages} picked for the same server are sent to it
+     * together.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to forward.
+     * @return A {@link CompletableFuture} that completes once the
+     *         {@link IPCMessage IPCMessages} have been sent, or completes
+     *         exceptionally with an {@link IPCSendException} if they could
+     *         not be.
+     */
+    @NotNull
+    CompletableFuture<Void> route(@NotNull final List<IPCMessage> messages) {
+        
+        final Map<ServerIPCSocket, List<IPCMessage>> groups = new LinkedHashMap<ServerIPCSocket, List<IPCMessage>>();
+        for (final IPCMessage message : messages) {
+            final ServerIPCSocket serverSocket = this.pick(message);
+            if (serverSocket == null) {
+                final CompletableFuture<Void> future = new CompletableFuture<Void>();
+                future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, "No server in server pool " + this.name + " is connected."));
+                return future;
+            }
+            groups.computeIfAbsent(serverSocket, key -> new ArrayList<IPCMessage>()).add(message);
+        }
+        
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(groups.size());
+        for (final Map.Entry<ServerIPCSocket, List<IPCMessage>> entry : groups.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                futures.add(entry.getKey().sendAsync(entry.getValue().get(0)));
+            } else {
+                futures.add(entry.getKey().sendBatch(entry.getValue()));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+    
+    /**
+     * Picks a connected server from this {@link ServerPool} for the given
+     * {@link IPCMessage}.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @return The {@link ServerIPCSocket} of the picked server, or
+     *         {@code null} if no server in this {@link ServerPool} is
+     *         connected.
+     */
+    @Nullable
+    private ServerIPCSocket pick(@NotNull final IPCMessage message) {
+        
+        if (this.strategy == Strategy.CONSISTENT_HASH) {
+            final int hash = ServerPool.hash(message.getOrderingKey());
+            for (final String server : this.ring.tailMap(hash, true).values()) {
+                final ServerIPCSocket serverSocket = this.getConnectedSocket(server);
+                if (serverSocket != null) {
+                    return serverSocket;
+                }
+            }
+            for (final String server : this.ring.headMap(hash, false).values()) {
+                final ServerIPCSocket serverSocket = this.getConnectedSocket(server);
+                if (serverSocket != null) {
+                    return serverSocket;
+                }
+            }
+            return null;
+        }
+        
+        // Start from the next server in turn, so that ties are broken
+        // differently each time rather than always favouring the first server.
+        final int size = this.servers.size();
+        final int start = Math.floorMod(this.next.getAndIncrement(), size);
+        
+        ServerIPCSocket picked = null;
+        long pickedCost = Long.MAX_VALUE;
+        for (int offset = 0; offset < size; offset++) {
+            final String server = this.servers.get((start + offset) % size);
+            final ServerIPCSocket serverSocket = this.getConnectedSocket(server);
+            if (serverSocket == null) {
+                continue;
+            }
+            if (this.strategy == Strategy.ROUND_ROBIN) {
+                return serverSocket;
+            }
+            
+            final long cost = this.strategy == Strategy.LEAST_QUEUED ? serverSocket.getQueueDepth() : this.ipcPlugin.getRoundTripTime(server);
+            if (picked == null || cost < pickedCost) {
+                picked = serverSocket;
+                pickedCost = cost;
+            }
+        }
+        return picked;
+    }
+    
+    /**
+     * Gets the {@link ServerIPCSocket} of the given server, if it is
+     * connected.
+     * 
+     * @param server The name of the server.
+     * @return The {@link ServerIPCSocket}, or {@code null} if the server has
+     *         no {@link ServerIPCSocket} or it is not connected.
+     */
+    @Nullable
+    private ServerIPCSocket getConnectedSocket(@NotNull final String server) {
+        final ServerIPCSocket serverSocket = this.ipcPlugin.getServerSocket(server);
+        return serverSocket != null && serverSocket.isConnected() ? serverSocket : null;
+    }
+    
+    /**
+     * Hashes the given {@link String}, spreading the bits of its
+     * {@link String#hashCode()} so that similar {@link String Strings} land
+     * far apart on the hash ring.
+     * 
+     * @param value The {@link String} to hash.
+     * @return The hash.
+     */
+    private static int hash(@NotNull final String value) {
+        int hash = value.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,422 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.md_5.bungee.api.scheduler.ScheduledTask;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.server.ServerIPCMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Aggregates the {@link IPCMessage IPCMessages} broadcast on configured
+ * channels over tumbling windows, so that subscribed servers receive one
+ * merged result per window instead of every raw {@link IPCMessage}.
+ * <p>
+ * Each aggregated {@link IPCMessage} carries a numeric value in one of its
+ * data fields, and may carry a key in another. At the end of each window,
+ * one {@link IPCMessage} is broadcast on the same channel for each key seen
+ * during the window, with the key (if the channel is keyed), the result of
+ * the channel's {@link Operator}, and the number of values aggregated as its
+ * data.
+ */
+final class StreamAggregator {
+    
+    /**
+     * Represents the ways the values received during a window can be
+     * merged into a single result.
+     */
+    enum Operator {
+        
+        /**
+         * The sum of the values.
+         */
+        SUM("sum"),
+        
+        /**
+         * The smallest of the values.
+         */
+        MIN("min"),
+        
+        /**
+         * The largest of the values.
+         */
+        MAX("max"),
+        
+        /**
+         * The last value received.
+         */
+        LAST("last"),
+        
+        /**
+         * The mean of the values.
+         */
+        AVERAGE("average");
+        
+        private final String name;
+        
+        /**
+         * Constructs a new {@link Operator}.
+         * 
+         * @param name The name of the {@link Operator} in the configuration.
+         */
+        Operator(@NotNull final String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Gets the name of this {@link Operator} in the configuration.
+         * 
+         * @return The name of this {@link Operator}.
+         */
+        @NotNull
+        String getName() {
+            return this.name;
+        }
+        
+        /**
+         * Gets the {@link Operator} with the given name in the configuration.
+         * 
+         * @param name The name of the {@link Operator}.
+         * @return The {@link Operator} with the given name.
+         * @throws IllegalArgumentException If there is no {@link Operator}
+         *                                  with the given name.
+         */
+        @NotNull
+        static Operator fromName(@NotNull final String name) throws IllegalArgumentException {
+            final String lowerName = name.toLowerCase(Locale.ROOT);
+            for (final Operator operator : Operator.values()) {
+                if (operator.name.equals(lowerName)) {
+                    return operator;
+                }
+            }
+            throw new IllegalArgumentException("Unknown aggregation operator: " + name);
+        }
+    }
+    
+    /**
+     * Represents how the {@link IPCMessage IPCMessages} on a single channel
+     * are aggregated.
+     */
+    static final class Aggregation {
+        
+        private final Operator operator;
+        private final long window;
+        private final int keyField;
+        private final int valueField;
+        
+        /**
+         * Constructs a new {@link Aggregation}.
+         * 
+         * @param operator The {@link Operator} to merge values with.
+         * @param window The length of each window, in milliseconds.
+         * @param keyField The index of the data field holding the key, or
+         *                 {@code -1} if the channel is not keyed.
+         * @param valueField The index of the data field holding the value.
+         * @throws IllegalArgumentException If the window is not positive, or
+         *                                  either field index is invalid.
+         */
+        Aggregation(@NotNull final Operator operator, final long window, final int keyField, final int valueField) throws IllegalArgumentException {
+            if (window < 1L) {
+                throw new IllegalArgumentException("Aggregation window must be positive: " + window);
+            }
+            if (keyField < -1) {
+                throw new IllegalArgumentException("Aggregation key field cannot be negative: " + keyField);
+            }
+            if (valueField < 0) {
+                throw new IllegalArgumentException("Aggregation value field cannot be negative: " + valueField);
+            }
+            if (keyField == valueField) {
+                throw new IllegalArgumentException("Aggregation key and value fields cannot be the same: " + valueField);
+            }
+            this.operator = operator;
+            this.window = window;
+            this.keyField = keyField;
+            this.valueField = valueField;
+        }
+        
+        /**
+         * Gets the {@link Operator} values are merged with.
+         * 
+         * @return The {@link Operator}.
+         */
+        @NotNull
+        Operator getOperator() {
+            return this.operator;
+        }
+        
+        /**
+         * Gets the length of each window, in milliseconds.
+         * 
+         * @return The length of each window.
+         */
+        long getWindow() {
+            return this.window;
+        }
+    }
+    
+    /**
+     * Represents the values received for a single key during a window.
+     */
+    private static final class Accumulator {
+        
+        private double sum;
+        private double min;
+        private double max;
+        private double last;
+        private long count;
+        
+        /**
+         * Constructs a new, empty {@link Accumulator}.
+         */
+        private Accumulator() {
+            this.sum = 0.0D;
+            this.min = Double.POSITIVE_INFINITY;
+            this.max = Double.NEGATIVE_INFINITY;
+            this.last = 0.0D;
+            this.count = 0L;
+        }
+        
+        /**
+         * Adds the given value to this {@link Accumulator}.
+         * 
+         * @param value The value.
+         */
+        private void add(final double value) {
+            this.sum += value;
+            this.min = Math.min(this.min, value);
+            this.max = Math.max(this.max, value);
+            this.last = value;
+            this.count++;
+        }
+        
+        /**
+         * Gets the result of the given {@link Operator} over the values added
+         * to this {@link Accumulator}.
+         * 
+         * @param operator The {@link Operator}.
+         * @return The result.
+         */
+        private double getResult(@NotNull final Operator operator) {
+            switch (operator) {
+                case SUM:
+                    return this.sum;
+                case MIN:
+                    return this.min;
+                case MAX:
+                    return this.max;
+                case LAST:
+                    return this.last;
+                default:
+                    return this.sum / this.count;
+            }
+        }
+    }
+    
+    /**
+     * Represents the open window of a single aggregated channel.
+     */
+    private final class Stream implements Runnable {
+        
+        private final String channel;
+        private final Aggregation aggregation;
+        
+        private Map<String, Accumulator> accumulators;
+        private ScheduledTask task;
+        
+        /**
+         * Constructs a new {@link Stream}.
+         * 
+         * @param channel The aggregated channel.
+         * @param aggregation The {@link Aggregation} of the channel.
+         */
+        private Stream(@NotNull final String channel, @NotNull final Aggregation aggregation) {
+            this.channel = channel;
+            this.aggregation = aggregation;
+            this.accumulators = new LinkedHashMap<String, Accumulator>();
+        }
+        
+        /**
+         * Adds the given value to the open window.
+         * 
+         * @param key The key of the value.
+         * @param value The value.
+         */
+        private synchronized void add(@NotNull final String key, final double value) {
+            Accumulator accumulator = this.accumulators.get(key);
+            if (accumulator == null) {
+                accumulator = new Accumulator();
+                this.accumulators.put(key, accumulator);
+            }
+            accumulator.add(value);
+        }
+        
+        /**
+         * Closes the open window, broadcasting its results, and opens the
+         * next one.
+         */
+        @Override
+        public void run() {
+            
+            final Map<String, Accumulator> accumulators;
+            synchronized (this) {
+                if (this.accumulators.isEmpty()) {
+                    return;
+                }
+                accumulators = this.accumulators;
+                this.accumulators = new LinkedHashMap<String, Accumulator>();
+            }
+            
+            for (final Map.Entry<String, Accumulator> entry : accumulators.entrySet()) {
+                final Accumulator accumulator = entry.getValue();
+                final List<String> data = new ArrayList<String>();
+                if (this.aggregation.keyField != -1) {
+                    data.add(entry.getKey());
+                }
+                data.add(StreamAggregator.format(accumulator.getResult(this.aggregation.operator)));
+                data.add(String.valueOf(accumulator.count));
+                
+                try {
+                    StreamAggregator.this.ipcPlugin.broadcastMessage(new ServerIPCMessage(IPCMessage.BROADCAST_SERVER, this.channel, data));
+                } catch (final IllegalArgumentException | IllegalStateException e) {
+                    StreamAggregator.this.logger.log(Level.WARNING, "Unable to broadcast aggregated IPC message on channel " + this.channel + ".");
+                    StreamAggregator.this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+                }
+            }
+        }
+    }
+    
+    private final BungeeIPCPlugin ipcPlugin;
+    private final Logger logger;
+    
+    private volatile Map<String, Stream> streams;
+    
+    /**
+     * Constructs a new {@link StreamAggregator} that aggregates no channels.
+     * 
+     * @param ipcPlugin The {@link BungeeIPCPlugin}.
+     */
+    StreamAggregator(@NotNull final BungeeIPCPlugin ipcPlugin) {
+        this.ipcPlugin = ipcPlugin;
+        this.logger = this.ipcPlugin.getLogger();
+        this.streams = Collections.emptyMap();
+    }
+    
+    /**
+     * Sets which channels are aggregated, and how. The open windows of the
+     * previously aggregated channels are closed, and their results broadcast.
+     * 
+     * @param aggregations The {@link Aggregation} of each channel.
+     */
+    synchronized void configure(@NotNull final Map<String, Aggregation> aggregations) {
+        
+        this.shutdown();
+        
+        final Map<String, Stream> streams = new HashMap<String, Stream>();
+        for (final Map.Entry<String, Aggregation> entry : aggregations.entrySet()) {
+            final Stream stream = new Stream(entry.getKey(), entry.getValue());
+            final long window = stream.aggregation.window;
+            stream.task = this.ipcPlugin.getProxy().getScheduler().schedule(this.ipcPlugin, stream, window - (System.currentTimeMillis() % window), window, TimeUnit.MILLISECONDS);
+            streams.put(entry.getKey(), stream);
+        }
+        this.streams = Collections.unmodifiableMap(streams);
+    }
+    
+    /**
+     * Stops aggregating all channels. The open windows are closed, and their
+     * results broadcast.
+     */
+    synchronized void shutdown() {
+        final Map<String, Stream> streams = this.streams;
+        this.streams = Collections.emptyMap();
+        for (final Stream stream : streams.values()) {
+            stream.task.cancel();
+            stream.run();
+        }
+    }
+    
+    /**
+     * Adds the given broadcast {@link IPCMessage} to the open window of its
+     * channel, if the channel is aggregated. This does not read the data of
+     * the {@link IPCMessage}.
+     * 
+     * @param message The broadcast {@link IPCMessage}.
+     * @return {@code true} if the channel is aggregated and the
+     *         {@link IPCMessage} must not be broadcast on its own,
+     *         {@code false} otherwise.
+     */
+    boolean offer(@NotNull final IPCMessage message) {
+        
+        final Stream stream = this.streams.get(message.getChannel());
+        if (stream == null) {
+            return false;
+        }
+        
+        final List<String> data = message.peekData();
+        final Aggregation aggregation = stream.aggregation;
+        if (data.size() <= Math.max(aggregation.keyField, aggregation.valueField)) {
+            this.logger.log(Level.WARNING, "Incomplete IPC message sent on aggregated channel " + message.getChannel() + ", it will be dropped.");
+            this.logger.log(Level.WARNING, message.toString());
+            return true;
+        }
+        
+        final double value;
+        try {
+            value = Double.parseDouble(data.get(aggregation.valueField));
+        } catch (final NumberFormatException e) {
+            this.logger.log(Level.WARNING, "Non-numeric value sent on aggregated channel " + message.getChannel() + ", it will be dropped.");
+            this.logger.log(Level.WARNING, "Incoming value: " + data.get(aggregation.valueField));
+            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            return true;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            this.logger.log(Level.WARNING, "Non-finite value sent on aggregated channel " + message.getChannel() + ", it will be dropped.");
+            this.logger.log(Level.WARNING, "Incoming value: " + data.get(aggregation.valueField));
+            return true;
+        }
+        
+        stream.add(aggregation.keyField == -1 ? "" : data.get(aggregation.keyField), value);
+        return true;
+    }
+    
+    /**
+     * Formats the given result, without a fractional part if it is a whole
+     * number.
+     * 
+     * @param result The result.
+     * @return The formatted result.
+     */
+    @NotNull
+    private static String format(final double result) {
+        if (result == Math.rint(result) && Math.abs(result) < 1.0E15D) {
+            return String.valueOf((long) result);
+        }
+        return String.valueOf(result);
+    }
+}
@@ -0,0 +1,106 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.bungeecord;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tracks which servers have an {@link IPCReader} registered for each
+ * channel, so that broadcast {@link IPCMessage IPCMessages} are only
+ * forwarded to the servers that will read them.
+ * <p>
+ * A server that has not advertised its channels yet, because it has only
+ * just connected, is treated as subscribed to every channel.
+ */
+final class SubscriptionTable {
+    
+    private final ConcurrentHashMap<String, Set<String>> subscribers;
+    private final ConcurrentHashMap<String, Set<String>> subscriptions;
+    
+    /**
+     * Constructs a new, empty {@link SubscriptionTable}.
+     */
+    SubscriptionTable() {
+        this.subscribers = new ConcurrentHashMap<String, Set<String>>();
+        this.subscriptions = new ConcurrentHashMap<String, Set<String>>();
+    }
+    
+    /**
+     * Replaces the channels the given server is subscribed to.
+     * 
+     * @param serverName The name of the server.
+     * @param channels All channels the server has an {@link IPCReader}
+     *                 registered for.
+     */
+    synchronized void subscribe(@NotNull final String serverName, @NotNull final Collection<String> channels) {
+        
+        final Set<String> added = new HashSet<String>(channels);
+        final Set<String> removed = this.subscriptions.put(serverName, Collections.unmodifiableSet(added));
+        if (removed != null) {
+            for (final String channel : removed) {
+                if (!added.contains(channel)) {
+                    this.subscribers.computeIfPresent(channel, (key, servers) -> {
+                        servers.remove(serverName);
+                        return servers.isEmpty() ? null : servers;
+                    });
+                }
+            }
+        }
+        for (final String channel : added) {
+            this.subscribers.computeIfAbsent(channel, key -> ConcurrentHashMap.newKeySet()).add(serverName);
+        }
+    }
+    
+    /**
+     * Removes all subscriptions of the given server, so that it is treated
+     * as subscribed to every channel.
+     * 
+     * @param serverName The name of the server.
+     */
+    synchronized void subscribeAll(@NotNull final String serverName) {
+        this.subscribe(serverName, Collections.<String>emptySet());
+        this.subscriptions.remove(serverName);
+    }
+    
+    /**
+     * Checks if the given server should receive broadcast
+     * {@link IPCMessage IPCMessages} on the given channel.
+     * 
+     * @param serverName The name of the server.
+     * @param channel The channel.
+     * @return {@code true} if the server has an {@link IPCReader} registered
+     *         for the channel, or has not advertised its channels,
+     *         {@code false} otherwise.
+     */
+    boolean isSubscribed(@NotNull final String serverName, @NotNull final String channel) {
+        if (!this.subscriptions.containsKey(serverName)) {
+            return true;
+        }
+        final Set<String> servers = this.subscribers.get(channel);
+        return servers != null && servers.contains(serverName);
+    }
+}
@@ -35,9 +35,12 @@ import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.connection.Server;
 import net.md_5.bungee.api.plugin.Command;
 import net.md_5.bungee.api.plugin.TabExecutor;
+import org.bspfsystems.bungeeipc.api.common.ExpiryCounters;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.server.ServerIPCMessage;
 import org.bspfsystems.bungeeipc.bungeecord.BungeeIPCPlugin;
+import org.bspfsystems.bungeeipc.bungeecord.RateLimiter;
+import org.bspfsystems.bungeeipc.bungeecord.ResponseCacheStats;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -77,7 +80,36 @@ public final class IPCBCommand extends Command implements TabExecutor {
         }
         
         final String subCommand = argsList.remove(0);
-        if (subCommand.equalsIgnoreCase("command")) {
+        if (subCommand.equalsIgnoreCase("cache")) {
+            
+            if (!sender.hasPermission("bungeeipc.command.ipcb.cache")) {
+                sender.sendMessage(TextComponent.fromLegacyText(this.getPermissionMessage()));
+                return;
+            }
+            if (!argsList.isEmpty()) {
+                sender.sendMessage(new ComponentBuilder("Syntax: /ipcb cache").color(ChatColor.RED).create());
+                return;
+            }
+            
+            final List<ResponseCacheStats> cacheStats = this.ipcPlugin.getResponseCacheStats();
+            sender.sendMessage(new ComponentBuilder("================================").color(ChatColor.DARK_GRAY).create());
+            sender.sendMessage(new ComponentBuilder("Cached IPC response channels:").color(ChatColor.WHITE).create());
+            sender.sendMessage(new ComponentBuilder("--------------------------------").color(ChatColor.DARK_GRAY).create());
+            for (final ResponseCacheStats channelStats : cacheStats) {
+                final ComponentBuilder builder = new ComponentBuilder(" - ").color(ChatColor.WHITE);
+                builder.append(channelStats.getChannel()).color(ChatColor.GOLD);
+                builder.append(": ").color(ChatColor.WHITE);
+                builder.append(String.format("%.1f%%", channelStats.getHitRate() * 100.0D)).color(ChatColor.GREEN);
+                builder.append(" hit rate, " + channelStats.getHits() + " hit(s), " + channelStats.getMisses() + " miss(es), " + channelStats.getEntries() + " cached").color(ChatColor.AQUA);
+                sender.sendMessage(builder.create());
+            }
+            
+            if (cacheStats.isEmpty()) {
+                sender.sendMessage(new ComponentBuilder("No channels.").color(ChatColor.RED).create());
+            }
+            sender.sendMessage(new ComponentBuilder("================================").color(ChatColor.DARK_GRAY).create());
+            
+        } else if (subCommand.equalsIgnoreCase("command")) {
             
             if (!sender.hasPermission("bungeeipc.command.ipcb.command")) {
                 sender.sendMessage(TextComponent.fromLegacyText(this.getPermissionMessage()));
@@ -161,13 +193,14 @@ public final class IPCBCommand extends Command implements TabExecutor {
                 return;
             }
             
+            final boolean permissionCache = sender.hasPermission("bungeeipc.command.ipcb.cache");
             final boolean permissionCommand = sender.hasPermission("bungeeipc.command.ipcb.command");
             final boolean permissionHelp = sender.hasPermission("bungeeipc.command.ipcb.help");
             final boolean permissionReconnect = sender.hasPermission("bungeeipc.command.ipcb.reconnect");
             final boolean permissionReload = sender.hasPermission("bungeeipc.command.ipcb.reload");
             final boolean permissionStatus = sender.hasPermission("bungeeipc.command.ipcb.status");
             
-            if (!permissionCommand && !permissionHelp && !permissionReconnect && !permissionReload && !permissionStatus) {
+            if (!permissionCache && !permissionCommand && !permissionHelp && !permissionReconnect && !permissionReload && !permissionStatus) {
                 sender.sendMessage(TextComponent.fromLegacyText(this.getPermissionMessage()));
                 return;
             }
@@ -175,6 +208,11 @@ public final class IPCBCommand extends Command implements TabExecutor {
             sender.sendMessage(new ComponentBuilder("Available commands:").color(ChatColor.GOLD).create());
             sender.sendMessage(new ComponentBuilder("--------------------------------").color(ChatColor.DARK_GRAY).create());
             
+            if (permissionCache) {
+                final ComponentBuilder builder = new ComponentBuilder(" - ").color(ChatColor.WHITE);
+                builder.append("/ipcb cache").color(ChatColor.AQUA);
+                sender.sendMessage(builder.create());
+            }
             if (permissionCommand) {
                 final ComponentBuilder builder = new ComponentBuilder(" - ").color(ChatColor.WHITE);
                 builder.append("/ipcb command <server> <sender> <command> [args...]").color(ChatColor.AQUA);
@@ -276,6 +314,8 @@ public final class IPCBCommand extends Command implements TabExecutor {
                 if (accessibleServers == 0) {
                     sender.sendMessage(new ComponentBuilder("No servers.").color(ChatColor.RED).create());
                 }
+                this.sendExpiredCount(sender);
+                this.sendRateLimitedCount(sender);
                 sender.sendMessage(new ComponentBuilder("================================").color(ChatColor.DARK_GRAY).create());
             } else if (argsList.size() == 1) {
                 
@@ -340,6 +380,49 @@ public final class IPCBCommand extends Command implements TabExecutor {
         }
     }
     
+    /**
+     * Sends the number of expired {@link IPCMessage IPCMessages} that the
+     * BungeeCord proxy has discarded to the given {@link CommandSender}.
+     * 
+     * @param sender The {@link CommandSender} asking for the status.
+     */
+    private void sendExpiredCount(@NotNull final CommandSender sender) {
+        
+        final ExpiryCounters counters = this.ipcPlugin.getExpiryCounters();
+        final ComponentBuilder builder = new ComponentBuilder("Expired messages discarded: ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(counters.getTotal())).color(ChatColor.AQUA);
+        builder.append(" (" + ExpiryCounters.Stage.SEND.getName() + ": ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(counters.get(ExpiryCounters.Stage.SEND))).color(ChatColor.AQUA);
+        builder.append(", " + ExpiryCounters.Stage.FORWARD.getName() + ": ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(counters.get(ExpiryCounters.Stage.FORWARD))).color(ChatColor.AQUA);
+        builder.append(")").color(ChatColor.WHITE);
+        
+        sender.sendMessage(new ComponentBuilder("--------------------------------").color(ChatColor.DARK_GRAY).create());
+        sender.sendMessage(builder.create());
+    }
+    
+    /**
+     * Sends the number of times the BungeeCord proxy has enforced a rate
+     * limit on the {@link IPCMessage IPCMessages} read from the Bukkit
+     * servers to the given {@link CommandSender}.
+     * 
+     * @param sender The {@link CommandSender} asking for the status.
+     */
+    private void sendRateLimitedCount(@NotNull final CommandSender sender) {
+        
+        final RateLimiter rateLimiter = this.ipcPlugin.getRateLimiter();
+        final ComponentBuilder builder = new ComponentBuilder("Rate limits enforced (").color(ChatColor.WHITE);
+        builder.append(rateLimiter.getAction().getName()).color(ChatColor.GOLD);
+        builder.append("): " + RateLimiter.Action.DELAY.getName() + ": ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(rateLimiter.get(RateLimiter.Action.DELAY))).color(ChatColor.AQUA);
+        builder.append(", " + RateLimiter.Action.DROP.getName() + ": ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(rateLimiter.get(RateLimiter.Action.DROP))).color(ChatColor.AQUA);
+        builder.append(", " + RateLimiter.Action.DISCONNECT.getName() + ": ").color(ChatColor.WHITE);
+        builder.append(String.valueOf(rateLimiter.get(RateLimiter.Action.DISCONNECT))).color(ChatColor.AQUA);
+        
+        sender.sendMessage(builder.create());
+    }
+    
     /**
      * Gets the {@link ChatColor} that corresponds to the status of the
      * {@link Server} with the given name.
@@ -380,12 +463,16 @@ public final class IPCBCommand extends Command implements TabExecutor {
         final List<String> argsList = new ArrayList<String>(Arrays.asList(args));
         final List<String> completions = new ArrayList<String>();
         
+        final boolean permissionCache = sender.hasPermission("bungeeipc.command.ipcb.cache");
         final boolean permissionCommand = sender.hasPermission("bungeeipc.command.ipcb.command");
         final boolean permissionHelp = sender.hasPermission("bungeeipc.command.ipcb.help");
         final boolean permissionReconnect = sender.hasPermission("bungeeipc.command.ipcb.reconnect");
         final boolean permissionReload = sender.hasPermission("bungeeipc.command.ipcb.reload");
         final boolean permissionStatus = sender.hasPermission("bungeeipc.command.ipcb.status");
         
+        if (permissionCache) {
+            completions.add("cache");
+        }
         if (permissionCommand) {
             completions.add("command");
         }
@@ -458,6 +545,8 @@ public final class IPCBCommand extends Command implements TabExecutor {
             completions.clear();
             return completions;
             
+        } else if (subCommand.equalsIgnoreCase("cache")) {
+            return completions;
         } else if (subCommand.equalsIgnoreCase("help")) {
             return completions;
         } else if (subCommand.equalsIgnoreCase("reconnect")) {
@@ -88,4 +88,28 @@ public final class ClientIPCMessage extends AbstractIPCMessage {
     public ClientIPCMessage(@NotNull final String destination, @NotNull final String channel, @NotNull final Queue<String> data) throws IllegalArgumentException, IllegalStateException {
         super(IPCMessage.PLACEHOLDER_SERVER, destination, channel, data);
     }
+    
+    /**
+     * Constructs a new {@link ClientIPCMessage} that replies to the given
+     * scatter-gather request sent by the BungeeCord proxy.
+     * <p>
+     * This reads the request ID from the given request, so it must be called
+     * before any other data is read from it. The remaining data of the
+     * request can then be read as normal, and the reply data added to the
+     * returned {@link ClientIPCMessage} before it is sent.
+     * 
+     * @param request The scatter-gather request {@link IPCMessage}.
+     * @return A new {@link ClientIPCMessage} replying to the request.
+     * @throws IllegalArgumentException If the request has no request ID.
+     * @see IPCMessage#REPLY_CHANNEL
+     */
+    @NotNull
+    public static ClientIPCMessage newReply(@NotNull final IPCMessage request) throws IllegalArgumentException {
+        if (!request.hasNext()) {
+            throw new IllegalArgumentException("IPCMessage is not a scatter-gather request, missing request ID: " + request);
+        }
+        final ClientIPCMessage reply = new ClientIPCMessage(IPCMessage.PROXY_SERVER, IPCMessage.REPLY_CHANNEL);
+        reply.add(request.next());
+        return reply;
+    }
 }
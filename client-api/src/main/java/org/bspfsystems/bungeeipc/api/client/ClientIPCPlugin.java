@@ -21,6 +21,9 @@ package org.bspfsystems.bungeeipc.api.client;
 
 import org.bspfsystems.bungeeipc.api.common.IPCPlugin;
 import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.bspfsystems.bungeeipc.api.common.crdt.CRDT;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the client-side version of the {@link IPCPlugin}.
@@ -47,8 +50,88 @@ public interface ClientIPCPlugin extends IPCPlugin {
      */
     boolean isClientConnected();
     
+    /**
+     * Gets the name that the BungeeCord proxy knows this Minecraft server by.
+     * 
+     * @return The name of this Minecraft server, or {@code null} if the
+     *         {@link ClientIPCSocket} has not yet connected.
+     * @see ClientIPCSocket#getServerName()
+     */
+    @Nullable
+    String getServerName();
+    
+    /**
+     * Gets whether the {@link ClientIPCSocket} is writable or not.
+     * <p>
+     * This will always return {@code false} if
+     * {@link ClientIPCPlugin#isClientConnected()} returns {@code false}.
+     * 
+     * @return {@code true} if the client {@link IPCSocket} is writable,
+     *         {@code false} otherwise.
+     * @see IPCSocket#isWritable()
+     */
+    boolean isClientWritable();
+    
+    /**
+     * Registers the given {@link Runnable} to be run on the main server thread
+     * once the {@link ClientIPCSocket} becomes writable.
+     * 
+     * @param callback The {@link Runnable} to run.
+     * @see IPCSocket#onWritable(Runnable)
+     */
+    void onClientWritable(@NotNull final Runnable callback);
+    
     /**
      * Restarts the client-side {@link IPCSocket}.
      */
     void restartClient();
+    
+    /**
+     * Gets the {@link ReplicatedMap} with the given name, starting to
+     * replicate it from the BungeeCord proxy if this is the first time it has
+     * been used on this server.
+     * 
+     * @param name The name of the {@link ReplicatedMap}.
+     * @return The {@link ReplicatedMap}.
+     * @throws IllegalArgumentException If {@code name} is blank.
+     */
+    @NotNull
+    ReplicatedMap getReplicatedMap(@NotNull final String name) throws IllegalArgumentException;
+    
+    /**
+     * Registers the given {@link CRDT} under the given name, which must be the
+     * same on every server sharing it.
+     * <p>
+     * The changes made to the {@link CRDT} on this server are gossiped
+     * periodically to every other server that has registered a {@link CRDT}
+     * under the same name, in a single batch with those of all other
+     * registered {@link CRDT CRDTs}, and the changes gossiped by those
+     * servers are merged into it. Its full state is gossiped every so often
+     * as well, so that servers that joined late or missed some changes
+     * catch up.
+     * <p>
+     * If the {@link CRDT} has not been seeded, it is seeded with the name of
+     * this server once the full state of the other servers has been merged
+     * into it, so that it carries on from where the replica of this server
+     * left off before it was restarted.
+     * 
+     * @param name The name to register the {@link CRDT} under.
+     * @param crdt The {@link CRDT} to register.
+     * @return {@code true} if the {@link CRDT} was registered successfully,
+     *         {@code false} if another {@link CRDT} is already registered
+     *         under the given name.
+     * @throws IllegalArgumentException If {@code name} is blank.
+     */
+    boolean addCRDT(@NotNull final String name, @NotNull final CRDT crdt) throws IllegalArgumentException;
+    
+    /**
+     * Unregisters the {@link CRDT} registered under the given name, so that
+     * its changes are no longer gossiped or merged.
+     * 
+     * @param name The name the {@link CRDT} is registered under.
+     * @return {@code true} if the {@link CRDT} was unregistered successfully,
+     *         {@code false} otherwise.
+     * @throws IllegalArgumentException If {@code name} is blank.
+     */
+    boolean removeCRDT(@NotNull final String name) throws IllegalArgumentException;
 }
@@ -21,6 +21,7 @@ package org.bspfsystems.bungeeipc.api.client;
 
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents a client connection for {@link IPCMessage}s. The
@@ -28,4 +29,18 @@ import org.bspfsystems.bungeeipc.api.common.IPCSocket;
  * of the connection (the Minecraft server).
  */
 public interface ClientIPCSocket extends IPCSocket {
+    
+    /**
+     * Gets the name that the BungeeCord proxy knows this Minecraft server by,
+     * as learned when the connection was established.
+     * <p>
+     * Once known, {@link IPCMessage IPCMessages} sent with this name as their
+     * destination are delivered locally instead of travelling to the
+     * BungeeCord proxy and back.
+     * 
+     * @return The name of this Minecraft server, or {@code null} if this
+     *         {@link ClientIPCSocket} has not yet connected.
+     */
+    @Nullable
+    String getServerName();
 }
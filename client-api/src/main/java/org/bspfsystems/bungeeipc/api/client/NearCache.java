@@ -0,0 +1,455 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a bounded, local cache of shared data, kept consistent across
+ * Bukkit servers over IPC.
+ * <p>
+ * Each {@link NearCache} has a name, which must be the same on every server
+ * sharing it, and an owner, which is the server that is the source of truth
+ * for its data. Writes on any server are sent through to the owner, which
+ * gives each write a version, persists it with its writer (if any), and then
+ * fans it out to every server that has registered the {@link NearCache}.
+ * Removals are fanned out the same way, as invalidations. A server only
+ * applies a write or invalidation that is newer than the version it already
+ * has, so a delayed, older write never overwrites a newer one.
+ * <p>
+ * The loader and writer usually block on a database or other storage, so
+ * they are never run on the thread reading {@link IPCMessage IPCMessages},
+ * which on a Bukkit server is the main server thread. They are run by the
+ * given {@link Executor} instead, and the reply or fan-out is sent once they
+ * have finished. Writes are persisted one at a time, in version order.
+ * <p>
+ * Writes on a server other than the owner are not visible locally until the
+ * owner has fanned them out. A server that has been disconnected from the
+ * BungeeCord proxy may have missed writes, and should
+ * {@link NearCache#clear()} its entries once reconnected.
+ */
+public final class NearCache implements IPCReader {
+    
+    /**
+     * The prefix of the channel a {@link NearCache} is shared on.
+     */
+    public static final String CHANNEL_PREFIX = "NEAR_CACHE_";
+    
+    /**
+     * Represents a versioned value, or the version it was removed at.
+     */
+    private static final class CachedValue {
+        
+        private final long version;
+        private final String value;
+        
+        /**
+         * Constructs a new {@link CachedValue}.
+         * 
+         * @param version The version of the value.
+         * @param value The value, or {@code null} if it was removed.
+         */
+        private CachedValue(final long version, @Nullable final String value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+    
+    private final ClientIPCPlugin ipcPlugin;
+    private final String channel;
+    private final String owner;
+    private final Function<String, String> loader;
+    private final BiConsumer<String, String> writer;
+    private final Executor executor;
+    
+    private final LinkedHashMap<String, CachedValue> entries;
+    private long lastVersion;
+    private CompletableFuture<Void> pendingWrites;
+    
+    /**
+     * Constructs a new {@link NearCache}, which runs its loader and writer on
+     * the common {@link ForkJoinPool}. It does not receive any updates until
+     * it is registered.
+     * 
+     * @param ipcPlugin The {@link ClientIPCPlugin} to send and receive updates
+     *                  with.
+     * @param name The name of the {@link NearCache}, the same on every server.
+     * @param owner The name of the server that owns the data.
+     * @param maxEntries The maximum number of entries to keep locally. The
+     *                   least recently used entries are removed first.
+     * @param loader Loads a value on the owner that is not cached there when
+     *               another server fetches it, returning {@code null} if it
+     *               does not exist, or {@code null} to not load values.
+     * @param writer Persists each write on the owner, with a {@code null}
+     *               value for a removal, or {@code null} to not persist
+     *               writes.
+     * @throws IllegalArgumentException If {@code name} or {@code owner} is
+     *                                  blank, or if {@code maxEntries} is not
+     *                                  positive.
+     * @see NearCache#NearCache(ClientIPCPlugin, String, String, int, Function, BiConsumer, Executor)
+     * @see NearCache#register()
+     */
+    public NearCache(@NotNull final ClientIPCPlugin ipcPlugin, @NotNull final String name, @NotNull final String owner, final int maxEntries, @Nullable final Function<String, String> loader, @Nullable final BiConsumer<String, String> writer) throws IllegalArgumentException {
+        this(ipcPlugin, name, owner, maxEntries, loader, writer, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructs a new {@link NearCache}. It does not receive any updates
+     * until it is registered.
+     * <p>
+     * The loader and writer are only run on the owner, by the given
+     * {@link Executor}, and never on the thread reading
+     * {@link IPCMessage IPCMessages} (the main server thread on Bukkit). On a
+     * Bukkit server, an {@link Executor} that runs tasks with
+     * {@code BukkitScheduler#runTaskAsynchronously} is a good choice. If the
+     * writer throws an exception, the write is not fanned out to the other
+     * servers.
+     * 
+     * @param ipcPlugin The {@link ClientIPCPlugin} to send and receive updates
+     *                  with.
+     * @param name The name of the {@link NearCache}, the same on every server.
+     * @param owner The name of the server that owns the data.
+     * @param maxEntries The maximum number of entries to keep locally. The
+     *                   least recently used entries are removed first.
+     * @param loader Loads a value on the owner that is not cached there when
+     *               another server fetches it, returning {@code null} if it
+     *               does not exist, or {@code null} to not load values.
+     * @param writer Persists each write on the owner, with a {@code null}
+     *               value for a removal, or {@code null} to not persist
+     *               writes.
+     * @param executor The {@link Executor} that runs the loader and writer.
+     * @throws IllegalArgumentException If {@code name} or {@code owner} is
+     *                                  blank, or if {@code maxEntries} is not
+     *                                  positive.
+     * @see NearCache#register()
+     */
+    public NearCache(@NotNull final ClientIPCPlugin ipcPlugin, @NotNull final String name, @NotNull final String owner, final int maxEntries, @Nullable final Function<String, String> loader, @Nullable final BiConsumer<String, String> writer, @NotNull final Executor executor) throws IllegalArgumentException {
+        
+        if (name.trim().isEmpty()) {
+            throw new IllegalArgumentException("NearCache name cannot be blank.");
+        }
+        if (owner.trim().isEmpty()) {
+            throw new IllegalArgumentException("NearCache owner cannot be blank.");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("NearCache maximum entries must be positive: " + maxEntries);
+        }
+        
+        this.ipcPlugin = ipcPlugin;
+        this.channel = NearCache.CHANNEL_PREFIX + name;
+        this.owner = owner;
+        this.loader = loader;
+        this.writer = writer;
+        this.executor = executor;
+        
+        this.entries = new LinkedHashMap<String, CachedValue>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(@NotNull final Map.Entry<String, CachedValue> eldest) {
+                return this.size() > maxEntries;
+            }
+        };
+        this.lastVersion = 0L;
+        this.pendingWrites = CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * Registers this {@link NearCache} to receive updates from the owner.
+     * 
+     * @return {@code true} if this {@link NearCache} was registered,
+     *         {@code false} otherwise.
+     * @see ClientIPCPlugin#addReader(String, IPCReader)
+     */
+    public boolean register() {
+        return this.ipcPlugin.addReader(this.channel, this);
+    }
+    
+    /**
+     * Unregisters this {@link NearCache}, and removes all local entries.
+     * 
+     * @return {@code true} if this {@link NearCache} was unregistered,
+     *         {@code false} otherwise.
+     * @see ClientIPCPlugin#removeReader(String)
+     */
+    public boolean unregister() {
+        this.clear();
+        return this.ipcPlugin.removeReader(this.channel);
+    }
+    
+    /**
+     * Gets the name of the server that owns the data of this
+     * {@link NearCache}.
+     * 
+     * @return The name of the owner.
+     */
+    @NotNull
+    public String getOwner() {
+        return this.owner;
+    }
+    
+    /**
+     * Checks if this server owns the data of this {@link NearCache}.
+     * 
+     * @return {@code true} if this server is the owner, {@code false}
+     *         otherwise, or if this server has not connected yet.
+     */
+    public boolean isOwner() {
+        return this.owner.equals(this.ipcPlugin.getServerName());
+    }
+    
+    /**
+     * Gets the locally cached value for the given key.
+     * 
+     * @param key The key.
+     * @return The value, or {@code null} if it is not cached locally.
+     * @see NearCache#fetch(String)
+     */
+    @Nullable
+    public synchronized String get(@NotNull final String key) {
+        final CachedValue entry = this.entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+    
+    /**
+     * Gets the version of the locally cached value for the given key.
+     * 
+     * @param key The key.
+     * @return The version, or {@code 0} if the key is not cached locally.
+     */
+    public synchronized long getVersion(@NotNull final String key) {
+        final CachedValue entry = this.entries.get(key);
+        return entry == null ? 0L : entry.version;
+    }
+    
+    /**
+     * Asks the owner to send the current value for the given key to this
+     * server. The value will be available from {@link NearCache#get(String)}
+     * once the owner has replied, unless it does not exist.
+     * 
+     * @param key The key.
+     */
+    public void fetch(@NotNull final String key) {
+        if (this.isOwner()) {
+            return;
+        }
+        final ClientIPCMessage message = new ClientIPCMessage(this.owner, this.channel);
+        message.add("GET");
+        message.add(key);
+        this.ipcPlugin.sendMessage(message);
+    }
+    
+    /**
+     * Writes the given value for the given key through to the owner, which
+     * fans it out to every server.
+     * 
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(@NotNull final String key, @NotNull final String value) {
+        if (this.isOwner()) {
+            this.write(key, value);
+            return;
+        }
+        final ClientIPCMessage message = new ClientIPCMessage(this.owner, this.channel);
+        message.add("WRITE");
+        message.add(key);
+        message.add(value);
+        this.ipcPlugin.sendMessage(message);
+    }
+    
+    /**
+     * Removes the value for the given key through the owner, which fans out
+     * an invalidation to every server.
+     * 
+     * @param key The key.
+     */
+    public void remove(@NotNull final String key) {
+        if (this.isOwner()) {
+            this.write(key, null);
+            return;
+        }
+        final ClientIPCMessage message = new ClientIPCMessage(this.owner, this.channel);
+        message.add("REMOVE");
+        message.add(key);
+        this.ipcPlugin.sendMessage(message);
+    }
+    
+    /**
+     * Removes all local entries, without affecting any other server.
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readMessage(@NotNull final IPCMessage message) {
+        
+        if (!message.hasNext()) {
+            return;
+        }
+        final String operation = message.next();
+        if (!message.hasNext()) {
+            return;
+        }
+        final String key = message.next();
+        
+        if (operation.equals("UPDATE") || operation.equals("INVALIDATE")) {
+            if (!message.hasNext()) {
+                return;
+            }
+            final long version;
+            try {
+                version = Long.parseLong(message.next());
+            } catch (final NumberFormatException e) {
+                return;
+            }
+            final String value = operation.equals("UPDATE") && message.hasNext() ? message.next() : null;
+            this.apply(key, version, value);
+            return;
+        }
+        
+        if (!this.isOwner()) {
+            return;
+        }
+        if (operation.equals("WRITE") && message.hasNext()) {
+            this.write(key, message.next());
+        } else if (operation.equals("REMOVE")) {
+            this.write(key, null);
+        } else if (operation.equals("GET")) {
+            final String origin = message.getOrigin();
+            if (this.loader == null) {
+                this.reply(origin, key);
+            } else {
+                this.executor.execute(() -> this.reply(origin, key));
+            }
+        }
+    }
+    
+    /**
+     * Writes the given value for the given key on the owner with a new
+     * version, persists it, and fans it out to every server. Persisting and
+     * fanning out are chained behind any earlier writes, so that they happen
+     * in version order.
+     * 
+     * @param key The key.
+     * @param value The value, or {@code null} to remove it.
+     */
+    private void write(@NotNull final String key, @Nullable final String value) {
+        
+        final BiConsumer<String, String> writer = this.writer;
+        synchronized (this) {
+            this.lastVersion = Math.max(this.lastVersion + 1L, System.currentTimeMillis() * 1000L);
+            final long version = this.lastVersion;
+            this.entries.put(key, new CachedValue(version, value));
+            
+            final IPCMessage update = this.newUpdate(IPCMessage.BROADCAST_SERVER, key, version, value);
+            if (writer == null) {
+                this.ipcPlugin.sendMessage(update);
+                return;
+            }
+            
+            // A failed write must not stop the ones queued behind it.
+            this.pendingWrites = this.pendingWrites.exceptionally(e -> null).thenRunAsync(() -> {
+                writer.accept(key, value);
+                this.ipcPlugin.sendMessage(update);
+            }, this.executor);
+        }
+    }
+    
+    /**
+     * Sends the owner's current value for the given key to the given server,
+     * loading it first if it is not cached. If there is a loader, this is run
+     * by the {@link Executor}.
+     * 
+     * @param server The server that asked for the value.
+     * @param key The key.
+     */
+    private void reply(@NotNull final String server, @NotNull final String key) {
+        
+        CachedValue entry;
+        synchronized (this) {
+            entry = this.entries.get(key);
+        }
+        if (entry == null && this.loader != null) {
+            final String value = this.loader.apply(key);
+            if (value != null) {
+                synchronized (this) {
+                    entry = this.entries.get(key);
+                    if (entry == null) {
+                        this.lastVersion = Math.max(this.lastVersion + 1L, System.currentTimeMillis() * 1000L);
+                        entry = new CachedValue(this.lastVersion, value);
+                        this.entries.put(key, entry);
+                    }
+                }
+            }
+        }
+        if (entry != null && entry.value != null) {
+            this.ipcPlugin.sendMessage(this.newUpdate(server, key, entry.version, entry.value));
+        }
+    }
+    
+    /**
+     * Applies a value or invalidation from the owner, unless a newer version
+     * is already cached locally.
+     * 
+     * @param key The key.
+     * @param version The version.
+     * @param value The value, or {@code null} if it was removed.
+     */
+    private synchronized void apply(@NotNull final String key, final long version, @Nullable final String value) {
+        final CachedValue entry = this.entries.get(key);
+        if (entry == null || entry.version < version) {
+            this.entries.put(key, new CachedValue(version, value));
+        }
+    }
+    
+    /**
+     * Creates a new update {@link IPCMessage} from the owner.
+     * 
+     * @param destination The server to send the update to.
+     * @param key The key.
+     * @param version The version.
+     * @param value The value, or {@code null} to invalidate it.
+     * @return The new update {@link IPCMessage}.
+     */
+    @NotNull
+    private IPCMessage newUpdate(@NotNull final String destination, @NotNull final String key, final long version, @Nullable final String value) {
+        final ClientIPCMessage message = new ClientIPCMessage(destination, this.channel);
+        message.add(value == null ? "INVALIDATE" : "UPDATE");
+        message.add(key);
+        message.add(String.valueOf(version));
+        if (value != null) {
+            message.add(value);
+        }
+        return message;
+    }
+}
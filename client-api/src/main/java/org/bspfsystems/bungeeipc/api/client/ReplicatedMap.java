@@ -0,0 +1,144 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.client;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a map of shared state whose authoritative copy is held by the
+ * BungeeCord proxy, and replicated to every Bukkit server that uses it.
+ * <p>
+ * Each server receives a snapshot of the map when it first uses it and each
+ * time it (re)connects to the proxy, followed by every change in the order
+ * the proxy applied them. Reads are always answered from the local copy, and
+ * never wait on the network. Writes are sent to the proxy, and are only
+ * visible locally once the proxy has applied them and replicated the change
+ * back to this server.
+ * 
+ * @see ClientIPCPlugin#getReplicatedMap(String)
+ */
+public interface ReplicatedMap {
+    
+    /**
+     * Gets the name of this {@link ReplicatedMap}, which is the same on every
+     * server.
+     * 
+     * @return The name of this {@link ReplicatedMap}.
+     */
+    @NotNull
+    String getName();
+    
+    /**
+     * Checks if a snapshot of this {@link ReplicatedMap} has been received
+     * from the BungeeCord proxy. Until it has, this {@link ReplicatedMap} is
+     * empty.
+     * 
+     * @return {@code true} if this {@link ReplicatedMap} has been
+     *         synchronized, {@code false} otherwise.
+     */
+    boolean isSynchronized();
+    
+    /**
+     * Gets the local value for the given key.
+     * 
+     * @param key The key.
+     * @return The value, or {@code null} if there is none.
+     */
+    @Nullable
+    String get(@NotNull final String key);
+    
+    /**
+     * Checks if there is a local value for the given key.
+     * 
+     * @param key The key.
+     * @return {@code true} if there is a value for the key, {@code false}
+     *         otherwise.
+     */
+    boolean containsKey(@NotNull final String key);
+    
+    /**
+     * Gets a copy of all local entries.
+     * 
+     * @return An unmodifiable copy of the local entries.
+     */
+    @NotNull
+    Map<String, String> getAll();
+    
+    /**
+     * Sets the value for the given key on the BungeeCord proxy.
+     * 
+     * @param key The key.
+     * @param value The value.
+     * @return A {@link CompletableFuture} that completes once the change has
+     *         been applied locally, or exceptionally if it could not be
+     *         sent or was not confirmed in time.
+     */
+    @NotNull
+    CompletableFuture<Void> put(@NotNull final String key, @NotNull final String value);
+    
+    /**
+     * Removes the value for the given key on the BungeeCord proxy.
+     * 
+     * @param key The key.
+     * @return A {@link CompletableFuture} that completes once the change has
+     *         been applied locally, or exceptionally if it could not be
+     *         sent or was not confirmed in time.
+     */
+    @NotNull
+    CompletableFuture<Void> remove(@NotNull final String key);
+    
+    /**
+     * Sets the value for the given key on the BungeeCord proxy, only if its
+     * current value there is the expected value.
+     * 
+     * @param key The key.
+     * @param expected The expected current value, or {@code null} if there
+     *                 should be no current value.
+     * @param value The new value, or {@code null} to remove the current
+     *              value.
+     * @return A {@link CompletableFuture} that completes with {@code true}
+     *         once the change has been applied locally, with {@code false}
+     *         if the current value was not the expected value, or
+     *         exceptionally if it could not be sent or was not confirmed in
+     *         time.
+     */
+    @NotNull
+    CompletableFuture<Boolean> compareAndSet(@NotNull final String key, @Nullable final String expected, @Nullable final String value);
+    
+    /**
+     * Adds a {@link ReplicatedMapListener} to be notified of every change to
+     * this {@link ReplicatedMap}, including changes made by other servers.
+     * 
+     * @param listener The {@link ReplicatedMapListener} to add.
+     */
+    void addListener(@NotNull final ReplicatedMapListener listener);
+    
+    /**
+     * Removes a previously added {@link ReplicatedMapListener}.
+     * 
+     * @param listener The {@link ReplicatedMapListener} to remove.
+     * @return {@code true} if the {@link ReplicatedMapListener} was removed,
+     *         {@code false} if it was not added.
+     */
+    boolean removeListener(@NotNull final ReplicatedMapListener listener);
+}
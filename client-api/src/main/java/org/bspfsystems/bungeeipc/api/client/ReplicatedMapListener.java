@@ -0,0 +1,43 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.client;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents an object that will be notified of changes to a
+ * {@link ReplicatedMap}.
+ */
+public interface ReplicatedMapListener {
+    
+    /**
+     * Called on the main server thread after a change has been applied to
+     * the local copy of the {@link ReplicatedMap}, whether it was made by
+     * this server or another. When a snapshot is received, this is called
+     * once for each key whose value differs from the previous local copy.
+     * 
+     * @param map The {@link ReplicatedMap} that changed.
+     * @param key The key that changed.
+     * @param oldValue The previous value, or {@code null} if there was none.
+     * @param newValue The new value, or {@code null} if it was removed.
+     */
+    void onChange(@NotNull final ReplicatedMap map, @NotNull final String key, @Nullable final String oldValue, @Nullable final String newValue);
+}
@@ -21,11 +21,13 @@ package org.bspfsystems.bungeeipc.api.common;
 
 import java.io.DataOutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * An abstract implementation of an {@link IPCMessage}.
@@ -34,11 +36,27 @@ public abstract class AbstractIPCMessage implements IPCMessage {
     
     protected static final String SEPARATOR = "`|`";
     
+    /**
+     * Separates the channel from the ordering key, if one has been set, when
+     * this {@link AbstractIPCMessage} is written.
+     */
+    protected static final String KEY_SEPARATOR = "`#`";
+    
+    /**
+     * Separates the channel from the expiry, if one has been set, when this
+     * {@link AbstractIPCMessage} is written. The expiry comes before the
+     * ordering key.
+     */
+    protected static final String EXPIRY_SEPARATOR = "`@`";
+    
     private final String origin;
     private final String destination;
     private final String channel;
     private final Queue<String> data;
     
+    private String orderingKey;
+    private long expiry;
+    
     private int length;
     
     /**
@@ -109,6 +127,12 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         if (channel.trim().isEmpty()) {
             throw new IllegalArgumentException("IPCMessage channel cannot be blank.");
         }
+        if (channel.contains(AbstractIPCMessage.KEY_SEPARATOR)) {
+            throw new IllegalArgumentException("IPCMessage channel cannot contain " + AbstractIPCMessage.KEY_SEPARATOR + ".");
+        }
+        if (channel.contains(AbstractIPCMessage.EXPIRY_SEPARATOR)) {
+            throw new IllegalArgumentException("IPCMessage channel cannot contain " + AbstractIPCMessage.EXPIRY_SEPARATOR + ".");
+        }
         
         for (final String item : data) {
             if (item == null) {
@@ -119,6 +143,18 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         if (origin.equals(IPCMessage.BROADCAST_SERVER)) {
             throw new IllegalArgumentException("IPCMessage origin cannot be the broadcast server.");
         }
+        if (origin.startsWith(IPCMessage.PLAYER_PREFIX) || origin.startsWith(IPCMessage.QUEUED_PLAYER_PREFIX)) {
+            throw new IllegalArgumentException("IPCMessage origin cannot be a player.");
+        }
+        if ((destination.startsWith(IPCMessage.PLAYER_PREFIX) && destination.substring(IPCMessage.PLAYER_PREFIX.length()).trim().isEmpty()) || (destination.startsWith(IPCMessage.QUEUED_PLAYER_PREFIX) && destination.substring(IPCMessage.QUEUED_PLAYER_PREFIX.length()).trim().isEmpty())) {
+            throw new IllegalArgumentException("IPCMessage destination cannot be a blank player.");
+        }
+        if (origin.startsWith(IPCMessage.ANYCAST_PREFIX)) {
+            throw new IllegalArgumentException("IPCMessage origin cannot be a server pool.");
+        }
+        if (destination.startsWith(IPCMessage.ANYCAST_PREFIX) && destination.substring(IPCMessage.ANYCAST_PREFIX.length()).trim().isEmpty()) {
+            throw new IllegalArgumentException("IPCMessage destination cannot be a blank server pool.");
+        }
         if (destination.equals(IPCMessage.PLACEHOLDER_SERVER)) {
             throw new IllegalArgumentException("IPCMessage destination cannot be the placeholder server.");
         }
@@ -127,6 +163,8 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         this.destination = destination;
         this.channel = channel;
         this.data = data;
+        this.orderingKey = null;
+        this.expiry = 0L;
         
         this.length = this.getLength(this.origin);
         this.length += this.getLength(this.destination);
@@ -166,6 +204,70 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         return this.channel;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public final String getOrderingKey() {
+        return this.orderingKey == null ? this.channel : this.orderingKey;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setOrderingKey(@Nullable final String orderingKey) throws IllegalArgumentException, IllegalStateException {
+        
+        if (orderingKey != null && orderingKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("IPCMessage ordering key cannot be blank.");
+        }
+        if (orderingKey != null && orderingKey.contains(AbstractIPCMessage.SEPARATOR)) {
+            throw new IllegalArgumentException("IPCMessage ordering key cannot contain " + AbstractIPCMessage.SEPARATOR + ".");
+        }
+        
+        final int oldLength = this.orderingKey == null ? 0 : this.getLength(AbstractIPCMessage.KEY_SEPARATOR + this.orderingKey);
+        final int newLength = orderingKey == null ? 0 : this.getLength(AbstractIPCMessage.KEY_SEPARATOR + orderingKey);
+        this.checkLength(newLength - oldLength);
+        
+        this.length += newLength - oldLength;
+        this.orderingKey = orderingKey;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final long getExpiry() {
+        return this.expiry;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void setExpiry(final long expiry) throws IllegalArgumentException, IllegalStateException {
+        
+        if (expiry < 0L) {
+            throw new IllegalArgumentException("IPCMessage expiry cannot be negative.");
+        }
+        
+        final int oldLength = this.expiry == 0L ? 0 : this.getLength(AbstractIPCMessage.EXPIRY_SEPARATOR + this.expiry);
+        final int newLength = expiry == 0L ? 0 : this.getLength(AbstractIPCMessage.EXPIRY_SEPARATOR + expiry);
+        this.checkLength(newLength - oldLength);
+        
+        this.length += newLength - oldLength;
+        this.expiry = expiry;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isExpired() {
+        return this.expiry != 0L && System.currentTimeMillis() >= this.expiry;
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -226,6 +328,15 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         return data;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public final List<String> peekData() {
+        return Collections.unmodifiableList(new ArrayList<String>(this.data));
+    }
+    
     /**
      * {@inheritDoc}
      */
@@ -237,6 +348,12 @@ public abstract class AbstractIPCMessage implements IPCMessage {
         builder.append(this.origin);
         builder.append(AbstractIPCMessage.SEPARATOR).append(this.destination);
         builder.append(AbstractIPCMessage.SEPARATOR).append(this.channel);
+        if (this.expiry != 0L) {
+            builder.append(AbstractIPCMessage.EXPIRY_SEPARATOR).append(this.expiry);
+        }
+        if (this.orderingKey != null) {
+            builder.append(AbstractIPCMessage.KEY_SEPARATOR).append(this.orderingKey);
+        }
         
         for (final String item : this.data) {
             builder.append(AbstractIPCMessage.SEPARATOR).append(item);
@@ -0,0 +1,155 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Counts the {@link IPCMessage IPCMessages} that were discarded because they
+ * had expired, by the stage they were discarded at.
+ * 
+ * @see IPCMessage#getExpiry()
+ */
+public final class ExpiryCounters {
+    
+    /**
+     * Represents the stages an expired {@link IPCMessage} can be discarded at.
+     */
+    public enum Stage {
+        
+        /**
+         * The {@link IPCMessage} expired while waiting on the send queue of an
+         * {@link IPCSocket}.
+         */
+        SEND("send"),
+        
+        /**
+         * The {@link IPCMessage} expired before the BungeeCord proxy could
+         * forward it on, or read it.
+         */
+        FORWARD("forward"),
+        
+        /**
+         * The {@link IPCMessage} expired while waiting to be read by the
+         * {@link IPCReader} on the receiving server.
+         */
+        DISPATCH("dispatch");
+        
+        private final String name;
+        
+        /**
+         * Constructs a new {@link Stage}.
+         * 
+         * @param name The display name of the {@link Stage}.
+         */
+        Stage(@NotNull final String name) {
+            this.name = name;
+        }
+        
+        /**
+         * Gets the display name of this {@link Stage}.
+         * 
+         * @return The display name of this {@link Stage}.
+         */
+        @NotNull
+        public String getName() {
+            return this.name;
+        }
+    }
+    
+    private final AtomicLongArray counts;
+    
+    /**
+     * Constructs a new {@link ExpiryCounters}, with every count at {@code 0}.
+     */
+    public ExpiryCounters() {
+        this.counts = new AtomicLongArray(Stage.values().length);
+    }
+    
+    /**
+     * Counts the given number of expired {@link IPCMessage IPCMessages}
+     * discarded at the given {@link Stage}.
+     * 
+     * @param stage The {@link Stage}.
+     * @param count The number of discarded {@link IPCMessage IPCMessages}.
+     */
+    public void add(@NotNull final Stage stage, final int count) {
+        this.counts.addAndGet(stage.ordinal(), count);
+    }
+    
+    /**
+     * Removes the expired {@link IPCMessage IPCMessages} from the given ones,
+     * counting them as discarded at the given {@link Stage}. The order of the
+     * remaining {@link IPCMessage IPCMessages} is kept.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages}.
+     * @param stage The {@link Stage}.
+     * @return The {@link IPCMessage IPCMessages} that have not expired. This
+     *         is the given {@link List} itself if none of them have.
+     */
+    @NotNull
+    public List<IPCMessage> discardExpired(@NotNull final List<IPCMessage> messages, @NotNull final Stage stage) {
+        
+        List<IPCMessage> live = messages;
+        for (int index = 0; index < messages.size(); index++) {
+            final IPCMessage message = messages.get(index);
+            if (message.isExpired()) {
+                if (live == messages) {
+                    live = new ArrayList<IPCMessage>(messages.subList(0, index));
+                }
+            } else if (live != messages) {
+                live.add(message);
+            }
+        }
+        
+        if (live != messages) {
+            this.add(stage, messages.size() - live.size());
+        }
+        return live;
+    }
+    
+    /**
+     * Gets the number of expired {@link IPCMessage IPCMessages} discarded at
+     * the given {@link Stage}.
+     * 
+     * @param stage The {@link Stage}.
+     * @return The number of discarded {@link IPCMessage IPCMessages}.
+     */
+    public long get(@NotNull final Stage stage) {
+        return this.counts.get(stage.ordinal());
+    }
+    
+    /**
+     * Gets the number of expired {@link IPCMessage IPCMessages} discarded at
+     * every {@link Stage}.
+     * 
+     * @return The total number of discarded {@link IPCMessage IPCMessages}.
+     */
+    public long getTotal() {
+        long total = 0L;
+        for (final Stage stage : Stage.values()) {
+            total += this.get(stage);
+        }
+        return total;
+    }
+}
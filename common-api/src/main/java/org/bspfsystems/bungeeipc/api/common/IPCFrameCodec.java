@@ -0,0 +1,341 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Encodes and decodes the frames exchanged by the {@link IPCSocket IPCSockets}
+ * on an IPC connection, and the serialized {@link IPCMessage IPCMessages}
+ * they carry.
+ * <p>
+ * On the wire, each frame starts with its type. A message frame is followed
+ * by one serialized {@link IPCMessage}, a batch frame by the number of
+ * serialized {@link IPCMessage IPCMessages} and then the
+ * {@link IPCMessage IPCMessages} themselves, and a handshake frame by the
+ * {@link #PROTOCOL_VERSION} of the sender and a name. Ping and pong frames
+ * are followed by a token, which the receiver of a ping frame echoes back in
+ * a pong frame, so that the sender can measure the round trip time of the
+ * connection itself. Each {@link String} is written in the format of
+ * {@link java.io.DataOutput#writeUTF(String)}.
+ * <p>
+ * Each end of a connection writes a handshake frame before anything else.
+ * The BungeeCord proxy sends the name of the Minecraft server that it has
+ * identified the connection as, and the Minecraft server sends an empty
+ * name. Either end closes the connection if the first frame it reads is not
+ * a handshake frame of the same {@link #PROTOCOL_VERSION}, as the rest of the
+ * frames could not be read reliably.
+ */
+public final class IPCFrameCodec {
+    
+    /**
+     * The type of a frame carrying a single {@link IPCMessage}.
+     */
+    public static final byte MESSAGE = 0;
+    
+    /**
+     * The type of a frame carrying any number of
+     * {@link IPCMessage IPCMessages}.
+     */
+    public static final byte BATCH = 1;
+    
+    /**
+     * The type of the frame sent by each end when a connection is
+     * established, carrying its {@link #PROTOCOL_VERSION} and, from the
+     * BungeeCord proxy, the name of the connected Minecraft server.
+     */
+    public static final byte HANDSHAKE = 2;
+    
+    /**
+     * The type of a frame carrying a token that the receiver must echo back
+     * in a pong frame.
+     */
+    public static final byte PING = 3;
+    
+    /**
+     * The type of a frame echoing back the token of a ping frame.
+     */
+    public static final byte PONG = 4;
+    
+    /**
+     * The version of the frame format. This is incremented whenever the
+     * frame format changes in a way that an older version of BungeeIPC could
+     * not read, so both ends of a connection must use the same one.
+     */
+    public static final int PROTOCOL_VERSION = 2;
+    
+    /**
+     * Represents a simple extension of an {@link AbstractIPCMessage}, used
+     * when reading in a serialized {@link IPCMessage}.
+     */
+    private static final class SimpleIPCMessage extends AbstractIPCMessage {
+        
+        /**
+         * Constructs a new {@link IPCMessage}.
+         * 
+         * @param origin The origin {@link IPCSocket}.
+         * @param destination The destination {@link IPCSocket}.
+         * @param channel The channel the {@link IPCMessage} will be read by.
+         * @param data The initial data as a {@link Queue}. Order will be
+         *             maintained.
+         * @throws IllegalArgumentException If {@code origin},
+         *                                  {@code destination}, and/or
+         *                                  {@code channel} are blank, or if any
+         *                                  element in {@code data} is
+         *                                  {@code null}.
+         * @throws IllegalStateException If the given parameters contain too much
+         *                               data to send in a single
+         *                               {@link IPCMessage}.
+         * @see AbstractIPCMessage#AbstractIPCMessage(String, String, String, Queue)
+         */
+        private SimpleIPCMessage(@NotNull final String origin, @NotNull final String destination, @NotNull final String channel, @NotNull final Queue<String> data) {
+            super(origin, destination, channel, data);
+        }
+    }
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private IPCFrameCodec() {
+        // Do nothing.
+    }
+    
+    /**
+     * Reads in the given raw {@link IPCMessage} (as a {@link String}), and
+     * deserializes it into an {@link IPCMessage}.
+     * 
+     * @param message The serialized {@link IPCMessage} as a {@link String}.
+     * @param origin The name of the Minecraft server the {@link IPCMessage}
+     *               was read in from, which replaces the placeholder origin
+     *               it was sent with, or {@code null} to keep the origin it
+     *               was sent with.
+     * @return The deserialized {@link IPCMessage}.
+     * @throws IllegalArgumentException If the given message is blank, is
+     *                                  missing its origin, destination or
+     *                                  channel, or was not sent with the
+     *                                  placeholder origin when an origin is
+     *                                  given.
+     * @throws IllegalStateException If the given parameters contain too much
+     *                               data to send in a single
+     *                               {@link IPCMessage}.
+     */
+    @NotNull
+    public static IPCMessage read(@NotNull String message, @Nullable final String origin) throws IllegalArgumentException, IllegalStateException {
+        
+        if (message.trim().isEmpty()) {
+            throw new IllegalArgumentException("IPCMessage data cannot be blank, cannot recreate IPCMessage: " + message);
+        }
+        
+        final Queue<String> split = new LinkedList<String>();
+        
+        int index = message.indexOf(AbstractIPCMessage.SEPARATOR);
+        while (index != -1) {
+            split.add(message.substring(0, index));
+            message = message.substring(index + AbstractIPCMessage.SEPARATOR.length());
+            index = message.indexOf(AbstractIPCMessage.SEPARATOR);
+        }
+        split.add(message);
+        
+        if (split.size() < 3) {
+            throw new IllegalArgumentException("Cannot recreate IPCMessage, missing some combination of origin, destination, and/or channel (data not required): " + message);
+        }
+        
+        final String sentOrigin = split.poll();
+        if (sentOrigin == null) {
+            throw new IllegalArgumentException("Cannot recreate IPCMessage, missing origin: " + message);
+        }
+        if (origin != null && !sentOrigin.equals(IPCMessage.PLACEHOLDER_SERVER)) {
+            throw new IllegalArgumentException("Cannot recreate IPCMessage, invalid origin: " + message);
+        }
+        
+        final String destination = split.poll();
+        if (destination == null) {
+            throw new IllegalArgumentException("Cannot recreate IPCMessage, missing destination: " + message);
+        }
+        
+        final String channelHeader = split.poll();
+        if (channelHeader == null) {
+            throw new IllegalArgumentException("Cannot recreate IPCMessage, missing channel: " + message);
+        }
+        
+        // The ordering key, if one was set, follows the channel.
+        final int keyIndex = channelHeader.indexOf(AbstractIPCMessage.KEY_SEPARATOR);
+        String channel = keyIndex == -1 ? channelHeader : channelHeader.substring(0, keyIndex);
+        
+        // The expiry, if one was set, comes between the channel and the
+        // ordering key.
+        long expiry = 0L;
+        final int expiryIndex = channel.indexOf(AbstractIPCMessage.EXPIRY_SEPARATOR);
+        if (expiryIndex != -1) {
+            try {
+                expiry = Long.parseLong(channel.substring(expiryIndex + AbstractIPCMessage.EXPIRY_SEPARATOR.length()));
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Cannot recreate IPCMessage, invalid expiry: " + message, e);
+            }
+            channel = channel.substring(0, expiryIndex);
+        }
+        
+        final IPCMessage ipcMessage = new SimpleIPCMessage(origin == null ? sentOrigin : origin, destination, channel, split);
+        if (keyIndex != -1) {
+            ipcMessage.setOrderingKey(channelHeader.substring(keyIndex + AbstractIPCMessage.KEY_SEPARATOR.length()));
+        }
+        ipcMessage.setExpiry(expiry);
+        return ipcMessage;
+    }
+    
+    /**
+     * Reads in the {@link IPCMessage IPCMessages} of a batch frame, after its
+     * frame type has been read.
+     * 
+     * @param input The {@link DataInputStream} of the connection.
+     * @param origin The name of the Minecraft server the
+     *               {@link IPCMessage IPCMessages} were read in from, or
+     *               {@code null} to keep the origins they were sent with.
+     * @return The deserialized {@link IPCMessage IPCMessages}, in order.
+     * @throws IOException If the batch frame could not be read.
+     * @see IPCFrameCodec#read(String, String)
+     */
+    @NotNull
+    public static List<IPCMessage> readBatch(@NotNull final DataInputStream input, @Nullable final String origin) throws IOException {
+        
+        final int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid IPC batch frame size: " + count);
+        }
+        
+        final List<IPCMessage> messages = new ArrayList<IPCMessage>(Math.min(count, 1024));
+        for (int index = 0; index < count; index++) {
+            messages.add(IPCFrameCodec.read(input.readUTF(), origin));
+        }
+        return messages;
+    }
+    
+    /**
+     * Writes a handshake frame with this end's {@link #PROTOCOL_VERSION} and
+     * the given name to the given {@link DataOutputStream}, and flushes it.
+     * 
+     * @param output The {@link DataOutputStream} of the connection.
+     * @param name The name of the connected Minecraft server when sent by the
+     *             BungeeCord proxy, or an empty {@link String} when sent by
+     *             the Minecraft server.
+     * @throws IOException If the handshake frame could not be written.
+     */
+    public static void writeHandshake(@NotNull final DataOutputStream output, @NotNull final String name) throws IOException {
+        output.writeByte(IPCFrameCodec.HANDSHAKE);
+        output.writeInt(IPCFrameCodec.PROTOCOL_VERSION);
+        output.writeUTF(name);
+        output.flush();
+    }
+    
+    /**
+     * Reads in the handshake frame that the other end of the connection must
+     * send before anything else, and checks that it uses the same
+     * {@link #PROTOCOL_VERSION}.
+     * 
+     * @param input The {@link DataInputStream} of the connection.
+     * @return The name carried by the handshake frame.
+     * @throws IPCProtocolException If the first frame is not a handshake
+     *                              frame, or has a different
+     *                              {@link #PROTOCOL_VERSION}.
+     * @throws IOException If the handshake frame could not be read.
+     * @see IPCFrameCodec#checkHandshake(byte, int)
+     */
+    @NotNull
+    public static String readHandshake(@NotNull final DataInputStream input) throws IOException {
+        
+        // Only a handshake frame carries a version.
+        final byte type = input.readByte();
+        IPCFrameCodec.checkHandshake(type, type == IPCFrameCodec.HANDSHAKE ? input.readInt() : 0);
+        return input.readUTF();
+    }
+    
+    /**
+     * Checks that the first frame read from the other end of a connection is
+     * a handshake frame with the same {@link #PROTOCOL_VERSION} as this end.
+     * 
+     * @param type The type of the first frame.
+     * @param version The version carried by the first frame, if it is a
+     *                handshake frame.
+     * @throws IPCProtocolException If the frame is not a handshake frame, or
+     *                              has a different {@link #PROTOCOL_VERSION}.
+     */
+    public static void checkHandshake(final byte type, final int version) throws IPCProtocolException {
+        if (type != IPCFrameCodec.HANDSHAKE) {
+            throw new IPCProtocolException("The other end of the IPC connection did not start with a handshake, so it is most likely running an older version of BungeeIPC.");
+        }
+        if (version != IPCFrameCodec.PROTOCOL_VERSION) {
+            throw new IPCProtocolException("The other end of the IPC connection uses IPC protocol version " + version + ", but this end uses version " + IPCFrameCodec.PROTOCOL_VERSION + ".");
+        }
+    }
+    
+    /**
+     * Writes a ping or pong frame carrying the given token to the given
+     * {@link DataOutputStream}, without flushing it.
+     * 
+     * @param output The {@link DataOutputStream} of the connection.
+     * @param type Either {@link #PING} or {@link #PONG}.
+     * @param token The token to send in a ping frame, or to echo back in a
+     *              pong frame.
+     * @throws IOException If the frame could not be written.
+     */
+    public static void writePing(@NotNull final DataOutputStream output, final byte type, final long token) throws IOException {
+        output.writeByte(type);
+        output.writeLong(token);
+    }
+    
+    /**
+     * Encodes the given {@link IPCMessage IPCMessages} as a single frame into
+     * the given buffer, which is reset first. The frame is encoded in full
+     * before any of it is written to the connection, so that an
+     * {@link IPCMessage} that is too large cannot leave a partial frame on the
+     * connection.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to encode.
+     * @param batch {@code true} to encode a batch frame, {@code false} to
+     *              encode the single {@link IPCMessage} as a message frame.
+     * @param frame The buffer to encode the frame into.
+     * @throws IOException If an {@link IPCMessage} is too large to be
+     *                     encoded, in which case a
+     *                     {@link java.io.UTFDataFormatException} is thrown.
+     */
+    public static void write(@NotNull final List<IPCMessage> messages, final boolean batch, @NotNull final ByteArrayOutputStream frame) throws IOException {
+        
+        frame.reset();
+        final DataOutputStream frameOut = new DataOutputStream(frame);
+        if (batch) {
+            frameOut.writeByte(IPCFrameCodec.BATCH);
+            frameOut.writeInt(messages.size());
+        } else {
+            frameOut.writeByte(IPCFrameCodec.MESSAGE);
+        }
+        for (final IPCMessage message : messages) {
+            frameOut.writeUTF(message.write());
+        }
+    }
+}
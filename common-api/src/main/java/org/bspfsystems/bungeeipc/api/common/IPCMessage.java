@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents a message that is sent between {@link IPCSocket IPCSockets}.
@@ -54,6 +55,41 @@ public interface IPCMessage {
      */
     String PLACEHOLDER_SERVER = "%%SERVER%%";
     
+    /**
+     * Used as a prefix to address a message to a player, by following it with
+     * the player's {@link java.util.UUID} or name. The BungeeCord proxy will
+     * forward the message to the Bukkit server the player is currently
+     * connected to. If the player is not online, the message will not be
+     * sent. This can only be used as a destination.
+     */
+    String PLAYER_PREFIX = "PLAYER:";
+    
+    /**
+     * Used as a prefix to address a message to a player, in the same way as
+     * {@link IPCMessage#PLAYER_PREFIX}. If the player is not online yet, or
+     * is in the middle of switching servers, the BungeeCord proxy will hold
+     * on to the message until the player is connected to a Bukkit server, or
+     * until the proxy's configured timeout passes. This can only be used as a
+     * destination.
+     */
+    String QUEUED_PLAYER_PREFIX = "QUEUED_PLAYER:";
+    
+    /**
+     * Used as a prefix to address a message to any one of a pool of Bukkit
+     * servers, by following it with the name of the pool as configured on the
+     * BungeeCord proxy. The proxy will pick one connected server from the pool
+     * using the pool's configured strategy, and forward the message to it.
+     * This can only be used as a destination.
+     */
+    String ANYCAST_PREFIX = "ANYCAST:";
+    
+    /**
+     * The channel that replies to a scatter-gather request are sent to the
+     * BungeeCord proxy on. The first data item of a scatter-gather request,
+     * and of each reply to it, is the ID of the request.
+     */
+    String REPLY_CHANNEL = "PROXY_REPLY";
+    
     /**
      * Gets the origin {@link IPCSocket} of this {@link IPCMessage}.
      * <p>
@@ -82,6 +118,110 @@ public interface IPCMessage {
     @NotNull
     String getChannel();
     
+    /**
+     * Gets the key that decides the order this {@link IPCMessage} is handled
+     * in. {@link IPCMessage IPCMessages} with the same ordering key are sent
+     * and handled in the order they were sent, while {@link IPCMessage
+     * IPCMessages} with different ordering keys may be handled in parallel.
+     * <p>
+     * This is the channel, unless another key (such as the UUID of the
+     * player the {@link IPCMessage} is about) has been set with
+     * {@link IPCMessage#setOrderingKey(String)}.
+     * <p>
+     * The default implementation, for implementations that do not support
+     * ordering keys, returns the channel.
+     * 
+     * @return The ordering key of this {@link IPCMessage}.
+     */
+    @NotNull
+    default String getOrderingKey() {
+        return this.getChannel();
+    }
+    
+    /**
+     * Sets the key that decides the order this {@link IPCMessage} is handled
+     * in, which is sent along with this {@link IPCMessage}.
+     * <p>
+     * An {@link IllegalStateException} will be thrown if the ordering key
+     * pushes the total length of this {@link IPCMessage} beyond its maximum
+     * allowable number of bytes to be processed.
+     * <p>
+     * The default implementation, for implementations that do not support
+     * ordering keys, checks the ordering key but otherwise ignores it, so the
+     * channel is still used as the ordering key.
+     * 
+     * @param orderingKey The ordering key, or {@code null} to use the channel.
+     * @throws IllegalArgumentException If the ordering key is blank.
+     * @throws IllegalStateException If the ordering key causes this
+     *                               {@link IPCMessage} to be too long to be
+     *                               sent via a {@link DataOutputStream}.
+     * @see IPCMessage#getOrderingKey()
+     */
+    default void setOrderingKey(@Nullable final String orderingKey) throws IllegalArgumentException, IllegalStateException {
+        if (orderingKey != null && orderingKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("IPCMessage ordering key cannot be blank.");
+        }
+    }
+    
+    /**
+     * Gets the time this {@link IPCMessage} expires at, in milliseconds since
+     * the epoch. An expired {@link IPCMessage} is no longer worth delivering,
+     * and is discarded instead of being sent, forwarded, or read.
+     * <p>
+     * An expiry of {@code 0}, which is the default if none has been set with
+     * {@link IPCMessage#setExpiry(long)}, means that this {@link IPCMessage}
+     * never expires.
+     * <p>
+     * The default implementation, for implementations that do not support
+     * expiry, returns {@code 0}.
+     * 
+     * @return The expiry of this {@link IPCMessage}, or {@code 0} if it never
+     *         expires.
+     */
+    default long getExpiry() {
+        return 0L;
+    }
+    
+    /**
+     * Sets the time this {@link IPCMessage} expires at, in milliseconds since
+     * the epoch, which is sent along with this {@link IPCMessage}. As the
+     * expiry is compared against the clock of each server the
+     * {@link IPCMessage} passes through, those clocks should be synchronized.
+     * <p>
+     * An {@link IllegalStateException} will be thrown if the expiry pushes
+     * the total length of this {@link IPCMessage} beyond its maximum
+     * allowable number of bytes to be processed.
+     * <p>
+     * The default implementation, for implementations that do not support
+     * expiry, checks the expiry but otherwise ignores it, so this
+     * {@link IPCMessage} never expires.
+     * 
+     * @param expiry The expiry, such as {@code System.currentTimeMillis()}
+     *               plus a time-to-live, or {@code 0} to never expire.
+     * @throws IllegalArgumentException If the expiry is negative.
+     * @throws IllegalStateException If the expiry causes this
+     *                               {@link IPCMessage} to be too long to be
+     *                               sent via a {@link DataOutputStream}.
+     * @see IPCMessage#getExpiry()
+     */
+    default void setExpiry(final long expiry) throws IllegalArgumentException, IllegalStateException {
+        if (expiry < 0L) {
+            throw new IllegalArgumentException("IPCMessage expiry cannot be negative.");
+        }
+    }
+    
+    /**
+     * Gets whether this {@link IPCMessage} has expired.
+     * 
+     * @return {@code true} if this {@link IPCMessage} has an expiry, and it
+     *         has passed, {@code false} otherwise.
+     * @see IPCMessage#getExpiry()
+     */
+    default boolean isExpired() {
+        final long expiry = this.getExpiry();
+        return expiry != 0L && System.currentTimeMillis() >= expiry;
+    }
+    
     /**
      * Adds the next message to this {@link IPCMessage}.
      * <p>
@@ -151,6 +291,22 @@ public interface IPCMessage {
     @NotNull
     String next();
     
+    /**
+     * Gets the data in this {@link IPCMessage} that has not been read yet,
+     * without reading it.
+     * <p>
+     * The default implementation reads the data back out of
+     * {@link IPCMessage#write()}, which is correct but slow. Implementations
+     * should override it if they can return the data directly.
+     * 
+     * @return An unmodifiable copy of the remaining data, in the order it
+     *         would be read in.
+     */
+    @NotNull
+    default List<String> peekData() {
+        return IPCFrameCodec.read(this.write(), null).peekData();
+    }
+    
     /**
      * Writes the data stored in the internal list out to a single
      * {@link String}.
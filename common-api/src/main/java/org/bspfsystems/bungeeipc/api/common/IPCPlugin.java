@@ -19,6 +19,8 @@
 
 package org.bspfsystems.bungeeipc.api.common;
 
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -55,6 +57,45 @@ public interface IPCPlugin {
      */
     void sendMessage(@NotNull final IPCMessage message);
     
+    /**
+     * Sends the {@link IPCMessage} over the network connection to its
+     * destination ({@link IPCMessage#getDestination()}), returning a
+     * {@link CompletableFuture} that reports the outcome.
+     * <p>
+     * The returned {@link CompletableFuture} will complete normally once the
+     * {@link IPCMessage} has been handed off to its destination, or
+     * exceptionally with an {@link IPCSendException} describing why it could
+     * not be sent.
+     * 
+     * @param message The {@link IPCMessage} to send.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage} has been sent.
+     * @see IPCSocket#sendAsync(IPCMessage)
+     */
+    @NotNull
+    CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message);
+    
+    /**
+     * Sends the {@link IPCMessage IPCMessages} over the network connection to
+     * their destinations ({@link IPCMessage#getDestination()}) together.
+     * <p>
+     * This is intended for sending many related {@link IPCMessage IPCMessages}
+     * at once. Each {@link IPCMessage} still reaches its own destination, but
+     * all {@link IPCMessage IPCMessages} going the same way share a single
+     * frame on the connection and a single dispatch on the receiving side.
+     * The order of the given {@link Collection} is maintained for each
+     * destination. The returned {@link CompletableFuture} completes once all
+     * of the {@link IPCMessage IPCMessages} have been sent, or exceptionally
+     * if any of them could not be.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage IPCMessages} have been sent.
+     * @see IPCSocket#sendBatch(Collection)
+     */
+    @NotNull
+    CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages);
+    
     /**
      * Receives the {@link IPCMessage} and begins the processing of it.
      * 
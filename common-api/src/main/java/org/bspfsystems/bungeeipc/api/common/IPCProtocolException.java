@@ -0,0 +1,44 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the failure of the handshake at the start of an IPC
+ * connection, because the other end of the connection does not use the same
+ * IPC protocol version.
+ * 
+ * @see IPCFrameCodec#PROTOCOL_VERSION
+ */
+public final class IPCProtocolException extends IOException {
+    
+    private static final long serialVersionUID = -3518629411387024105L;
+    
+    /**
+     * Constructs a new {@link IPCProtocolException}.
+     * 
+     * @param message The detail message.
+     */
+    public IPCProtocolException(@NotNull final String message) {
+        super(message);
+    }
+}
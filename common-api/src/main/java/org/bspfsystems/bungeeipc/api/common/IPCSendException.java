@@ -0,0 +1,108 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the failure to send an {@link IPCMessage}, used to complete the
+ * result of {@link IPCSocket#sendAsync(IPCMessage)} and
+ * {@link IPCPlugin#sendAsync(IPCMessage)} exceptionally.
+ */
+public final class IPCSendException extends Exception {
+    
+    private static final long serialVersionUID = 4176248201582207532L;
+    
+    /**
+     * Represents the reason that an {@link IPCMessage} could not be sent.
+     */
+    public enum Reason {
+        
+        /**
+         * The {@link IPCSocket} was not running or not connected when the
+         * {@link IPCMessage} was sent.
+         */
+        NOT_CONNECTED,
+        
+        /**
+         * The send queue of the {@link IPCSocket} was full.
+         */
+        QUEUE_FULL,
+        
+        /**
+         * The {@link IPCMessage} was too long to be written to the connection.
+         */
+        TOO_LARGE,
+        
+        /**
+         * The destination of the {@link IPCMessage} is not registered.
+         */
+        UNKNOWN_DESTINATION,
+        
+        /**
+         * The connection was broken or closed before the {@link IPCMessage}
+         * could be written to it.
+         */
+        CONNECTION_LOST,
+        
+        /**
+         * The {@link IPCMessage} expired before it could be written to the
+         * connection.
+         * 
+         * @see IPCMessage#getExpiry()
+         */
+        EXPIRED
+    }
+    
+    private final Reason reason;
+    
+    /**
+     * Constructs a new {@link IPCSendException}.
+     * 
+     * @param reason The {@link Reason} the {@link IPCMessage} was not sent.
+     * @param message The detail message.
+     */
+    public IPCSendException(@NotNull final Reason reason, @NotNull final String message) {
+        super(message);
+        this.reason = reason;
+    }
+    
+    /**
+     * Constructs a new {@link IPCSendException}.
+     * 
+     * @param reason The {@link Reason} the {@link IPCMessage} was not sent.
+     * @param message The detail message.
+     * @param cause The underlying cause of the failure.
+     */
+    public IPCSendException(@NotNull final Reason reason, @NotNull final String message, @NotNull final Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+    
+    /**
+     * Gets the {@link Reason} the {@link IPCMessage} was not sent.
+     * 
+     * @return The {@link Reason} the {@link IPCMessage} was not sent.
+     */
+    @NotNull
+    public Reason getReason() {
+        return this.reason;
+    }
+}
@@ -0,0 +1,571 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.bspfsystems.bungeeipc.api.common.transport.IPCConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the send queue of an {@link IPCSocket} that writes to a
+ * blocking IPC connection, along with the writer that drains it.
+ * <p>
+ * Sending only places the {@link IPCMessage IPCMessages} on the send queue
+ * and wakes the writer, and never blocks on the connection itself. The send
+ * queue holds at most a fixed number of {@link IPCMessage IPCMessages}. It
+ * reports itself as not writable once it is half full, and as writable again
+ * once it has drained to a quarter full.
+ * <p>
+ * The writer may also send a ping frame at a fixed interval, and answers the
+ * ping frames received from the other end with pong frames as soon as it is
+ * told about them. These frames do not count towards the send queue.
+ */
+public final class IPCSendQueue {
+    
+    private static final long WRITER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+    
+    private final String name;
+    private final String peer;
+    private final Logger logger;
+    private final ExpiryCounters expiryCounters;
+    private final BooleanSupplier connected;
+    private final Executor callbackExecutor;
+    
+    private final int capacity;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final long pingInterval;
+    
+    private final Queue<PendingMessage> sendQueue;
+    private final Map<List<String>, PendingMessage> conflated;
+    private final AtomicInteger queueDepth;
+    private final AtomicReference<Thread> writerThread;
+    private final AtomicBoolean writable;
+    private final Queue<Runnable> writableCallbacks;
+    private final AtomicReference<Long> pong;
+    
+    /**
+     * Constructs a new {@link IPCSendQueue}.
+     * 
+     * @param name The name of the {@link IPCSocket} this {@link IPCSendQueue}
+     *             belongs to, as used in log messages and failures.
+     * @param peer A description of what the connection is to, as used in log
+     *             messages and failures.
+     * @param logger The {@link Logger} to log to.
+     * @param expiryCounters The {@link ExpiryCounters} that expired
+     *                       {@link IPCMessage IPCMessages} are counted in.
+     * @param connected Gets whether the {@link IPCSocket} is connected.
+     * @param callbackExecutor The {@link Executor} that writable callbacks
+     *                         are run by, and that the results of the sent
+     *                         {@link IPCMessage IPCMessages} are completed
+     *                         on.
+     * @param capacity The maximum number of {@link IPCMessage IPCMessages} on
+     *                 the send queue.
+     * @param pingInterval The interval between the ping frames sent by the
+     *                     writer, in nanoseconds, or {@code 0} to not send
+     *                     any.
+     * @throws IllegalArgumentException If {@code capacity} is less than
+     *                                  {@code 1}.
+     */
+    public IPCSendQueue(@NotNull final String name, @NotNull final String peer, @NotNull final Logger logger, @NotNull final ExpiryCounters expiryCounters, @NotNull final BooleanSupplier connected, @NotNull final Executor callbackExecutor, final int capacity, final long pingInterval) throws IllegalArgumentException {
+        
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Send queue capacity must be at least 1.");
+        }
+        
+        this.name = name;
+        this.peer = peer;
+        this.logger = logger;
+        this.expiryCounters = expiryCounters;
+        this.connected = connected;
+        this.callbackExecutor = callbackExecutor;
+        
+        this.capacity = capacity;
+        this.highWatermark = Math.max(1, this.capacity / 2);
+        this.lowWatermark = this.capacity / 4;
+        this.pingInterval = pingInterval;
+        
+        this.sendQueue = new ConcurrentLinkedQueue<PendingMessage>();
+        this.conflated = new ConcurrentHashMap<List<String>, PendingMessage>();
+        this.queueDepth = new AtomicInteger(0);
+        this.writerThread = new AtomicReference<Thread>(null);
+        this.writable = new AtomicBoolean(false);
+        this.writableCallbacks = new ConcurrentLinkedQueue<Runnable>();
+        this.pong = new AtomicReference<Long>(null);
+    }
+    
+    /**
+     * Places the given {@link IPCMessage} on the send queue, to be written as
+     * a message frame, and wakes the writer.
+     * <p>
+     * If a conflation key is given, and an unsent {@link IPCMessage} with the
+     * same conflation key is already on the send queue, that
+     * {@link IPCMessage} is replaced in place instead, and the returned
+     * {@link CompletableFuture} completes when the replacement has been sent.
+     * 
+     * @param message The {@link IPCMessage} to send.
+     * @param conflationKey The conflation key of the {@link IPCMessage}, if
+     *                      it may replace or be replaced by another one while
+     *                      it is on the send queue, or {@code null} otherwise.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage} has been sent.
+     */
+    @NotNull
+    public CompletableFuture<Void> send(@NotNull final IPCMessage message, @Nullable final List<String> conflationKey) {
+        
+        if (conflationKey != null && this.connected.getAsBoolean()) {
+            final PendingMessage queued = this.conflated.get(conflationKey);
+            if (queued != null) {
+                final CompletableFuture<Void> future = queued.replace(message);
+                if (future != null) {
+                    return future;
+                }
+            }
+        }
+        return this.enqueue(Collections.singletonList(message), false, conflationKey);
+    }
+    
+    /**
+     * Places the given {@link IPCMessage IPCMessages} on the send queue as a
+     * single entry, to be written together as a batch frame, and wakes the
+     * writer. Either all or none of them will be sent, so if any of them has
+     * expired by the time the batch is written, the whole batch is discarded
+     * and the returned {@link CompletableFuture} fails with
+     * {@link IPCSendException.Reason#EXPIRED}.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage IPCMessages} have been sent.
+     */
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final List<IPCMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.enqueue(messages, true, null);
+    }
+    
+    /**
+     * Places the given {@link IPCMessage IPCMessages} on the send queue as a
+     * single entry, and wakes the writer.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @param batch {@code true} if the {@link IPCMessage IPCMessages} should
+     *              be written as a batch frame, {@code false} if there is a
+     *              single {@link IPCMessage} to write as a message frame.
+     * @param conflationKey The conflation key of the single
+     *                      {@link IPCMessage}, if it may be replaced by a
+     *                      later one while it is still on the send queue, or
+     *                      {@code null} otherwise.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage IPCMessages} have been sent.
+     */
+    @NotNull
+    private CompletableFuture<Void> enqueue(@NotNull final List<IPCMessage> messages, final boolean batch, @Nullable final List<String> conflationKey) {
+        
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        if (!this.connected.getAsBoolean()) {
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, this.name + " is not connected."));
+            return future;
+        }
+        
+        final int depth = this.queueDepth.addAndGet(messages.size());
+        if (depth > this.capacity) {
+            this.queueDepth.addAndGet(-messages.size());
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.QUEUE_FULL, this.name + " send queue is full (" + this.capacity + " messages)."));
+            return future;
+        }
+        if (depth >= this.highWatermark) {
+            this.writable.set(false);
+        }
+        
+        final PendingMessage pending = new PendingMessage(messages, batch, conflationKey, future);
+        if (conflationKey != null) {
+            this.conflated.put(conflationKey, pending);
+        }
+        this.sendQueue.offer(pending);
+        LockSupport.unpark(this.writerThread.get());
+        
+        // The connection may have been closed between the check above and
+        // the message being queued, in which case nothing will drain it.
+        if (!this.connected.getAsBoolean()) {
+            this.clear();
+        }
+        return future;
+    }
+    
+    /**
+     * Checks if the {@link IPCSocket} is connected and this
+     * {@link IPCSendQueue} has room for more {@link IPCMessage IPCMessages}.
+     * 
+     * @return {@code true} if {@link IPCMessage IPCMessages} may be sent
+     *         without building up a backlog, {@code false} otherwise.
+     * @see IPCSocket#isWritable()
+     */
+    public boolean isWritable() {
+        return this.connected.getAsBoolean() && this.writable.get();
+    }
+    
+    /**
+     * Gets the number of {@link IPCMessage IPCMessages} on this
+     * {@link IPCSendQueue} that have not been written yet.
+     * 
+     * @return The number of {@link IPCMessage IPCMessages} waiting to be
+     *         written.
+     * @see IPCSocket#getQueueDepth()
+     */
+    public int getQueueDepth() {
+        return this.queueDepth.get();
+    }
+    
+    /**
+     * Registers the given {@link Runnable} to be run by the callback
+     * {@link Executor} once this {@link IPCSendQueue} is writable, which may
+     * be straight away.
+     * 
+     * @param callback The {@link Runnable} to run.
+     * @see IPCSocket#onWritable(Runnable)
+     */
+    public void onWritable(@NotNull final Runnable callback) {
+        this.writableCallbacks.offer(callback);
+        if (this.isWritable()) {
+            this.runWritableCallbacks();
+        }
+    }
+    
+    /**
+     * Runs all registered writable callbacks through the callback
+     * {@link Executor}, removing them in the process.
+     */
+    private void runWritableCallbacks() {
+        Runnable callback = this.writableCallbacks.poll();
+        while (callback != null) {
+            this.callbackExecutor.execute(callback);
+            callback = this.writableCallbacks.poll();
+        }
+    }
+    
+    /**
+     * Has the writer answer a ping frame received from the other end of the
+     * connection with a pong frame, ahead of any queued
+     * {@link IPCMessage IPCMessages}, and wakes the writer. If several ping
+     * frames arrive before the writer gets to them, only the last one is
+     * answered.
+     * 
+     * @param token The token of the received ping frame.
+     */
+    public void pong(final long token) {
+        this.pong.set(token);
+        LockSupport.unpark(this.writerThread.get());
+    }
+    
+    /**
+     * Drains this {@link IPCSendQueue} to the given {@link DataOutputStream}
+     * for as long as the connection it belongs to is alive. This is the only
+     * place that writes to the connection, and the output is only flushed
+     * once the send queue is empty, so that bursts of
+     * {@link IPCMessage IPCMessages} are coalesced into as few writes as
+     * possible. The results of the written {@link IPCMessage IPCMessages} are
+     * completed through the callback {@link Executor} after each flush. Expired {@link IPCMessage IPCMessages} are
+     * discarded as they are taken off the send queue, rather than written,
+     * along with the rest of the batch they belong to, if any.
+     * <p>
+     * Each entry on the send queue is written as one frame, as encoded by
+     * {@link IPCFrameCodec#write(List, boolean, ByteArrayOutputStream)}. A
+     * handshake frame with the given name is written before anything else,
+     * and ping and pong frames are written between the other frames as they
+     * fall due.
+     * <p>
+     * If a new writer starts draining this {@link IPCSendQueue}, such as after
+     * a reconnect, the previous writer exits.
+     * 
+     * @param out The {@link DataOutputStream} of the connection.
+     * @param connection The {@link IPCConnection} being written to, which is
+     *                   closed if writing to it fails.
+     * @param handshake The name to write in the handshake frame.
+     * @see IPCFrameCodec#writeHandshake(DataOutputStream, String)
+     */
+    public void write(@NotNull final DataOutputStream out, @NotNull final IPCConnection connection, @NotNull final String handshake) {
+        
+        final Thread thread = Thread.currentThread();
+        LockSupport.unpark(this.writerThread.getAndSet(thread));
+        
+        this.writable.set(this.queueDepth.get() < this.highWatermark);
+        if (this.writable.get()) {
+            this.runWritableCallbacks();
+        }
+        
+        final List<CompletableFuture<Void>> written = new ArrayList<CompletableFuture<Void>>();
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        try {
+            
+            IPCFrameCodec.writeHandshake(out, handshake);
+            
+            long lastPing = System.nanoTime() - this.pingInterval;
+            while (this.connected.getAsBoolean() && this.writerThread.get() == thread) {
+                
+                boolean pinged = false;
+                final Long token = this.pong.getAndSet(null);
+                if (token != null) {
+                    IPCFrameCodec.writePing(out, IPCFrameCodec.PONG, token);
+                    pinged = true;
+                }
+                final long now = System.nanoTime();
+                if (this.pingInterval > 0L && now - lastPing >= this.pingInterval) {
+                    IPCFrameCodec.writePing(out, IPCFrameCodec.PING, now);
+                    lastPing = now;
+                    pinged = true;
+                }
+                
+                PendingMessage pending = this.sendQueue.poll();
+                if (pending == null) {
+                    if (pinged) {
+                        out.flush();
+                    } else {
+                        LockSupport.parkNanos(this, IPCSendQueue.WRITER_PARK_NANOS);
+                    }
+                    continue;
+                }
+                
+                while (pending != null) {
+                    final List<IPCMessage> taken = this.take(pending);
+                    this.queueDepth.addAndGet(-taken.size());
+                    
+                    // A batch is sent whole or not at all, so one expired
+                    // IPCMessage discards the whole batch.
+                    final List<IPCMessage> messages = this.expiryCounters.discardExpired(taken, ExpiryCounters.Stage.SEND);
+                    if (messages.size() != taken.size()) {
+                        final String expired = taken.size() == 1 ? "IPC message expired" : "IPC batch of " + taken.size() + " messages discarded, " + (taken.size() - messages.size()) + " of them expired";
+                        this.complete(Collections.singletonList(pending.future), new IPCSendException(IPCSendException.Reason.EXPIRED, expired + " before it was sent to " + this.peer + "."));
+                        pending = this.sendQueue.poll();
+                        continue;
+                    }
+                    
+                    try {
+                        IPCFrameCodec.write(messages, pending.batch, frame);
+                    } catch (final UTFDataFormatException e) {
+                        this.complete(Collections.singletonList(pending.future), new IPCSendException(IPCSendException.Reason.TOO_LARGE, "IPC message too large to send to " + this.peer + ".", e));
+                        pending = this.sendQueue.poll();
+                        continue;
+                    }
+                    
+                    written.add(pending.future);
+                    frame.writeTo(out);
+                    pending = this.sendQueue.poll();
+                }
+                out.flush();
+                
+                this.complete(new ArrayList<CompletableFuture<Void>>(written), null);
+                written.clear();
+                
+                if (!this.writable.get() && this.queueDepth.get() <= this.lowWatermark) {
+                    this.writable.set(true);
+                    this.runWritableCallbacks();
+                }
+            }
+        } catch (final IOException e) {
+            
+            this.logger.log(Level.WARNING, "Cannot send IPC message to " + this.peer + ".");
+            this.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            
+            this.complete(written, new IPCSendException(IPCSendException.Reason.CONNECTION_LOST, "IPC connection broken before the IPC message was sent.", e));
+            
+            try {
+                connection.close();
+            } catch (final IOException e1) {
+                this.logger.log(Level.WARNING, "Failure for " + this.name + ".");
+                this.logger.log(Level.WARNING, "Unable to close the IPCConnection after the IPC connection was broken.");
+                this.logger.log(Level.WARNING, e1.getClass().getSimpleName() + " thrown.", e1);
+            }
+        } finally {
+            this.writerThread.compareAndSet(thread, null);
+        }
+    }
+    
+    /**
+     * Fails any {@link IPCMessage IPCMessages} left on this
+     * {@link IPCSendQueue} after the connection has been closed, and wakes
+     * the writer so that it may exit.
+     */
+    public void clear() {
+        
+        this.writable.set(false);
+        this.pong.set(null);
+        
+        int dropped = 0;
+        final List<CompletableFuture<Void>> failed = new ArrayList<CompletableFuture<Void>>();
+        PendingMessage pending = this.sendQueue.poll();
+        while (pending != null) {
+            final int size = this.take(pending).size();
+            this.queueDepth.addAndGet(-size);
+            failed.add(pending.future);
+            dropped += size;
+            pending = this.sendQueue.poll();
+        }
+        if (!failed.isEmpty()) {
+            this.complete(failed, new IPCSendException(IPCSendException.Reason.CONNECTION_LOST, "IPC connection closed before the IPC message was sent."));
+        }
+        if (dropped > 0) {
+            this.logger.log(Level.WARNING, "Discarded " + dropped + " unsent IPC message(s), " + this.name + " is not connected.");
+        }
+        LockSupport.unpark(this.writerThread.get());
+    }
+    
+    /**
+     * Completes the given results of {@link IPCMessage IPCMessages} taken off
+     * the send queue through the callback {@link Executor}, so that the
+     * actions depending on them do not hold up the writer. If the callback
+     * {@link Executor} no longer accepts tasks, such as while the plugin is
+     * being disabled, they are completed on the calling thread instead.
+     * 
+     * @param futures The results to complete.
+     * @param failure The reason the {@link IPCMessage IPCMessages} were not
+     *                sent, or {@code null} if they were.
+     */
+    private void complete(@NotNull final List<CompletableFuture<Void>> futures, @Nullable final IPCSendException failure) {
+        
+        final Runnable task = () -> {
+            for (final CompletableFuture<Void> future : futures) {
+                if (failure == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(failure);
+                }
+            }
+        };
+        
+        try {
+            this.callbackExecutor.execute(task);
+        } catch (final RuntimeException e) {
+            task.run();
+        }
+    }
+    
+    /**
+     * Takes the {@link IPCMessage IPCMessages} of the given
+     * {@link PendingMessage} polled from the send queue, after which they can
+     * no longer be replaced.
+     * 
+     * @param pending The {@link PendingMessage}.
+     * @return The {@link IPCMessage IPCMessages} to write.
+     */
+    @NotNull
+    private List<IPCMessage> take(@NotNull final PendingMessage pending) {
+        if (pending.conflationKey != null) {
+            this.conflated.remove(pending.conflationKey, pending);
+        }
+        return pending.take();
+    }
+    
+    /**
+     * Represents one frame's worth of {@link IPCMessage IPCMessages} waiting on
+     * the send queue, along with the result to complete once they have been
+     * sent.
+     */
+    private static final class PendingMessage {
+        
+        private List<IPCMessage> messages;
+        private final boolean batch;
+        private final List<String> conflationKey;
+        private final CompletableFuture<Void> future;
+        private boolean taken;
+        
+        /**
+         * Constructs a new {@link PendingMessage}.
+         * 
+         * @param messages The {@link IPCMessage IPCMessages} to send.
+         * @param batch {@code true} if the {@link IPCMessage IPCMessages}
+         *              should be written as a batch frame, {@code false}
+         *              otherwise.
+         * @param conflationKey The conflation key of the single
+         *                      {@link IPCMessage}, if it may be replaced, or
+         *                      {@code null} otherwise.
+         * @param future The result to complete once the
+         *               {@link IPCMessage IPCMessages} have been sent.
+         */
+        private PendingMessage(@NotNull final List<IPCMessage> messages, final boolean batch, @Nullable final List<String> conflationKey, @NotNull final CompletableFuture<Void> future) {
+            this.messages = messages;
+            this.batch = batch;
+            this.conflationKey = conflationKey;
+            this.future = future;
+            this.taken = false;
+        }
+        
+        /**
+         * Replaces the {@link IPCMessage} of this {@link PendingMessage} with
+         * the given one, unless it has already been taken off the send queue.
+         * 
+         * @param message The replacement {@link IPCMessage}.
+         * @return A {@link CompletableFuture} that completes when the
+         *         replacement has been sent, or {@code null} if it is too late
+         *         to replace the {@link IPCMessage}.
+         */
+        @Nullable
+        private synchronized CompletableFuture<Void> replace(@NotNull final IPCMessage message) {
+            if (this.taken) {
+                return null;
+            }
+            this.messages = Collections.singletonList(message);
+            
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            this.future.whenComplete((result, e) -> {
+                if (e == null) {
+                    future.complete(null);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+        
+        /**
+         * Takes the {@link IPCMessage IPCMessages} of this
+         * {@link PendingMessage}, after which they can no longer be replaced.
+         * 
+         * @return The {@link IPCMessage IPCMessages}.
+         */
+        @NotNull
+        private synchronized List<IPCMessage> take() {
+            this.taken = true;
+            return this.messages;
+        }
+    }
+}
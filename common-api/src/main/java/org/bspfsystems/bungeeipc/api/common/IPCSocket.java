@@ -19,6 +19,10 @@
 
 package org.bspfsystems.bungeeipc.api.common;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -62,4 +66,133 @@ public interface IPCSocket extends Runnable {
      * @param message The {@link IPCMessage} to send.
      */
     void sendMessage(@NotNull final IPCMessage message);
+    
+    /**
+     * Sends the specified {@link IPCMessage} to the connected
+     * {@link IPCSocket}, returning a {@link CompletableFuture} that reports
+     * the outcome.
+     * <p>
+     * The returned {@link CompletableFuture} will complete normally once the
+     * {@link IPCMessage} has been written and flushed to the connection, or
+     * exceptionally with an {@link IPCSendException} describing why it could
+     * not be sent. It is completed on the same thread that the callbacks
+     * registered with {@link IPCSocket#onWritable(Runnable)} are run on,
+     * rather than by the thread performing the write, so that dependent
+     * actions cannot hold up the connection.
+     * <p>
+     * The default implementation, for implementations without a send queue,
+     * sends the {@link IPCMessage} with
+     * {@link IPCSocket#sendMessage(IPCMessage)} and returns a completed
+     * {@link CompletableFuture}. It only fails if this {@link IPCSocket} is
+     * not connected.
+     * 
+     * @param message The {@link IPCMessage} to send.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage} has been sent.
+     */
+    @NotNull
+    default CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
+        
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        if (!this.isConnected()) {
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, "IPC socket is not connected."));
+            return future;
+        }
+        
+        this.sendMessage(message);
+        future.complete(null);
+        return future;
+    }
+    
+    /**
+     * Sends the specified {@link IPCMessage IPCMessages} to the connected
+     * {@link IPCSocket} together, in a single frame on the connection.
+     * <p>
+     * The {@link IPCMessage IPCMessages} will be read in by the connected
+     * {@link IPCSocket} in the order of the given {@link Collection}. The
+     * returned {@link CompletableFuture} behaves as it does for
+     * {@link IPCSocket#sendAsync(IPCMessage)}, and either all or none of the
+     * {@link IPCMessage IPCMessages} will be sent.
+     * <p>
+     * This only holds for the connection itself. The BungeeCord proxy
+     * handles a received batch in parts, by ordering key, and forwards each
+     * part on to each destination as a batch of its own, so
+     * {@link IPCMessage IPCMessages} sent on to other Minecraft servers in
+     * one batch may arrive in several, or only in part.
+     * <p>
+     * The default implementation, for implementations that cannot send
+     * several {@link IPCMessage IPCMessages} in a single frame, is not
+     * atomic. It fails the whole batch without sending anything if this
+     * {@link IPCSocket} is not connected, and otherwise sends each
+     * {@link IPCMessage} in turn with {@link IPCSocket#sendAsync(IPCMessage)},
+     * so if one of them fails, the others may still have been sent.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage IPCMessages} have been sent.
+     */
+    @NotNull
+    default CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        
+        if (!this.isConnected()) {
+            final CompletableFuture<Void> future = new CompletableFuture<Void>();
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, "IPC socket is not connected."));
+            return future;
+        }
+        
+        final List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>(messages.size());
+        for (final IPCMessage message : messages) {
+            futures.add(this.sendAsync(message));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+    
+    /**
+     * Gets whether this {@link IPCSocket} is currently accepting new
+     * {@link IPCMessage IPCMessages} without building up its send queue.
+     * <p>
+     * This will return {@code false} once the send queue has filled past its
+     * high watermark, and will not return {@code true} again until the queue
+     * has drained below its low watermark. This will always return
+     * {@code false} if {@link IPCSocket#isConnected()} returns {@code false}.
+     * <p>
+     * The default implementation, for implementations without a send queue,
+     * returns {@link IPCSocket#isConnected()}.
+     * 
+     * @return {@code true} if this {@link IPCSocket} is writable,
+     *         {@code false} otherwise.
+     */
+    default boolean isWritable() {
+        return this.isConnected();
+    }
+    
+    /**
+     * Registers the given {@link Runnable} to be run once this
+     * {@link IPCSocket} becomes writable. If it is already writable, the
+     * {@link Runnable} will be scheduled to run immediately. Each registered
+     * {@link Runnable} will only be run once.
+     * <p>
+     * The default implementation, for implementations without a send queue,
+     * runs the {@link Runnable} immediately on the calling thread.
+     * 
+     * @param callback The {@link Runnable} to run.
+     * @see IPCSocket#isWritable()
+     */
+    default void onWritable(@NotNull final Runnable callback) {
+        callback.run();
+    }
+    
+    /**
+     * Gets the number of {@link IPCMessage IPCMessages} that have been queued
+     * to be sent by this {@link IPCSocket}, but have not yet been written to
+     * the connection.
+     * <p>
+     * The default implementation, for implementations without a send queue,
+     * returns {@code 0}.
+     * 
+     * @return The number of queued {@link IPCMessage IPCMessages}.
+     */
+    default int getQueueDepth() {
+        return 0;
+    }
 }
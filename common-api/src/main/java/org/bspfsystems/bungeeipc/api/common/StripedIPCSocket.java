@@ -0,0 +1,237 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents an {@link IPCSocket} that spreads its {@link IPCMessage
+ * IPCMessages} over several parallel connections to the same destination,
+ * each handled by its own {@link IPCSocket} (a stripe).
+ * <p>
+ * Each {@link IPCMessage} is always sent on the stripe chosen from its
+ * ordering key, so that {@link IPCMessage IPCMessages} with the same ordering
+ * key keep their order, while different ordering keys are encoded, encrypted,
+ * and sent in parallel over separate connections.
+ * <p>
+ * A batch is never split up, so that it is still sent all or nothing. It is
+ * sent whole on the stripe chosen from the ordering key of its first
+ * {@link IPCMessage}. The {@link IPCMessage IPCMessages} in a batch keep
+ * their order relative to each other, but those with a different ordering
+ * key than the first are not ordered relative to the
+ * {@link IPCMessage IPCMessages} with their key sent outside the batch.
+ * 
+ * @param <S> The type of {@link IPCSocket} used for each stripe.
+ */
+public abstract class StripedIPCSocket<S extends IPCSocket> implements IPCSocket {
+    
+    private final List<S> stripes;
+    
+    /**
+     * Constructs a new {@link StripedIPCSocket}.
+     * 
+     * @param stripes The {@link IPCSocket IPCSockets} to use as the stripes,
+     *                in order. The order must match on both ends of the
+     *                connections.
+     * @throws IllegalArgumentException If no stripes are given.
+     */
+    protected StripedIPCSocket(@NotNull final List<S> stripes) throws IllegalArgumentException {
+        if (stripes.isEmpty()) {
+            throw new IllegalArgumentException("There must be at least 1 stripe.");
+        }
+        this.stripes = Collections.unmodifiableList(new ArrayList<S>(stripes));
+    }
+    
+    /**
+     * Gets the {@link IPCSocket IPCSockets} used as the stripes of this
+     * {@link StripedIPCSocket}, in order.
+     * 
+     * @return An unmodifiable {@link List} of the stripes.
+     */
+    @NotNull
+    public final List<S> getStripes() {
+        return this.stripes;
+    }
+    
+    /**
+     * Gets the stripe that the given {@link IPCMessage} is sent on.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @return The stripe for the {@link IPCMessage}.
+     */
+    @NotNull
+    protected final S getStripe(@NotNull final IPCMessage message) {
+        return this.stripes.get(this.getStripeIndex(message));
+    }
+    
+    /**
+     * Gets the index of the stripe that the given {@link IPCMessage} is sent
+     * on.
+     * 
+     * @param message The {@link IPCMessage}.
+     * @return The index of the stripe for the {@link IPCMessage}.
+     */
+    private int getStripeIndex(@NotNull final IPCMessage message) {
+        return Math.floorMod(message.getOrderingKey().hashCode(), this.stripes.size());
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is {@code true} if any of the stripes are running.
+     */
+    @Override
+    public final boolean isRunning() {
+        for (final S stripe : this.stripes) {
+            if (stripe.isRunning()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is only {@code true} if all of the stripes are connected.
+     */
+    @Override
+    public final boolean isConnected() {
+        for (final S stripe : this.stripes) {
+            if (!stripe.isConnected()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stripes run themselves once started, so there is nothing to run.
+     */
+    @Override
+    public final void run() {
+        // Do nothing.
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void start() {
+        for (final S stripe : this.stripes) {
+            stripe.start();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void stop() {
+        for (final S stripe : this.stripes) {
+            stripe.stop();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void sendMessage(@NotNull final IPCMessage message) {
+        this.getStripe(message).sendMessage(message);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public final CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
+        return this.getStripe(message).sendAsync(message);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@link IPCMessage IPCMessages} are sent as a single batch on the
+     * stripe of the first {@link IPCMessage}.
+     */
+    @Override
+    @NotNull
+    public final CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.getStripe(messages.iterator().next()).sendBatch(messages);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is only {@code true} if all of the stripes are writable.
+     */
+    @Override
+    public final boolean isWritable() {
+        for (final S stripe : this.stripes) {
+            if (!stripe.isWritable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The given {@link Runnable} is run once all of the stripes are writable,
+     * on the thread that the stripes run their own callbacks on.
+     */
+    @Override
+    public final void onWritable(@NotNull final Runnable callback) {
+        for (final S stripe : this.stripes) {
+            if (!stripe.isWritable()) {
+                stripe.onWritable(() -> this.onWritable(callback));
+                return;
+            }
+        }
+        this.stripes.get(0).onWritable(callback);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This is the total across all of the stripes.
+     */
+    @Override
+    public final int getQueueDepth() {
+        int depth = 0;
+        for (final S stripe : this.stripes) {
+            depth += stripe.getQueueDepth();
+        }
+        return depth;
+    }
+}
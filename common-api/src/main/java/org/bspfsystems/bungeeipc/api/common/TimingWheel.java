@@ -0,0 +1,361 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A hashed timing wheel, used to drive large numbers of short-lived timers,
+ * such as request timeouts, that are usually cancelled before they expire.
+ * <p>
+ * Time is divided into ticks of a fixed duration, and the wheel into a fixed
+ * number of buckets, one per tick. A timer is placed in the bucket of the
+ * tick it expires on, along with the number of full turns of the wheel left
+ * before then. Scheduling and cancelling a timer are therefore both
+ * {@code O(1)}, and each timer is a single object. A single thread advances
+ * the wheel one bucket per tick, and hands the tasks of the expired timers to
+ * an {@link Executor}.
+ * <p>
+ * Timers expire on the first tick at or after their deadline, so they may run
+ * up to one tick late, but never early.
+ */
+public final class TimingWheel {
+    
+    /**
+     * Represents a timer scheduled on a {@link TimingWheel}.
+     */
+    public static final class Timeout {
+        
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        
+        private volatile int state;
+        
+        // Only accessed by the thread advancing the wheel.
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout previous;
+        
+        /**
+         * Constructs a new {@link Timeout}.
+         * 
+         * @param wheel The {@link TimingWheel} the {@link Timeout} is
+         *              scheduled on.
+         * @param task The task to run when the {@link Timeout} expires.
+         * @param deadline The deadline, in nanoseconds since the
+         *                 {@link TimingWheel} was started.
+         */
+        private Timeout(@NotNull final TimingWheel wheel, @NotNull final Runnable task, final long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+            this.state = Timeout.PENDING;
+        }
+        
+        /**
+         * Cancels this {@link Timeout}, so that its task is not run. This does
+         * nothing if it has already expired or been cancelled.
+         * 
+         * @return {@code true} if this {@link Timeout} was cancelled by this
+         *         call, {@code false} otherwise.
+         */
+        public boolean cancel() {
+            // The cancelled timeout is unlinked lazily, the next time the
+            // wheel reaches its bucket.
+            return Timeout.STATE.compareAndSet(this, Timeout.PENDING, Timeout.CANCELLED);
+        }
+        
+        /**
+         * Gets whether this {@link Timeout} has been cancelled.
+         * 
+         * @return {@code true} if this {@link Timeout} has been cancelled,
+         *         {@code false} otherwise.
+         */
+        public boolean isCancelled() {
+            return this.state == Timeout.CANCELLED;
+        }
+        
+        /**
+         * Gets whether this {@link Timeout} has expired, and its task has been
+         * handed off to be run.
+         * 
+         * @return {@code true} if this {@link Timeout} has expired,
+         *         {@code false} otherwise.
+         */
+        public boolean isExpired() {
+            return this.state == Timeout.EXPIRED;
+        }
+        
+        /**
+         * Expires this {@link Timeout}, handing its task off to be run,
+         * unless it has been cancelled.
+         */
+        private void expire() {
+            if (!Timeout.STATE.compareAndSet(this, Timeout.PENDING, Timeout.EXPIRED)) {
+                return;
+            }
+            try {
+                this.wheel.executor.execute(this.task);
+            } catch (final RuntimeException e) {
+                this.wheel.logger.log(Level.WARNING, "Failure while running an expired timer on " + this.wheel.name + ".");
+                this.wheel.logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
+            }
+        }
+    }
+    
+    /**
+     * Represents a single bucket of a {@link TimingWheel}, holding its
+     * {@link Timeout Timeouts} as a doubly-linked list.
+     */
+    private static final class Bucket {
+        
+        private Timeout head;
+        private Timeout tail;
+        
+        /**
+         * Constructs a new, empty {@link Bucket}.
+         */
+        private Bucket() {
+            this.head = null;
+            this.tail = null;
+        }
+        
+        /**
+         * Adds the given {@link Timeout} to the end of this {@link Bucket}.
+         * 
+         * @param timeout The {@link Timeout}.
+         */
+        private void add(@NotNull final Timeout timeout) {
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+        
+        /**
+         * Removes the given {@link Timeout} from this {@link Bucket}.
+         * 
+         * @param timeout The {@link Timeout}.
+         */
+        private void remove(@NotNull final Timeout timeout) {
+            if (timeout.previous == null) {
+                this.head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                this.tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+        }
+        
+        /**
+         * Expires the {@link Timeout Timeouts} in this {@link Bucket} that are
+         * due on the current turn of the wheel, and removes any that have
+         * been cancelled.
+         */
+        private void expireTimeouts() {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds <= 0L) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+    
+    private final String name;
+    private final Logger logger;
+    private final Executor executor;
+    
+    private final long tickDuration;
+    private final Bucket[] buckets;
+    private final int mask;
+    
+    private final Queue<Timeout> pending;
+    private final AtomicBoolean running;
+    private final long startTime;
+    private final Thread thread;
+    
+    /**
+     * Constructs a new {@link TimingWheel}, and starts the thread that
+     * advances it.
+     * 
+     * @param name The name of the {@link TimingWheel}, used for its thread.
+     * @param logger The {@link Logger} of the plugin.
+     * @param tickDuration The duration of each tick.
+     * @param unit The {@link TimeUnit} of the tick duration.
+     * @param ticksPerWheel The number of buckets in the wheel. This is rounded
+     *                      up to a power of two.
+     * @param executor The {@link Executor} that runs the tasks of expired
+     *                 timers. As the thread advancing the wheel hands the
+     *                 tasks to it, it should not run them on the calling
+     *                 thread unless they are very short.
+     * @throws IllegalArgumentException If the tick duration or the number of
+     *                                  buckets is not positive, or there are
+     *                                  more than {@code 2^30} buckets.
+     */
+    public TimingWheel(@NotNull final String name, @NotNull final Logger logger, final long tickDuration, @NotNull final TimeUnit unit, final int ticksPerWheel, @NotNull final Executor executor) throws IllegalArgumentException {
+        
+        if (tickDuration < 1L) {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        if (ticksPerWheel < 1 || ticksPerWheel > 1 << 30) {
+            throw new IllegalArgumentException("Ticks per wheel must be between 1 and 2^30: " + ticksPerWheel);
+        }
+        
+        this.name = name;
+        this.logger = logger;
+        this.executor = executor;
+        
+        this.tickDuration = unit.toNanos(tickDuration);
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.buckets = new Bucket[size];
+        for (int index = 0; index < size; index++) {
+            this.buckets[index] = new Bucket();
+        }
+        this.mask = size - 1;
+        
+        this.pending = new ConcurrentLinkedQueue<Timeout>();
+        this.running = new AtomicBoolean(true);
+        this.startTime = System.nanoTime();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * Schedules the given task to run once the given delay has passed.
+     * 
+     * @param task The task to run.
+     * @param delay The delay.
+     * @param unit The {@link TimeUnit} of the delay.
+     * @return The {@link Timeout}, which can be used to cancel the task.
+     * @throws IllegalStateException If this {@link TimingWheel} has been
+     *                               stopped.
+     */
+    @NotNull
+    public Timeout schedule(@NotNull final Runnable task, final long delay, @NotNull final TimeUnit unit) throws IllegalStateException {
+        
+        if (!this.running.get()) {
+            throw new IllegalStateException(this.name + " has been stopped.");
+        }
+        
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + Math.max(0L, unit.toNanos(delay)) - this.startTime);
+        this.pending.offer(timeout);
+        return timeout;
+    }
+    
+    /**
+     * Stops this {@link TimingWheel}. Timers that have not expired yet are
+     * dropped, and their tasks are never run.
+     */
+    public void stop() {
+        if (this.running.compareAndSet(true, false)) {
+            LockSupport.unpark(this.thread);
+        }
+    }
+    
+    /**
+     * Advances the wheel one bucket per tick until this {@link TimingWheel}
+     * is stopped.
+     */
+    private void run() {
+        
+        long tick = 0L;
+        while (this.running.get()) {
+            
+            final long deadline = this.tickDuration * (tick + 1L);
+            long sleep = deadline - (System.nanoTime() - this.startTime);
+            while (sleep > 0L && this.running.get()) {
+                LockSupport.parkNanos(this, sleep);
+                sleep = deadline - (System.nanoTime() - this.startTime);
+            }
+            if (!this.running.get()) {
+                break;
+            }
+            
+            this.transferPending(tick);
+            this.buckets[(int) (tick & this.mask)].expireTimeouts();
+            tick++;
+        }
+        
+        this.pending.clear();
+    }
+    
+    /**
+     * Places the newly scheduled {@link Timeout Timeouts} into their buckets.
+     * 
+     * @param tick The current tick.
+     */
+    private void transferPending(final long tick) {
+        
+        // Bound the work done per tick, so that a flood of new timers cannot
+        // delay the timers that are already due.
+        for (int count = 0; count < 100000; count++) {
+            final Timeout timeout = this.pending.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            
+            final long expiryTick = timeout.deadline / this.tickDuration;
+            timeout.remainingRounds = (expiryTick - tick) / this.buckets.length;
+            
+            // Timers already past due go in the current bucket.
+            this.buckets[(int) (Math.max(expiryTick, tick) & this.mask)].add(timeout);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.crdt;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a conflict-free replicated data type, which is updated locally
+ * on each server and converges to the same value everywhere once every
+ * server has merged every other server's changes, in any order and any
+ * number of times.
+ * <p>
+ * Changes are exchanged as data {@link List Lists} that can be added to an
+ * IPC message. A delta only holds the changes made on this replica since the
+ * last delta was taken, while the state holds everything this replica
+ * knows. Both are merged the same way. Two deltas joined one after the
+ * other, in either order, are themselves a valid delta, so a delta that
+ * could not be sent may simply be sent again together with the next one.
+ * <p>
+ * A replica created without a replica ID is unseeded. Its local changes are
+ * kept, but are not part of its deltas or state, until it is seeded with the
+ * ID it should use. Seeding a replica with the same ID after it has merged
+ * the state of the other replicas lets a restarted server carry on from
+ * where its previous replica left off, instead of adding a new replica ID
+ * every time it starts. A replica that has not merged that state must not
+ * reuse the ID, as its changes would then be lost against the changes the
+ * other replicas already know for it.
+ */
+public interface CRDT {
+    
+    /**
+     * Gets the ID of this replica, which must be unique among all replicas
+     * of the same {@link CRDT}.
+     * 
+     * @return The ID of this replica, or {@code null} if this replica has not
+     *         been seeded yet.
+     */
+    @Nullable
+    String getReplicaId();
+    
+    /**
+     * Seeds this replica with the given replica ID. Any local changes made
+     * before this replica was seeded are taken over by the given replica ID,
+     * after any changes already known for it, and will be part of the next
+     * delta.
+     * 
+     * @param replicaId The ID of this replica.
+     * @throws IllegalArgumentException If {@code replicaId} is blank.
+     * @throws IllegalStateException If this replica has already been seeded.
+     */
+    void seed(@NotNull final String replicaId) throws IllegalArgumentException, IllegalStateException;
+    
+    /**
+     * Takes the changes made on this replica since the last time this was
+     * called.
+     * 
+     * @return The delta, or {@code null} if nothing has changed or this
+     *         replica has not been seeded yet.
+     */
+    @Nullable
+    List<String> takeDelta();
+    
+    /**
+     * Gets the full state of this replica.
+     * 
+     * @return The state.
+     */
+    @NotNull
+    List<String> getState();
+    
+    /**
+     * Merges a delta or state from another replica into this replica.
+     * 
+     * @param data The delta or state to merge.
+     * @throws IllegalArgumentException If the data is not a valid delta or
+     *                                  state of this type of {@link CRDT}.
+     *                                  Nothing is merged in that case.
+     */
+    void merge(@NotNull final List<String> data) throws IllegalArgumentException;
+}
@@ -0,0 +1,209 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.crdt;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a grow-only counter, which can only be incremented.
+ * <p>
+ * Each replica counts its own increments, and the value is the sum of the
+ * counts of every replica. A delta holds the count of this replica, so a
+ * lost delta is made up for by the next one.
+ * <p>
+ * Increments made before this replica is seeded are counted separately, and
+ * are added on top of the count already known for its replica ID when it is
+ * seeded.
+ */
+public final class GCounter implements CRDT {
+    
+    private String replicaId;
+    private final Map<String, Long> counts;
+    private long unseeded;
+    private boolean changed;
+    
+    /**
+     * Constructs a new, unseeded {@link GCounter}.
+     * 
+     * @see CRDT#seed(String)
+     */
+    public GCounter() {
+        this.replicaId = null;
+        this.counts = new HashMap<String, Long>();
+        this.unseeded = 0L;
+        this.changed = false;
+    }
+    
+    /**
+     * Constructs a new {@link GCounter}, seeded with the given replica ID.
+     * 
+     * @param replicaId The ID of this replica.
+     * @throws IllegalArgumentException If {@code replicaId} is blank.
+     */
+    public GCounter(@NotNull final String replicaId) throws IllegalArgumentException {
+        this();
+        this.seed(replicaId);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized String getReplicaId() {
+        return this.replicaId;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void seed(@NotNull final String replicaId) throws IllegalArgumentException, IllegalStateException {
+        if (replicaId.trim().isEmpty()) {
+            throw new IllegalArgumentException("GCounter replica ID cannot be blank.");
+        }
+        if (this.replicaId != null) {
+            throw new IllegalStateException("GCounter replica has already been seeded with replica ID " + this.replicaId + ".");
+        }
+        this.replicaId = replicaId;
+        if (this.unseeded > 0L) {
+            this.counts.merge(this.replicaId, this.unseeded, Long::sum);
+            this.unseeded = 0L;
+            this.changed = true;
+        }
+    }
+    
+    /**
+     * Increments this {@link GCounter} by 1.
+     */
+    public void increment() {
+        this.increment(1L);
+    }
+    
+    /**
+     * Increments this {@link GCounter} by the given amount.
+     * 
+     * @param amount The amount to increment by.
+     * @throws IllegalArgumentException If {@code amount} is negative.
+     */
+    public synchronized void increment(final long amount) throws IllegalArgumentException {
+        if (amount < 0L) {
+            throw new IllegalArgumentException("GCounter cannot be incremented by a negative amount: " + amount);
+        }
+        if (amount == 0L) {
+            return;
+        }
+        if (this.replicaId == null) {
+            this.unseeded += amount;
+            return;
+        }
+        this.counts.merge(this.replicaId, amount, Long::sum);
+        this.changed = true;
+    }
+    
+    /**
+     * Gets the value of this {@link GCounter}, as known by this replica.
+     * 
+     * @return The sum of the counts of every replica.
+     */
+    public synchronized long get() {
+        long value = this.unseeded;
+        for (final long count : this.counts.values()) {
+            value += count;
+        }
+        return value;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized List<String> takeDelta() {
+        if (!this.changed) {
+            return null;
+        }
+        this.changed = false;
+        return Arrays.asList(this.replicaId, String.valueOf(this.counts.get(this.replicaId)));
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public synchronized List<String> getState() {
+        final List<String> state = new ArrayList<String>(this.counts.size() * 2);
+        for (final Map.Entry<String, Long> entry : this.counts.entrySet()) {
+            state.add(entry.getKey());
+            state.add(String.valueOf(entry.getValue()));
+        }
+        return state;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void merge(@NotNull final List<String> data) throws IllegalArgumentException {
+        final Map<String, Long> counts = GCounter.parse(data);
+        synchronized (this) {
+            for (final Map.Entry<String, Long> entry : counts.entrySet()) {
+                this.counts.merge(entry.getKey(), entry.getValue(), Math::max);
+            }
+        }
+    }
+    
+    /**
+     * Parses the counts in a delta or state, as pairs of a replica ID and its
+     * count.
+     * 
+     * @param data The delta or state.
+     * @return The counts, by replica ID.
+     * @throws IllegalArgumentException If the data is not a valid delta or
+     *                                  state.
+     */
+    @NotNull
+    static Map<String, Long> parse(@NotNull final List<String> data) throws IllegalArgumentException {
+        if (data.size() % 2 != 0) {
+            throw new IllegalArgumentException("Counter data must be pairs of a replica ID and a count: " + data);
+        }
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (int index = 0; index < data.size(); index += 2) {
+            final long count;
+            try {
+                count = Long.parseLong(data.get(index + 1));
+            } catch (final NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid count for replica " + data.get(index) + ": " + data.get(index + 1), e);
+            }
+            if (count < 0L) {
+                throw new IllegalArgumentException("Invalid count for replica " + data.get(index) + ": " + count);
+            }
+            counts.merge(data.get(index), count, Math::max);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,522 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.crdt;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents an observed-remove set of {@link String Strings}.
+ * <p>
+ * Each add is given a unique dot, made up of the ID of the replica that
+ * added it and a sequence number, and a remove only removes the dots of the
+ * element that this replica has observed. An add that happens concurrently
+ * with a remove on another replica therefore wins.
+ * <p>
+ * Rather than keeping a tombstone for every removed dot, each replica keeps
+ * the dots it has seen, which are compacted to the highest sequence number
+ * seen from each replica without a gap. A dot that has been seen but is no
+ * longer in this {@link ORSet} has been removed, so a delayed add cannot
+ * bring back an element once it has been removed, while the state only grows
+ * with the number of elements and replicas.
+ * <p>
+ * Adds made before this replica is seeded are given dots once it is seeded,
+ * following the highest sequence number already seen for its replica ID.
+ */
+public final class ORSet implements CRDT {
+    
+    private String replicaId;
+    private final Map<String, Set<String>> elements;
+    private final Map<String, String> dots;
+    private final Map<String, Long> versions;
+    private final Map<String, NavigableSet<Long>> outOfOrder;
+    private final Map<String, String> addedDelta;
+    private final Map<String, String> removedDelta;
+    private long lastSequence;
+    
+    /**
+     * Constructs a new, empty, unseeded {@link ORSet}.
+     * 
+     * @see CRDT#seed(String)
+     */
+    public ORSet() {
+        this.replicaId = null;
+        this.elements = new HashMap<String, Set<String>>();
+        this.dots = new HashMap<String, String>();
+        this.versions = new HashMap<String, Long>();
+        this.outOfOrder = new HashMap<String, NavigableSet<Long>>();
+        this.addedDelta = new HashMap<String, String>();
+        this.removedDelta = new HashMap<String, String>();
+        this.lastSequence = 0L;
+    }
+    
+    /**
+     * Constructs a new, empty {@link ORSet}, seeded with the given replica ID.
+     * 
+     * @param replicaId The ID of this replica.
+     * @throws IllegalArgumentException If {@code replicaId} is blank.
+     */
+    public ORSet(@NotNull final String replicaId) throws IllegalArgumentException {
+        this();
+        this.seed(replicaId);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized String getReplicaId() {
+        return this.replicaId;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void seed(@NotNull final String replicaId) throws IllegalArgumentException, IllegalStateException {
+        
+        if (replicaId.trim().isEmpty()) {
+            throw new IllegalArgumentException("ORSet replica ID cannot be blank.");
+        }
+        if (this.replicaId != null) {
+            throw new IllegalStateException("ORSet replica has already been seeded with replica ID " + this.replicaId + ".");
+        }
+        
+        final List<String> unseededDots = new ArrayList<String>();
+        for (final String dot : this.dots.keySet()) {
+            if (ORSet.isUnseeded(dot)) {
+                unseededDots.add(dot);
+            }
+        }
+        unseededDots.sort((dot1, dot2) -> Long.compare(ORSet.getSequence(dot1), ORSet.getSequence(dot2)));
+        
+        this.replicaId = replicaId;
+        this.lastSequence = this.getLastSequence(this.replicaId);
+        for (final String unseededDot : unseededDots) {
+            final String element = this.removeDot(unseededDot);
+            this.lastSequence++;
+            final String dot = this.replicaId + ":" + this.lastSequence;
+            this.addDot(element, dot);
+            this.addedDelta.put(dot, element);
+        }
+    }
+    
+    /**
+     * Adds the given element to this {@link ORSet}.
+     * 
+     * @param element The element to add.
+     */
+    public synchronized void add(@NotNull final String element) {
+        if (this.replicaId == null) {
+            this.lastSequence++;
+            this.addDot(element, ":" + this.lastSequence);
+            return;
+        }
+        this.lastSequence = Math.max(this.lastSequence, this.getLastSequence(this.replicaId)) + 1L;
+        final String dot = this.replicaId + ":" + this.lastSequence;
+        this.addDot(element, dot);
+        this.addedDelta.put(dot, element);
+    }
+    
+    /**
+     * Removes the given element from this {@link ORSet}, as observed by this
+     * replica.
+     * 
+     * @param element The element to remove.
+     * @return {@code true} if the element was in this {@link ORSet},
+     *         {@code false} otherwise.
+     */
+    public synchronized boolean remove(@NotNull final String element) {
+        final Set<String> tags = this.elements.get(element);
+        if (tags == null) {
+            return false;
+        }
+        for (final String dot : new ArrayList<String>(tags)) {
+            this.removeDot(dot);
+            if (!ORSet.isUnseeded(dot)) {
+                this.removedDelta.put(dot, element);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Checks if the given element is in this {@link ORSet}, as known by this
+     * replica.
+     * 
+     * @param element The element.
+     * @return {@code true} if the element is in this {@link ORSet},
+     *         {@code false} otherwise.
+     */
+    public synchronized boolean contains(@NotNull final String element) {
+        return this.elements.containsKey(element);
+    }
+    
+    /**
+     * Gets the elements of this {@link ORSet}, as known by this replica.
+     * 
+     * @return An unmodifiable copy of the elements.
+     */
+    @NotNull
+    public synchronized Set<String> getElements() {
+        return Collections.unmodifiableSet(new HashSet<String>(this.elements.keySet()));
+    }
+    
+    /**
+     * Gets the number of elements in this {@link ORSet}, as known by this
+     * replica.
+     * 
+     * @return The number of elements.
+     */
+    public synchronized int size() {
+        return this.elements.size();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized List<String> takeDelta() {
+        if (this.replicaId == null || (this.addedDelta.isEmpty() && this.removedDelta.isEmpty())) {
+            return null;
+        }
+        final List<String> delta = new ArrayList<String>((this.addedDelta.size() + this.removedDelta.size()) * 3);
+        ORSet.addTriples(delta, "A", this.addedDelta);
+        ORSet.addTriples(delta, "R", this.removedDelta);
+        this.addedDelta.clear();
+        this.removedDelta.clear();
+        return delta;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public synchronized List<String> getState() {
+        
+        final List<String> state = new ArrayList<String>();
+        for (final Map.Entry<String, String> entry : this.dots.entrySet()) {
+            if (!ORSet.isUnseeded(entry.getKey())) {
+                state.add("A");
+                state.add(entry.getValue());
+                state.add(entry.getKey());
+            }
+        }
+        for (final Map.Entry<String, Long> entry : this.versions.entrySet()) {
+            state.add("V");
+            state.add(entry.getKey());
+            state.add(String.valueOf(entry.getValue()));
+        }
+        for (final Map.Entry<String, NavigableSet<Long>> entry : this.outOfOrder.entrySet()) {
+            for (final long sequence : entry.getValue()) {
+                final String dot = entry.getKey() + ":" + sequence;
+                if (!this.dots.containsKey(dot)) {
+                    state.add("R");
+                    state.add("");
+                    state.add(dot);
+                }
+            }
+        }
+        return state;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The data is made up of triples of {@code "A"} (added), an element, and
+     * one of its dots; {@code "R"} (removed), an element, and one of its
+     * removed dots; or {@code "V"}, a replica ID, and the sequence number up
+     * to which every dot of that replica has been seen. Every dot of a replica
+     * up to a {@code "V"} sequence number that is not added by the same data
+     * has been removed.
+     */
+    @Override
+    public synchronized void merge(@NotNull final List<String> data) throws IllegalArgumentException {
+        
+        if (data.size() % 3 != 0) {
+            throw new IllegalArgumentException("ORSet data must be triples of A, R or V, and two values: " + data);
+        }
+        final Map<String, String> added = new HashMap<String, String>();
+        final Set<String> removed = new HashSet<String>();
+        final Map<String, Long> versions = new HashMap<String, Long>();
+        for (int index = 0; index < data.size(); index += 3) {
+            final String type = data.get(index);
+            if (type.equals("A")) {
+                added.put(ORSet.validateDot(data.get(index + 2)), data.get(index + 1));
+            } else if (type.equals("R")) {
+                removed.add(ORSet.validateDot(data.get(index + 2)));
+            } else if (type.equals("V")) {
+                versions.merge(ORSet.validateReplicaId(data.get(index + 1)), ORSet.validateSequence(data.get(index + 2)), Math::max);
+            } else {
+                throw new IllegalArgumentException("Invalid ORSet data type: " + type);
+            }
+        }
+        added.keySet().removeAll(removed);
+        
+        for (final String dot : removed) {
+            this.removeDot(dot);
+        }
+        if (!versions.isEmpty()) {
+            for (final String dot : new ArrayList<String>(this.dots.keySet())) {
+                if (!ORSet.isUnseeded(dot) && !added.containsKey(dot) && ORSet.getSequence(dot) <= versions.getOrDefault(ORSet.getReplicaId(dot), 0L)) {
+                    this.removeDot(dot);
+                }
+            }
+        }
+        for (final Map.Entry<String, String> entry : added.entrySet()) {
+            if (!this.hasSeen(entry.getKey())) {
+                this.addDot(entry.getValue(), entry.getKey());
+            }
+        }
+        
+        for (final String dot : removed) {
+            this.see(ORSet.getReplicaId(dot), ORSet.getSequence(dot));
+        }
+        for (final String dot : added.keySet()) {
+            this.see(ORSet.getReplicaId(dot), ORSet.getSequence(dot));
+        }
+        for (final Map.Entry<String, Long> entry : versions.entrySet()) {
+            this.versions.merge(entry.getKey(), entry.getValue(), Math::max);
+            this.compact(entry.getKey());
+        }
+    }
+    
+    /**
+     * Adds the given dot of the given element to this {@link ORSet}, and
+     * marks it as seen.
+     * 
+     * @param element The element.
+     * @param dot The dot of the element.
+     */
+    private void addDot(@NotNull final String element, @NotNull final String dot) {
+        this.elements.computeIfAbsent(element, key -> new HashSet<String>()).add(dot);
+        this.dots.put(dot, element);
+        if (!ORSet.isUnseeded(dot)) {
+            this.see(ORSet.getReplicaId(dot), ORSet.getSequence(dot));
+        }
+    }
+    
+    /**
+     * Removes the given dot from this {@link ORSet}, if it is in it. The dot
+     * stays seen.
+     * 
+     * @param dot The dot to remove.
+     * @return The element of the dot, or {@code null} if the dot was not in
+     *         this {@link ORSet}.
+     */
+    @Nullable
+    private String removeDot(@NotNull final String dot) {
+        final String element = this.dots.remove(dot);
+        if (element == null) {
+            return null;
+        }
+        final Set<String> tags = this.elements.get(element);
+        if (tags.remove(dot) && tags.isEmpty()) {
+            this.elements.remove(element);
+        }
+        this.addedDelta.remove(dot);
+        return element;
+    }
+    
+    /**
+     * Checks if the given dot has been seen by this replica.
+     * 
+     * @param dot The dot.
+     * @return {@code true} if the dot has been seen, {@code false} otherwise.
+     */
+    private boolean hasSeen(@NotNull final String dot) {
+        final String replicaId = ORSet.getReplicaId(dot);
+        final long sequence = ORSet.getSequence(dot);
+        if (sequence <= this.versions.getOrDefault(replicaId, 0L)) {
+            return true;
+        }
+        final NavigableSet<Long> sequences = this.outOfOrder.get(replicaId);
+        return sequences != null && sequences.contains(sequence);
+    }
+    
+    /**
+     * Marks the dot with the given replica ID and sequence number as seen.
+     * 
+     * @param replicaId The replica ID of the dot.
+     * @param sequence The sequence number of the dot.
+     */
+    private void see(@NotNull final String replicaId, final long sequence) {
+        if (sequence <= this.versions.getOrDefault(replicaId, 0L)) {
+            return;
+        }
+        this.outOfOrder.computeIfAbsent(replicaId, key -> new TreeSet<Long>()).add(sequence);
+        this.compact(replicaId);
+    }
+    
+    /**
+     * Compacts the seen dots of the given replica, so that only the dots seen
+     * after a gap are kept individually.
+     * 
+     * @param replicaId The replica ID.
+     */
+    private void compact(@NotNull final String replicaId) {
+        final NavigableSet<Long> sequences = this.outOfOrder.get(replicaId);
+        if (sequences == null) {
+            return;
+        }
+        long version = this.versions.getOrDefault(replicaId, 0L);
+        sequences.headSet(version, true).clear();
+        while (!sequences.isEmpty() && sequences.first() == version + 1L) {
+            version = sequences.pollFirst();
+        }
+        if (sequences.isEmpty()) {
+            this.outOfOrder.remove(replicaId);
+        }
+        if (version > 0L) {
+            this.versions.put(replicaId, version);
+        }
+    }
+    
+    /**
+     * Gets the highest sequence number seen from the given replica.
+     * 
+     * @param replicaId The replica ID.
+     * @return The highest sequence number, or {@code 0} if none have been
+     *         seen.
+     */
+    private long getLastSequence(@NotNull final String replicaId) {
+        final NavigableSet<Long> sequences = this.outOfOrder.get(replicaId);
+        if (sequences != null && !sequences.isEmpty()) {
+            return sequences.last();
+        }
+        return this.versions.getOrDefault(replicaId, 0L);
+    }
+    
+    /**
+     * Adds the given dots and their elements to the given data, as triples of
+     * the given type, element and dot.
+     * 
+     * @param data The data to add to.
+     * @param type The type of the triples.
+     * @param dots The dots and their elements.
+     */
+    private static void addTriples(@NotNull final List<String> data, @NotNull final String type, @NotNull final Map<String, String> dots) {
+        for (final Map.Entry<String, String> entry : dots.entrySet()) {
+            data.add(type);
+            data.add(entry.getValue());
+            data.add(entry.getKey());
+        }
+    }
+    
+    /**
+     * Checks if the given dot was given to an add made before this replica
+     * was seeded, and therefore has no replica ID yet.
+     * 
+     * @param dot The dot.
+     * @return {@code true} if the dot has no replica ID, {@code false}
+     *         otherwise.
+     */
+    private static boolean isUnseeded(@NotNull final String dot) {
+        return dot.startsWith(":");
+    }
+    
+    /**
+     * Gets the replica ID of the given dot.
+     * 
+     * @param dot The dot.
+     * @return The replica ID.
+     */
+    @NotNull
+    private static String getReplicaId(@NotNull final String dot) {
+        return dot.substring(0, dot.lastIndexOf(':'));
+    }
+    
+    /**
+     * Gets the sequence number of the given dot.
+     * 
+     * @param dot The dot.
+     * @return The sequence number.
+     */
+    private static long getSequence(@NotNull final String dot) {
+        return Long.parseLong(dot.substring(dot.lastIndexOf(':') + 1));
+    }
+    
+    /**
+     * Validates that the given dot from another replica is made up of a
+     * replica ID and a sequence number.
+     * 
+     * @param dot The dot.
+     * @return The dot.
+     * @throws IllegalArgumentException If the dot is not valid.
+     */
+    @NotNull
+    private static String validateDot(@NotNull final String dot) throws IllegalArgumentException {
+        final int index = dot.lastIndexOf(':');
+        if (index == -1) {
+            throw new IllegalArgumentException("Invalid ORSet dot: " + dot);
+        }
+        ORSet.validateReplicaId(dot.substring(0, index));
+        ORSet.validateSequence(dot.substring(index + 1));
+        return dot;
+    }
+    
+    /**
+     * Validates that the given replica ID from another replica is not blank.
+     * 
+     * @param replicaId The replica ID.
+     * @return The replica ID.
+     * @throws IllegalArgumentException If the replica ID is blank.
+     */
+    @NotNull
+    private static String validateReplicaId(@NotNull final String replicaId) throws IllegalArgumentException {
+        if (replicaId.trim().isEmpty()) {
+            throw new IllegalArgumentException("ORSet replica ID cannot be blank.");
+        }
+        return replicaId;
+    }
+    
+    /**
+     * Validates and parses the given sequence number from another replica.
+     * 
+     * @param sequence The sequence number.
+     * @return The parsed sequence number.
+     * @throws IllegalArgumentException If the sequence number is not a
+     *                                  positive number.
+     */
+    private static long validateSequence(@NotNull final String sequence) throws IllegalArgumentException {
+        final long value;
+        try {
+            value = Long.parseLong(sequence);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid ORSet sequence number: " + sequence, e);
+        }
+        if (value < 1L) {
+            throw new IllegalArgumentException("Invalid ORSet sequence number: " + sequence);
+        }
+        return value;
+    }
+}
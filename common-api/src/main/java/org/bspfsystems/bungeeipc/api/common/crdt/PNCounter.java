@@ -0,0 +1,197 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.crdt;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a counter that can be both incremented and decremented.
+ * <p>
+ * This is made up of two {@link GCounter GCounters}, one counting
+ * increments and one counting decrements, and its value is the difference
+ * between them.
+ */
+public final class PNCounter implements CRDT {
+    
+    private final GCounter increments;
+    private final GCounter decrements;
+    
+    /**
+     * Constructs a new, unseeded {@link PNCounter}.
+     * 
+     * @see CRDT#seed(String)
+     */
+    public PNCounter() {
+        this.increments = new GCounter();
+        this.decrements = new GCounter();
+    }
+    
+    /**
+     * Constructs a new {@link PNCounter}, seeded with the given replica ID.
+     * 
+     * @param replicaId The ID of this replica.
+     * @throws IllegalArgumentException If {@code replicaId} is blank.
+     */
+    public PNCounter(@NotNull final String replicaId) throws IllegalArgumentException {
+        this.increments = new GCounter(replicaId);
+        this.decrements = new GCounter(replicaId);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized String getReplicaId() {
+        return this.increments.getReplicaId();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void seed(@NotNull final String replicaId) throws IllegalArgumentException, IllegalStateException {
+        this.increments.seed(replicaId);
+        this.decrements.seed(replicaId);
+    }
+    
+    /**
+     * Increments this {@link PNCounter} by 1.
+     */
+    public void increment() {
+        this.add(1L);
+    }
+    
+    /**
+     * Decrements this {@link PNCounter} by 1.
+     */
+    public void decrement() {
+        this.add(-1L);
+    }
+    
+    /**
+     * Adds the given amount to this {@link PNCounter}.
+     * 
+     * @param amount The amount to add, which is subtracted if negative.
+     */
+    public synchronized void add(final long amount) {
+        if (amount >= 0L) {
+            this.increments.increment(amount);
+        } else {
+            this.decrements.increment(-amount);
+        }
+    }
+    
+    /**
+     * Gets the value of this {@link PNCounter}, as known by this replica.
+     * 
+     * @return The total increments minus the total decrements.
+     */
+    public synchronized long get() {
+        return this.increments.get() - this.decrements.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public synchronized List<String> takeDelta() {
+        final List<String> incrementsDelta = this.increments.takeDelta();
+        final List<String> decrementsDelta = this.decrements.takeDelta();
+        if (incrementsDelta == null && decrementsDelta == null) {
+            return null;
+        }
+        return PNCounter.combine(incrementsDelta, decrementsDelta);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public synchronized List<String> getState() {
+        return PNCounter.combine(this.increments.getState(), this.decrements.getState());
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The data is made up of triples of {@code "P"} or {@code "N"}, a replica
+     * ID, and its count of increments or decrements.
+     */
+    @Override
+    public synchronized void merge(@NotNull final List<String> data) throws IllegalArgumentException {
+        
+        if (data.size() % 3 != 0) {
+            throw new IllegalArgumentException("PNCounter data must be triples of P or N, a replica ID, and a count: " + data);
+        }
+        final List<String> incrementsData = new ArrayList<String>();
+        final List<String> decrementsData = new ArrayList<String>();
+        for (int index = 0; index < data.size(); index += 3) {
+            final String type = data.get(index);
+            if (type.equals("P")) {
+                incrementsData.add(data.get(index + 1));
+                incrementsData.add(data.get(index + 2));
+            } else if (type.equals("N")) {
+                decrementsData.add(data.get(index + 1));
+                decrementsData.add(data.get(index + 2));
+            } else {
+                throw new IllegalArgumentException("Invalid PNCounter data type: " + type);
+            }
+        }
+        
+        GCounter.parse(incrementsData);
+        GCounter.parse(decrementsData);
+        this.increments.merge(incrementsData);
+        this.decrements.merge(decrementsData);
+    }
+    
+    /**
+     * Combines the data of the increments and decrements into tagged
+     * triples.
+     * 
+     * @param incrementsData The data of the increments, if any.
+     * @param decrementsData The data of the decrements, if any.
+     * @return The combined data.
+     */
+    @NotNull
+    private static List<String> combine(@Nullable final List<String> incrementsData, @Nullable final List<String> decrementsData) {
+        final List<String> data = new ArrayList<String>();
+        if (incrementsData != null) {
+            for (int index = 0; index < incrementsData.size(); index += 2) {
+                data.add("P");
+                data.add(incrementsData.get(index));
+                data.add(incrementsData.get(index + 1));
+            }
+        }
+        if (decrementsData != null) {
+            for (int index = 0; index < decrementsData.size(); index += 2) {
+                data.add("N");
+                data.add(decrementsData.get(index));
+                data.add(decrementsData.get(index + 1));
+            }
+        }
+        return data;
+    }
+}
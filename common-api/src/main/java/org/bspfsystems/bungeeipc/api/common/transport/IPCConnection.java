@@ -0,0 +1,69 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a single established connection between two
+ * {@link IPCSocket IPCSockets}, independent of the transport that carries it.
+ * <p>
+ * One thread may read from the {@link InputStream} while another writes to
+ * the {@link OutputStream}. Closing the {@link IPCConnection} will cause any
+ * blocked read or write to fail with an {@link IOException}.
+ */
+public interface IPCConnection extends Closeable {
+    
+    /**
+     * Gets the {@link InputStream} to read from the connected
+     * {@link IPCSocket}.
+     * 
+     * @return The {@link InputStream} of this {@link IPCConnection}.
+     * @throws IOException If the {@link InputStream} could not be obtained.
+     */
+    @NotNull
+    InputStream getInputStream() throws IOException;
+    
+    /**
+     * Gets the {@link OutputStream} to write to the connected
+     * {@link IPCSocket}.
+     * 
+     * @return The {@link OutputStream} of this {@link IPCConnection}.
+     * @throws IOException If the {@link OutputStream} could not be obtained.
+     */
+    @NotNull
+    OutputStream getOutputStream() throws IOException;
+    
+    /**
+     * Gets the address of the connected {@link IPCSocket}, if the transport
+     * has one.
+     * 
+     * @return The remote {@link SocketAddress}, or {@code null} if the
+     *         transport does not have one.
+     */
+    @Nullable
+    SocketAddress getRemoteAddress();
+}
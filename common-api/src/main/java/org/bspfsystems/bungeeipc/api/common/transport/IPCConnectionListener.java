@@ -0,0 +1,43 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the listening side of a transport, which accepts incoming
+ * {@link IPCConnection IPCConnections}.
+ * <p>
+ * Closing the {@link IPCConnectionListener} will cause a blocked
+ * {@link IPCConnectionListener#accept()} to fail with an {@link IOException}.
+ */
+public interface IPCConnectionListener extends Closeable {
+    
+    /**
+     * Waits for and accepts the next incoming {@link IPCConnection}.
+     * 
+     * @return The accepted {@link IPCConnection}.
+     * @throws IOException If an error occurs while waiting for a connection,
+     *                     or if this {@link IPCConnectionListener} is closed.
+     */
+    @NotNull
+    IPCConnection accept() throws IOException;
+}
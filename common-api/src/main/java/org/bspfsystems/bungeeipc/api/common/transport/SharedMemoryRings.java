@@ -0,0 +1,84 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Provides {@link IPCConnection IPCConnections} over a pair of
+ * single-producer/single-consumer ring buffers in a shared memory-mapped
+ * file.
+ * <p>
+ * The ring buffers need ordered (acquire/release) access to memory that is
+ * shared with another process, which is only available through the standard
+ * library from Java 9 onwards. This is the implementation used on older
+ * versions of Java, which reports the transport as unsupported. The
+ * implementation for Java 16 and newer is provided as a multi-release class.
+ */
+public final class SharedMemoryRings {
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private SharedMemoryRings() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets whether the shared memory transport is supported on the running
+     * version of Java.
+     * 
+     * @return {@code true} if the shared memory transport is supported,
+     *         {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+    
+    /**
+     * Connects to the {@link IPCConnectionListener} waiting on the shared
+     * memory file at the given {@link Path}.
+     * 
+     * @param path The {@link Path} of the shared memory file.
+     * @return The established {@link IPCConnection}.
+     * @throws IOException If the connection could not be established, or if
+     *                     the shared memory transport is not supported.
+     */
+    @NotNull
+    public static IPCConnection connect(@NotNull final Path path) throws IOException {
+        throw new IOException("The shared memory transport requires Java 16 or newer.");
+    }
+    
+    /**
+     * Creates the shared memory file at the given {@link Path}, replacing
+     * any stale file left behind at that {@link Path}.
+     * 
+     * @param path The {@link Path} of the shared memory file.
+     * @return The {@link IPCConnectionListener} for the shared memory file.
+     * @throws IOException If the file could not be created, or if the shared
+     *                     memory transport is not supported.
+     */
+    @NotNull
+    public static IPCConnectionListener bind(@NotNull final Path path) throws IOException {
+        throw new IOException("The shared memory transport requires Java 16 or newer.");
+    }
+}
@@ -0,0 +1,80 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketAddress;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents an {@link IPCConnection} carried by a {@link Socket}, with or
+ * without SSL/TLS.
+ */
+public final class SocketConnection implements IPCConnection {
+    
+    private final Socket socket;
+    
+    /**
+     * Constructs a new {@link SocketConnection}.
+     * 
+     * @param socket The connected {@link Socket}.
+     */
+    public SocketConnection(@NotNull final Socket socket) {
+        this.socket = socket;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public InputStream getInputStream() throws IOException {
+        return this.socket.getInputStream();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public OutputStream getOutputStream() throws IOException {
+        return this.socket.getOutputStream();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public SocketAddress getRemoteAddress() {
+        return this.socket.getRemoteSocketAddress();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        this.socket.close();
+    }
+}
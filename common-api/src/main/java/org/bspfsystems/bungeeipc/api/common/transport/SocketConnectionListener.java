@@ -0,0 +1,59 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents an {@link IPCConnectionListener} that accepts
+ * {@link SocketConnection SocketConnections} from a {@link ServerSocket}, with
+ * or without SSL/TLS.
+ */
+public final class SocketConnectionListener implements IPCConnectionListener {
+    
+    private final ServerSocket serverSocket;
+    
+    /**
+     * Constructs a new {@link SocketConnectionListener}.
+     * 
+     * @param serverSocket The bound {@link ServerSocket}.
+     */
+    public SocketConnectionListener(@NotNull final ServerSocket serverSocket) {
+        this.serverSocket = serverSocket;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public IPCConnection accept() throws IOException {
+        return new SocketConnection(this.serverSocket.accept());
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+    }
+}
@@ -0,0 +1,104 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the transports that can carry an {@link IPCConnection}.
+ */
+public enum TransportType {
+    
+    /**
+     * A TCP connection, optionally secured with SSL/TLS.
+     */
+    TCP("tcp"),
+    
+    /**
+     * A Unix domain socket, for when both sides run on the same machine.
+     * 
+     * @see UnixDomainSockets
+     */
+    UNIX("unix"),
+    
+    /**
+     * A pair of ring buffers in a shared memory-mapped file, for when both
+     * sides run on the same machine and need the lowest possible latency.
+     * 
+     * @see SharedMemoryRings
+     */
+    SHARED_MEMORY("shared_memory");
+    
+    private final String name;
+    
+    /**
+     * Constructs a new {@link TransportType}.
+     * 
+     * @param name The name of the {@link TransportType} in configuration
+     *             files.
+     */
+    TransportType(@NotNull final String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Gets the name of this {@link TransportType} as used in configuration
+     * files.
+     * 
+     * @return The name of this {@link TransportType}.
+     */
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+    
+    /**
+     * Gets whether this {@link TransportType} is supported on the running
+     * version of Java.
+     * 
+     * @return {@code true} if this {@link TransportType} is supported,
+     *         {@code false} otherwise.
+     */
+    public boolean isSupported() {
+        if (this == TransportType.UNIX) {
+            return UnixDomainSockets.isSupported();
+        } else if (this == TransportType.SHARED_MEMORY) {
+            return SharedMemoryRings.isSupported();
+        }
+        return true;
+    }
+    
+    /**
+     * Gets the {@link TransportType} with the given name, ignoring case.
+     * 
+     * @param name The name of the {@link TransportType}.
+     * @return The {@link TransportType} with the given name.
+     * @throws IllegalArgumentException If no {@link TransportType} has the
+     *                                  given name.
+     */
+    @NotNull
+    public static TransportType fromName(@NotNull final String name) throws IllegalArgumentException {
+        for (final TransportType type : TransportType.values()) {
+            if (type.name.equalsIgnoreCase(name.trim())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown transport type: " + name);
+    }
+}
@@ -0,0 +1,79 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Provides {@link IPCConnection IPCConnections} over Unix domain sockets.
+ * <p>
+ * Unix domain sockets are only available through the standard library from
+ * Java 16 onwards. This is the implementation used on older versions of Java,
+ * which reports them as unsupported. The implementation for Java 16 and newer
+ * is provided as a multi-release class.
+ */
+public final class UnixDomainSockets {
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private UnixDomainSockets() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets whether Unix domain sockets are supported on the running version
+     * of Java.
+     * 
+     * @return {@code true} if Unix domain sockets are supported,
+     *         {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return false;
+    }
+    
+    /**
+     * Connects to the Unix domain socket at the given {@link Path}.
+     * 
+     * @param path The {@link Path} of the socket file.
+     * @return The established {@link IPCConnection}.
+     * @throws IOException If the connection could not be established, or if
+     *                     Unix domain sockets are not supported.
+     */
+    @NotNull
+    public static IPCConnection connect(@NotNull final Path path) throws IOException {
+        throw new IOException("Unix domain sockets require Java 16 or newer.");
+    }
+    
+    /**
+     * Binds a Unix domain socket to the given {@link Path}, replacing any
+     * stale socket file left behind at that {@link Path}.
+     * 
+     * @param path The {@link Path} of the socket file.
+     * @return The {@link IPCConnectionListener} for the bound socket.
+     * @throws IOException If the socket could not be bound, or if Unix domain
+     *                     sockets are not supported.
+     */
+    @NotNull
+    public static IPCConnectionListener bind(@NotNull final Path path) throws IOException {
+        throw new IOException("Unix domain sockets require Java 16 or newer.");
+    }
+}
@@ -0,0 +1,712 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.net.SocketAddress;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides {@link IPCConnection IPCConnections} over a pair of
+ * single-producer/single-consumer ring buffers in a shared memory-mapped
+ * file.
+ * <p>
+ * This is the implementation used on Java 16 and newer. The file starts with
+ * a header holding the connection state and a heartbeat for each side,
+ * followed by one ring buffer for each direction. Each ring buffer has a head
+ * (advanced only by its consumer) and a tail (advanced only by its producer),
+ * both kept on their own cache line, and published with release/acquire
+ * ordering through {@link VarHandle VarHandles}.
+ * <p>
+ * As the other side of the connection is in another process, it cannot be
+ * woken up directly. Instead, a side waiting for data or for space spins for
+ * a short while, then yields, and then parks for increasing (but short)
+ * amounts of time, which keeps the latency of a busy connection low without
+ * burning a core on an idle one. Since a crashed process cannot close its
+ * side of the connection, each side also checks the heartbeat of the other
+ * while it waits.
+ */
+public final class SharedMemoryRings {
+    
+    private static final int MAGIC = 0x42495043;
+    private static final int VERSION = 1;
+    private static final int RING_CAPACITY = 1 << 20;
+    
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int STATE_OFFSET = 64;
+    private static final int SERVER_HEARTBEAT_OFFSET = 128;
+    private static final int CLIENT_HEARTBEAT_OFFSET = 192;
+    private static final int TO_SERVER_HEAD_OFFSET = 256;
+    private static final int TO_SERVER_TAIL_OFFSET = 320;
+    private static final int TO_CLIENT_HEAD_OFFSET = 384;
+    private static final int TO_CLIENT_TAIL_OFFSET = 448;
+    private static final int DATA_OFFSET = 512;
+    
+    private static final long STATUS_IDLE = 0L;
+    private static final long STATUS_LISTENING = 1L;
+    private static final long STATUS_CONNECTED = 2L;
+    private static final long STATUS_MASK = 3L;
+    private static final long SERVER_RELEASED = 4L;
+    private static final long CLIENT_RELEASED = 8L;
+    private static final int SESSION_SHIFT = 4;
+    
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 1000L;
+    private static final long PEER_TIMEOUT_MILLIS = 10000L;
+    
+    private static final int SPIN_ATTEMPTS = Runtime.getRuntime().availableProcessors() > 1 ? 10000 : 0;
+    private static final int YIELD_ATTEMPTS = 100;
+    private static final int PARK_ATTEMPTS = 8;
+    private static final long MIN_PARK_NANOS = 8000L;
+    
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private SharedMemoryRings() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets whether the shared memory transport is supported on the running
+     * version of Java.
+     * 
+     * @return {@code true} if the shared memory transport is supported,
+     *         {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+    
+    /**
+     * Connects to the {@link IPCConnectionListener} waiting on the shared
+     * memory file at the given {@link Path}.
+     * 
+     * @param path The {@link Path} of the shared memory file.
+     * @return The established {@link IPCConnection}.
+     * @throws IOException If the connection could not be established, or if
+     *                     the shared memory transport is not supported.
+     */
+    @NotNull
+    public static IPCConnection connect(@NotNull final Path path) throws IOException {
+        
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < SharedMemoryRings.DATA_OFFSET) {
+                throw new IOException("The shared memory file is too small: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        
+        if ((int) SharedMemoryRings.INT.getAcquire(buffer, SharedMemoryRings.MAGIC_OFFSET) != SharedMemoryRings.MAGIC) {
+            throw new IOException("The file is not a BungeeIPC shared memory file: " + path);
+        }
+        final int version = (int) SharedMemoryRings.INT.get(buffer, SharedMemoryRings.VERSION_OFFSET);
+        if (version != SharedMemoryRings.VERSION) {
+            throw new IOException("Unsupported shared memory file version: " + version);
+        }
+        final int capacity = (int) SharedMemoryRings.INT.get(buffer, SharedMemoryRings.CAPACITY_OFFSET);
+        if (capacity != SharedMemoryRings.RING_CAPACITY || buffer.capacity() != SharedMemoryRings.fileSize(capacity)) {
+            throw new IOException("Unsupported shared memory ring capacity: " + capacity);
+        }
+        
+        final long state = (long) SharedMemoryRings.LONG.getAcquire(buffer, SharedMemoryRings.STATE_OFFSET);
+        if ((state & SharedMemoryRings.STATUS_MASK) != SharedMemoryRings.STATUS_LISTENING) {
+            throw new IOException("No IPC server is waiting for a connection on the shared memory file.");
+        }
+        if (SharedMemoryRings.isStale(buffer, SharedMemoryRings.SERVER_HEARTBEAT_OFFSET)) {
+            throw new IOException("The IPC server using the shared memory file is not responding.");
+        }
+        
+        final long session = state >>> SharedMemoryRings.SESSION_SHIFT;
+        SharedMemoryRings.LONG.setRelease(buffer, SharedMemoryRings.CLIENT_HEARTBEAT_OFFSET, System.currentTimeMillis());
+        if (!SharedMemoryRings.LONG.compareAndSet(buffer, SharedMemoryRings.STATE_OFFSET, state, SharedMemoryRings.state(session, SharedMemoryRings.STATUS_CONNECTED))) {
+            throw new IOException("No IPC server is waiting for a connection on the shared memory file.");
+        }
+        return new RingConnection(buffer, session, false);
+    }
+    
+    /**
+     * Creates the shared memory file at the given {@link Path}, replacing
+     * any stale file left behind at that {@link Path}.
+     * 
+     * @param path The {@link Path} of the shared memory file.
+     * @return The {@link IPCConnectionListener} for the shared memory file.
+     * @throws IOException If the file could not be created, or if the shared
+     *                     memory transport is not supported.
+     */
+    @NotNull
+    public static IPCConnectionListener bind(@NotNull final Path path) throws IOException {
+        
+        Files.deleteIfExists(path);
+        final MappedByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SharedMemoryRings.fileSize(SharedMemoryRings.RING_CAPACITY));
+        }
+        
+        SharedMemoryRings.INT.set(buffer, SharedMemoryRings.VERSION_OFFSET, SharedMemoryRings.VERSION);
+        SharedMemoryRings.INT.set(buffer, SharedMemoryRings.CAPACITY_OFFSET, SharedMemoryRings.RING_CAPACITY);
+        SharedMemoryRings.LONG.set(buffer, SharedMemoryRings.STATE_OFFSET, SharedMemoryRings.state(0L, SharedMemoryRings.STATUS_IDLE));
+        SharedMemoryRings.LONG.set(buffer, SharedMemoryRings.SERVER_HEARTBEAT_OFFSET, System.currentTimeMillis());
+        SharedMemoryRings.INT.setRelease(buffer, SharedMemoryRings.MAGIC_OFFSET, SharedMemoryRings.MAGIC);
+        return new RingConnectionListener(buffer, path);
+    }
+    
+    /**
+     * Gets the size of a shared memory file with the given ring capacity.
+     * 
+     * @param capacity The capacity of each ring buffer, in bytes.
+     * @return The size of the file, in bytes.
+     */
+    private static int fileSize(final int capacity) {
+        return SharedMemoryRings.DATA_OFFSET + 2 * capacity;
+    }
+    
+    /**
+     * Builds a connection state value from a session number and status.
+     * 
+     * @param session The session number.
+     * @param status The status, with any released flags.
+     * @return The connection state value.
+     */
+    private static long state(final long session, final long status) {
+        return (session << SharedMemoryRings.SESSION_SHIFT) | status;
+    }
+    
+    /**
+     * Checks whether the heartbeat at the given offset has not been updated
+     * for longer than the timeout.
+     * 
+     * @param buffer The shared memory.
+     * @param offset The offset of the heartbeat.
+     * @return {@code true} if the heartbeat is stale, {@code false}
+     *         otherwise.
+     */
+    private static boolean isStale(@NotNull final MappedByteBuffer buffer, final int offset) {
+        return System.currentTimeMillis() - (long) SharedMemoryRings.LONG.getAcquire(buffer, offset) > SharedMemoryRings.PEER_TIMEOUT_MILLIS;
+    }
+    
+    /**
+     * Waits a little before the caller checks its condition again. The first
+     * attempts spin (unless there is only a single processor, where spinning
+     * only delays the other side), the next few yield, and the rest park for
+     * increasing amounts of time, up to about a millisecond.
+     * 
+     * @param attempt The number of times the caller has already waited.
+     * @return The attempt number to pass in the next time.
+     */
+    private static int idle(final int attempt) {
+        if (attempt < SharedMemoryRings.SPIN_ATTEMPTS) {
+            Thread.onSpinWait();
+            return attempt + 1;
+        }
+        if (attempt < SharedMemoryRings.SPIN_ATTEMPTS + SharedMemoryRings.YIELD_ATTEMPTS) {
+            Thread.yield();
+            return attempt + 1;
+        }
+        final int parks = Math.min(attempt - SharedMemoryRings.SPIN_ATTEMPTS - SharedMemoryRings.YIELD_ATTEMPTS, SharedMemoryRings.PARK_ATTEMPTS - 1);
+        LockSupport.parkNanos(SharedMemoryRings.MIN_PARK_NANOS << parks);
+        return SharedMemoryRings.SPIN_ATTEMPTS + SharedMemoryRings.YIELD_ATTEMPTS + parks + 1;
+    }
+    
+    /**
+     * Represents an {@link IPCConnectionListener} for a shared memory file.
+     * Only one {@link IPCConnection} can be open on the file at a time, and
+     * the file is removed when it is closed.
+     */
+    private static final class RingConnectionListener implements IPCConnectionListener {
+        
+        private final MappedByteBuffer buffer;
+        private final Path path;
+        private volatile boolean closed;
+        
+        /**
+         * Constructs a new {@link RingConnectionListener}.
+         * 
+         * @param buffer The shared memory.
+         * @param path The {@link Path} of the shared memory file.
+         */
+        private RingConnectionListener(@NotNull final MappedByteBuffer buffer, @NotNull final Path path) {
+            this.buffer = buffer;
+            this.path = path;
+            this.closed = false;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public IPCConnection accept() throws IOException {
+            
+            // Wait for the client to let go of the previous session (or to
+            // stop responding) before the ring buffers are reset under it.
+            long state = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET);
+            int attempt = 0;
+            while ((state & SharedMemoryRings.STATUS_MASK) == SharedMemoryRings.STATUS_CONNECTED && (state & SharedMemoryRings.CLIENT_RELEASED) == 0L && !SharedMemoryRings.isStale(this.buffer, SharedMemoryRings.CLIENT_HEARTBEAT_OFFSET)) {
+                this.beat();
+                attempt = SharedMemoryRings.idle(attempt);
+                state = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET);
+            }
+            
+            final long session = (state >>> SharedMemoryRings.SESSION_SHIFT) + 1L;
+            SharedMemoryRings.LONG.set(this.buffer, SharedMemoryRings.TO_SERVER_HEAD_OFFSET, 0L);
+            SharedMemoryRings.LONG.set(this.buffer, SharedMemoryRings.TO_SERVER_TAIL_OFFSET, 0L);
+            SharedMemoryRings.LONG.set(this.buffer, SharedMemoryRings.TO_CLIENT_HEAD_OFFSET, 0L);
+            SharedMemoryRings.LONG.set(this.buffer, SharedMemoryRings.TO_CLIENT_TAIL_OFFSET, 0L);
+            this.beat();
+            SharedMemoryRings.LONG.setRelease(this.buffer, SharedMemoryRings.STATE_OFFSET, SharedMemoryRings.state(session, SharedMemoryRings.STATUS_LISTENING));
+            
+            final long connected = SharedMemoryRings.state(session, SharedMemoryRings.STATUS_CONNECTED);
+            attempt = 0;
+            while ((long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET) != connected) {
+                this.beat();
+                attempt = SharedMemoryRings.idle(attempt);
+            }
+            return new RingConnection(this.buffer, session, true);
+        }
+        
+        /**
+         * Updates the heartbeat of the server, or throws an
+         * {@link IOException} if this {@link RingConnectionListener} has been
+         * closed.
+         * 
+         * @throws IOException If this {@link RingConnectionListener} has been
+         *                     closed.
+         */
+        private void beat() throws IOException {
+            if (this.closed) {
+                throw new IOException("The shared memory listener is closed.");
+            }
+            SharedMemoryRings.LONG.setRelease(this.buffer, SharedMemoryRings.SERVER_HEARTBEAT_OFFSET, System.currentTimeMillis());
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            this.closed = true;
+            final long state = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET);
+            SharedMemoryRings.LONG.setRelease(this.buffer, SharedMemoryRings.STATE_OFFSET, SharedMemoryRings.state((state >>> SharedMemoryRings.SESSION_SHIFT) + 1L, SharedMemoryRings.STATUS_IDLE));
+            Files.deleteIfExists(this.path);
+        }
+    }
+    
+    /**
+     * Represents one side of an {@link IPCConnection} over the ring buffers
+     * of a shared memory file.
+     * <p>
+     * The connection stays open for as long as the state in the shared memory
+     * is this connection's session with neither side released. Every read and
+     * write registers itself as in flight, so that {@link #close()} can wait
+     * for them to leave the ring buffers before releasing the session.
+     */
+    private static final class RingConnection implements IPCConnection {
+        
+        private final MappedByteBuffer buffer;
+        private final long session;
+        private final long openState;
+        private final long releasedFlag;
+        private final int ownHeartbeatOffset;
+        private final int peerHeartbeatOffset;
+        
+        private final AtomicInteger inFlight;
+        private volatile boolean closed;
+        private volatile long lastBeat;
+        
+        private final InputStream inputStream;
+        private final OutputStream outputStream;
+        
+        /**
+         * Constructs a new {@link RingConnection}.
+         * 
+         * @param buffer The shared memory.
+         * @param session The session number of this connection.
+         * @param server {@code true} if this is the server side of the
+         *               connection, {@code false} if it is the client side.
+         */
+        private RingConnection(@NotNull final MappedByteBuffer buffer, final long session, final boolean server) {
+            
+            this.buffer = buffer;
+            this.session = session;
+            this.openState = SharedMemoryRings.state(session, SharedMemoryRings.STATUS_CONNECTED);
+            this.releasedFlag = server ? SharedMemoryRings.SERVER_RELEASED : SharedMemoryRings.CLIENT_RELEASED;
+            this.ownHeartbeatOffset = server ? SharedMemoryRings.SERVER_HEARTBEAT_OFFSET : SharedMemoryRings.CLIENT_HEARTBEAT_OFFSET;
+            this.peerHeartbeatOffset = server ? SharedMemoryRings.CLIENT_HEARTBEAT_OFFSET : SharedMemoryRings.SERVER_HEARTBEAT_OFFSET;
+            
+            this.inFlight = new AtomicInteger(0);
+            this.closed = false;
+            this.lastBeat = 0L;
+            
+            final int capacity = SharedMemoryRings.RING_CAPACITY;
+            final int toServerData = SharedMemoryRings.DATA_OFFSET;
+            final int toClientData = SharedMemoryRings.DATA_OFFSET + capacity;
+            if (server) {
+                this.inputStream = new RingInputStream(this, SharedMemoryRings.TO_SERVER_HEAD_OFFSET, SharedMemoryRings.TO_SERVER_TAIL_OFFSET, toServerData, capacity);
+                this.outputStream = new RingOutputStream(this, SharedMemoryRings.TO_CLIENT_HEAD_OFFSET, SharedMemoryRings.TO_CLIENT_TAIL_OFFSET, toClientData, capacity);
+            } else {
+                this.inputStream = new RingInputStream(this, SharedMemoryRings.TO_CLIENT_HEAD_OFFSET, SharedMemoryRings.TO_CLIENT_TAIL_OFFSET, toClientData, capacity);
+                this.outputStream = new RingOutputStream(this, SharedMemoryRings.TO_SERVER_HEAD_OFFSET, SharedMemoryRings.TO_SERVER_TAIL_OFFSET, toServerData, capacity);
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public InputStream getInputStream() {
+            return this.inputStream;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public OutputStream getOutputStream() {
+            return this.outputStream;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @Nullable
+        public SocketAddress getRemoteAddress() {
+            return null;
+        }
+        
+        /**
+         * Gets whether both sides still hold this connection's session.
+         * 
+         * @return {@code true} if this connection is open, {@code false}
+         *         otherwise.
+         */
+        private boolean isOpen() {
+            return (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET) == this.openState;
+        }
+        
+        /**
+         * Registers a read or write as in flight.
+         * 
+         * @throws IOException If this side of the connection has been closed.
+         */
+        private void enter() throws IOException {
+            this.inFlight.incrementAndGet();
+            if (this.closed) {
+                this.inFlight.decrementAndGet();
+                throw new IOException("The shared memory connection is closed.");
+            }
+        }
+        
+        /**
+         * Unregisters a read or write that was in flight.
+         */
+        private void exit() {
+            this.inFlight.decrementAndGet();
+        }
+        
+        /**
+         * Called while a read or write waits on the other side. Updates the
+         * heartbeat of this side, and throws an {@link IOException} if this
+         * side has been closed or if the other side has stopped responding.
+         * 
+         * @throws IOException If this side of the connection has been closed,
+         *                     or if the other side has stopped responding.
+         */
+        private void check() throws IOException {
+            if (this.closed) {
+                throw new IOException("The shared memory connection is closed.");
+            }
+            this.beat();
+            if (SharedMemoryRings.isStale(this.buffer, this.peerHeartbeatOffset)) {
+                throw new IOException("The other side of the shared memory connection is not responding.");
+            }
+        }
+        
+        /**
+         * Updates the heartbeat of this side, at most about once every
+         * heartbeat interval.
+         */
+        private void beat() {
+            final long now = System.currentTimeMillis();
+            if (now - this.lastBeat >= SharedMemoryRings.HEARTBEAT_INTERVAL_MILLIS) {
+                this.lastBeat = now;
+                SharedMemoryRings.LONG.setRelease(this.buffer, this.ownHeartbeatOffset, now);
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            
+            int attempt = 0;
+            while (this.inFlight.get() > 0) {
+                attempt = SharedMemoryRings.idle(attempt);
+            }
+            
+            long state = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET);
+            while (state >>> SharedMemoryRings.SESSION_SHIFT == this.session && (state & SharedMemoryRings.STATUS_MASK) == SharedMemoryRings.STATUS_CONNECTED) {
+                if (SharedMemoryRings.LONG.compareAndSet(this.buffer, SharedMemoryRings.STATE_OFFSET, state, state | this.releasedFlag)) {
+                    return;
+                }
+                state = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, SharedMemoryRings.STATE_OFFSET);
+            }
+        }
+    }
+    
+    /**
+     * Represents an {@link InputStream} that consumes from one of the ring
+     * buffers of a {@link RingConnection}.
+     */
+    private static final class RingInputStream extends InputStream {
+        
+        private final RingConnection connection;
+        private final MappedByteBuffer buffer;
+        private final int headOffset;
+        private final int tailOffset;
+        private final int dataOffset;
+        private final int capacity;
+        private final byte[] single;
+        
+        /**
+         * Constructs a new {@link RingInputStream}.
+         * 
+         * @param connection The {@link RingConnection} this stream is for.
+         * @param headOffset The offset of the head of the ring buffer.
+         * @param tailOffset The offset of the tail of the ring buffer.
+         * @param dataOffset The offset of the data of the ring buffer.
+         * @param capacity The capacity of the ring buffer, in bytes.
+         */
+        private RingInputStream(@NotNull final RingConnection connection, final int headOffset, final int tailOffset, final int dataOffset, final int capacity) {
+            this.connection = connection;
+            this.buffer = connection.buffer;
+            this.headOffset = headOffset;
+            this.tailOffset = tailOffset;
+            this.dataOffset = dataOffset;
+            this.capacity = capacity;
+            this.single = new byte[1];
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() throws IOException {
+            final int read = this.read(this.single, 0, 1);
+            return read == -1 ? -1 : this.single[0] & 0xFF;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+            
+            if (length == 0) {
+                return 0;
+            }
+            
+            this.connection.enter();
+            try {
+                final long head = (long) SharedMemoryRings.LONG.get(this.buffer, this.headOffset);
+                int attempt = 0;
+                while (true) {
+                    
+                    final long available = (long) SharedMemoryRings.LONG.getAcquire(this.buffer, this.tailOffset) - head;
+                    if (available > 0L) {
+                        
+                        final int count = (int) Math.min(length, available);
+                        final int index = (int) (head & (this.capacity - 1));
+                        final int first = Math.min(count, this.capacity - index);
+                        this.buffer.get(this.dataOffset + index, bytes, offset, first);
+                        if (count > first) {
+                            this.buffer.get(this.dataOffset, bytes, offset + first, count - first);
+                        }
+                        
+                        SharedMemoryRings.LONG.setRelease(this.buffer, this.headOffset, head + count);
+                        this.connection.beat();
+                        return count;
+                    }
+                    
+                    // Anything written before the other side closed is still
+                    // read, so only report the end of the stream once the
+                    // ring buffer is also empty after the close was seen.
+                    if (!this.connection.isOpen()) {
+                        if ((long) SharedMemoryRings.LONG.getAcquire(this.buffer, this.tailOffset) == head) {
+                            return -1;
+                        }
+                        continue;
+                    }
+                    
+                    this.connection.check();
+                    attempt = SharedMemoryRings.idle(attempt);
+                }
+            } finally {
+                this.connection.exit();
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int available() {
+            final long head = (long) SharedMemoryRings.LONG.get(this.buffer, this.headOffset);
+            return (int) ((long) SharedMemoryRings.LONG.getAcquire(this.buffer, this.tailOffset) - head);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            this.connection.close();
+        }
+    }
+    
+    /**
+     * Represents an {@link OutputStream} that produces into one of the ring
+     * buffers of a {@link RingConnection}.
+     * <p>
+     * Writes are guarded by a lock, as the final flush when a connection is
+     * torn down may come from a different thread than the one normally
+     * writing, and each ring buffer must only ever have a single producer at
+     * a time. A {@link ReentrantLock} is used rather than synchronizing, so
+     * that a virtual thread waiting for space does not pin its carrier.
+     */
+    private static final class RingOutputStream extends OutputStream {
+        
+        private final RingConnection connection;
+        private final MappedByteBuffer buffer;
+        private final int headOffset;
+        private final int tailOffset;
+        private final int dataOffset;
+        private final int capacity;
+        private final ReentrantLock lock;
+        
+        /**
+         * Constructs a new {@link RingOutputStream}.
+         * 
+         * @param connection The {@link RingConnection} this stream is for.
+         * @param headOffset The offset of the head of the ring buffer.
+         * @param tailOffset The offset of the tail of the ring buffer.
+         * @param dataOffset The offset of the data of the ring buffer.
+         * @param capacity The capacity of the ring buffer, in bytes.
+         */
+        private RingOutputStream(@NotNull final RingConnection connection, final int headOffset, final int tailOffset, final int dataOffset, final int capacity) {
+            this.connection = connection;
+            this.buffer = connection.buffer;
+            this.headOffset = headOffset;
+            this.tailOffset = tailOffset;
+            this.dataOffset = dataOffset;
+            this.capacity = capacity;
+            this.lock = new ReentrantLock();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final int value) throws IOException {
+            this.write(new byte[] {(byte) value}, 0, 1);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+            
+            this.connection.enter();
+            this.lock.lock();
+            try {
+                long tail = (long) SharedMemoryRings.LONG.get(this.buffer, this.tailOffset);
+                int written = 0;
+                int attempt = 0;
+                while (written < length) {
+                    
+                    if (!this.connection.isOpen()) {
+                        throw new IOException("The shared memory connection is closed.");
+                    }
+                    
+                    final long free = this.capacity - (tail - (long) SharedMemoryRings.LONG.getAcquire(this.buffer, this.headOffset));
+                    if (free > 0L) {
+                        
+                        final int count = (int) Math.min(length - written, free);
+                        final int index = (int) (tail & (this.capacity - 1));
+                        final int first = Math.min(count, this.capacity - index);
+                        this.buffer.put(this.dataOffset + index, bytes, offset + written, first);
+                        if (count > first) {
+                            this.buffer.put(this.dataOffset, bytes, offset + written + first, count - first);
+                        }
+                        
+                        tail += count;
+                        written += count;
+                        SharedMemoryRings.LONG.setRelease(this.buffer, this.tailOffset, tail);
+                        attempt = 0;
+                        continue;
+                    }
+                    
+                    this.connection.check();
+                    attempt = SharedMemoryRings.idle(attempt);
+                }
+                this.connection.beat();
+            } finally {
+                this.lock.unlock();
+                this.connection.exit();
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            this.connection.close();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.bungeeipc.api.common.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides {@link IPCConnection IPCConnections} over Unix domain sockets.
+ * <p>
+ * This is the implementation used on Java 16 and newer, built on
+ * {@link SocketChannel SocketChannels} with a
+ * {@link UnixDomainSocketAddress}.
+ */
+public final class UnixDomainSockets {
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private UnixDomainSockets() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets whether Unix domain sockets are supported on the running version
+     * of Java.
+     * 
+     * @return {@code true} if Unix domain sockets are supported,
+     *         {@code false} otherwise.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+    
+    /**
+     * Connects to the Unix domain socket at the given {@link Path}.
+     * 
+     * @param path The {@link Path} of the socket file.
+     * @return The established {@link IPCConnection}.
+     * @throws IOException If the connection could not be established, or if
+     *                     Unix domain sockets are not supported.
+     */
+    @NotNull
+    public static IPCConnection connect(@NotNull final Path path) throws IOException {
+        
+        final SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(path));
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ChannelConnection(channel);
+    }
+    
+    /**
+     * Binds a Unix domain socket to the given {@link Path}, replacing any
+     * stale socket file left behind at that {@link Path}.
+     * 
+     * @param path The {@link Path} of the socket file.
+     * @return The {@link IPCConnectionListener} for the bound socket.
+     * @throws IOException If the socket could not be bound, or if Unix domain
+     *                     sockets are not supported.
+     */
+    @NotNull
+    public static IPCConnectionListener bind(@NotNull final Path path) throws IOException {
+        
+        Files.deleteIfExists(path);
+        final ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.bind(UnixDomainSocketAddress.of(path), 2);
+        } catch (final IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new ChannelConnectionListener(channel, path);
+    }
+    
+    /**
+     * Represents an {@link IPCConnection} carried by a connected
+     * {@link SocketChannel}.
+     * <p>
+     * The streams read from and write to the {@link SocketChannel} directly,
+     * rather than through {@code Channels#newInputStream(ReadableByteChannel)}
+     * and {@code Channels#newOutputStream(WritableByteChannel)}, which
+     * serialize reads and writes on the same lock on some versions of Java.
+     */
+    private static final class ChannelConnection implements IPCConnection {
+        
+        private final SocketChannel channel;
+        private final InputStream inputStream;
+        private final OutputStream outputStream;
+        
+        /**
+         * Constructs a new {@link ChannelConnection}.
+         * 
+         * @param channel The connected {@link SocketChannel}.
+         */
+        private ChannelConnection(@NotNull final SocketChannel channel) {
+            this.channel = channel;
+            this.inputStream = new ChannelInputStream(channel);
+            this.outputStream = new ChannelOutputStream(channel);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public InputStream getInputStream() {
+            return this.inputStream;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public OutputStream getOutputStream() {
+            return this.outputStream;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @Nullable
+        public SocketAddress getRemoteAddress() {
+            try {
+                return this.channel.getRemoteAddress();
+            } catch (final IOException e) {
+                return null;
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+    
+    /**
+     * Represents an {@link IPCConnectionListener} for a bound
+     * {@link ServerSocketChannel}. The socket file is removed when it is
+     * closed.
+     */
+    private static final class ChannelConnectionListener implements IPCConnectionListener {
+        
+        private final ServerSocketChannel channel;
+        private final Path path;
+        
+        /**
+         * Constructs a new {@link ChannelConnectionListener}.
+         * 
+         * @param channel The bound {@link ServerSocketChannel}.
+         * @param path The {@link Path} of the socket file.
+         */
+        private ChannelConnectionListener(@NotNull final ServerSocketChannel channel, @NotNull final Path path) {
+            this.channel = channel;
+            this.path = path;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public IPCConnection accept() throws IOException {
+            return new ChannelConnection(this.channel.accept());
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                this.channel.close();
+            } finally {
+                Files.deleteIfExists(this.path);
+            }
+        }
+    }
+    
+    /**
+     * Represents an {@link InputStream} that reads directly from a blocking
+     * {@link SocketChannel}.
+     */
+    private static final class ChannelInputStream extends InputStream {
+        
+        private final SocketChannel channel;
+        private final byte[] single;
+        
+        /**
+         * Constructs a new {@link ChannelInputStream}.
+         * 
+         * @param channel The {@link SocketChannel} to read from.
+         */
+        private ChannelInputStream(@NotNull final SocketChannel channel) {
+            this.channel = channel;
+            this.single = new byte[1];
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() throws IOException {
+            final int read = this.read(this.single, 0, 1);
+            return read == -1 ? -1 : this.single[0] & 0xFF;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            return this.channel.read(ByteBuffer.wrap(bytes, offset, length));
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+    
+    /**
+     * Represents an {@link OutputStream} that writes directly to a blocking
+     * {@link SocketChannel}.
+     */
+    private static final class ChannelOutputStream extends OutputStream {
+        
+        private final SocketChannel channel;
+        
+        /**
+         * Constructs a new {@link ChannelOutputStream}.
+         * 
+         * @param channel The {@link SocketChannel} to write to.
+         */
+        private ChannelOutputStream(@NotNull final SocketChannel channel) {
+            this.channel = channel;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(final int value) throws IOException {
+            this.write(new byte[] {(byte) value}, 0, 1);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(@NotNull final byte[] bytes, final int offset, final int length) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+    }
+}
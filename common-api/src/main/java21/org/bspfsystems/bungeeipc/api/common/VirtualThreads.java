@@ -0,0 +1,64 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.common;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Starts tasks on virtual threads, where the running version of Java has
+ * them.
+ * <p>
+ * This is the implementation used on Java 21 and newer, built on
+ * {@link Thread#ofVirtual()}.
+ */
+public final class VirtualThreads {
+    
+    /**
+     * Prevents instantiation, as this is a utility class.
+     */
+    private VirtualThreads() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets whether virtual threads are supported on the running version of
+     * Java.
+     * 
+     * @return {@code true} if virtual threads are supported, {@code false}
+     *         otherwise.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+    
+    /**
+     * Starts the given task on a new virtual thread.
+     * 
+     * @param name The name of the virtual thread.
+     * @param task The task to run.
+     * @return The started virtual {@link Thread}.
+     * @throws UnsupportedOperationException If virtual threads are not
+     *                                       supported.
+     */
+    @NotNull
+    public static Thread start(@NotNull final String name, @NotNull final Runnable task) throws UnsupportedOperationException {
+        return Thread.ofVirtual().name(name).start(task);
+    }
+}
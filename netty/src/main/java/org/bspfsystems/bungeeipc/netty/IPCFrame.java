@@ -0,0 +1,203 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.netty;
+
+import java.util.Collections;
+import java.util.List;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a single frame on an IPC connection, as written by the IPC
+ * sockets.
+ * <p>
+ * Frames are laid out on the wire exactly as described in
+ * {@link IPCFrameCodec}, so that either end of a connection may use the
+ * blocking or the Netty implementation.
+ */
+public final class IPCFrame {
+    
+    /**
+     * The type of a frame carrying a single {@link IPCMessage}.
+     */
+    public static final byte MESSAGE = IPCFrameCodec.MESSAGE;
+    
+    /**
+     * The type of a frame carrying any number of
+     * {@link IPCMessage IPCMessages}.
+     */
+    public static final byte BATCH = IPCFrameCodec.BATCH;
+    
+    /**
+     * The type of the frame sent by each end when a connection is
+     * established, carrying its protocol version and, from the BungeeCord
+     * proxy, the name of the connected Minecraft server.
+     */
+    public static final byte HANDSHAKE = IPCFrameCodec.HANDSHAKE;
+    
+    /**
+     * The type of a frame asking the other end to echo its token back in a
+     * pong frame.
+     */
+    public static final byte PING = IPCFrameCodec.PING;
+    
+    /**
+     * The type of a frame echoing the token of a received ping frame.
+     */
+    public static final byte PONG = IPCFrameCodec.PONG;
+    
+    private final byte type;
+    private final int version;
+    private final long token;
+    private final List<String> payload;
+    
+    /**
+     * Constructs a new {@link IPCFrame}.
+     * 
+     * @param type The type of the {@link IPCFrame}.
+     * @param version The protocol version carried by a handshake
+     *                {@link IPCFrame}, or {@code 0} for other types.
+     * @param token The token carried by a ping or pong {@link IPCFrame}, or
+     *              {@code 0} for other types.
+     * @param payload The {@link String Strings} carried by the
+     *                {@link IPCFrame}.
+     */
+    private IPCFrame(final byte type, final int version, final long token, @NotNull final List<String> payload) {
+        this.type = type;
+        this.version = version;
+        this.token = token;
+        this.payload = payload;
+    }
+    
+    /**
+     * Creates a new message {@link IPCFrame}.
+     * 
+     * @param message The serialized {@link IPCMessage}.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    public static IPCFrame message(@NotNull final String message) {
+        return new IPCFrame(IPCFrame.MESSAGE, 0, 0L, Collections.singletonList(message));
+    }
+    
+    /**
+     * Creates a new batch {@link IPCFrame}.
+     * 
+     * @param messages The serialized {@link IPCMessage IPCMessages}, in order.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    public static IPCFrame batch(@NotNull final List<String> messages) {
+        return new IPCFrame(IPCFrame.BATCH, 0, 0L, Collections.unmodifiableList(messages));
+    }
+    
+    /**
+     * Creates a new handshake {@link IPCFrame} with this end's
+     * {@link IPCFrameCodec#PROTOCOL_VERSION}.
+     * 
+     * @param serverName The name of the connected Minecraft server when sent
+     *                   by the BungeeCord proxy, or an empty {@link String}
+     *                   when sent by the Minecraft server.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    public static IPCFrame handshake(@NotNull final String serverName) {
+        return IPCFrame.handshake(IPCFrameCodec.PROTOCOL_VERSION, serverName);
+    }
+    
+    /**
+     * Creates a new handshake {@link IPCFrame}, as read from the other end of
+     * a connection.
+     * 
+     * @param version The protocol version of the other end.
+     * @param serverName The name carried by the handshake.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    static IPCFrame handshake(final int version, @NotNull final String serverName) {
+        return new IPCFrame(IPCFrame.HANDSHAKE, version, 0L, Collections.singletonList(serverName));
+    }
+    
+    /**
+     * Creates a new ping {@link IPCFrame}.
+     * 
+     * @param token The token to be echoed back, usually the
+     *              {@link System#nanoTime()} it was sent at.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    public static IPCFrame ping(final long token) {
+        return new IPCFrame(IPCFrame.PING, 0, token, Collections.emptyList());
+    }
+    
+    /**
+     * Creates a new pong {@link IPCFrame}.
+     * 
+     * @param token The token of the ping {@link IPCFrame} being answered.
+     * @return The new {@link IPCFrame}.
+     */
+    @NotNull
+    public static IPCFrame pong(final long token) {
+        return new IPCFrame(IPCFrame.PONG, 0, token, Collections.emptyList());
+    }
+    
+    /**
+     * Gets the type of this {@link IPCFrame}.
+     * 
+     * @return The type of this {@link IPCFrame}.
+     */
+    public byte getType() {
+        return this.type;
+    }
+    
+    /**
+     * Gets the protocol version carried by this {@link IPCFrame}, if it is a
+     * handshake frame.
+     * 
+     * @return The protocol version, or {@code 0} if this is not a handshake
+     *         frame.
+     */
+    public int getVersion() {
+        return this.version;
+    }
+    
+    /**
+     * Gets the token carried by this {@link IPCFrame}, if it is a ping or pong
+     * frame.
+     * 
+     * @return The token, or {@code 0} if this is not a ping or pong frame.
+     */
+    public long getToken() {
+        return this.token;
+    }
+    
+    /**
+     * Gets the {@link String Strings} carried by this {@link IPCFrame}. There
+     * is exactly one for message and handshake frames, and none for ping and
+     * pong frames.
+     * 
+     * @return The {@link String Strings} carried by this {@link IPCFrame}.
+     */
+    @NotNull
+    public List<String> getPayload() {
+        return this.payload;
+    }
+}
@@ -0,0 +1,135 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decodes the bytes received on an IPC connection into
+ * {@link IPCFrame IPCFrames}.
+ * <p>
+ * A frame is only decoded once all of its bytes have arrived. Until then, the
+ * partial frame is left in the cumulation buffer, and decoding is retried when
+ * more bytes arrive.
+ */
+public final class IPCFrameDecoder extends ByteToMessageDecoder {
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decode(@NotNull final ChannelHandlerContext ctx, @NotNull final ByteBuf in, @NotNull final List<Object> out) throws Exception {
+        
+        final int start = in.readerIndex();
+        final IPCFrame frame = IPCFrameDecoder.decodeFrame(in);
+        if (frame == null) {
+            in.readerIndex(start);
+            return;
+        }
+        out.add(frame);
+    }
+    
+    /**
+     * Decodes a single {@link IPCFrame} from the given {@link ByteBuf}.
+     * 
+     * @param in The {@link ByteBuf} to read from.
+     * @return The decoded {@link IPCFrame}, or {@code null} if not all of its
+     *         bytes have arrived yet.
+     * @throws Exception If the {@link IPCFrame} is invalid.
+     */
+    @Nullable
+    private static IPCFrame decodeFrame(@NotNull final ByteBuf in) throws Exception {
+        
+        final byte type = in.readByte();
+        if (type == IPCFrame.MESSAGE) {
+            if (!IPCFrameDecoder.hasString(in, in.readerIndex())) {
+                return null;
+            }
+            return IPCFrame.message(DataInputStream.readUTF(new ByteBufInputStream(in)));
+        }
+        if (type == IPCFrame.HANDSHAKE) {
+            if (in.readableBytes() < 4 || !IPCFrameDecoder.hasString(in, in.readerIndex() + 4)) {
+                return null;
+            }
+            final int version = in.getInt(in.readerIndex());
+            in.skipBytes(4);
+            return IPCFrame.handshake(version, DataInputStream.readUTF(new ByteBufInputStream(in)));
+        }
+        if (type == IPCFrame.PING || type == IPCFrame.PONG) {
+            if (in.readableBytes() < 8) {
+                return null;
+            }
+            final long token = in.getLong(in.readerIndex());
+            in.skipBytes(8);
+            return type == IPCFrame.PING ? IPCFrame.ping(token) : IPCFrame.pong(token);
+        }
+        if (type != IPCFrame.BATCH) {
+            throw new CorruptedFrameException("Unknown IPC frame type: " + type);
+        }
+        
+        if (in.readableBytes() < 4) {
+            return null;
+        }
+        final int count = in.getInt(in.readerIndex());
+        if (count < 0) {
+            throw new CorruptedFrameException("Invalid IPC batch frame size: " + count);
+        }
+        
+        // Check that the whole batch has arrived before decoding any of it.
+        int index = in.readerIndex() + 4;
+        for (int remaining = count; remaining > 0; remaining--) {
+            if (!IPCFrameDecoder.hasString(in, index)) {
+                return null;
+            }
+            index += 2 + in.getUnsignedShort(index);
+        }
+        
+        in.skipBytes(4);
+        final ByteBufInputStream input = new ByteBufInputStream(in);
+        final List<String> messages = new ArrayList<String>(count);
+        for (int remaining = count; remaining > 0; remaining--) {
+            messages.add(DataInputStream.readUTF(input));
+        }
+        return IPCFrame.batch(messages);
+    }
+    
+    /**
+     * Checks whether a whole {@link String}, as written by
+     * {@link java.io.DataOutput#writeUTF(String)}, is readable from the given
+     * {@link ByteBuf} at the given index.
+     * 
+     * @param in The {@link ByteBuf} to check.
+     * @param index The index the {@link String} starts at.
+     * @return {@code true} if the whole {@link String} is readable,
+     *         {@code false} otherwise.
+     */
+    private static boolean hasString(@NotNull final ByteBuf in, final int index) {
+        return in.writerIndex() - index >= 2 && in.writerIndex() - index - 2 >= in.getUnsignedShort(index);
+    }
+}
@@ -0,0 +1,60 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+import java.io.DataOutputStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Encodes {@link IPCFrame IPCFrames} into the bytes sent on an IPC
+ * connection.
+ * <p>
+ * Each {@link IPCFrame} is encoded into its own (pooled, direct) buffer
+ * before anything is written, so an {@link IPCFrame} carrying a
+ * {@link String} that is too long to be encoded fails on its own, without
+ * leaving a partial frame on the connection.
+ */
+public final class IPCFrameEncoder extends MessageToByteEncoder<IPCFrame> {
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void encode(@NotNull final ChannelHandlerContext ctx, @NotNull final IPCFrame frame, @NotNull final ByteBuf out) throws Exception {
+        
+        out.writeByte(frame.getType());
+        if (frame.getType() == IPCFrame.BATCH) {
+            out.writeInt(frame.getPayload().size());
+        } else if (frame.getType() == IPCFrame.HANDSHAKE) {
+            out.writeInt(frame.getVersion());
+        } else if (frame.getType() == IPCFrame.PING || frame.getType() == IPCFrame.PONG) {
+            out.writeLong(frame.getToken());
+        }
+        
+        final DataOutputStream output = new DataOutputStream(new ByteBufOutputStream(out));
+        for (final String value : frame.getPayload()) {
+            output.writeUTF(value);
+        }
+    }
+}
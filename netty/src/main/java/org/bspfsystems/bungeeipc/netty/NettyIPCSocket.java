@@ -0,0 +1,621 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.io.UTFDataFormatException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.net.ssl.SSLEngine;
+import org.bspfsystems.bungeeipc.api.common.ExpiryCounters;
+import org.bspfsystems.bungeeipc.api.common.IPCFrameCodec;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.bspfsystems.bungeeipc.api.common.IPCProtocolException;
+import org.bspfsystems.bungeeipc.api.common.IPCSendException;
+import org.bspfsystems.bungeeipc.api.common.IPCSocket;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the parts of an {@link IPCSocket} built on Netty that are the
+ * same for the BungeeCord proxy and the Bukkit servers.
+ * <p>
+ * Each {@link IPCSocket} has at most one connected {@link Channel}. Sending
+ * an {@link IPCMessage} writes its {@link IPCFrame} to the {@link Channel}
+ * from the calling thread, and never blocks on the connection. Flushes are
+ * coalesced into a single task on the {@link Channel Channel's} event loop,
+ * so that bursts of {@link IPCMessage IPCMessages} are sent with as few
+ * writes to the connection as possible. The number of
+ * {@link IPCMessage IPCMessages} written but not yet sent is bounded by the
+ * send queue capacity, with the same watermarks as the blocking
+ * {@link IPCSocket IPCSockets}.
+ * <p>
+ * Implementations are responsible for opening the connection (binding or
+ * connecting), initializing each {@link Channel} with
+ * {@link #initChannel(Channel, SSLEngine)}, writing the handshake
+ * {@link IPCFrame} when connected, and handling the received
+ * {@link IPCFrame IPCFrames}. The first {@link IPCFrame} received on each
+ * {@link Channel} must be a handshake {@link IPCFrame} with the same
+ * {@link IPCFrameCodec#PROTOCOL_VERSION}, or the {@link Channel} is closed.
+ */
+public abstract class NettyIPCSocket implements IPCSocket {
+    
+    private final Logger logger;
+    private final String description;
+    private final ExpiryCounters expiryCounters;
+    
+    private final int sendQueueCapacity;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final long pingInterval;
+    
+    private final AtomicBoolean running;
+    private final AtomicReference<Channel> channel;
+    private final AtomicInteger queueDepth;
+    private final AtomicBoolean flushScheduled;
+    private final AtomicBoolean writable;
+    private final Queue<Runnable> writableCallbacks;
+    private final Queue<Runnable> completions;
+    private final AtomicBoolean completionScheduled;
+    
+    // Only accessed on the event loop of the connected Channel.
+    private long readPausedUntil;
+    
+    /**
+     * Constructs a new {@link NettyIPCSocket}.
+     * 
+     * @param logger The {@link Logger} of the plugin.
+     * @param description The description of this {@link NettyIPCSocket} used
+     *                    in messages, such as {@code "IPC Client"}.
+     * @param expiryCounters The {@link ExpiryCounters} to count the expired
+     *                       {@link IPCMessage IPCMessages} discarded instead
+     *                       of being sent in.
+     * @param sendQueueCapacity The maximum number of
+     *                          {@link IPCMessage IPCMessages} that may be
+     *                          waiting to be sent at any one time.
+     * @param pingInterval The interval between the ping {@link IPCFrame
+     *                     IPCFrames} sent on each connection to measure its
+     *                     round trip time, in nanoseconds, or {@code 0} to
+     *                     send none.
+     * @throws IllegalArgumentException If the send queue capacity is less
+     *                                  than {@code 1}.
+     */
+    protected NettyIPCSocket(@NotNull final Logger logger, @NotNull final String description, @NotNull final ExpiryCounters expiryCounters, final int sendQueueCapacity, final long pingInterval) throws IllegalArgumentException {
+        
+        if (sendQueueCapacity < 1) {
+            throw new IllegalArgumentException("Send queue capacity must be at least 1.");
+        }
+        
+        this.logger = logger;
+        this.description = description;
+        this.expiryCounters = expiryCounters;
+        
+        this.sendQueueCapacity = sendQueueCapacity;
+        this.highWatermark = Math.max(1, this.sendQueueCapacity / 2);
+        this.lowWatermark = this.sendQueueCapacity / 4;
+        this.pingInterval = pingInterval;
+        
+        this.running = new AtomicBoolean(false);
+        this.channel = new AtomicReference<Channel>(null);
+        this.queueDepth = new AtomicInteger(0);
+        this.flushScheduled = new AtomicBoolean(false);
+        this.writable = new AtomicBoolean(false);
+        this.writableCallbacks = new ConcurrentLinkedQueue<Runnable>();
+        this.completions = new ConcurrentLinkedQueue<Runnable>();
+        this.completionScheduled = new AtomicBoolean(false);
+    }
+    
+    /**
+     * Opens the connection, by binding to the configured address or by
+     * connecting to the IPC server. This must not block.
+     */
+    protected abstract void open();
+    
+    /**
+     * Closes anything opened by {@link #open()}, such as the bound server
+     * {@link Channel} or a scheduled reconnect. The connected
+     * {@link Channel}, if any, is closed separately.
+     */
+    protected abstract void close();
+    
+    /**
+     * Called on the event loop when a {@link Channel} has been connected,
+     * before it is used to send any {@link IPCMessage IPCMessages}. If the
+     * {@link Channel} is accepted, a handshake {@link IPCFrame} must be
+     * written to it before returning.
+     * 
+     * @param channel The connected {@link Channel}.
+     * @return {@code true} to accept the {@link Channel}, {@code false} to
+     *         close it.
+     */
+    protected abstract boolean connected(@NotNull final Channel channel);
+    
+    /**
+     * Called on the event loop when the accepted {@link Channel} has been
+     * disconnected.
+     */
+    protected abstract void disconnected();
+    
+    /**
+     * Called on the event loop when the first {@link IPCFrame} received on
+     * the accepted {@link Channel} is not a handshake {@link IPCFrame} with
+     * the same {@link IPCFrameCodec#PROTOCOL_VERSION}. The {@link Channel} is
+     * closed afterwards.
+     * 
+     * @param e The {@link IPCProtocolException} describing the mismatch.
+     */
+    protected abstract void handshakeFailed(@NotNull final IPCProtocolException e);
+    
+    /**
+     * Called on the event loop for each {@link IPCFrame} received on the
+     * accepted {@link Channel}, starting with the handshake {@link IPCFrame}.
+     * 
+     * @param frame The received {@link IPCFrame}.
+     * @throws Exception If the {@link IPCFrame} could not be handled, in which
+     *                   case the connection is closed.
+     */
+    protected abstract void received(@NotNull final IPCFrame frame) throws Exception;
+    
+    /**
+     * Called on the event loop when a pong {@link IPCFrame} answering one of
+     * the ping {@link IPCFrame IPCFrames} sent by this {@link NettyIPCSocket}
+     * has been received. Ping and pong {@link IPCFrame IPCFrames} are not
+     * passed to {@link #received(IPCFrame)}.
+     * 
+     * @param roundTripTime The round trip time of the connection, in
+     *                      nanoseconds.
+     */
+    protected void roundTripMeasured(final long roundTripTime) {
+        // Do nothing.
+    }
+    
+    /**
+     * Runs a callback registered with {@link #onWritable(Runnable)}, or the
+     * completion of the results of sent {@link IPCMessage IPCMessages}, on
+     * the appropriate thread.
+     * 
+     * @param callback The callback to run.
+     */
+    protected abstract void runCallback(@NotNull final Runnable callback);
+    
+    /**
+     * Initializes the pipeline of a new {@link Channel}, with SSL/TLS (if
+     * enabled), the {@link IPCFrame} codec, and the handler that passes the
+     * received {@link IPCFrame IPCFrames} to this {@link NettyIPCSocket}.
+     * 
+     * @param channel The new {@link Channel}.
+     * @param sslEngine The {@link SSLEngine} for SSL/TLS encryption on the
+     *                  connection, or {@code null} if it is not encrypted.
+     */
+    protected final void initChannel(@NotNull final Channel channel, @Nullable final SSLEngine sslEngine) {
+        
+        final ChannelPipeline pipeline = channel.pipeline();
+        if (sslEngine != null) {
+            pipeline.addLast("ssl", new SslHandler(sslEngine));
+        }
+        pipeline.addLast("frame-decoder", new IPCFrameDecoder());
+        pipeline.addLast("frame-encoder", new IPCFrameEncoder());
+        pipeline.addLast("handler", new FrameHandler());
+    }
+    
+    /**
+     * Stops reading from the connected {@link Channel} for the given number
+     * of nanoseconds, extending any pause already in progress. This must be
+     * called on the event loop, such as from {@link #received(IPCFrame)}.
+     * 
+     * @param nanos The number of nanoseconds to stop reading for.
+     */
+    protected final void pauseReading(final long nanos) {
+        
+        final Channel channel = this.channel.get();
+        if (channel == null) {
+            return;
+        }
+        
+        final long until = System.nanoTime() + nanos;
+        if (channel.config().isAutoRead() || until - this.readPausedUntil > 0L) {
+            this.readPausedUntil = until;
+        }
+        channel.config().setAutoRead(false);
+        channel.eventLoop().schedule(() -> {
+            if (System.nanoTime() - this.readPausedUntil >= 0L) {
+                channel.config().setAutoRead(true);
+            }
+        }, nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Gets the {@link Logger} of the plugin.
+     * 
+     * @return The {@link Logger} of the plugin.
+     */
+    @NotNull
+    protected final Logger getLogger() {
+        return this.logger;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isRunning() {
+        return this.running.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isConnected() {
+        final Channel channel = this.channel.get();
+        return this.running.get() && channel != null && channel.isActive();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The Netty event loops do all of the work, so there is nothing to run.
+     */
+    @Override
+    public final void run() {
+        // Do nothing.
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void start() {
+        this.running.set(true);
+        this.open();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void stop() {
+        
+        this.running.set(false);
+        this.close();
+        
+        final Channel channel = this.channel.getAndSet(null);
+        if (channel != null) {
+            channel.close();
+        }
+        this.writable.set(false);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This never blocks on the connection itself, and is therefore safe to
+     * call from any thread.
+     */
+    @Override
+    public final void sendMessage(@NotNull final IPCMessage message) {
+        this.sendAsync(message).exceptionally(e -> {
+            this.logger.log(Level.WARNING, "Unable to send IPC message.");
+            this.logger.log(Level.WARNING, e.getMessage());
+            return null;
+        });
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This never blocks on the connection itself, and is therefore safe to
+     * call from any thread.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendAsync(@NotNull final IPCMessage message) {
+        return this.send(Collections.singletonList(message), false);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This never blocks on the connection itself, and is therefore safe to
+     * call from any thread.
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<Void> sendBatch(@NotNull final Collection<IPCMessage> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return this.send(new ArrayList<IPCMessage>(messages), true);
+    }
+    
+    /**
+     * Writes the given {@link IPCMessage IPCMessages} to the connected
+     * {@link Channel} as a single {@link IPCFrame}, and schedules a flush.
+     * If any of them has expired, they are all discarded instead, so that a
+     * batch is sent whole or not at all.
+     * 
+     * @param messages The {@link IPCMessage IPCMessages} to send.
+     * @param batch {@code true} if the {@link IPCMessage IPCMessages} should
+     *              be written as a batch frame, {@code false} if there is a
+     *              single {@link IPCMessage} to write as a message frame.
+     * @return A {@link CompletableFuture} that completes when the
+     *         {@link IPCMessage IPCMessages} have been sent.
+     */
+    @NotNull
+    protected final CompletableFuture<Void> send(@NotNull final List<IPCMessage> messages, final boolean batch) {
+        
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        final Channel channel = this.channel.get();
+        if (!this.running.get() || channel == null || !channel.isActive()) {
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.NOT_CONNECTED, this.description + " is not connected."));
+            return future;
+        }
+        
+        // A batch is sent whole or not at all, so one expired IPCMessage
+        // discards the whole batch.
+        final List<IPCMessage> live = this.expiryCounters.discardExpired(messages, ExpiryCounters.Stage.SEND);
+        if (live.size() != messages.size()) {
+            final String expired = messages.size() == 1 ? "IPC message expired" : "IPC batch of " + messages.size() + " messages discarded, " + (messages.size() - live.size()) + " of them expired";
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.EXPIRED, expired + " before it was sent by " + this.description + "."));
+            return future;
+        }
+        
+        final int count = live.size();
+        final int depth = this.queueDepth.addAndGet(count);
+        if (depth > this.sendQueueCapacity) {
+            this.queueDepth.addAndGet(-count);
+            future.completeExceptionally(new IPCSendException(IPCSendException.Reason.QUEUE_FULL, this.description + " send queue is full (" + this.sendQueueCapacity + " messages)."));
+            return future;
+        }
+        if (depth >= this.highWatermark) {
+            this.writable.set(false);
+        }
+        
+        final IPCFrame frame;
+        if (batch) {
+            final List<String> payload = new ArrayList<String>(count);
+            for (final IPCMessage message : live) {
+                payload.add(message.write());
+            }
+            frame = IPCFrame.batch(payload);
+        } else {
+            frame = IPCFrame.message(live.get(0).write());
+        }
+        
+        channel.write(frame).addListener((ChannelFutureListener) result -> {
+            this.sent(count);
+            if (result.isSuccess()) {
+                this.complete(() -> future.complete(null));
+            } else if (result.cause() instanceof EncoderException && result.cause().getCause() instanceof UTFDataFormatException) {
+                this.complete(() -> future.completeExceptionally(new IPCSendException(IPCSendException.Reason.TOO_LARGE, "IPC message too large to send.", result.cause().getCause())));
+            } else {
+                this.complete(() -> future.completeExceptionally(new IPCSendException(IPCSendException.Reason.CONNECTION_LOST, "IPC connection broken before the IPC message was sent.", result.cause())));
+            }
+        });
+        
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(() -> {
+                this.flushScheduled.set(false);
+                channel.flush();
+            });
+        }
+        return future;
+    }
+    
+    /**
+     * Completes the result of {@link IPCMessage IPCMessages} that have left
+     * the send queue through {@link #runCallback(Runnable)}, so that the
+     * actions depending on it do not hold up the event loop. Completions are
+     * gathered into as few callbacks as possible. If a callback cannot be
+     * run, such as while the plugin is being disabled, the completions are
+     * run on the event loop instead.
+     * 
+     * @param completion The completion to run.
+     */
+    private void complete(@NotNull final Runnable completion) {
+        
+        this.completions.offer(completion);
+        if (!this.completionScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        
+        final Runnable drain = () -> {
+            this.completionScheduled.set(false);
+            Runnable next = this.completions.poll();
+            while (next != null) {
+                next.run();
+                next = this.completions.poll();
+            }
+        };
+        try {
+            this.runCallback(drain);
+        } catch (final RuntimeException e) {
+            drain.run();
+        }
+    }
+    
+    /**
+     * Accounts for {@link IPCMessage IPCMessages} that have left the send
+     * queue, whether they were sent or not, and runs the writable callbacks
+     * once the send queue has drained to the low watermark.
+     * 
+     * @param count The number of {@link IPCMessage IPCMessages}.
+     */
+    private void sent(final int count) {
+        final int depth = this.queueDepth.addAndGet(-count);
+        if (depth <= this.lowWatermark && this.isConnected() && this.writable.compareAndSet(false, true)) {
+            this.runWritableCallbacks();
+        }
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final boolean isWritable() {
+        return this.isConnected() && this.writable.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int getQueueDepth() {
+        return this.queueDepth.get();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void onWritable(@NotNull final Runnable callback) {
+        this.writableCallbacks.offer(callback);
+        if (this.isWritable()) {
+            this.runWritableCallbacks();
+        }
+    }
+    
+    /**
+     * Runs all registered writable callbacks through
+     * {@link #runCallback(Runnable)}, removing them in the process.
+     */
+    private void runWritableCallbacks() {
+        Runnable callback = this.writableCallbacks.poll();
+        while (callback != null) {
+            this.runCallback(callback);
+            callback = this.writableCallbacks.poll();
+        }
+    }
+    
+    /**
+     * Represents the last handler in the pipeline of each {@link Channel},
+     * which tracks the connected {@link Channel} and passes the received
+     * {@link IPCFrame IPCFrames} to the {@link NettyIPCSocket}.
+     */
+    private final class FrameHandler extends SimpleChannelInboundHandler<IPCFrame> {
+        
+        private boolean handshaken;
+        private ScheduledFuture<?> pinger;
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void channelActive(@NotNull final ChannelHandlerContext ctx) throws Exception {
+            
+            final Channel channel = ctx.channel();
+            if (!NettyIPCSocket.this.running.get()) {
+                channel.close();
+                return;
+            }
+            if (!NettyIPCSocket.this.channel.compareAndSet(null, channel)) {
+                NettyIPCSocket.this.logger.log(Level.WARNING, NettyIPCSocket.this.description + " is already connected, rejecting connection from " + channel.remoteAddress() + ".");
+                channel.close();
+                return;
+            }
+            
+            // Other threads may already see the Channel, but anything they
+            // write is queued behind this task on the event loop.
+            if (!NettyIPCSocket.this.connected(channel)) {
+                NettyIPCSocket.this.channel.compareAndSet(channel, null);
+                channel.close();
+                return;
+            }
+            
+            if (NettyIPCSocket.this.pingInterval > 0L) {
+                this.pinger = channel.eventLoop().scheduleAtFixedRate(() -> channel.writeAndFlush(IPCFrame.ping(System.nanoTime())), NettyIPCSocket.this.pingInterval, NettyIPCSocket.this.pingInterval, TimeUnit.NANOSECONDS);
+            }
+            NettyIPCSocket.this.writable.set(NettyIPCSocket.this.queueDepth.get() < NettyIPCSocket.this.highWatermark);
+            if (NettyIPCSocket.this.writable.get()) {
+                NettyIPCSocket.this.runWritableCallbacks();
+            }
+            super.channelActive(ctx);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void channelRead0(@NotNull final ChannelHandlerContext ctx, @NotNull final IPCFrame frame) throws Exception {
+            if (NettyIPCSocket.this.channel.get() != ctx.channel()) {
+                return;
+            }
+            if (!this.handshaken) {
+                try {
+                    IPCFrameCodec.checkHandshake(frame.getType(), frame.getVersion());
+                } catch (final IPCProtocolException e) {
+                    NettyIPCSocket.this.handshakeFailed(e);
+                    ctx.close();
+                    return;
+                }
+                this.handshaken = true;
+            }
+            if (frame.getType() == IPCFrame.PING) {
+                ctx.writeAndFlush(IPCFrame.pong(frame.getToken()));
+            } else if (frame.getType() == IPCFrame.PONG) {
+                NettyIPCSocket.this.roundTripMeasured(System.nanoTime() - frame.getToken());
+            } else {
+                NettyIPCSocket.this.received(frame);
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void channelInactive(@NotNull final ChannelHandlerContext ctx) throws Exception {
+            if (this.pinger != null) {
+                this.pinger.cancel(false);
+            }
+            if (NettyIPCSocket.this.channel.compareAndSet(ctx.channel(), null)) {
+                NettyIPCSocket.this.writable.set(false);
+                NettyIPCSocket.this.disconnected();
+            }
+            super.channelInactive(ctx);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void exceptionCaught(@NotNull final ChannelHandlerContext ctx, @NotNull final Throwable cause) {
+            NettyIPCSocket.this.logger.log(Level.FINE, cause.getClass().getSimpleName() + " thrown on " + NettyIPCSocket.this.description + " connection.", cause);
+            ctx.close();
+        }
+    }
+}
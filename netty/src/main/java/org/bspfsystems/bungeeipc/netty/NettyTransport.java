@@ -0,0 +1,146 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the Netty event loops shared by all Netty-based IPC sockets of
+ * a plugin, along with the channel types they use.
+ * <p>
+ * The native epoll transport is used where it is available (on Linux, with
+ * the native library that BungeeCord and Bukkit ship with), and the NIO
+ * transport otherwise. All channels allocate their buffers from the pooled
+ * allocator, which prefers direct buffers.
+ */
+public final class NettyTransport {
+    
+    private final boolean epoll;
+    private final EventLoopGroup group;
+    
+    /**
+     * Constructs a new {@link NettyTransport}.
+     * 
+     * @param name The name of the event loop threads.
+     * @param threads The number of event loop threads, or {@code 0} to use
+     *                Netty's default.
+     */
+    public NettyTransport(@NotNull final String name, final int threads) {
+        
+        final ThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+        this.epoll = Epoll.isAvailable();
+        if (this.epoll) {
+            this.group = new EpollEventLoopGroup(threads, threadFactory);
+        } else {
+            this.group = new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+    
+    /**
+     * Gets whether this {@link NettyTransport} uses the native epoll
+     * transport.
+     * 
+     * @return {@code true} if the native epoll transport is used,
+     *         {@code false} if the NIO transport is used.
+     */
+    public boolean isEpoll() {
+        return this.epoll;
+    }
+    
+    /**
+     * Creates a new {@link ServerBootstrap} using the event loops and server
+     * channel type of this {@link NettyTransport}.
+     * 
+     * @return The new {@link ServerBootstrap}.
+     */
+    @NotNull
+    public ServerBootstrap newServerBootstrap() {
+        
+        final ServerBootstrap bootstrap = new ServerBootstrap().group(this.group);
+        if (this.epoll) {
+            bootstrap.channel(EpollServerSocketChannel.class);
+        } else {
+            bootstrap.channel(NioServerSocketChannel.class);
+        }
+        bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
+        return bootstrap;
+    }
+    
+    /**
+     * Creates a new {@link Bootstrap} using the event loops and channel type
+     * of this {@link NettyTransport}.
+     * 
+     * @return The new {@link Bootstrap}.
+     */
+    @NotNull
+    public Bootstrap newBootstrap() {
+        
+        final Bootstrap bootstrap = new Bootstrap().group(this.group);
+        if (this.epoll) {
+            bootstrap.channel(EpollSocketChannel.class);
+        } else {
+            bootstrap.channel(NioSocketChannel.class);
+        }
+        bootstrap.option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        return bootstrap;
+    }
+    
+    /**
+     * Schedules the given task to run on one of the event loops of this
+     * {@link NettyTransport} after the given delay.
+     * 
+     * @param task The task to run.
+     * @param delay The delay before the task is run.
+     * @param unit The {@link TimeUnit} of the delay.
+     * @return The {@link ScheduledFuture} of the task, which may be used to
+     *         cancel it.
+     */
+    @NotNull
+    public ScheduledFuture<?> schedule(@NotNull final Runnable task, final long delay, @NotNull final TimeUnit unit) {
+        return this.group.schedule(task, delay, unit);
+    }
+    
+    /**
+     * Shuts down the event loops of this {@link NettyTransport}. Any channels
+     * still open on them are closed.
+     */
+    public void shutdown() {
+        this.group.shutdownGracefully();
+    }
+}
@@ -0,0 +1,90 @@
+/* 
+ * This file is part of the BungeeIPC plugins for
+ * BungeeCord and Bukkit servers for Minecraft.
+ * 
+ * Copyright 2020-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.bungeeipc.api.server;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.bspfsystems.bungeeipc.api.common.IPCMessage;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the replies gathered by a scatter-gather request.
+ * <p>
+ * If not every server replied before the request timed out, the result is
+ * partial, and the servers that did not reply are listed as missing.
+ * 
+ * @see ServerIPCPlugin#scatterGather(java.util.Collection, String, java.util.List, long, java.util.concurrent.TimeUnit, java.util.function.BiConsumer)
+ */
+public final class ScatterGatherResult {
+    
+    private final Map<String, IPCMessage> replies;
+    private final Set<String> missing;
+    
+    /**
+     * Constructs a new {@link ScatterGatherResult}.
+     * 
+     * @param replies The reply {@link IPCMessage IPCMessages}, by the name of
+     *                the server that sent them.
+     * @param missing The names of the servers the request was sent to that
+     *                did not reply.
+     */
+    public ScatterGatherResult(@NotNull final Map<String, IPCMessage> replies, @NotNull final Set<String> missing) {
+        this.replies = Collections.unmodifiableMap(new LinkedHashMap<String, IPCMessage>(replies));
+        this.missing = Collections.unmodifiableSet(new LinkedHashSet<String>(missing));
+    }
+    
+    /**
+     * Gets the reply {@link IPCMessage IPCMessages}, by the name of the server
+     * that sent them, in the order they were received.
+     * <p>
+     * The request ID has already been read from each reply.
+     * 
+     * @return The reply {@link IPCMessage IPCMessages}.
+     */
+    @NotNull
+    public Map<String, IPCMessage> getReplies() {
+        return this.replies;
+    }
+    
+    /**
+     * Gets the names of the servers the request was sent to that did not
+     * reply, either because the request could not be sent to them or because
+     * the request timed out first.
+     * 
+     * @return The names of the servers that did not reply.
+     */
+    @NotNull
+    public Set<String> getMissing() {
+        return this.missing;
+    }
+    
+    /**
+     * Checks if every server the request was sent to replied.
+     * 
+     * @return {@code true} if there are no missing replies, {@code false} if
+     *         this result is partial.
+     */
+    public boolean isComplete() {
+        return this.missing.isEmpty();
+    }
+}
@@ -19,10 +19,16 @@
 
 package org.bspfsystems.bungeeipc.api.server;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import org.bspfsystems.bungeeipc.api.common.IPCMessage;
 import org.bspfsystems.bungeeipc.api.common.IPCPlugin;
 import org.bspfsystems.bungeeipc.api.common.IPCSocket;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Represents the server-side version of the {@link IPCPlugin}.
@@ -66,6 +72,30 @@ public interface ServerIPCPlugin extends IPCPlugin {
      */
     boolean isServerConnected(@NotNull final String name);
     
+    /**
+     * Checks to see if the specified {@link ServerIPCSocket} is writable or
+     * not.
+     * <p>
+     * This will always return {@code false} if
+     * {@link ServerIPCPlugin#isServerConnected(String)} returns {@code false}.
+     * 
+     * @param name The name of the {@link ServerIPCSocket} to check.
+     * @return {@code true} if the {@link ServerIPCSocket} is writable,
+     *         {@code false} otherwise.
+     * @see IPCSocket#isWritable()
+     */
+    boolean isServerWritable(@NotNull final String name);
+    
+    /**
+     * Registers the given {@link Runnable} to be run once the specified
+     * {@link ServerIPCSocket} becomes writable.
+     * 
+     * @param name The name of the {@link ServerIPCSocket} to watch.
+     * @param callback The {@link Runnable} to run.
+     * @see IPCSocket#onWritable(Runnable)
+     */
+    void onServerWritable(@NotNull final String name, @NotNull final Runnable callback);
+    
     /**
      * Restarts the specified {@link ServerIPCSocket}. This does not restart the
      * actual Minecraft server.
@@ -77,8 +107,55 @@ public interface ServerIPCPlugin extends IPCPlugin {
     /**
      * Broadcasts the given {@link IPCMessage} to all {@link ServerIPCSocket}s,
      * thus reaching all of the connected Minecraft servers.
+     * <p>
+     * Minecraft servers advertise the channels they have an
+     * {@link org.bspfsystems.bungeeipc.api.common.IPCReader} registered for,
+     * and the {@link IPCMessage} is only sent to the servers that have
+     * advertised its channel (or have not advertised any channels at all).
      * 
      * @param message The {@link IPCMessage} to broadcast.
      */
     void broadcastMessage(@NotNull final IPCMessage message);
+    
+    /**
+     * Sends a scatter-gather request to the given servers in parallel, and
+     * gathers their replies.
+     * <p>
+     * Each server is sent an {@link IPCMessage} on the given channel, whose
+     * first data item is a request ID followed by the given data. A server
+     * replies by sending an {@link IPCMessage} to the BungeeCord proxy on
+     * {@link IPCMessage#REPLY_CHANNEL}, with the request ID as its first data
+     * item (such as one created by
+     * {@code ClientIPCMessage.newReply(IPCMessage)}). Only the first reply
+     * from each server is gathered.
+     * <p>
+     * If {@link IPCMessage#BROADCAST_SERVER} is given as a server, the
+     * request is sent to every connected server that
+     * {@link ServerIPCPlugin#broadcastMessage(IPCMessage)} would send to.
+     * <p>
+     * The returned {@link CompletableFuture} completes once every server has
+     * replied, or once the timeout passes, whichever is first. In the latter
+     * case, the {@link ScatterGatherResult} is partial. It never completes
+     * exceptionally, as servers the request could not be sent to are listed
+     * as missing.
+     * 
+     * @param servers The names of the servers to send the request to.
+     * @param channel The channel the request will be read by.
+     * @param data The data of the request, after the request ID.
+     * @param timeout The maximum time to wait for replies.
+     * @param unit The {@link TimeUnit} of the timeout.
+     * @param onReply A callback run with the server name and reply
+     *                {@link IPCMessage} as each reply is received, before
+     *                all replies have been gathered. It is run on the thread
+     *                handling the reply, and should return quickly. May be
+     *                {@code null}.
+     * @return A {@link CompletableFuture} that completes with the gathered
+     *         replies.
+     * @throws IllegalArgumentException If the request cannot be created with
+     *                                  the given channel and data.
+     * @throws IllegalStateException If the given data is too much to send in
+     *                               a single {@link IPCMessage}.
+     */
+    @NotNull
+    CompletableFuture<ScatterGatherResult> scatterGather(@NotNull final Collection<String> servers, @NotNull final String channel, @NotNull final List<String> data, final long timeout, @NotNull final TimeUnit unit, @Nullable final BiConsumer<String, IPCMessage> onReply) throws IllegalArgumentException, IllegalStateException;
 }